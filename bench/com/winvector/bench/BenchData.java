@@ -0,0 +1,94 @@
+package com.winvector.bench;
+
+import java.util.Random;
+
+import com.winvector.linalg.LinalgFactory;
+import com.winvector.linalg.Matrix;
+import com.winvector.linalg.colt.ColtMatrix;
+import com.winvector.linalg.colt.NativeMatrix;
+import com.winvector.linalg.dense.FlatMatrix;
+import com.winvector.linalg.jblas.JBlasMatrix;
+import com.winvector.linalg.sparse.ColumnMatrix;
+import com.winvector.linalg.sparse.SparseVec;
+
+/**
+ * deterministic benchmark inputs (fixed seeds, so runs are comparable)
+ * @author johnmount
+ *
+ */
+public final class BenchData {
+	private BenchData() {
+	}
+
+	public static LinalgFactory<?> factory(final String backend) {
+		if("colt".equals(backend)) {
+			return ColtMatrix.factory;
+		}
+		if("native".equals(backend)) {
+			return NativeMatrix.factory;
+		}
+		if("jblas".equals(backend)) {
+			return JBlasMatrix.factory;
+		}
+		if("flat".equals(backend)) {
+			return FlatMatrix.factory;
+		}
+		throw new IllegalArgumentException("unknown backend: " + backend);
+	}
+
+	/**
+	 * @param rows
+	 * @param extraCols
+	 * @param nnzPerCol non-zeros in each extra column
+	 * @param seed
+	 * @return [I | R] with R random sparse, so columns 0..rows-1 form a basis
+	 */
+	public static ColumnMatrix slackMatrix(final int rows, final int extraCols, final int nnzPerCol, final long seed) {
+		final Random rand = new Random(seed);
+		final SparseVec[] cols = new SparseVec[rows+extraCols];
+		for(int i=0;i<rows;++i) {
+			cols[i] = SparseVec.sparseVec(rows,i,1.0);
+		}
+		final int k = Math.min(rows,nnzPerCol);
+		for(int j=0;j<extraCols;++j) {
+			final double[] x = new double[rows];
+			int placed = 0;
+			while(placed<k) {
+				final int i = rand.nextInt(rows);
+				if(x[i]==0.0) {
+					x[i] = 0.5 + rand.nextDouble();
+					++placed;
+				}
+			}
+			cols[rows+j] = SparseVec.sparseVec(x);
+		}
+		return new ColumnMatrix(rows,cols);
+	}
+
+	/**
+	 * @param factory
+	 * @param n
+	 * @param seed
+	 * @return random diagonally dominant (so well conditioned) n by n matrix
+	 */
+	public static <T extends Matrix<T>> T denseMatrix(final LinalgFactory<T> factory, final int n, final long seed) {
+		final Random rand = new Random(seed);
+		final T m = factory.newMatrix(n,n,false);
+		for(int i=0;i<n;++i) {
+			for(int j=0;j<n;++j) {
+				m.set(i,j,rand.nextDouble()-0.5);
+			}
+			m.set(i,i,n);
+		}
+		return m;
+	}
+
+	public static double[] vector(final int n, final long seed) {
+		final Random rand = new Random(seed);
+		final double[] x = new double[n];
+		for(int i=0;i<n;++i) {
+			x[i] = rand.nextDouble()-0.5;
+		}
+		return x;
+	}
+}
@@ -0,0 +1,29 @@
+package com.winvector.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * run the kernel benchmarks and write JMH JSON results (for diffing against a previous run).
+ * usage: BenchMain [resultFile [includeRegexp]]
+ * @author johnmount
+ *
+ */
+public final class BenchMain {
+	private BenchMain() {
+	}
+
+	public static void main(final String[] args) throws RunnerException {
+		final String resultFile = args.length>0?args[0]:"jmh-result.json";
+		final String include = args.length>1?args[1]:"com\\.winvector\\..*Bench.*";
+		final Options opts = new OptionsBuilder()
+			.include(include)
+			.resultFormat(ResultFormatType.JSON)
+			.result(resultFile)
+			.build();
+		new Runner(opts).run();
+	}
+}
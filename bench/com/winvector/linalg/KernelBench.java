@@ -0,0 +1,86 @@
+package com.winvector.linalg;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.winvector.bench.BenchData;
+
+/**
+ * per-kernel scalar versus Vector API timings (the vector rows need simd/ on the classpath;
+ * the fork is started with --add-modules jdk.incubator.vector)
+ * @author johnmount
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class KernelBench {
+	@Param({"64", "1024", "16384"})
+	public int n;
+
+	@Param({"scalar", "vector"})
+	public String impl;
+
+	private Kernels k;
+	private double[] x;
+	private double[] y;
+	private int[] indices;
+	private double[] values;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		k = "vector".equals(impl)?Kernels.load(Kernels.VECTOR_CLASS):Kernels.scalar;
+		if(null==k) {
+			throw new IllegalStateException("Vector API kernels not available");
+		}
+		x = BenchData.vector(n,1234L);
+		y = BenchData.vector(n,4321L);
+		// every 4th position, the density of a typical sparse column against a dense dual vector
+		final Random rand = new Random(77L);
+		final int nnz = n/4;
+		indices = new int[nnz];
+		values = new double[nnz];
+		for(int ii=0;ii<nnz;++ii) {
+			indices[ii] = 4*ii + rand.nextInt(4);
+			values[ii] = rand.nextDouble();
+		}
+	}
+
+	@Benchmark
+	public double dot() {
+		return k.dot(x,y,n);
+	}
+
+	@Benchmark
+	public double sparseDot() {
+		return k.sparseDot(indices,values,indices.length,x);
+	}
+
+	@Benchmark
+	public double[] axpy() {
+		k.axpy(1.0e-9,x,0,y,0,n);
+		return y;
+	}
+
+	@Benchmark
+	public double[] sparseAxpy() {
+		k.sparseAxpy(1.0e-9,indices,values,indices.length,y);
+		return y;
+	}
+}
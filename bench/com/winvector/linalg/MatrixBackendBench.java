@@ -0,0 +1,78 @@
+package com.winvector.linalg;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.winvector.bench.BenchData;
+
+/**
+ * dense inverse, solve and products for each Matrix backend
+ * @author johnmount
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixBackendBench {
+	@Param({"50", "200", "500"})
+	public int n;
+
+	@Param({"native", "colt", "jblas", "flat"})
+	public String backend;
+
+	private Matrix<?> m;
+	private double[] y;
+	private Matrix<?> sq;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		m = BenchData.denseMatrix(BenchData.factory(backend),n,4321L);
+		y = BenchData.vector(n,1234L);
+		sq = m.inverse();
+	}
+
+	@Benchmark
+	public Matrix<?> inverse() {
+		return m.inverse();
+	}
+
+	@Benchmark
+	public double[] solve() {
+		return m.solve(y);
+	}
+
+	@Benchmark
+	public double[] mult() {
+		return m.mult(y);
+	}
+
+	@Benchmark
+	public double[] multLeft() {
+		return m.multLeft(y);
+	}
+
+	@Benchmark
+	public Matrix<?> multMat() {
+		return multMat(m,sq);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T extends Matrix<T>> T multMat(final Matrix<?> a, final Matrix<?> b) {
+		return ((T)a).multMat((T)b);
+	}
+}
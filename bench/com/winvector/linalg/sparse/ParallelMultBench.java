@@ -0,0 +1,74 @@
+package com.winvector.linalg.sparse;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.winvector.bench.BenchData;
+
+/**
+ * ColumnMatrix pool split products, for scaling against thread count (threads=1 is the pool overhead
+ * over the serial columnMatrixMult/columnMatrixMultLeft in SparseKernelBench)
+ * @author johnmount
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelMultBench {
+	@Param({"20000", "200000"})
+	public int rows;
+
+	@Param({"1", "2", "4", "8", "16", "32"})
+	public int threads;
+
+	private ColumnMatrix a;
+	private double[] x;
+	private double[] y;
+	private double[] ax;
+	private double[] ya;
+	private ForkJoinPool pool;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		a = BenchData.slackMatrix(rows,3*rows,5,2386L);
+		x = BenchData.vector(a.cols(),117L);
+		y = BenchData.vector(rows,118L);
+		ax = new double[a.rows()];
+		ya = new double[a.cols()];
+		pool = new ForkJoinPool(threads);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public double[] parallelMult() {
+		a.multInto(x,ax,pool);
+		return ax;
+	}
+
+	@Benchmark
+	public double[] parallelMultLeft() {
+		a.multLeftInto(y,ya,pool);
+		return ya;
+	}
+}
@@ -0,0 +1,99 @@
+package com.winvector.linalg.sparse;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.winvector.bench.BenchData;
+import com.winvector.linalg.colt.NativeMatrix;
+
+/**
+ * ColumnMatrix, TabularLinOp and HVec kernels
+ * @author johnmount
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SparseKernelBench {
+	@Param({"100", "1000", "5000"})
+	public int rows;
+
+	@Param({"5"})
+	public int nnzPerCol;
+
+	private ColumnMatrix a;
+	private double[] x;
+	private double[] y;
+	private SparseVec col;
+	private NativeMatrix dense;
+	private double[] xDense;
+	private TabularLinOp tab;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		a = BenchData.slackMatrix(rows,3*rows,nnzPerCol,2386L);
+		x = BenchData.vector(a.cols(),117L);
+		y = BenchData.vector(rows,118L);
+		col = a.extractColumn(rows);
+		// TabularLinOp is built from a dense matrix, keep that one small enough to allocate
+		final int dn = Math.min(rows,500);
+		dense = NativeMatrix.factory.matrixCopy(BenchData.slackMatrix(dn,0,1,1L));
+		for(int j=0;j<dn;j+=3) {
+			dense.set((j*7)%dn,j,0.25);
+		}
+		xDense = BenchData.vector(dn,119L);
+		tab = new TabularLinOp(dn,dn,dn*dn);
+		tab.setV(dense);
+	}
+
+	@Benchmark
+	public double[] columnMatrixMult() {
+		return a.mult(x);
+	}
+
+	@Benchmark
+	public double[] columnMatrixMultLeft() {
+		return a.multLeft(y);
+	}
+
+	@Benchmark
+	public ColumnMatrix columnMatrixTranspose() {
+		return a.transpose();
+	}
+
+	@Benchmark
+	public int[] columnMatrixColBasis() {
+		return a.colBasis(null,1.0e-7);
+	}
+
+	@Benchmark
+	public double hvecDot() {
+		return col.dot(y);
+	}
+
+	@Benchmark
+	public TabularLinOp tabularSetV() {
+		tab.setV(dense);
+		return tab;
+	}
+
+	@Benchmark
+	public double[] tabularMult() {
+		return tab.mult(xDense);
+	}
+}
@@ -0,0 +1,121 @@
+package com.winvector.lp.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.winvector.bench.BenchData;
+import com.winvector.linalg.DenseVec;
+import com.winvector.linalg.LinalgFactory;
+import com.winvector.linalg.Matrix;
+import com.winvector.linalg.sparse.ColumnMatrix;
+import com.winvector.linalg.sparse.SparseVec;
+import com.winvector.lp.LPEQProb;
+import com.winvector.lp.LPException;
+
+/**
+ * EnhancedBasis kernels on an [I | R] problem (lives in lp.impl to reach the package private basis)
+ * @author johnmount
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BasisBench {
+	@Param({"50", "200", "800"})
+	public int m;
+
+	@Param({"native", "colt"})
+	public String backend;
+
+	private LPEQProb prob;
+	private EnhancedBasis<?> basis;
+	private double[] y;
+	private SparseVec ys;
+	private double[] lambda;
+	private int nextEntering;
+
+	private static <T extends Matrix<T>> EnhancedBasis<T> buildBasis(final LPEQProb prob, final int[] b0, final LinalgFactory<T> factory) throws LPException {
+		return new EnhancedBasis<T>(prob,b0,factory);
+	}
+
+	@Setup(Level.Trial)
+	public void setup() throws Exception {
+		final int extra = 2*m;
+		final ColumnMatrix a = BenchData.slackMatrix(m,extra,5,53535L);
+		final double[] c = BenchData.vector(m+extra,7723L);
+		prob = new LPEQProb(a,new double[m],new DenseVec(c));
+		final int[] b0 = new int[m];
+		for(int i=0;i<m;++i) {
+			b0[i] = i;
+		}
+		basis = buildBasis(prob,b0,BenchData.factory(backend));
+		y = BenchData.vector(m,9931L);
+		ys = a.extractColumn(m);
+		lambda = basis.leftBasisSoln();
+		nextEntering = m;
+	}
+
+	@Benchmark
+	public double[] basisSolveRightDense() throws Exception {
+		return basis.basisSolveRight(y);
+	}
+
+	@Benchmark
+	public double[] basisSolveRightSparse() throws Exception {
+		return basis.basisSolveRight(ys);
+	}
+
+	@Benchmark
+	public double[] basisSolveLeft() throws Exception {
+		return basis.basisSolveLeft(y);
+	}
+
+	/**
+	 * pricing pass: reduced cost of every column
+	 */
+	@Benchmark
+	public double computeRI() {
+		double sum = 0.0;
+		final int n = prob.A.cols();
+		for(int v=0;v<n;++v) {
+			sum += basis.computeRI(lambda,v);
+		}
+		return sum;
+	}
+
+	/**
+	 * pivot a column in and then the original slack back out (so the basis stays fixed
+	 * across invocations); includes the two basis solves and amortized refactorization
+	 */
+	@Benchmark
+	public int basisPivotRoundTrip() throws Exception {
+		final int v = nextEntering;
+		nextEntering = (nextEntering+1<prob.A.cols())?nextEntering+1:m;
+		final double[] binvu = basis.basisSolveRight(prob.extractColumn(v));
+		int leaving = 0;
+		for(int i=1;i<m;++i) {
+			if(Math.abs(binvu[i])>Math.abs(binvu[leaving])) {
+				leaving = i;
+			}
+		}
+		basis.basisPivot(leaving,v,binvu);
+		final double[] binvuBack = basis.basisSolveRight(prob.extractColumn(leaving));
+		basis.basisPivot(leaving,leaving,binvuBack);
+		return leaving;
+	}
+}
@@ -0,0 +1,71 @@
+package com.winvector.linalg.simd;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import com.winvector.linalg.Kernels;
+
+/**
+ * Kernels on the Java Vector API (jdk.incubator.vector, JDK 16+): widest lane count the CPU has
+ * (4 doubles on AVX2, 8 on AVX-512), scalar loop for the tail.  Only the reductions and the
+ * gather/scatter loops are overridden; HotSpot already auto-vectorizes the dense axpy and scale
+ * loops and beat the hand written versions in KernelBench.  Compile and run with
+ * --add-modules jdk.incubator.vector; Kernels.active picks this class up when it loads.
+ * @author johnmount
+ *
+ */
+public final class VectorKernels extends Kernels {
+	private static final VectorSpecies<Double> S = DoubleVector.SPECIES_PREFERRED;
+	private static final int L = S.length();
+
+	@Override
+	public String name() {
+		return "vector";
+	}
+
+	@Override
+	public double dot(final double[] x, final double[] y, final int n) {
+		final int bound = S.loopBound(n);
+		DoubleVector acc = DoubleVector.zero(S);
+		int i = 0;
+		for(;i<bound;i+=L) {
+			acc = DoubleVector.fromArray(S,x,i).fma(DoubleVector.fromArray(S,y,i),acc);
+		}
+		double r = acc.reduceLanes(VectorOperators.ADD);
+		for(;i<n;++i) {
+			r += x[i]*y[i];
+		}
+		return r;
+	}
+
+	@Override
+	public double sparseDot(final int[] indices, final double[] values, final int nnz, final double[] x) {
+		final int bound = S.loopBound(nnz);
+		DoubleVector acc = DoubleVector.zero(S);
+		int ii = 0;
+		for(;ii<bound;ii+=L) {
+			final DoubleVector xv = DoubleVector.fromArray(S,x,0,indices,ii); // gather
+			acc = DoubleVector.fromArray(S,values,ii).fma(xv,acc);
+		}
+		double r = acc.reduceLanes(VectorOperators.ADD);
+		for(;ii<nnz;++ii) {
+			r += values[ii]*x[indices[ii]];
+		}
+		return r;
+	}
+
+	@Override
+	public void sparseAxpy(final double a, final int[] indices, final double[] values, final int nnz, final double[] y) {
+		final int bound = S.loopBound(nnz);
+		final DoubleVector av = DoubleVector.broadcast(S,a);
+		int ii = 0;
+		for(;ii<bound;ii+=L) {
+			final DoubleVector yv = DoubleVector.fromArray(S,y,0,indices,ii);
+			DoubleVector.fromArray(S,values,ii).fma(av,yv).intoArray(y,0,indices,ii); // scatter
+		}
+		for(;ii<nnz;++ii) {
+			y[indices[ii]] += a*values[ii];
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package com.winvector.comb;
 
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Random;
 
@@ -7,6 +8,9 @@ import com.winvector.linalg.DenseVec;
 import com.winvector.linalg.LinalgFactory;
 import com.winvector.linalg.Matrix;
 import com.winvector.linalg.jblas.JBlasMatrix;
+import com.winvector.linalg.sparse.ColumnMatrix;
+import com.winvector.linalg.sparse.HVec;
+import com.winvector.linalg.sparse.SparseVec;
 import com.winvector.lp.LPEQProb;
 import com.winvector.lp.LPException;
 import com.winvector.lp.LPException.LPMalformedException;
@@ -15,8 +19,8 @@ import com.winvector.lp.LPSolver;
 import com.winvector.lp.impl.RevisedSimplexSolver;
 
 /**
- * assignment problem solved by a linear program.  mostly test/demo the lp code as you would want to solve actual assignment
- * problems in production with direct combinatorial code like: http://algs4.cs.princeton.edu/65reductions/AssignmentProblem.java.html
+ * assignment problem.  computeAssignment(cost) uses the direct combinatorial code in Hungarian; the versions taking a
+ * solver solve it as a linear program (kept as a fallback, a cross-check and a test/demo of the lp code).
  * Find permutation of 0...n-1 such that sum_i cost(i,p(i)) is minimized and for all i cost(i,p(i)) is finite and not-NaN (so 
  * user can use NaN to signal non edges).   This is a minimual weight complete matching 
  * @author johnmount
@@ -79,6 +83,82 @@ public final class Assignment {
 		return prob;
 	}
 	
+	/**
+	 * LP over only the given edges (one column per edge with finite, non-NaN cost), so size and pricing work scale
+	 * with the number of edges instead of n^2 and no big-cost stand-ins are needed.
+	 * @param n number of rows and of columns
+	 * @param from row of each edge
+	 * @param to column of each edge
+	 * @param cost cost of each edge (NaN or infinite: not an edge)
+	 * @return problem whose variable k is the k-th real edge (in input order), or null if some row or column has no edges
+	 * @throws LPMalformedException 
+	 */
+	public static LPEQProb buildAssignmentProb(final int n, final int[] from, final int[] to, final double[] cost) throws LPMalformedException {
+		final EdgeList g = new EdgeList(n,from,to,cost);
+		if(!g.coversAll()) {
+			return null;
+		}
+		final SparseVec[] cols = new SparseVec[g.nEdges()];
+		final double[] c = new double[cols.length];
+		int nextIndex = 0;
+		for(int e=0;e<cost.length;++e) {
+			if(EdgeList.isEdge(cost[e])) {
+				// sum_j x_{i,j} = 1 for all i, sum_i x_{i,j} = 1 for all j
+				cols[nextIndex] = new SparseVec(2*n,new int[] { from[e], n+to[e] },new double[] { 1.0, 1.0 });
+				c[nextIndex] = cost[e];
+				++nextIndex;
+			}
+		}
+		final double[] b = new double[2*n];
+		Arrays.fill(b,1.0);
+		return new LPEQProb(new ColumnMatrix(2*n,cols),b,new DenseVec(c));
+	}
+
+	/**
+	 * solve the edge list assignment problem as an LP
+	 * @return assignment[i] = column assigned to row i, or null if there is no complete matching
+	 */
+	public static <T extends Matrix<T>> int[] computeAssignment(final int n, final int[] from, final int[] to, final double[] cost,
+			final LinalgFactory<T> factory, final LPSolver solver, final int maxIts) {
+		try {
+			final LPEQProb prob = buildAssignmentProb(n,from,to,cost);
+			if(null==prob) {
+				return null;
+			}
+			final LPSoln soln = solver.solve(prob, null, 1.0e-6,maxIts, factory);
+			final int[] edgeOfVar = new int[prob.nvars()];
+			int nextIndex = 0;
+			for(int e=0;e<cost.length;++e) {
+				if(EdgeList.isEdge(cost[e])) {
+					edgeOfVar[nextIndex++] = e;
+				}
+			}
+			final int[] assignment = new int[n];
+			Arrays.fill(assignment,-1);
+			final HVec x = soln.primalSolution;
+			for(int k=0;k<x.nIndices();++k) {
+				if(x.value(k)>=0.5) {
+					final int e = edgeOfVar[x.index(k)];
+					assignment[from[e]] = to[e];
+				}
+			}
+			return assignment;
+		} catch (LPException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @param n number of rows and of columns
+	 * @param from row of each edge
+	 * @param to column of each edge
+	 * @param cost cost of each edge (NaN or infinite: not an edge)
+	 * @return minimal cost complete assignment (by the edge list Hungarian method), or null if there is none
+	 */
+	public static int[] computeAssignment(final int n, final int[] from, final int[] to, final double[] cost) {
+		return Hungarian.computeAssignment(n,from,to,cost);
+	}
+
 	public static <T extends Matrix<T>> int[] computeAssignment(final double[][] cost, final LinalgFactory<T> factory, final LPSolver solver, final int maxIts) {
 		final int n = cost.length;
 		if(n<=0) {
@@ -91,19 +171,20 @@ public final class Assignment {
 			final LPEQProb prob = buildAssignmentProb(factory,cost);
 			final LPSoln soln1 = solver.solve(prob, null, 1.0e-6,maxIts, factory);
 			final int[] assignment = new int[n];
-			int nextIndex = 0;
-			for(int i=0;i<n;++i) {
-				for(int j=0;j<n;++j) {
-					final double cij = cost[i][j];
-					if((!Double.isNaN(cij))&&(!Double.isInfinite(cij))) {
-						final double sv = soln1.primalSolution.get(nextIndex); // TODO: avoid get()
-						if(sv>=0.5) {
+			// variable i*n+j is cell (i,j); only the (about n) non-zeros need decoding
+			soln1.forEachPrimalNonZero(new HVec.NonZeroVisitor() {
+				@Override
+				public void visit(final int k, final double sv) {
+					if(sv>=0.5) {
+						final int i = k/n;
+						final int j = k - i*n;
+						final double cij = cost[i][j];
+						if((!Double.isNaN(cij))&&(!Double.isInfinite(cij))) {
 							assignment[i] = j;
-						}						
+						}
 					}
-					++nextIndex;
 				}
-			}
+			});
 			return assignment;
 		} catch (LPException e) {
 			//e.printStackTrace();
@@ -111,6 +192,14 @@ public final class Assignment {
 		}
 	}
 	
+	/**
+	 * @param cost n by n matrix, NaN or infinite entries are non-edges
+	 * @return minimal cost complete assignment (by the Hungarian method), or null if there is none
+	 */
+	public static int[] computeAssignment(final double[][] cost) {
+		return Hungarian.computeAssignment(cost);
+	}
+
 	public static <T extends Matrix<T>> int[] computeAssignment(final double[][] cost, final int maxIts, final LinalgFactory<T> factory) {
 		final RevisedSimplexSolver solver = new RevisedSimplexSolver();
 		return computeAssignment(cost,factory,solver,maxIts);
@@ -133,10 +222,10 @@ public final class Assignment {
 			if((Double.isNaN(cij))||(Double.isInfinite(cij))) {
 				return false;
 			}
-			if(saw.get(i)) {
+			if(saw.get(assignment[i])) {
 				return false;
 			}
-			saw.set(i);
+			saw.set(assignment[i]);
 		}
 		if(saw.cardinality()!=n) {
 			return false;
@@ -178,14 +267,13 @@ public final class Assignment {
 			final long solnStart = System.currentTimeMillis();
 			final LPSoln soln = solver.solve(prob,null,1.0e-5,100000,JBlasMatrix.factory);
 			final long solnDone = System.currentTimeMillis();
-			final long pivots = solver.pivots;
-			final long inspections = solver.inspections;
-			final long inspecionTimeMS = solver.inspectionTimeMS;
-			final long totalTimeMS = solver.totalTimeMS;
-			final long prePivotTimeMS = solver.prePivotTimeMS;
-			final long postPivotTimeMS = solver.postPivotTimeMS;
+			final long pivots = soln.stats.pivots;
+			final long inspections = soln.stats.inspections;
+			final long inspecionTimeMS = soln.stats.inspectionTimeNS/1000000L;
+			final long totalTimeMS = soln.stats.totalTimeNS/1000000L;
+			final long prePivotTimeMS = soln.stats.prePivotTimeNS/1000000L;
+			final long postPivotTimeMS = soln.stats.postPivotTimeNS/1000000L;
 			final long solnTimeMS = solnDone - solnStart;
-			solver.clearCounters();
 			System.out.print(n);
 			System.out.print("\t" + prob.nvars());
 			System.out.print("\t" + prob.rows());
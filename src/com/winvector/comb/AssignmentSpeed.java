@@ -14,6 +14,7 @@ import com.winvector.lp.LPException;
 import com.winvector.lp.LPException.LPErrorException;
 import com.winvector.lp.LPSoln;
 import com.winvector.lp.LPSolver;
+import com.winvector.lp.SolveStats;
 import com.winvector.lp.apachem3.M3Solver;
 import com.winvector.lp.glpk.GLPKSolver;
 import com.winvector.lp.impl.RevisedSimplexSolver;
@@ -57,16 +58,15 @@ public final class AssignmentSpeed {
 				} else {
 					durationMS = endTimeMS - startTimeMS;
 				}
-				if(solver instanceof RevisedSimplexSolver) {
-					final RevisedSimplexSolver rs = (RevisedSimplexSolver)solver;
-					res.pivots = rs.pivots;
-					res.inspections = rs.inspections;
-					res.inspecionTimeMS = rs.inspectionTimeMS;
-					res.totalTimeMS = rs.totalTimeMS;
-					res.prePivotTimeMS = rs.prePivotTimeMS;
-					res.postPivotTimeMS = rs.postPivotTimeMS;
-					rs.clearCounters();
-					final double[] dualSoln = prob.dualSolution(soln.basisColumns, factory);
+				if((solver instanceof RevisedSimplexSolver)&&(null!=soln)) {
+					final SolveStats stats = soln.stats;
+					res.pivots = stats.pivots;
+					res.inspections = stats.inspections;
+					res.inspecionTimeMS = stats.inspectionTimeNS/1000000L;
+					res.totalTimeMS = stats.totalTimeNS/1000000L;
+					res.prePivotTimeMS = stats.prePivotTimeNS/1000000L;
+					res.postPivotTimeMS = stats.postPivotTimeNS/1000000L;
+					final double[] dualSoln = prob.dualSolution(soln,factory);
 					prob.checkPrimDualOpt(soln.primalSolution, dualSoln, 1.0e-5);
 				}
 				if(null!=soln) {
@@ -80,7 +80,7 @@ public final class AssignmentSpeed {
 						sawValue = value;
 					}
 					if(soln.basisColumns!=null) {
-						final double[] dual = prob.dualSolution(soln.basisColumns,factory);
+						final double[] dual = prob.dualSolution(soln,factory);
 						prob.checkPrimDualOpt(soln.primalSolution, dual, 1.0e-3);
 					}
 					res.res.put(name,durationMS);
@@ -112,6 +112,7 @@ public final class AssignmentSpeed {
 		for(final String name: solvers.keySet()) {
 			System.out.print("\t" + name);
 		}
+		System.out.print("\t" + "Hungarian");
 		System.out.println();
 		for(int n=5;n<=80;n+=5) {
 			final Set<String> zaps = new HashSet<String>();
@@ -124,6 +125,12 @@ public final class AssignmentSpeed {
 				}
 				final LPEQProb prob = Assignment.buildAssignmentProb(JBlasMatrix.factory,c);
 				final RunStats durations = runSet(prob,solvers,JBlasMatrix.factory);
+				final long hungarianStartMS = System.currentTimeMillis();
+				final int[] assignment = Hungarian.computeAssignment(c);
+				final long hungarianMS = System.currentTimeMillis() - hungarianStartMS;
+				if(!Assignment.checkValid(c,assignment)) {
+					throw new LPErrorException("Hungarian returned an invalid assignment");
+				}
 				zaps.addAll(durations.zaps);
 				System.out.print(n);
 				System.out.print("\t" + prob.nvars());
@@ -138,6 +145,7 @@ public final class AssignmentSpeed {
 					final Long val = durations.res.get(name);
 					System.out.print("\t" + ((val!=null)?val:"NaN"));
 				}
+				System.out.print("\t" + hungarianMS);
 				System.out.println();
 			}
 			for(final String zap: zaps) {
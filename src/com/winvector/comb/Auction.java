@@ -0,0 +1,395 @@
+package com.winvector.comb;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.winvector.lp.BatchSolver;
+
+/**
+ * Bertsekas auction algorithm with epsilon scaling for the assignment problem, bidding in parallel
+ * (Jacobi rounds: every unassigned row bids against the same prices, bids are resolved with an
+ * atomic compare-and-set maximum per column, then the winners are installed).
+ * Same conventions as Assignment: NaN or infinite costs mark non-edges.
+ * When all edge costs are integers the result is optimal; otherwise it is within n*epsFinal of optimal.
+ * @author johnmount
+ *
+ */
+public final class Auction {
+	private Auction() {
+	}
+
+	/**
+	 * rows per parallel leaf task
+	 */
+	private static final int LEAF = 64;
+	/**
+	 * epsilon reduction per scaling phase
+	 */
+	private static final double THETA = 5.0;
+
+	private static boolean isEdge(final double cij) {
+		return (!Double.isNaN(cij))&&(!Double.isInfinite(cij));
+	}
+
+	/**
+	 * map a double to a long with the same (signed) ordering, so a CAS loop can take maxima
+	 */
+	static long orderKey(final double x) {
+		final long bits = Double.doubleToLongBits(x);
+		return bits ^ ((bits>>63)&0x7fffffffffffffffL);
+	}
+
+	static double fromOrderKey(final long key) {
+		return Double.longBitsToDouble(key ^ ((key>>63)&0x7fffffffffffffffL));
+	}
+
+	private static final long NO_BID = orderKey(Double.NEGATIVE_INFINITY);
+
+	/**
+	 * run body over [0,n) on the pool, split into leaf ranges
+	 */
+	private static abstract class Range extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		final int lo;
+		final int hi;
+
+		Range(final int lo, final int hi) {
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		abstract void run(int from, int to);
+
+		abstract Range sub(int from, int to);
+
+		@Override
+		protected void compute() {
+			if(hi-lo<=LEAF) {
+				run(lo,hi);
+			} else {
+				final int mid = (lo+hi)>>>1;
+				invokeAll(sub(lo,mid),sub(mid,hi));
+			}
+		}
+	}
+
+	private static final class State {
+		final double[][] cost;
+		final int n;
+		final double[] price;
+		final int[] rowOf;           // column -> row (-1 if free)
+		final int[] colOf;           // row -> column (-1 if free)
+		int[] bidders;               // unassigned rows bidding this round
+		int nBidders;
+		final int[] bidCol;          // per bidder slot
+		final double[] bidAmount;    // per bidder slot
+		final AtomicLongArray bestBid;      // per column, orderKey of the highest bid this round
+		final AtomicIntegerArray winner;    // per column, lowest bidder slot with the highest bid
+		double eps;
+		double fallbackIncrement;    // used when a row has only one edge
+
+		State(final double[][] cost) {
+			this.cost = cost;
+			n = cost.length;
+			price = new double[n];
+			rowOf = new int[n];
+			colOf = new int[n];
+			bidders = new int[n];
+			bidCol = new int[n];
+			bidAmount = new double[n];
+			bestBid = new AtomicLongArray(n);
+			winner = new AtomicIntegerArray(n);
+			for(int j=0;j<n;++j) {
+				bestBid.set(j,NO_BID);
+				winner.set(j,Integer.MAX_VALUE);
+			}
+		}
+
+		/**
+		 * bidder slot k computes its bid (benefit is -cost) and raises its column's best bid
+		 */
+		void bid(final int k) {
+			final int i = bidders[k];
+			final double[] row = cost[i];
+			double v1 = Double.NEGATIVE_INFINITY;
+			double v2 = Double.NEGATIVE_INFINITY;
+			int j1 = -1;
+			for(int j=0;j<n;++j) {
+				final double cij = row[j];
+				if(isEdge(cij)) {
+					final double v = -cij - price[j];
+					if(v>v1) {
+						v2 = v1;
+						v1 = v;
+						j1 = j;
+					} else if(v>v2) {
+						v2 = v;
+					}
+				}
+			}
+			final double increment = (v2>Double.NEGATIVE_INFINITY)?(v1-v2):fallbackIncrement;
+			final double amount = price[j1] + increment + eps;
+			bidCol[k] = j1;
+			bidAmount[k] = amount;
+			final long key = orderKey(amount);
+			while(true) {
+				final long cur = bestBid.get(j1);
+				if((key<=cur)||bestBid.compareAndSet(j1,cur,key)) {
+					break;
+				}
+			}
+		}
+
+		/**
+		 * among bidders matching their column's best bid, the lowest slot wins
+		 */
+		void claim(final int k) {
+			final int j = bidCol[k];
+			if(orderKey(bidAmount[k])==bestBid.get(j)) {
+				while(true) {
+					final int cur = winner.get(j);
+					if((k>=cur)||winner.compareAndSet(j,cur,k)) {
+						break;
+					}
+				}
+			}
+		}
+
+		/**
+		 * install winners (serial, touches only the columns bid on this round)
+		 * @return next round's bidder count
+		 */
+		int award() {
+			final int[] next = new int[n];
+			int nNext = 0;
+			for(int k=0;k<nBidders;++k) {
+				final int j = bidCol[k];
+				final int w = winner.get(j);
+				if(w==Integer.MAX_VALUE) {
+					continue; // column already handled
+				}
+				final int i = bidders[w];
+				price[j] = fromOrderKey(bestBid.get(j));
+				final int prev = rowOf[j];
+				if(prev>=0) {
+					colOf[prev] = -1;
+					next[nNext++] = prev;
+				}
+				rowOf[j] = i;
+				colOf[i] = j;
+				bestBid.set(j,NO_BID);
+				winner.set(j,Integer.MAX_VALUE);
+			}
+			for(int k=0;k<nBidders;++k) {
+				final int i = bidders[k];
+				if(colOf[i]<0) {
+					next[nNext++] = i;
+				}
+			}
+			bidders = next;
+			return nNext;
+		}
+	}
+
+	private static final class BidRange extends Range {
+		private static final long serialVersionUID = 1L;
+		private final State s;
+
+		BidRange(final State s, final int lo, final int hi) {
+			super(lo,hi);
+			this.s = s;
+		}
+
+		@Override
+		void run(final int from, final int to) {
+			for(int k=from;k<to;++k) {
+				s.bid(k);
+			}
+		}
+
+		@Override
+		Range sub(final int from, final int to) {
+			return new BidRange(s,from,to);
+		}
+	}
+
+	private static final class ClaimRange extends Range {
+		private static final long serialVersionUID = 1L;
+		private final State s;
+
+		ClaimRange(final State s, final int lo, final int hi) {
+			super(lo,hi);
+			this.s = s;
+		}
+
+		@Override
+		void run(final int from, final int to) {
+			for(int k=from;k<to;++k) {
+				s.claim(k);
+			}
+		}
+
+		@Override
+		Range sub(final int from, final int to) {
+			return new ClaimRange(s,from,to);
+		}
+	}
+
+	/**
+	 * @param cost n by n
+	 * @return true if the edges (finite, non-NaN entries) admit a complete matching
+	 */
+	static boolean hasCompleteMatching(final double[][] cost) {
+		final int n = cost.length;
+		final int[] rowOf = new int[n];
+		final int[] colOf = new int[n];
+		Arrays.fill(rowOf,-1);
+		Arrays.fill(colOf,-1);
+		// greedy start
+		for(int i=0;i<n;++i) {
+			for(int j=0;j<n;++j) {
+				if((rowOf[j]<0)&&isEdge(cost[i][j])) {
+					rowOf[j] = i;
+					colOf[i] = j;
+					break;
+				}
+			}
+		}
+		// augment from each free row by breadth first search over alternating paths
+		final int[] queue = new int[n];
+		final int[] parentRow = new int[n];  // column -> row it was reached from
+		final int[] seenStamp = new int[n];  // column -> last search that visited it
+		int stamp = 0;
+		for(int r=0;r<n;++r) {
+			if(colOf[r]>=0) {
+				continue;
+			}
+			++stamp;
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = r;
+			int freeCol = -1;
+			while((head<tail)&&(freeCol<0)) {
+				final int i = queue[head++];
+				final double[] row = cost[i];
+				for(int j=0;j<n;++j) {
+					if((seenStamp[j]!=stamp)&&isEdge(row[j])) {
+						seenStamp[j] = stamp;
+						parentRow[j] = i;
+						if(rowOf[j]<0) {
+							freeCol = j;
+							break;
+						}
+						queue[tail++] = rowOf[j];
+					}
+				}
+			}
+			if(freeCol<0) {
+				return false;
+			}
+			// flip the path back to r
+			int j = freeCol;
+			while(j>=0) {
+				final int i = parentRow[j];
+				final int prev = colOf[i];
+				rowOf[j] = i;
+				colOf[i] = j;
+				j = prev;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param cost n by n matrix, NaN or infinite entries are not allowed in the assignment
+	 * @param epsFinal final epsilon for non-integer costs (result is within n*epsFinal of optimal), NaN for the default
+	 * @param pool
+	 * @return assignment[i] = column assigned to row i, or null if there is no complete matching (or cost is not square)
+	 */
+	public static int[] computeAssignment(final double[][] cost, final double epsFinal, final ForkJoinPool pool) {
+		final int n = cost.length;
+		double minC = Double.POSITIVE_INFINITY;
+		double maxC = Double.NEGATIVE_INFINITY;
+		boolean integral = true;
+		for(int i=0;i<n;++i) {
+			if(cost[i].length!=n) {
+				return null;
+			}
+			for(final double cij: cost[i]) {
+				if(isEdge(cij)) {
+					minC = Math.min(minC,cij);
+					maxC = Math.max(maxC,cij);
+					integral &= cij==Math.rint(cij);
+				}
+			}
+		}
+		if(n<=0) {
+			return new int[0];
+		}
+		if(!hasCompleteMatching(cost)) {
+			return null;
+		}
+		final double range = maxC - minC;
+		final double scale = Math.max(Math.max(Math.abs(minC),Math.abs(maxC)),1.0e-300);
+		final double finalEps;
+		if(integral) {
+			finalEps = 1.0/(n+1.0); // n*eps<1 so the result is exactly optimal
+		} else if(!Double.isNaN(epsFinal)) {
+			finalEps = epsFinal;
+		} else {
+			finalEps = 1.0e-9*scale/n;
+		}
+		final State s = new State(cost);
+		s.fallbackIncrement = range + 1.0;
+		double eps = Math.max(range/2.0,finalEps);
+		while(true) {
+			s.eps = eps;
+			// start each phase with everyone unassigned (prices carry over)
+			Arrays.fill(s.rowOf,-1);
+			Arrays.fill(s.colOf,-1);
+			for(int i=0;i<n;++i) {
+				s.bidders[i] = i;
+			}
+			s.nBidders = n;
+			while(s.nBidders>0) {
+				if(s.nBidders>LEAF) {
+					pool.invoke(new BidRange(s,0,s.nBidders));
+					pool.invoke(new ClaimRange(s,0,s.nBidders));
+				} else {
+					for(int k=0;k<s.nBidders;++k) {
+						s.bid(k);
+					}
+					for(int k=0;k<s.nBidders;++k) {
+						s.claim(k);
+					}
+				}
+				s.nBidders = s.award();
+			}
+			if(eps<=finalEps) {
+				break;
+			}
+			eps = Math.max(eps/THETA,finalEps);
+		}
+		return s.colOf.clone();
+	}
+
+	/**
+	 * @param cost n by n matrix, NaN or infinite entries are not allowed in the assignment
+	 * @param pool
+	 * @return assignment[i] = column assigned to row i, or null if there is no complete matching (or cost is not square)
+	 */
+	public static int[] computeAssignment(final double[][] cost, final ForkJoinPool pool) {
+		return computeAssignment(cost,Double.NaN,pool);
+	}
+
+	/**
+	 * solve on the shared work-stealing pool
+	 */
+	public static int[] computeAssignment(final double[][] cost) {
+		return computeAssignment(cost,Double.NaN,BatchSolver.sharedPool());
+	}
+}
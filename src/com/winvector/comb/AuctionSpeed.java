@@ -0,0 +1,73 @@
+package com.winvector.comb;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import com.winvector.linalg.colt.NativeMatrix;
+import com.winvector.lp.LPException.LPErrorException;
+
+/**
+ * time the parallel auction across core counts against Hungarian and the LP path
+ * (LP is dropped once it takes longer than 5 seconds).  Writes a TSV to System.out in the
+ * AssignmentSpeed style: assignmentSize, cores, then milliseconds per method.
+ * @author johnmount
+ *
+ */
+public final class AuctionSpeed {
+	private AuctionSpeed() {
+	}
+
+	private static void check(final String name, final double[][] c, final int[] assignment, final double expectCost) throws LPErrorException {
+		if(!Assignment.checkValid(c,assignment)) {
+			throw new LPErrorException(name + " returned an invalid assignment");
+		}
+		final double cost = Assignment.cost(c,assignment);
+		if(Math.abs(cost-expectCost)>1.0e-6*Math.max(1.0,Math.abs(expectCost))) {
+			throw new LPErrorException(name + " cost " + cost + " expected " + expectCost);
+		}
+	}
+
+	public static void main(final String[] args) throws Exception {
+		final int maxN = (args.length>0)?Integer.parseInt(args[0]):3200;
+		final Random rand = new Random(235135L);
+		final int nCores = Runtime.getRuntime().availableProcessors();
+		System.out.println("assignmentSize" + "\t" + "cores" + "\t" + "Auction" + "\t" + "Hungarian" + "\t" + "WVLPSolver");
+		boolean runLP = true;
+		for(int n=50;n<=maxN;n*=2) {
+			for(int rep=0;rep<3;++rep) {
+				final double[][] c = new double[n][n];
+				for(int i=0;i<n;++i) {
+					for(int j=0;j<n;++j) {
+						c[i][j] = rand.nextDouble();
+					}
+				}
+				final long hStart = System.currentTimeMillis();
+				final int[] hungarian = Hungarian.computeAssignment(c);
+				final long hungarianMS = System.currentTimeMillis() - hStart;
+				final double expectCost = Assignment.cost(c,hungarian);
+				long lpMS = -1;
+				if(runLP) {
+					final long lpStart = System.currentTimeMillis();
+					final int[] lp = Assignment.computeAssignment(c,100000,NativeMatrix.factory);
+					lpMS = System.currentTimeMillis() - lpStart;
+					check("LP",c,lp,expectCost);
+					if(lpMS>=5000) {
+						runLP = false;
+					}
+				}
+				for(int cores=1;cores<=nCores;cores*=2) {
+					final ForkJoinPool pool = new ForkJoinPool(cores);
+					try {
+						final long aStart = System.currentTimeMillis();
+						final int[] auction = Auction.computeAssignment(c,pool);
+						final long auctionMS = System.currentTimeMillis() - aStart;
+						check("Auction",c,auction,expectCost);
+						System.out.println(n + "\t" + cores + "\t" + auctionMS + "\t" + hungarianMS + "\t" + ((lpMS>=0)?lpMS:"NaN"));
+					} finally {
+						pool.shutdown();
+					}
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package com.winvector.comb;
+
+/**
+ * bipartite edges (row i to column j with a cost) grouped by row, skipping non-edges (NaN or
+ * infinite costs).  Everything is O(|E|+n).
+ * @author johnmount
+ *
+ */
+final class EdgeList {
+	final int n;
+	final int[] rowStart;  // edges of row i are [rowStart[i],rowStart[i+1])
+	final int[] col;
+	final double[] cost;
+	final int[] edge;      // index into the caller's arrays
+
+	static boolean isEdge(final double cij) {
+		return (!Double.isNaN(cij))&&(!Double.isInfinite(cij));
+	}
+
+	/**
+	 * @param n number of rows and of columns
+	 * @param from row of each edge
+	 * @param to column of each edge
+	 * @param cost cost of each edge (NaN or infinite: not an edge)
+	 */
+	EdgeList(final int n, final int[] from, final int[] to, final double[] cost) {
+		if((from.length!=to.length)||(from.length!=cost.length)) {
+			throw new IllegalArgumentException("from, to and cost must be the same length");
+		}
+		this.n = n;
+		rowStart = new int[n+1];
+		int nEdges = 0;
+		for(int e=0;e<from.length;++e) {
+			if((from[e]<0)||(from[e]>=n)||(to[e]<0)||(to[e]>=n)) {
+				throw new IllegalArgumentException("edge " + e + " out of range");
+			}
+			if(isEdge(cost[e])) {
+				rowStart[from[e]+1] += 1;
+				++nEdges;
+			}
+		}
+		for(int i=0;i<n;++i) {
+			rowStart[i+1] += rowStart[i];
+		}
+		col = new int[nEdges];
+		this.cost = new double[nEdges];
+		edge = new int[nEdges];
+		final int[] fill = new int[n];
+		System.arraycopy(rowStart,0,fill,0,n);
+		for(int e=0;e<from.length;++e) {
+			if(isEdge(cost[e])) {
+				final int k = fill[from[e]]++;
+				col[k] = to[e];
+				this.cost[k] = cost[e];
+				edge[k] = e;
+			}
+		}
+	}
+
+	int nEdges() {
+		return col.length;
+	}
+
+	/**
+	 * @return true if every row and every column has at least one edge
+	 */
+	boolean coversAll() {
+		final boolean[] colSeen = new boolean[n];
+		int nCols = 0;
+		for(int i=0;i<n;++i) {
+			if(rowStart[i+1]<=rowStart[i]) {
+				return false;
+			}
+			for(int k=rowStart[i];k<rowStart[i+1];++k) {
+				if(!colSeen[col[k]]) {
+					colSeen[col[k]] = true;
+					++nCols;
+				}
+			}
+		}
+		return nCols==n;
+	}
+}
@@ -0,0 +1,273 @@
+package com.winvector.comb;
+
+import java.util.Arrays;
+
+/**
+ * Hungarian method (Kuhn-Munkres) for the assignment problem: rows are added one at a time and
+ * matched by a shortest augmenting path over reduced costs, keeping row and column potentials
+ * (Jonker-Volgenant style).  O(n^3) time, O(n) working space, no LP.
+ * Same conventions as Assignment: NaN or infinite costs mark non-edges.
+ * The edge list form runs each shortest path search as Dijkstra over only the real edges, so work
+ * and memory scale with the number of edges instead of n^2.
+ * @author johnmount
+ *
+ */
+public final class Hungarian {
+	private Hungarian() {
+	}
+
+	private static boolean isEdge(final double cij) {
+		return (!Double.isNaN(cij))&&(!Double.isInfinite(cij));
+	}
+
+	/**
+	 * @param cost n by n matrix, NaN or infinite entries are not allowed in the assignment
+	 * @return assignment[i] = column assigned to row i minimizing total cost, or null if there is no complete matching (or cost is not square)
+	 */
+	public static int[] computeAssignment(final double[][] cost) {
+		final int n = cost.length;
+		for(int i=0;i<n;++i) {
+			if(cost[i].length!=n) {
+				return null;
+			}
+		}
+		// 1-based arrays, position 0 is the virtual column the new row starts from
+		final double[] u = new double[n+1];    // row potentials
+		final double[] v = new double[n+1];    // column potentials
+		final int[] p = new int[n+1];          // p[j] = row matched to column j (0 if none)
+		final int[] way = new int[n+1];        // previous column on the shortest path
+		final double[] minv = new double[n+1]; // shortest reduced path length to column j
+		final boolean[] used = new boolean[n+1];
+		for(int i=1;i<=n;++i) {
+			p[0] = i;
+			int j0 = 0;
+			Arrays.fill(minv,Double.POSITIVE_INFINITY);
+			Arrays.fill(used,false);
+			do {
+				used[j0] = true;
+				final int i0 = p[j0];
+				final double[] row = cost[i0-1];
+				final double ui0 = u[i0];
+				double delta = Double.POSITIVE_INFINITY;
+				int j1 = -1;
+				for(int j=1;j<=n;++j) {
+					if(!used[j]) {
+						final double cij = row[j-1];
+						if(isEdge(cij)) {
+							final double cur = cij - ui0 - v[j];
+							if(cur<minv[j]) {
+								minv[j] = cur;
+								way[j] = j0;
+							}
+						}
+						if(minv[j]<delta) {
+							delta = minv[j];
+							j1 = j;
+						}
+					}
+				}
+				if(j1<0) {
+					return null; // row i can not reach a free column: no complete matching
+				}
+				for(int j=0;j<=n;++j) {
+					if(used[j]) {
+						u[p[j]] += delta;
+						v[j] -= delta;
+					} else {
+						minv[j] -= delta;
+					}
+				}
+				j0 = j1;
+			} while(p[j0]!=0);
+			// flip the augmenting path
+			do {
+				final int j1 = way[j0];
+				p[j0] = p[j1];
+				j0 = j1;
+			} while(j0!=0);
+		}
+		final int[] assignment = new int[n];
+		for(int j=1;j<=n;++j) {
+			assignment[p[j]-1] = j-1;
+		}
+		return assignment;
+	}
+
+	/**
+	 * min-heap of columns keyed by dist[], with decrease-key
+	 */
+	private static final class ColumnHeap {
+		private final double[] dist;
+		private final int[] heap;
+		private final int[] pos;  // column -> heap position, -1 if not in heap
+		private int size = 0;
+
+		ColumnHeap(final double[] dist) {
+			this.dist = dist;
+			heap = new int[dist.length];
+			pos = new int[dist.length];
+			Arrays.fill(pos,-1);
+		}
+
+		boolean isEmpty() {
+			return size<=0;
+		}
+
+		void clear() {
+			for(int k=0;k<size;++k) {
+				pos[heap[k]] = -1;
+			}
+			size = 0;
+		}
+
+		/**
+		 * insert j, or move it up after dist[j] decreased
+		 */
+		void offer(final int j) {
+			int k = pos[j];
+			if(k<0) {
+				k = size++;
+			}
+			final double d = dist[j];
+			while(k>0) {
+				final int parent = (k-1)>>>1;
+				final int pj = heap[parent];
+				if(dist[pj]<=d) {
+					break;
+				}
+				heap[k] = pj;
+				pos[pj] = k;
+				k = parent;
+			}
+			heap[k] = j;
+			pos[j] = k;
+		}
+
+		int poll() {
+			final int top = heap[0];
+			pos[top] = -1;
+			--size;
+			if(size>0) {
+				final int last = heap[size];
+				final double d = dist[last];
+				int k = 0;
+				while(true) {
+					int child = 2*k+1;
+					if(child>=size) {
+						break;
+					}
+					if((child+1<size)&&(dist[heap[child+1]]<dist[heap[child]])) {
+						++child;
+					}
+					if(dist[heap[child]]>=d) {
+						break;
+					}
+					heap[k] = heap[child];
+					pos[heap[k]] = k;
+					k = child;
+				}
+				heap[k] = last;
+				pos[last] = k;
+			}
+			return top;
+		}
+	}
+
+	/**
+	 * @param n number of rows and of columns
+	 * @param from row of each edge
+	 * @param to column of each edge
+	 * @param cost cost of each edge (NaN or infinite entries are ignored)
+	 * @return assignment[i] = column assigned to row i minimizing total cost, or null if there is no complete matching
+	 */
+	public static int[] computeAssignment(final int n, final int[] from, final int[] to, final double[] cost) {
+		final EdgeList g = new EdgeList(n,from,to,cost);
+		if(!g.coversAll()) {
+			return null;
+		}
+		final double[] u = new double[n];     // row potentials
+		final double[] v = new double[n];     // column potentials
+		final int[] rowOf = new int[n];       // column -> matched row, -1 if free
+		final int[] colOf = new int[n];       // row -> matched column, -1 if free
+		final double[] dist = new double[n];  // reduced path length to column
+		final int[] way = new int[n];         // previous column on the path, -1 for the start row
+		final boolean[] done = new boolean[n];
+		final int[] touched = new int[n];
+		final ColumnHeap heap = new ColumnHeap(dist);
+		Arrays.fill(rowOf,-1);
+		Arrays.fill(colOf,-1);
+		Arrays.fill(dist,Double.POSITIVE_INFINITY);
+		// column minima as starting potentials keep all reduced costs non-negative
+		Arrays.fill(v,Double.POSITIVE_INFINITY);
+		for(int k=0;k<g.nEdges();++k) {
+			v[g.col[k]] = Math.min(v[g.col[k]],g.cost[k]);
+		}
+		for(int i0=0;i0<n;++i0) {
+			int nTouched = 0;
+			int freeCol = -1;
+			int i = i0;
+			int reachedFrom = -1;
+			double di = 0.0;
+			while(true) {
+				// relax the edges of row i
+				final double ui = u[i];
+				for(int k=g.rowStart[i];k<g.rowStart[i+1];++k) {
+					final int j = g.col[k];
+					if(!done[j]) {
+						final double nd = di + g.cost[k] - ui - v[j];
+						if(nd<dist[j]) {
+							if(dist[j]==Double.POSITIVE_INFINITY) {
+								touched[nTouched++] = j;
+							}
+							dist[j] = nd;
+							way[j] = reachedFrom;
+							heap.offer(j);
+						}
+					}
+				}
+				if(heap.isEmpty()) {
+					break;
+				}
+				final int j = heap.poll();
+				done[j] = true;
+				if(rowOf[j]<0) {
+					freeCol = j;
+					break;
+				}
+				i = rowOf[j];
+				reachedFrom = j;
+				di = dist[j];
+			}
+			if(freeCol<0) {
+				return null;
+			}
+			// update potentials along the settled part of the search
+			final double dFree = dist[freeCol];
+			u[i0] += dFree;
+			for(int t=0;t<nTouched;++t) {
+				final int j = touched[t];
+				if(done[j]&&(j!=freeCol)) {
+					final double delta = dFree - dist[j];
+					v[j] -= delta;
+					u[rowOf[j]] += delta;
+				}
+			}
+			// flip the augmenting path
+			int j = freeCol;
+			while(j>=0) {
+				final int pj = way[j];
+				final int r = (pj>=0)?rowOf[pj]:i0;
+				rowOf[j] = r;
+				colOf[r] = j;
+				j = pj;
+			}
+			for(int t=0;t<nTouched;++t) {
+				final int jt = touched[t];
+				dist[jt] = Double.POSITIVE_INFINITY;
+				done[jt] = false;
+			}
+			heap.clear();
+		}
+		return colOf;
+	}
+}
@@ -0,0 +1,255 @@
+package com.winvector.comb;
+
+import java.util.Arrays;
+
+/**
+ * assignment problem that is re-solved cheaply after a few costs change.  Keeps the optimal
+ * matching and the dual potentials (u[i] + v[j] <= cost[i][j], with equality on matched edges).
+ * A cost change that breaks either condition frees only the affected row; the next query
+ * re-matches the freed rows by shortest augmenting paths over reduced costs, O(n^2) each, so a
+ * repair costs time in proportion to the number of changed entries instead of a full O(n^3) solve.
+ * Same conventions as Assignment: NaN or infinite costs mark non-edges.
+ * Not thread safe.
+ * @author johnmount
+ *
+ */
+public final class IncrementalAssignment {
+	private final int n;
+	private final double[][] cost;
+	private final double[] u;       // row potentials
+	private final double[] v;       // column potentials
+	private final int[] rowOf;      // column -> matched row, -1 if free
+	private final int[] colOf;      // row -> matched column, -1 if free
+	private final int[] freeRows;
+	private int nFree = 0;
+	private boolean complete = false;
+	private long augmentations = 0;
+	// search scratch
+	private final double[] dist;
+	private final int[] way;
+	private final boolean[] done;
+
+	/**
+	 * @param cost n by n matrix (copied), NaN or infinite entries are not allowed in the assignment
+	 */
+	public IncrementalAssignment(final double[][] cost) {
+		n = cost.length;
+		this.cost = new double[n][];
+		for(int i=0;i<n;++i) {
+			if(cost[i].length!=n) {
+				throw new IllegalArgumentException("cost must be square");
+			}
+			this.cost[i] = cost[i].clone();
+		}
+		u = new double[n];
+		v = new double[n];
+		rowOf = new int[n];
+		colOf = new int[n];
+		freeRows = new int[n];
+		dist = new double[n];
+		way = new int[n];
+		done = new boolean[n];
+		Arrays.fill(rowOf,-1);
+		Arrays.fill(colOf,-1);
+		// column minima as starting potentials keep all reduced costs non-negative
+		Arrays.fill(v,Double.POSITIVE_INFINITY);
+		for(int i=0;i<n;++i) {
+			for(int j=0;j<n;++j) {
+				if(isEdge(cost[i][j])) {
+					v[j] = Math.min(v[j],cost[i][j]);
+				}
+			}
+		}
+		for(int j=0;j<n;++j) {
+			if(v[j]==Double.POSITIVE_INFINITY) {
+				v[j] = 0.0;
+			}
+		}
+		for(int i=0;i<n;++i) {
+			freeRows[nFree++] = i;
+		}
+	}
+
+	private static boolean isEdge(final double cij) {
+		return (!Double.isNaN(cij))&&(!Double.isInfinite(cij));
+	}
+
+	private static double slack(final double c) {
+		return 1.0e-12*Math.max(1.0,Math.abs(c));
+	}
+
+	public int size() {
+		return n;
+	}
+
+	public double get(final int i, final int j) {
+		return cost[i][j];
+	}
+
+	/**
+	 * @return number of augmenting path searches run so far (n for the first solve)
+	 */
+	public long augmentations() {
+		return augmentations;
+	}
+
+	private void freeRow(final int i) {
+		final int j = colOf[i];
+		if(j<0) {
+			return; // already queued
+		}
+		colOf[i] = -1;
+		rowOf[j] = -1;
+		// lowest reduced cost in the row becomes zero, restoring feasibility
+		double m = Double.POSITIVE_INFINITY;
+		final double[] row = cost[i];
+		for(int k=0;k<n;++k) {
+			if(isEdge(row[k])) {
+				m = Math.min(m,row[k]-v[k]);
+			}
+		}
+		u[i] = (m<Double.POSITIVE_INFINITY)?m:0.0;
+		freeRows[nFree++] = i;
+		complete = false;
+	}
+
+	/**
+	 * change one cost (repair is deferred to the next assignment() or cost() call)
+	 * @param i row
+	 * @param j column
+	 * @param c new cost, NaN or infinite to remove the edge
+	 */
+	public void setCost(final int i, final int j, final double c) {
+		cost[i][j] = c;
+		if(colOf[i]<0) {
+			if(isEdge(c)&&(c-v[j]<u[i])) {
+				u[i] = c - v[j]; // keep a free row's potential feasible
+			}
+			return;
+		}
+		if(colOf[i]==j) {
+			if(!isEdge(c)) {
+				freeRow(i);
+			} else {
+				final double reduced = c - u[i] - v[j];
+				if(reduced<=slack(c)) {
+					u[i] = c - v[j]; // cheaper: lowering u[i] keeps the row feasible and the edge tight
+				} else {
+					freeRow(i);
+				}
+			}
+		} else if(isEdge(c)&&(c-u[i]-v[j]< -slack(c))) {
+			freeRow(i);
+		}
+	}
+
+	/**
+	 * match free row i0 along a shortest augmenting path, updating potentials
+	 * @return false if no free column can be reached
+	 */
+	private boolean augment(final int i0) {
+		++augmentations;
+		Arrays.fill(dist,Double.POSITIVE_INFINITY);
+		Arrays.fill(done,false);
+		int i = i0;
+		int reachedFrom = -1;
+		double di = 0.0;
+		int freeCol = -1;
+		while(true) {
+			final double[] row = cost[i];
+			final double ui = u[i];
+			int best = -1;
+			double bestD = Double.POSITIVE_INFINITY;
+			for(int j=0;j<n;++j) {
+				if(!done[j]) {
+					final double cij = row[j];
+					if(isEdge(cij)) {
+						final double nd = di + cij - ui - v[j];
+						if(nd<dist[j]) {
+							dist[j] = nd;
+							way[j] = reachedFrom;
+						}
+					}
+					if(dist[j]<bestD) {
+						bestD = dist[j];
+						best = j;
+					}
+				}
+			}
+			if(best<0) {
+				return false;
+			}
+			done[best] = true;
+			if(rowOf[best]<0) {
+				freeCol = best;
+				break;
+			}
+			i = rowOf[best];
+			reachedFrom = best;
+			di = bestD;
+		}
+		final double dFree = dist[freeCol];
+		u[i0] += dFree;
+		for(int j=0;j<n;++j) {
+			if(done[j]&&(j!=freeCol)) {
+				final double delta = dFree - dist[j];
+				v[j] -= delta;
+				u[rowOf[j]] += delta;
+			}
+		}
+		int j = freeCol;
+		while(j>=0) {
+			final int pj = way[j];
+			final int r = (pj>=0)?rowOf[pj]:i0;
+			rowOf[j] = r;
+			colOf[r] = j;
+			j = pj;
+		}
+		return true;
+	}
+
+	/**
+	 * re-match all freed rows
+	 */
+	private void repair() {
+		while(nFree>0) {
+			final int i = freeRows[nFree-1];
+			if(colOf[i]>=0) {
+				--nFree;
+				continue;
+			}
+			if(!augment(i)) {
+				complete = false;
+				return; // no complete matching for the current costs (row stays queued)
+			}
+			--nFree;
+		}
+		complete = true;
+	}
+
+	/**
+	 * @return assignment[i] = column assigned to row i minimizing total cost, or null if there is no complete matching
+	 */
+	public int[] assignment() {
+		repair();
+		if(!complete) {
+			return null;
+		}
+		return colOf.clone();
+	}
+
+	/**
+	 * @return cost of the current optimal assignment (NaN if there is no complete matching)
+	 */
+	public double cost() {
+		repair();
+		if(!complete) {
+			return Double.NaN;
+		}
+		double tot = 0.0;
+		for(int i=0;i<n;++i) {
+			tot += cost[i][colOf[i]];
+		}
+		return tot;
+	}
+}
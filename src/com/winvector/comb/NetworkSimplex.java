@@ -0,0 +1,589 @@
+package com.winvector.comb;
+
+import java.util.Arrays;
+
+import com.winvector.linalg.DenseVec;
+import com.winvector.linalg.sparse.ColumnMatrix;
+import com.winvector.linalg.sparse.SparseVec;
+import com.winvector.lp.LPEQProb;
+import com.winvector.lp.LPException.LPMalformedException;
+
+/**
+ * primal network simplex for min cost flow: minimize sum cost[a] flow[a] subject to
+ * 0 <= flow[a] <= capacity[a] and, at every node, outflow - inflow = supply.
+ * The basis is a spanning tree (on the nodes plus an artificial root) stored as parent, predecessor
+ * arc, direction and depth arrays with child/sibling links for subtree walks; entering arcs are
+ * chosen by block search pricing and leaving arcs so the tree stays strongly feasible (no cycling).
+ * Each pivot costs time proportional to the cycle and the moved subtree, not to a basis inverse.
+ * Build with addArc()/setSupply() (or minCostFlow()/transportation()), then solve().
+ * @author johnmount
+ *
+ */
+public final class NetworkSimplex {
+	public enum Status {
+		OPTIMAL,
+		INFEASIBLE,
+		UNBOUNDED
+	}
+
+	private static final int STATE_UPPER = -1;
+	private static final int STATE_TREE = 0;
+	private static final int STATE_LOWER = 1;
+	private static final int DIR_UP = 1;     // pred arc goes node -> parent
+	private static final int DIR_DOWN = -1;  // pred arc goes parent -> node
+
+	public final int nNodes;
+	private final double[] supply;
+	private int nArcs = 0;
+	private int[] source = new int[16];
+	private int[] target = new int[16];
+	private double[] cost = new double[16];
+	private double[] capacity = new double[16];
+
+	// solution (arcs 0..nArcs-1 real, then one artificial arc per node)
+	private double[] flow = null;
+	private double[] pi = null;
+	private Status status = null;
+	private long pivots = 0;
+
+	public NetworkSimplex(final int nNodes) {
+		this.nNodes = nNodes;
+		supply = new double[nNodes];
+	}
+
+	/**
+	 * @param from
+	 * @param to
+	 * @param arcCost
+	 * @param arcCapacity (Double.POSITIVE_INFINITY for uncapacitated)
+	 * @return arc index
+	 */
+	public int addArc(final int from, final int to, final double arcCost, final double arcCapacity) {
+		if((from<0)||(from>=nNodes)||(to<0)||(to>=nNodes)) {
+			throw new IllegalArgumentException("arc end out of range");
+		}
+		if((Double.isNaN(arcCost))||(Double.isInfinite(arcCost))||(!(arcCapacity>=0))) {
+			throw new IllegalArgumentException("bad arc cost or capacity");
+		}
+		if(nArcs>=source.length) {
+			final int len = 2*source.length;
+			source = Arrays.copyOf(source,len);
+			target = Arrays.copyOf(target,len);
+			cost = Arrays.copyOf(cost,len);
+			capacity = Arrays.copyOf(capacity,len);
+		}
+		source[nArcs] = from;
+		target[nArcs] = to;
+		cost[nArcs] = arcCost;
+		capacity[nArcs] = arcCapacity;
+		status = null;
+		return nArcs++;
+	}
+
+	/**
+	 * uncapacitated arc
+	 * @return arc index
+	 */
+	public int addArc(final int from, final int to, final double arcCost) {
+		return addArc(from,to,arcCost,Double.POSITIVE_INFINITY);
+	}
+
+	/**
+	 * @param node
+	 * @param s supply (negative for demand)
+	 */
+	public void setSupply(final int node, final double s) {
+		supply[node] = s;
+		status = null;
+	}
+
+	public int nArcs() {
+		return nArcs;
+	}
+
+	/**
+	 * @param nNodes
+	 * @param from arc sources
+	 * @param to arc targets
+	 * @param arcCost
+	 * @param arcCapacity (null for all uncapacitated)
+	 * @param nodeSupply (negative for demand, should sum to zero)
+	 * @return min cost flow problem
+	 */
+	public static NetworkSimplex minCostFlow(final int nNodes, final int[] from, final int[] to, final double[] arcCost,
+			final double[] arcCapacity, final double[] nodeSupply) {
+		final NetworkSimplex ns = new NetworkSimplex(nNodes);
+		for(int a=0;a<from.length;++a) {
+			ns.addArc(from[a],to[a],arcCost[a],(null!=arcCapacity)?arcCapacity[a]:Double.POSITIVE_INFINITY);
+		}
+		for(int u=0;u<nNodes;++u) {
+			ns.setSupply(u,nodeSupply[u]);
+		}
+		return ns;
+	}
+
+	/**
+	 * transportation problem: source i is node i and sink j is node sourceSupply.length+j, with an
+	 * uncapacitated arc for each finite, non-NaN shipCost[i][j] (others are non-edges).
+	 * Read the answer back with transportationFlow().
+	 * @param sourceSupply
+	 * @param sinkDemand (positive amounts, totals should equal the supply total)
+	 * @param shipCost sourceSupply.length by sinkDemand.length
+	 * @return problem
+	 */
+	public static NetworkSimplex transportation(final double[] sourceSupply, final double[] sinkDemand, final double[][] shipCost) {
+		final int ns = sourceSupply.length;
+		final int nd = sinkDemand.length;
+		final NetworkSimplex p = new NetworkSimplex(ns+nd);
+		for(int i=0;i<ns;++i) {
+			p.setSupply(i,sourceSupply[i]);
+			for(int j=0;j<nd;++j) {
+				final double cij = shipCost[i][j];
+				if((!Double.isNaN(cij))&&(!Double.isInfinite(cij))) {
+					p.addArc(i,ns+j,cij);
+				}
+			}
+		}
+		for(int j=0;j<nd;++j) {
+			p.setSupply(ns+j,-sinkDemand[j]);
+		}
+		return p;
+	}
+
+	/**
+	 * @param nSources
+	 * @param nSinks
+	 * @return shipment matrix from a solved transportation() problem
+	 */
+	public double[][] transportationFlow(final int nSources, final int nSinks) {
+		final double[][] x = new double[nSources][nSinks];
+		for(int a=0;a<nArcs;++a) {
+			x[source[a]][target[a]-nSources] += flow[a];
+		}
+		return x;
+	}
+
+	/**
+	 * @return the problem as an LPEQProb: one variable per arc then one slack per finite capacity arc;
+	 * rows are node balances (out - in = supply) then flow + slack = capacity.  For cross-checks against the general solvers.
+	 * @throws LPMalformedException 
+	 */
+	public LPEQProb toLPEQProb() throws LPMalformedException {
+		int nCapped = 0;
+		for(int a=0;a<nArcs;++a) {
+			if(capacity[a]<Double.POSITIVE_INFINITY) {
+				++nCapped;
+			}
+		}
+		final int m = nNodes + nCapped;
+		final SparseVec[] cols = new SparseVec[nArcs+nCapped];
+		final double[] c = new double[cols.length];
+		final double[] b = new double[m];
+		System.arraycopy(supply,0,b,0,nNodes);
+		int capRow = nNodes;
+		for(int a=0;a<nArcs;++a) {
+			final int s = source[a];
+			final int t = target[a];
+			final boolean capped = capacity[a]<Double.POSITIVE_INFINITY;
+			if(s==t) {
+				cols[a] = capped?new SparseVec(m,new int[] { capRow },new double[] { 1.0 }):new SparseVec(m,new int[0],new double[0]);
+			} else {
+				final int lo = Math.min(s,t);
+				final int hi = Math.max(s,t);
+				final double vlo = (lo==s)?1.0:-1.0;
+				if(capped) {
+					cols[a] = new SparseVec(m,new int[] { lo, hi, capRow },new double[] { vlo, -vlo, 1.0 });
+				} else {
+					cols[a] = new SparseVec(m,new int[] { lo, hi },new double[] { vlo, -vlo });
+				}
+			}
+			c[a] = cost[a];
+			if(capped) {
+				b[capRow] = capacity[a];
+				cols[nArcs+capRow-nNodes] = new SparseVec(m,new int[] { capRow },new double[] { 1.0 });
+				++capRow;
+			}
+		}
+		return new LPEQProb(new ColumnMatrix(m,cols),b,new DenseVec(c));
+	}
+
+	/**
+	 * solve (re-solves from scratch if arcs or supplies changed)
+	 * @return status
+	 */
+	public Status solve() {
+		final Solver s = new Solver(false);
+		status = s.run();
+		flow = Arrays.copyOf(s.flow,nArcs);
+		pi = Arrays.copyOf(s.pi,nNodes);
+		pivots = s.pivots;
+		return status;
+	}
+
+	public Status status() {
+		return status;
+	}
+
+	/**
+	 * @param arc
+	 * @return flow on arc in the last solve
+	 */
+	public double flow(final int arc) {
+		return flow[arc];
+	}
+
+	/**
+	 * @param node
+	 * @return node potential (dual value) in the last solve: cost[a] + potential(from) - potential(to) >= 0 on arcs that can carry more flow
+	 */
+	public double potential(final int node) {
+		return pi[node];
+	}
+
+	/**
+	 * @return total cost of the last solve's flow
+	 */
+	public double totalCost() {
+		double tot = 0.0;
+		for(int a=0;a<nArcs;++a) {
+			tot += cost[a]*flow[a];
+		}
+		return tot;
+	}
+
+	public long pivots() {
+		return pivots;
+	}
+
+	/**
+	 * working state for one solve
+	 */
+	private final class Solver {
+		final int nAll;       // arcs including artificial
+		final int root = nNodes;
+		final int[] src;
+		final int[] tgt;
+		final double[] c;
+		final double[] cap;
+		final double[] flow;
+		final int[] state;
+		final double[] pi;
+		final int[] parent;
+		final int[] pred;     // tree arc to parent
+		final int[] predDir;
+		final int[] depth;
+		final int[] firstChild;
+		final int[] nextSib;
+		final int[] prevSib;
+		final int[] stack;
+		final double tol;
+		final int blockSize;
+		int nextArc = 0;
+		long pivots = 0;
+		// current pivot
+		int inArc;
+		int join;
+		int uIn;
+		int vIn;
+		int uOut;
+		boolean outAtUpper;
+		double delta;
+
+		/**
+		 * @param zeroCost if true all real arcs cost 0 (a pure feasibility problem, which can not be unbounded)
+		 */
+		Solver(final boolean zeroCost) {
+			nAll = nArcs + nNodes;
+			src = Arrays.copyOf(source,nAll);
+			tgt = Arrays.copyOf(target,nAll);
+			c = zeroCost?new double[nAll]:Arrays.copyOf(cost,nAll);
+			cap = Arrays.copyOf(capacity,nAll);
+			flow = new double[nAll];
+			state = new int[nAll];
+			pi = new double[nNodes+1];
+			parent = new int[nNodes+1];
+			pred = new int[nNodes+1];
+			predDir = new int[nNodes+1];
+			depth = new int[nNodes+1];
+			firstChild = new int[nNodes+1];
+			nextSib = new int[nNodes+1];
+			prevSib = new int[nNodes+1];
+			stack = new int[nNodes+1];
+			double maxCost = 0.0;
+			for(int a=0;a<nArcs;++a) {
+				maxCost = Math.max(maxCost,Math.abs(c[a]));
+			}
+			final double artCost = (maxCost+1.0)*(nNodes+1);
+			tol = 1.0e-12*artCost;
+			blockSize = Math.max(10,(int)Math.ceil(Math.sqrt(nArcs)));
+			Arrays.fill(state,0,nArcs,STATE_LOWER);
+			Arrays.fill(firstChild,-1);
+			// initial strongly feasible tree: every node hangs off the root by an artificial arc
+			parent[root] = -1;
+			pred[root] = -1;
+			depth[root] = 0;
+			int prev = -1;
+			for(int u=0;u<nNodes;++u) {
+				final int e = nArcs + u;
+				state[e] = STATE_TREE;
+				cap[e] = Double.POSITIVE_INFINITY;
+				parent[u] = root;
+				pred[u] = e;
+				depth[u] = 1;
+				firstChild[u] = -1;
+				if(supply[u]>=0) {
+					predDir[u] = DIR_UP;
+					src[e] = u;
+					tgt[e] = root;
+					c[e] = 0.0;
+					flow[e] = supply[u];
+					pi[u] = 0.0;
+				} else {
+					predDir[u] = DIR_DOWN;
+					src[e] = root;
+					tgt[e] = u;
+					c[e] = artCost;
+					flow[e] = -supply[u];
+					pi[u] = artCost;
+				}
+				prevSib[u] = prev;
+				nextSib[u] = -1;
+				if(prev>=0) {
+					nextSib[prev] = u;
+				} else {
+					firstChild[root] = u;
+				}
+				prev = u;
+			}
+		}
+
+		/**
+		 * block search pricing
+		 * @return false if no arc can enter (optimal)
+		 */
+		boolean findEnteringArc() {
+			if(nArcs<=0) {
+				return false;
+			}
+			double min = -tol;
+			int best = -1;
+			int cnt = blockSize;
+			int e = nextArc;
+			for(int k=0;k<nArcs;++k) {
+				final double rc = state[e]*(c[e] + pi[src[e]] - pi[tgt[e]]);
+				if(rc<min) {
+					min = rc;
+					best = e;
+				}
+				++e;
+				if(e>=nArcs) {
+					e = 0;
+				}
+				if((--cnt<=0)&&(best>=0)) {
+					break;
+				}
+				if(cnt<=0) {
+					cnt = blockSize;
+				}
+			}
+			if(best<0) {
+				return false;
+			}
+			inArc = best;
+			nextArc = e;
+			return true;
+		}
+
+		void findJoinNode() {
+			int u = src[inArc];
+			int v = tgt[inArc];
+			while(u!=v) {
+				if(depth[u]>depth[v]) {
+					u = parent[u];
+				} else if(depth[v]>depth[u]) {
+					v = parent[v];
+				} else {
+					u = parent[u];
+					v = parent[v];
+				}
+			}
+			join = u;
+		}
+
+		/**
+		 * @return 0 if the entering arc itself is the bottleneck, 1 or 2 for the side of the cycle the leaving arc is on
+		 */
+		int findLeavingArc() {
+			final int first;
+			final int second;
+			if(state[inArc]==STATE_LOWER) {
+				first = src[inArc];
+				second = tgt[inArc];
+			} else {
+				first = tgt[inArc];
+				second = src[inArc];
+			}
+			delta = cap[inArc];
+			int result = 0;
+			// first side: flow moves down from join toward first
+			for(int u=first;u!=join;u=parent[u]) {
+				final int e = pred[u];
+				final boolean up = predDir[u]==DIR_DOWN;
+				final double d = up?(cap[e]-flow[e]):flow[e];
+				if(d<delta) {
+					delta = d;
+					uOut = u;
+					outAtUpper = up;
+					result = 1;
+				}
+			}
+			// second side: flow moves up from second toward join (ties go to the last arc found)
+			for(int u=second;u!=join;u=parent[u]) {
+				final int e = pred[u];
+				final boolean up = predDir[u]==DIR_UP;
+				final double d = up?(cap[e]-flow[e]):flow[e];
+				if(d<=delta) {
+					delta = d;
+					uOut = u;
+					outAtUpper = up;
+					result = 2;
+				}
+			}
+			if(result==1) {
+				uIn = first;
+				vIn = second;
+			} else {
+				uIn = second;
+				vIn = first;
+			}
+			return result;
+		}
+
+		void changeFlow(final boolean change) {
+			if(delta>0) {
+				final double val = state[inArc]*delta;
+				flow[inArc] += val;
+				for(int u=src[inArc];u!=join;u=parent[u]) {
+					flow[pred[u]] -= predDir[u]*val;
+				}
+				for(int u=tgt[inArc];u!=join;u=parent[u]) {
+					flow[pred[u]] += predDir[u]*val;
+				}
+			}
+			if(change) {
+				state[inArc] = STATE_TREE;
+				final int eOut = pred[uOut];
+				if(outAtUpper) {
+					flow[eOut] = cap[eOut];
+					state[eOut] = STATE_UPPER;
+				} else {
+					flow[eOut] = 0.0;
+					state[eOut] = STATE_LOWER;
+				}
+			} else {
+				if(state[inArc]==STATE_LOWER) {
+					flow[inArc] = cap[inArc];
+				} else {
+					flow[inArc] = 0.0;
+				}
+				state[inArc] = -state[inArc];
+			}
+		}
+
+		private void unlink(final int u) {
+			final int p = parent[u];
+			if(prevSib[u]>=0) {
+				nextSib[prevSib[u]] = nextSib[u];
+			} else {
+				firstChild[p] = nextSib[u];
+			}
+			if(nextSib[u]>=0) {
+				prevSib[nextSib[u]] = prevSib[u];
+			}
+		}
+
+		private void link(final int u, final int p) {
+			parent[u] = p;
+			prevSib[u] = -1;
+			nextSib[u] = firstChild[p];
+			if(firstChild[p]>=0) {
+				prevSib[firstChild[p]] = u;
+			}
+			firstChild[p] = u;
+		}
+
+		/**
+		 * re-hang the subtree cut off by the leaving arc from the entering arc (reversing the
+		 * path uIn..uOut), then shift potentials and depths in it
+		 */
+		void updateTree() {
+			// reverse the path uIn -> ... -> uOut
+			int u = uIn;
+			int newParent = vIn;
+			int newPred = inArc;
+			int newDir = (src[inArc]==uIn)?DIR_UP:DIR_DOWN;
+			while(true) {
+				final int oldParent = parent[u];
+				final int oldPred = pred[u];
+				final int oldDir = predDir[u];
+				unlink(u);
+				link(u,newParent);
+				pred[u] = newPred;
+				predDir[u] = newDir;
+				if(u==uOut) {
+					break;
+				}
+				newParent = u;
+				newPred = oldPred;
+				newDir = -oldDir;
+				u = oldParent;
+			}
+			// potentials and depths of the moved subtree
+			final double sigma = pi[vIn] - pi[uIn] - predDir[uIn]*c[inArc];
+			int sp = 0;
+			stack[sp++] = uIn;
+			while(sp>0) {
+				final int x = stack[--sp];
+				pi[x] += sigma;
+				depth[x] = depth[parent[x]] + 1;
+				for(int ch=firstChild[x];ch>=0;ch=nextSib[ch]) {
+					stack[sp++] = ch;
+				}
+			}
+		}
+
+		Status run() {
+			double total = 0.0;
+			for(int u=0;u<nNodes;++u) {
+				total += supply[u];
+			}
+			double scale = 1.0;
+			for(int u=0;u<nNodes;++u) {
+				scale = Math.max(scale,Math.abs(supply[u]));
+			}
+			if(Math.abs(total)>1.0e-9*scale) {
+				return Status.INFEASIBLE;
+			}
+			while(findEnteringArc()) {
+				findJoinNode();
+				final int change = findLeavingArc();
+				if(delta>=Double.POSITIVE_INFINITY) {
+					// an unbounded cycle says nothing about feasibility while artificial arcs still
+					// carry flow, so settle that with a zero cost solve
+					return (new Solver(true).run()==Status.OPTIMAL)?Status.UNBOUNDED:Status.INFEASIBLE;
+				}
+				changeFlow(change!=0);
+				if(change!=0) {
+					updateTree();
+				}
+				++pivots;
+			}
+			for(int e=nArcs;e<nAll;++e) {
+				if(flow[e]>1.0e-9*scale) {
+					return Status.INFEASIBLE;
+				}
+			}
+			return Status.OPTIMAL;
+		}
+	}
+}
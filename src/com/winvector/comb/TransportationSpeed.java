@@ -0,0 +1,65 @@
+package com.winvector.comb;
+
+import java.util.Random;
+
+import com.winvector.linalg.colt.NativeMatrix;
+import com.winvector.lp.LPEQProb;
+import com.winvector.lp.LPException.LPErrorException;
+import com.winvector.lp.LPSoln;
+import com.winvector.lp.impl.RevisedSimplexSolver;
+
+/**
+ * time NetworkSimplex against the general revised simplex on random balanced transportation
+ * problems (the LP is dropped once it takes longer than 5 seconds).  Writes a TSV to System.out.
+ * @author johnmount
+ *
+ */
+public final class TransportationSpeed {
+	private TransportationSpeed() {
+	}
+
+	public static void main(final String[] args) throws Exception {
+		final int maxSize = (args.length>0)?Integer.parseInt(args[0]):1600;
+		final Random rand = new Random(235135L);
+		final RevisedSimplexSolver solver = new RevisedSimplexSolver();
+		System.out.println("sources" + "\t" + "sinks" + "\t" + "arcs" + "\t" + "networkPivots" + "\t" + "NetworkSimplex" + "\t" + "WVLPSolver");
+		boolean runLP = true;
+		for(int n=10;n<=maxSize;n*=2) {
+			for(int rep=0;rep<3;++rep) {
+				final double[] supply = new double[n];
+				final double[] demand = new double[n];
+				for(int k=0;k<10*n;++k) {
+					supply[rand.nextInt(n)] += 1.0;
+					demand[rand.nextInt(n)] += 1.0;
+				}
+				final double[][] cost = new double[n][n];
+				for(int i=0;i<n;++i) {
+					for(int j=0;j<n;++j) {
+						cost[i][j] = rand.nextInt(1000);
+					}
+				}
+				final NetworkSimplex ns = NetworkSimplex.transportation(supply,demand,cost);
+				final long nsStart = System.currentTimeMillis();
+				if(ns.solve()!=NetworkSimplex.Status.OPTIMAL) {
+					throw new LPErrorException("network simplex did not find an optimum");
+				}
+				final long nsMS = System.currentTimeMillis() - nsStart;
+				long lpMS = -1;
+				if(runLP) {
+					final LPEQProb prob = ns.toLPEQProb();
+					final long lpStart = System.currentTimeMillis();
+					final LPSoln soln = solver.solve(prob,null,1.0e-9,1000000,NativeMatrix.factory);
+					lpMS = System.currentTimeMillis() - lpStart;
+					final double lpValue = soln.primalSolution.dot(prob.c);
+					if(Math.abs(lpValue-ns.totalCost())>1.0e-6*Math.max(1.0,Math.abs(lpValue))) {
+						throw new LPErrorException("costs did not match: " + lpValue + " " + ns.totalCost());
+					}
+					if(lpMS>=5000) {
+						runLP = false;
+					}
+				}
+				System.out.println(n + "\t" + n + "\t" + ns.nArcs() + "\t" + ns.pivots() + "\t" + nsMS + "\t" + ((lpMS>=0)?lpMS:"NaN"));
+			}
+		}
+	}
+}
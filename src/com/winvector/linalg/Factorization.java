@@ -0,0 +1,112 @@
+package com.winvector.linalg;
+
+import java.util.Arrays;
+
+/**
+ * a factored square matrix A that can be re-used for many solves (build with Matrix.factor()).
+ * Not thread safe unless the implementation says so.
+ * @author johnmount
+ *
+ */
+public abstract class Factorization {
+	/**
+	 * @return n, the dimension of A
+	 */
+	public abstract int size();
+
+	/**
+	 * @param b n-vector (not altered)
+	 * @return x with A x = b
+	 */
+	public abstract double[] solve(double[] b);
+
+	/**
+	 * @param c n-vector (not altered)
+	 * @return y with y A = c (so transpose(A) y = c)
+	 */
+	public abstract double[] solveLeft(double[] c);
+
+	/**
+	 * @return max column absolute sum of A (the 1-norm)
+	 */
+	public abstract double norm1();
+
+	/**
+	 * @param rhs right hand sides, one per entry
+	 * @return x with A x[k] = rhs[k] for each k
+	 */
+	public double[][] solve(final double[][] rhs) {
+		final double[][] r = new double[rhs.length][];
+		for(int k=0;k<rhs.length;++k) {
+			r[k] = solve(rhs[k]);
+		}
+		return r;
+	}
+
+	/**
+	 * @param factory
+	 * @return A inverse as a dense matrix from factory
+	 */
+	public <T extends Matrix<T>> T inverse(final LinalgFactory<T> factory) {
+		final int n = size();
+		final T r = factory.newMatrix(n,n,false);
+		final double[] e = new double[n];
+		for(int j=0;j<n;++j) {
+			e[j] = 1.0;
+			final double[] x = solve(e);
+			e[j] = 0.0;
+			for(int i=0;i<n;++i) {
+				if(x[i]!=0.0) {
+					r.set(i,j,x[i]);
+				}
+			}
+		}
+		return r;
+	}
+
+	/**
+	 * Hager/Higham estimate (a lower bound, usually within a small factor) of the 1-norm
+	 * condition number norm1(A) norm1(inverse(A)), from at most 5 solve/solveLeft pairs
+	 * @return condition estimate (1 is perfectly conditioned, large is near singular)
+	 */
+	public double conditionEstimate() {
+		final int n = size();
+		if(n<=0) {
+			return 1.0;
+		}
+		double[] x = new double[n];
+		Arrays.fill(x,1.0/n);
+		final double[] s = new double[n];
+		double est = 0.0;
+		for(int iter=0;iter<5;++iter) {
+			final double[] y = solve(x);
+			double ynorm = 0.0;
+			for(int i=0;i<n;++i) {
+				ynorm += Math.abs(y[i]);
+				s[i] = (y[i]>=0.0)?1.0:-1.0;
+			}
+			if(Double.isNaN(ynorm)||Double.isInfinite(ynorm)) {
+				return Double.POSITIVE_INFINITY;
+			}
+			if((iter>0)&&(ynorm<=est)) {
+				break;
+			}
+			est = ynorm;
+			final double[] z = solveLeft(s);
+			int jBest = 0;
+			double zx = 0.0;
+			for(int j=0;j<n;++j) {
+				zx += z[j]*x[j];
+				if(Math.abs(z[j])>Math.abs(z[jBest])) {
+					jBest = j;
+				}
+			}
+			if((iter>0)&&(Math.abs(z[jBest])<=zx)) {
+				break;
+			}
+			x = new double[n];
+			x[jBest] = 1.0;
+		}
+		return norm1()*est;
+	}
+}
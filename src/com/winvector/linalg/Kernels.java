@@ -0,0 +1,115 @@
+package com.winvector.linalg;
+
+
+/**
+ * innermost dense and sparse loops (dot, axpy, gather dot, scatter axpy) behind one seam so a SIMD
+ * implementation can be swapped in at run time.  The SIMD version (com.winvector.linalg.simd.VectorKernels,
+ * sources in simd/, built on jdk.incubator.vector) is used when it is on the classpath and the JVM was
+ * started with --add-modules jdk.incubator.vector; otherwise (or with -Dcom.winvector.kernels=scalar)
+ * the plain loops below are used.
+ * @author johnmount
+ *
+ */
+public abstract class Kernels {
+	public static final String VECTOR_CLASS = "com.winvector.linalg.simd.VectorKernels";
+
+	/**
+	 * @return short name for reports ("scalar", "vector")
+	 */
+	public abstract String name();
+
+	/**
+	 * @return sum_{i<n} x[i]*y[i]
+	 */
+	public double dot(final double[] x, final double[] y, final int n) {
+		double r = 0.0;
+		for(int i=0;i<n;++i) {
+			r += x[i]*y[i];
+		}
+		return r;
+	}
+
+	/**
+	 * @return sum_{ii<nnz} values[ii]*x[indices[ii]]
+	 */
+	public double sparseDot(final int[] indices, final double[] values, final int nnz, final double[] x) {
+		double r = 0.0;
+		for(int ii=0;ii<nnz;++ii) {
+			r += values[ii]*x[indices[ii]];
+		}
+		return r;
+	}
+
+	/**
+	 * y[yOff+i] += a*x[xOff+i] for i<n (HotSpot already vectorizes this loop well)
+	 */
+	public void axpy(final double a, final double[] x, final int xOff, final double[] y, final int yOff, final int n) {
+		for(int i=0;i<n;++i) {
+			y[yOff+i] += a*x[xOff+i];
+		}
+	}
+
+	/**
+	 * y[indices[ii]] += a*values[ii] for ii<nnz (indices must be distinct)
+	 */
+	public void sparseAxpy(final double a, final int[] indices, final double[] values, final int nnz, final double[] y) {
+		for(int ii=0;ii<nnz;++ii) {
+			y[indices[ii]] += a*values[ii];
+		}
+	}
+
+	/**
+	 * x[off+i] *= a for i<n
+	 */
+	public void scale(final double a, final double[] x, final int off, final int n) {
+		for(int i=0;i<n;++i) {
+			x[off+i] *= a;
+		}
+	}
+
+
+	private static final class ScalarKernels extends Kernels {
+		@Override
+		public String name() {
+			return "scalar";
+		}
+	}
+
+	public static final Kernels scalar = new ScalarKernels();
+
+	/**
+	 * @param className Kernels subclass with a public no-argument constructor
+	 * @return an instance, or null if the class (or a module it needs) is not available
+	 */
+	public static Kernels load(final String className) {
+		try {
+			final Kernels k = Class.forName(className).asSubclass(Kernels.class).getDeclaredConstructor().newInstance();
+			// touch the implementation once so a missing module fails here, not mid-solve
+			final double[] x = { 1.0, 2.0 };
+			if(k.dot(x,x,2)!=5.0) {
+				return null;
+			}
+			return k;
+		} catch (Exception ex) {
+			return null;
+		} catch (LinkageError err) {
+			// missing module or class version mismatch
+			return null;
+		}
+	}
+
+	private static Kernels select() {
+		if(!"scalar".equals(System.getProperty("com.winvector.kernels"))) {
+			final Kernels k = load(VECTOR_CLASS);
+			if(null!=k) {
+				return k;
+			}
+		}
+		return scalar;
+	}
+
+	/**
+	 * kernels used by the library (chosen once, at class load)
+	 */
+	public static final Kernels active = select();
+}
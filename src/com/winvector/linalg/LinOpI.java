@@ -8,4 +8,19 @@ public interface LinOpI {
 	double[] multLeft(double[] y);
 	double[] mult(double[] x);
 	double[] mult(HVec x);
+
+	/**
+	 * r = y A, overwriting r (length cols(), must not alias y)
+	 */
+	void multLeftInto(double[] y, double[] r);
+
+	/**
+	 * r = A x, overwriting r (length rows(), must not alias x)
+	 */
+	void multInto(double[] x, double[] r);
+
+	/**
+	 * r = A x, overwriting r (length rows())
+	 */
+	void multInto(HVec x, double[] r);
 }
@@ -2,6 +2,7 @@ package com.winvector.linalg;
 
 import java.io.Serializable;
 
+import com.winvector.linalg.sparse.SparseLU;
 import com.winvector.linalg.sparse.SparseVec;
 
 public abstract class LinalgFactory<T extends Matrix<T>> implements Serializable {
@@ -17,7 +18,10 @@ public abstract class LinalgFactory<T extends Matrix<T>> implements Serializable
 		return r;
 	}
 	
-	public T matrixCopy(final PreMatrixI a) {
+	/**
+	 * @return true if under 10% of the entries of a are populated
+	 */
+	private static boolean isSparse(final PreMatrixI a) {
 		final int cols = a.cols();
 		final int rows = a.rows();
 		int npop = 0;
@@ -25,7 +29,13 @@ public abstract class LinalgFactory<T extends Matrix<T>> implements Serializable
 			final SparseVec col = a.extractColumn(j);
 			npop += col.popCount();
 		}
-		boolean wantSparse = npop<(0.1*rows)*cols;		
+		return npop<(0.1*rows)*cols;
+	}
+	
+	public T matrixCopy(final PreMatrixI a) {
+		final int cols = a.cols();
+		final int rows = a.rows();
+		boolean wantSparse = isSparse(a);
 		final T m = newMatrix(rows,cols,wantSparse);
 		for(int j=0;j<cols;++j) {
 			final SparseVec col = a.extractColumn(j);
@@ -39,4 +49,18 @@ public abstract class LinalgFactory<T extends Matrix<T>> implements Serializable
 		}
 		return m;
 	}
+
+	/**
+	 * factor a square matrix: sparse LU straight from the columns when a is sparse (same rule as
+	 * matrixCopy()), else this backend's dense factor()
+	 * @param a
+	 * @return factorization
+	 * @throws IllegalArgumentException if not square or singular
+	 */
+	public Factorization factor(final PreMatrixI a) {
+		if(isSparse(a)) {
+			return new SparseLU(a);
+		}
+		return matrixCopy(a).factor();
+	}
 }
@@ -2,7 +2,9 @@ package com.winvector.linalg;
 
 import java.io.PrintStream;
 import java.io.Serializable;
+import java.util.Arrays;
 
+import com.winvector.linalg.dense.DenseLU;
 import com.winvector.linalg.sparse.ColumnMatrix;
 import com.winvector.linalg.sparse.HVec;
 import com.winvector.linalg.sparse.SparseVec;
@@ -10,7 +12,7 @@ import com.winvector.linalg.sparse.SparseVec;
 
 
 
-public abstract class Matrix<T extends Matrix<T>> implements Serializable {
+public abstract class Matrix<T extends Matrix<T>> implements Serializable, LinOpI {
 	private static final long serialVersionUID = 1L;
 	
 
@@ -25,6 +27,36 @@ public abstract class Matrix<T extends Matrix<T>> implements Serializable {
 	abstract public <Z extends T> T multMat(final Z o);
 	abstract public double[] solve(final double[] y);
 	abstract public T inverse();
+
+	/**
+	 * factor this (square) matrix once so it can be used for many solves
+	 * @return factorization (default: pure Java dense LU of a copy)
+	 * @throws IllegalArgumentException if not square or singular
+	 */
+	public Factorization factor() {
+		final int n = rows();
+		if(n!=cols()) {
+			throw new IllegalArgumentException();
+		}
+		final double[] a = new double[n*n];
+		if(sparseRep()) {
+			final Object extractTemps = buildExtractTemps();
+			for(int j=0;j<n;++j) {
+				final SparseVec col = extractColumn(j,extractTemps);
+				final int nindices = col.nIndices();
+				for(int ii=0;ii<nindices;++ii) {
+					a[col.index(ii)*n+j] = col.value(ii);
+				}
+			}
+		} else {
+			for(int i=0;i<n;++i) {
+				for(int j=0;j<n;++j) {
+					a[i*n+j] = get(i,j);
+				}
+			}
+		}
+		return new DenseLU(a,n);
+	}
 	
 	abstract public Object buildExtractTemps();
 	abstract public int extractColumnToTemps(int ci, Object extractTemps, int[] indices,
@@ -79,12 +111,7 @@ public abstract class Matrix<T extends Matrix<T>> implements Serializable {
 
 
 	public static double dot(final double[] x, final double[] y) {
-		double r = 0.0;
-		final int n = x.length;
-		for(int i=0;i<n;++i) {
-			r += x[i]*y[i];
-		}
-		return r;
+		return Kernels.active.dot(x,y,x.length);
 	}
 	
 	
@@ -132,13 +159,21 @@ public abstract class Matrix<T extends Matrix<T>> implements Serializable {
 		p.println();
 	}
 
+	@Override
 	public double[] mult(final double[] x) {
+		final double[] r = new double[rows()];
+		multInto(x,r);
+		return r;
+	}
+
+	@Override
+	public void multInto(final double[] x, final double[] r) {
 		final int cols = cols();
 		if(cols!=x.length) {
 			throw new IllegalArgumentException();
 		}
 		final int rows = rows();
-		final double[] r = new double[rows];
+		Arrays.fill(r,0,rows,0.0);
 		for(int k=0;k<cols;++k) {
 			final double xk = x[k];
 			if(Math.abs(xk)>1.0e-8) {
@@ -147,12 +182,19 @@ public abstract class Matrix<T extends Matrix<T>> implements Serializable {
 				}
 			}
 		}
-		return r;		
 	}
 	
+	@Override
 	public double[] mult(final HVec x) {
+		final double[] r = new double[rows()];
+		multInto(x,r);
+		return r;
+	}
+
+	@Override
+	public void multInto(final HVec x, final double[] r) {
 		final int rows = rows();
-		final double[] r = new double[rows];
+		Arrays.fill(r,0,rows,0.0);
 		final int nindices = x.nIndices();
 		for(int ii=0;ii<nindices;++ii) {
 			final int k = x.index(ii);
@@ -163,16 +205,23 @@ public abstract class Matrix<T extends Matrix<T>> implements Serializable {
 				}
 			}
 		}
-		return r;		
 	}
 
+	@Override
 	public double[] multLeft(final double[] b) {
+		final double[] r = new double[cols()];
+		multLeftInto(b,r);
+		return r;
+	}
+
+	@Override
+	public void multLeftInto(final double[] b, final double[] r) {
 		final int rows = rows();
 		if (rows != b.length) {
 			throw new IllegalArgumentException();
 		}
 		final int cols = cols();
-		final double[] r = new double[cols];
+		Arrays.fill(r,0,cols,0.0);
 		for(int k=0;k<rows;++k) {
 			final double bk = b[k];
 			if(Math.abs(bk)>1.0e-8) {
@@ -181,10 +230,66 @@ public abstract class Matrix<T extends Matrix<T>> implements Serializable {
 				}
 			}
 		}
-		return r;
 	}
 	
 	
+	/**
+	 * Gauss-Jordan pivot on row k (the rank 1 update of an explicit basis inverse): each row i!=k with
+	 * |w[i]|>epsilon gets -w[i]/w[k] times row k added, then row k is divided by w[k].
+	 * The columns listed in nzCols[0..nNZ-1] (the non-zeros of row k) must be updated; dense backends
+	 * may sweep whole rows instead.
+	 */
+	public void pivotRows(final int k, final double[] w, final double epsilon, final int[] nzCols, final int nNZ) {
+		final int rows = rows();
+		final double vKInv = 1.0/w[k];
+		for(int i=0;i<rows;++i) {
+			if(k!=i) {
+				final double ui = w[i];
+				if(Math.abs(ui)>epsilon) {
+					final double vi = -ui*vKInv;
+					for(int jj=0;jj<nNZ;++jj) {
+						final int j = nzCols[jj];
+						set(i,j,get(i,j)+vi*get(k,j));
+					}
+				}
+			}
+		}
+		for(int jj=0;jj<nNZ;++jj) {
+			final int j = nzCols[jj];
+			set(k,j,vKInv*get(k,j));
+		}
+	}
+
+	/**
+	 * one row of pivotRows() for backends that store rows as array segments: row i += vi * row k,
+	 * through the (possibly SIMD) axpy kernel when row k is dense, else through the column list
+	 */
+	protected static void pivotRowSegment(final double vi, final double[] rowK, final int kOff, final double[] rowI, final int iOff,
+			final int cols, final int[] nzCols, final int nNZ) {
+		if(4*nNZ>=cols) {
+			Kernels.active.axpy(vi,rowK,kOff,rowI,iOff,cols);
+		} else {
+			for(int jj=0;jj<nNZ;++jj) {
+				final int j = nzCols[jj];
+				rowI[iOff+j] += vi*rowK[kOff+j];
+			}
+		}
+	}
+	
+	/**
+	 * row k *= vKInv, the last step of pivotRows() for row segment backends
+	 */
+	protected static void scaleRowSegment(final double vKInv, final double[] rowK, final int kOff,
+			final int cols, final int[] nzCols, final int nNZ) {
+		if(4*nNZ>=cols) {
+			Kernels.active.scale(vKInv,rowK,kOff,cols);
+		} else {
+			for(int jj=0;jj<nNZ;++jj) {
+				rowK[kOff+nzCols[jj]] *= vKInv;
+			}
+		}
+	}
+	
 	public void setRow(final int ri, final double[] row) {
 		final int cols = cols();
 		for(int i=0;i<cols;++i) {
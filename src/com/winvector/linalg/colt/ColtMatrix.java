@@ -175,4 +175,20 @@ public class ColtMatrix extends Matrix<ColtMatrix> {
 	public double[] multLeft(final double[] b) {
 		return Algebra.ZERO.mult(Algebra.ZERO.transpose(underlying),new DenseDoubleMatrix1D(b)).toArray();
 	}
+
+	// library products allocate their results, so these just copy them out
+	@Override
+	public void multInto(final double[] x, final double[] r) {
+		System.arraycopy(mult(x),0,r,0,rows());
+	}
+
+	@Override
+	public void multInto(final HVec x, final double[] r) {
+		System.arraycopy(mult(x),0,r,0,rows());
+	}
+
+	@Override
+	public void multLeftInto(final double[] b, final double[] r) {
+		System.arraycopy(multLeft(b),0,r,0,cols());
+	}
 }
@@ -1,11 +1,17 @@
 package com.winvector.linalg.colt;
 
+import java.util.Arrays;
+
 import cern.colt.matrix.DoubleMatrix2D;
 import cern.colt.matrix.impl.DenseDoubleMatrix2D;
 import cern.colt.matrix.linalg.Algebra;
 
+import com.winvector.linalg.Factorization;
+import com.winvector.linalg.Kernels;
 import com.winvector.linalg.LinalgFactory;
 import com.winvector.linalg.Matrix;
+import com.winvector.linalg.dense.DenseLU;
+import com.winvector.linalg.sparse.HVec;
 import com.winvector.linalg.sparse.SparseVec;
 
 
@@ -78,6 +84,18 @@ public class NativeMatrix extends Matrix<NativeMatrix> {
 	}
 	
 
+	@Override
+	public Factorization factor() {
+		if(rows!=cols) {
+			throw new IllegalArgumentException();
+		}
+		final double[] a = new double[rows*cols];
+		for(int i=0;i<rows;++i) {
+			System.arraycopy(u[i],0,a,i*cols,cols);
+		}
+		return new DenseLU(a,rows);
+	}
+
 	@Override
 	public Object buildExtractTemps() {
 		return null;
@@ -142,6 +160,58 @@ public class NativeMatrix extends Matrix<NativeMatrix> {
 		return r;
 	}
 
+	@Override
+	public void multInto(final double[] x, final double[] r) {
+		if(cols!=x.length) {
+			throw new IllegalArgumentException();
+		}
+		for(int i=0;i<rows;++i) {
+			r[i] = Kernels.active.dot(u[i],x,cols);
+		}
+	}
+
+	@Override
+	public void multInto(final HVec x, final double[] r) {
+		final int nindices = x.nIndices();
+		for(int i=0;i<rows;++i) {
+			final double[] ui = u[i];
+			double s = 0.0;
+			for(int ii=0;ii<nindices;++ii) {
+				s += ui[x.index(ii)]*x.value(ii);
+			}
+			r[i] = s;
+		}
+	}
+
+	@Override
+	public void multLeftInto(final double[] b, final double[] r) {
+		if(rows!=b.length) {
+			throw new IllegalArgumentException();
+		}
+		Arrays.fill(r,0,cols,0.0);
+		for(int k=0;k<rows;++k) {
+			final double bk = b[k];
+			if(bk!=0.0) {
+				Kernels.active.axpy(bk,u[k],0,r,0,cols);
+			}
+		}
+	}
+
+	@Override
+	public void pivotRows(final int k, final double[] w, final double epsilon, final int[] nzCols, final int nNZ) {
+		final double vKInv = 1.0/w[k];
+		final double[] rowK = u[k];
+		for(int i=0;i<rows;++i) {
+			if(k!=i) {
+				final double wi = w[i];
+				if(Math.abs(wi)>epsilon) {
+					pivotRowSegment(-wi*vKInv,rowK,0,u[i],0,cols,nzCols,nNZ);
+				}
+			}
+		}
+		scaleRowSegment(vKInv,rowK,0,cols,nzCols,nNZ);
+	}
+
 	@Override
 	public boolean sparseRep() {
 		return false;
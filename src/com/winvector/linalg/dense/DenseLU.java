@@ -0,0 +1,289 @@
+package com.winvector.linalg.dense;
+
+import java.util.Arrays;
+
+import com.winvector.linalg.Factorization;
+import com.winvector.linalg.LinalgFactory;
+import com.winvector.linalg.Matrix;
+
+
+/**
+ * dense LU factorization with partial pivoting (P A = L U) on a row-major double[], blocked so
+ * the trailing update runs over cache sized column blocks.  The default Matrix.factor().
+ * @author johnmount
+ *
+ */
+public final class DenseLU extends Factorization {
+	private final int n;
+	private final double[] lu;
+	private final int[] perm;
+	private final double norm1;
+
+	/**
+	 * block edge (in doubles) for the blocked update, 64x64 doubles is 32k
+	 */
+	static final int BLOCK = 64;
+
+	/**
+	 * @param a n by n row-major matrix, taken over (overwritten by the factors)
+	 * @param n
+	 * @throws IllegalArgumentException if the matrix is singular
+	 */
+	public DenseLU(final double[] a, final int n) {
+		if(a.length!=n*n) {
+			throw new IllegalArgumentException();
+		}
+		this.n = n;
+		double nrm = 0.0;
+		final double[] colSums = new double[n];
+		for(int i=0;i<n;++i) {
+			final int off = i*n;
+			for(int j=0;j<n;++j) {
+				colSums[j] += Math.abs(a[off+j]);
+			}
+		}
+		for(int j=0;j<n;++j) {
+			nrm = Math.max(nrm,colSums[j]);
+		}
+		norm1 = nrm;
+		lu = a;
+		perm = new int[n];
+		if(!luFactor(lu,n,perm)) {
+			throw new IllegalArgumentException("Matrix is singular.");
+		}
+	}
+
+	/**
+	 * in place blocked right-looking LU with partial pivoting (L unit lower, U upper, both stored in lu)
+	 * @param lu n by n row-major matrix, overwritten by its factors
+	 * @param n
+	 * @param perm filled in: row i of the factored matrix is row perm[i] of the original
+	 * @return false if a zero pivot was seen (matrix singular)
+	 */
+	private static boolean luFactor(final double[] lu, final int n, final int[] perm) {
+		for(int i=0;i<n;++i) {
+			perm[i] = i;
+		}
+		boolean nonsingular = true;
+		for(int k0=0;k0<n;k0+=BLOCK) {
+			final int k1 = Math.min(n,k0+BLOCK);
+			// factor the panel of columns k0..k1-1 (row swaps applied to whole rows)
+			for(int k=k0;k<k1;++k) {
+				int p = k;
+				double best = Math.abs(lu[k*n+k]);
+				for(int i=k+1;i<n;++i) {
+					final double v = Math.abs(lu[i*n+k]);
+					if(v>best) {
+						best = v;
+						p = i;
+					}
+				}
+				if(p!=k) {
+					final int pOff = p*n;
+					final int kOff = k*n;
+					for(int j=0;j<n;++j) {
+						final double t = lu[pOff+j];
+						lu[pOff+j] = lu[kOff+j];
+						lu[kOff+j] = t;
+					}
+					final int t = perm[p];
+					perm[p] = perm[k];
+					perm[k] = t;
+				}
+				final int kOff = k*n;
+				final double pivot = lu[kOff+k];
+				if(pivot==0.0) {
+					nonsingular = false;
+					continue;
+				}
+				for(int i=k+1;i<n;++i) {
+					final int iOff = i*n;
+					final double lik = lu[iOff+k]/pivot;
+					lu[iOff+k] = lik;
+					if(lik!=0.0) {
+						for(int j=k+1;j<k1;++j) {
+							lu[iOff+j] -= lik*lu[kOff+j];
+						}
+					}
+				}
+			}
+			if(k1<n) {
+				// U12 = inverse(L11) A12
+				for(int k=k0;k<k1;++k) {
+					final int kOff = k*n;
+					for(int i=k+1;i<k1;++i) {
+						final int iOff = i*n;
+						final double lik = lu[iOff+k];
+						if(lik!=0.0) {
+							for(int j=k1;j<n;++j) {
+								lu[iOff+j] -= lik*lu[kOff+j];
+							}
+						}
+					}
+				}
+				// A22 -= L21 U12, one column block at a time so the U12 block stays in cache
+				for(int j0=k1;j0<n;j0+=BLOCK) {
+					final int j1 = Math.min(n,j0+BLOCK);
+					for(int i=k1;i<n;++i) {
+						final int iOff = i*n;
+						for(int k=k0;k<k1;++k) {
+							final double lik = lu[iOff+k];
+							if(lik!=0.0) {
+								final int kOff = k*n;
+								for(int j=j0;j<j1;++j) {
+									lu[iOff+j] -= lik*lu[kOff+j];
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+		return nonsingular;
+	}
+
+	/**
+	 * solve LU x = P b
+	 * @param lu factors from luFactor()
+	 * @param n
+	 * @param perm from luFactor()
+	 * @param b right hand side (not altered)
+	 * @return x
+	 */
+	private static double[] luSolve(final double[] lu, final int n, final int[] perm, final double[] b) {
+		final double[] x = new double[n];
+		for(int i=0;i<n;++i) {
+			x[i] = b[perm[i]];
+		}
+		for(int i=1;i<n;++i) {
+			final int iOff = i*n;
+			double s = x[i];
+			for(int k=0;k<i;++k) {
+				s -= lu[iOff+k]*x[k];
+			}
+			x[i] = s;
+		}
+		for(int i=n-1;i>=0;--i) {
+			final int iOff = i*n;
+			double s = x[i];
+			for(int k=i+1;k<n;++k) {
+				s -= lu[iOff+k]*x[k];
+			}
+			x[i] = s/lu[iOff+i];
+		}
+		return x;
+	}
+
+	@Override
+	public int size() {
+		return n;
+	}
+
+	@Override
+	public double norm1() {
+		return norm1;
+	}
+
+	@Override
+	public double[] solve(final double[] b) {
+		if(b.length!=n) {
+			throw new IllegalArgumentException();
+		}
+		return luSolve(lu,n,perm,b);
+	}
+
+	/**
+	 * transpose(A) = transpose(U) transpose(L) P: forward through U by rows, back through L by rows,
+	 * then undo the row permutation
+	 */
+	@Override
+	public double[] solveLeft(final double[] c) {
+		if(c.length!=n) {
+			throw new IllegalArgumentException();
+		}
+		final double[] w = c.clone();
+		for(int k=0;k<n;++k) {
+			final int kOff = k*n;
+			final double wk = w[k]/lu[kOff+k];
+			w[k] = wk;
+			if(wk!=0.0) {
+				for(int i=k+1;i<n;++i) {
+					w[i] -= lu[kOff+i]*wk;
+				}
+			}
+		}
+		for(int k=n-1;k>0;--k) {
+			final int kOff = k*n;
+			final double wk = w[k];
+			if(wk!=0.0) {
+				for(int i=0;i<k;++i) {
+					w[i] -= lu[kOff+i]*wk;
+				}
+			}
+		}
+		final double[] y = new double[n];
+		for(int i=0;i<n;++i) {
+			y[perm[i]] = w[i];
+		}
+		return y;
+	}
+
+	/**
+	 * write A inverse into x, running the triangular solves on whole rows at once
+	 * (every inner loop is an axpy over a contiguous row)
+	 * @param x n*n row-major destination (need not be zeroed)
+	 */
+	public void inverseRowMajor(final double[] x) {
+		Arrays.fill(x,0.0);
+		for(int i=0;i<n;++i) {
+			x[i*n+perm[i]] = 1.0;
+		}
+		// X = inverse(L) P
+		for(int i=1;i<n;++i) {
+			final int iOff = i*n;
+			for(int k=0;k<i;++k) {
+				final double lik = lu[iOff+k];
+				if(lik!=0.0) {
+					final int kOff = k*n;
+					for(int j=0;j<n;++j) {
+						x[iOff+j] -= lik*x[kOff+j];
+					}
+				}
+			}
+		}
+		// X = inverse(U) X
+		for(int i=n-1;i>=0;--i) {
+			final int iOff = i*n;
+			for(int k=i+1;k<n;++k) {
+				final double uik = lu[iOff+k];
+				if(uik!=0.0) {
+					final int kOff = k*n;
+					for(int j=0;j<n;++j) {
+						x[iOff+j] -= uik*x[kOff+j];
+					}
+				}
+			}
+			final double scale = 1.0/lu[iOff+i];
+			for(int j=0;j<n;++j) {
+				x[iOff+j] *= scale;
+			}
+		}
+	}
+
+	@Override
+	public <T extends Matrix<T>> T inverse(final LinalgFactory<T> factory) {
+		final double[] x = new double[n*n];
+		inverseRowMajor(x);
+		final T r = factory.newMatrix(n,n,false);
+		for(int i=0;i<n;++i) {
+			final int off = i*n;
+			for(int j=0;j<n;++j) {
+				final double v = x[off+j];
+				if(v!=0.0) {
+					r.set(i,j,v);
+				}
+			}
+		}
+		return r;
+	}
+}
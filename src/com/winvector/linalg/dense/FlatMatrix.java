@@ -0,0 +1,311 @@
+package com.winvector.linalg.dense;
+
+import java.util.Arrays;
+
+import com.winvector.linalg.LinalgFactory;
+import com.winvector.linalg.Matrix;
+import com.winvector.linalg.sparse.HVec;
+import com.winvector.linalg.sparse.SparseVec;
+
+
+/**
+ * pure Java dense matrix stored row-major in one double[] (entry i,j at i*cols+j).
+ * Products, LU, solve and inverse work on contiguous row segments in cache sized blocks,
+ * with plain counted inner loops the JIT can unroll and vectorize.  No native dependencies.
+ * @author johnmount
+ *
+ */
+public class FlatMatrix extends Matrix<FlatMatrix> {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * block edge (in doubles) for the blocked kernels, 64x64 doubles is 32k
+	 */
+	static final int BLOCK = 64;
+
+	private final int rows;
+	private final int cols;
+	private final double[] a;
+
+	private FlatMatrix(final int m, final int n) {
+		this.rows = m;
+		this.cols = n;
+		a = new double[m*n];
+	}
+
+
+	@Override
+	public int cols() {
+		return cols;
+	}
+
+	@Override
+	public int rows() {
+		return rows;
+	}
+
+	@Override
+	public double get(final int row, final int col) {
+		return a[row*cols+col];
+	}
+
+	@Override
+	public void set(final int row, final int col, final double v) {
+		a[row*cols+col] = v;
+	}
+
+	/**
+	 * least squares solution by Householder QR (rows>=cols, full column rank)
+	 */
+	private double[] qrSolve(final double[] b) {
+		final int m = rows;
+		final int n = cols;
+		final double[] qr = a.clone();
+		final double[] rdiag = new double[n];
+		for(int k=0;k<n;++k) {
+			double nrm = 0.0;
+			for(int i=k;i<m;++i) {
+				nrm = Math.hypot(nrm,qr[i*n+k]);
+			}
+			if(nrm!=0.0) {
+				if(qr[k*n+k]<0) {
+					nrm = -nrm;
+				}
+				for(int i=k;i<m;++i) {
+					qr[i*n+k] /= nrm;
+				}
+				qr[k*n+k] += 1.0;
+				for(int j=k+1;j<n;++j) {
+					double s = 0.0;
+					for(int i=k;i<m;++i) {
+						s += qr[i*n+k]*qr[i*n+j];
+					}
+					s = -s/qr[k*n+k];
+					for(int i=k;i<m;++i) {
+						qr[i*n+j] += s*qr[i*n+k];
+					}
+				}
+			}
+			rdiag[k] = -nrm;
+			if(rdiag[k]==0.0) {
+				throw new IllegalArgumentException("Matrix is rank deficient.");
+			}
+		}
+		final double[] x = b.clone();
+		for(int k=0;k<n;++k) {
+			double s = 0.0;
+			for(int i=k;i<m;++i) {
+				s += qr[i*n+k]*x[i];
+			}
+			s = -s/qr[k*n+k];
+			for(int i=k;i<m;++i) {
+				x[i] += s*qr[i*n+k];
+			}
+		}
+		for(int k=n-1;k>=0;--k) {
+			x[k] /= rdiag[k];
+			for(int i=0;i<k;++i) {
+				x[i] -= x[k]*qr[i*n+k];
+			}
+		}
+		final double[] r = new double[n];
+		System.arraycopy(x,0,r,0,n);
+		return r;
+	}
+
+	/**
+	 * square: LU solve; more rows than columns: least squares (same contract as the Colt backends)
+	 */
+	@Override
+	public double[] solve(final double[] b) {
+		if(b.length!=rows) {
+			throw new IllegalArgumentException();
+		}
+		if(rows!=cols) {
+			if(rows<cols) {
+				throw new IllegalArgumentException("Matrix must not have more columns than rows.");
+			}
+			return qrSolve(b);
+		}
+		return factor().solve(b);
+	}
+
+
+	/**
+	 * @throws IllegalArgumentException if not square or singular
+	 */
+	@Override
+	public DenseLU factor() {
+		if(rows!=cols) {
+			throw new IllegalArgumentException();
+		}
+		return new DenseLU(a.clone(),rows);
+	}
+
+	@Override
+	public FlatMatrix inverse() {
+		if(rows!=cols) {
+			throw new IllegalArgumentException();
+		}
+		final FlatMatrix r = new FlatMatrix(rows,rows);
+		factor().inverseRowMajor(r.a);
+		return r;
+	}
+
+
+	@Override
+	public Object buildExtractTemps() {
+		return null;
+	}
+
+	@Override
+	public int extractColumnToTemps(final int ci, final Object extractTemps,
+			final int[] indices, final double[] values) {
+		int k = 0;
+		for(int i=0;i<rows;++i) {
+			final double e = a[i*cols+ci];
+			if(e!=0.0) {
+				values[k] = e;
+				indices[k] = i;
+				++k;
+			}
+		}
+		return k;
+	}
+
+	@Override
+	public SparseVec extractColumn(final int ci, final Object extractTemps) {
+		int nnz = 0;
+		for(int i=0;i<rows;++i) {
+			if(a[i*cols+ci]!=0.0) {
+				++nnz;
+			}
+		}
+		final int[] indices = new int[nnz];
+		final double[] values = new double[nnz];
+		int k = 0;
+		for(int i=0;(i<rows)&&(k<nnz);++i) {
+			final double e = a[i*cols+ci];
+			if(e!=0.0) {
+				values[k] = e;
+				indices[k] = i;
+				++k;
+			}
+		}
+		return new SparseVec(rows,indices,values);
+	}
+
+	/**
+	 * blocked i-k-j product: the inner loop is an axpy of a row of o into a row of the result
+	 */
+	@Override
+	public <Z extends FlatMatrix> FlatMatrix multMat(final Z o) {
+		final FlatMatrix ob = o;
+		if(cols!=ob.rows) {
+			throw new IllegalArgumentException();
+		}
+		final int ocols = ob.cols;
+		final FlatMatrix r = new FlatMatrix(rows,ocols);
+		final double[] ra = r.a;
+		final double[] oa = ob.a;
+		for(int k0=0;k0<cols;k0+=BLOCK) {
+			final int k1 = Math.min(cols,k0+BLOCK);
+			for(int j0=0;j0<ocols;j0+=BLOCK) {
+				final int j1 = Math.min(ocols,j0+BLOCK);
+				for(int i=0;i<rows;++i) {
+					final int aOff = i*cols;
+					final int rOff = i*ocols;
+					for(int k=k0;k<k1;++k) {
+						final double aik = a[aOff+k];
+						if(aik!=0.0) {
+							final int oOff = k*ocols;
+							for(int j=j0;j<j1;++j) {
+								ra[rOff+j] += aik*oa[oOff+j];
+							}
+						}
+					}
+				}
+			}
+		}
+		return r;
+	}
+
+	@Override
+	public void multInto(final double[] x, final double[] r) {
+		if(cols!=x.length) {
+			throw new IllegalArgumentException();
+		}
+		for(int i=0;i<rows;++i) {
+			final int off = i*cols;
+			double s = 0.0;
+			for(int k=0;k<cols;++k) {
+				s += a[off+k]*x[k];
+			}
+			r[i] = s;
+		}
+	}
+
+	@Override
+	public void multInto(final HVec x, final double[] r) {
+		final int nindices = x.nIndices();
+		for(int i=0;i<rows;++i) {
+			final int off = i*cols;
+			double s = 0.0;
+			for(int ii=0;ii<nindices;++ii) {
+				s += a[off+x.index(ii)]*x.value(ii);
+			}
+			r[i] = s;
+		}
+	}
+
+	@Override
+	public void multLeftInto(final double[] b, final double[] r) {
+		if(rows!=b.length) {
+			throw new IllegalArgumentException();
+		}
+		Arrays.fill(r,0,cols,0.0);
+		for(int k=0;k<rows;++k) {
+			final double bk = b[k];
+			if(bk!=0.0) {
+				final int off = k*cols;
+				for(int j=0;j<cols;++j) {
+					r[j] += bk*a[off+j];
+				}
+			}
+		}
+	}
+
+	@Override
+	public void pivotRows(final int k, final double[] w, final double epsilon, final int[] nzCols, final int nNZ) {
+		final double vKInv = 1.0/w[k];
+		final int kOff = k*cols;
+		for(int i=0;i<rows;++i) {
+			if(k!=i) {
+				final double wi = w[i];
+				if(Math.abs(wi)>epsilon) {
+					pivotRowSegment(-wi*vKInv,a,kOff,a,i*cols,cols,nzCols,nNZ);
+				}
+			}
+		}
+		scaleRowSegment(vKInv,a,kOff,cols,nzCols,nNZ);
+	}
+
+	@Override
+	public boolean sparseRep() {
+		return false;
+	}
+
+	public static final LinalgFactory<FlatMatrix> factory = new LinalgFactory<FlatMatrix>() {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public FlatMatrix newMatrix(int m, int n, boolean wantSparse) {
+			return new FlatMatrix(m,n);
+		}
+	};
+
+	@Override
+	public LinalgFactory<FlatMatrix> factory() {
+		return factory;
+	}
+}
@@ -169,4 +169,20 @@ public class JBlasMatrix extends Matrix<JBlasMatrix> {
 			o.put(0,i,b[i]);
 		return o.mmul(underlying).toArray();
 	}
+
+	// library products allocate their results, so these just copy them out
+	@Override
+	public void multInto(final double[] x, final double[] r) {
+		System.arraycopy(mult(x),0,r,0,rows());
+	}
+
+	@Override
+	public void multInto(final HVec x, final double[] r) {
+		System.arraycopy(mult(x),0,r,0,rows());
+	}
+
+	@Override
+	public void multLeftInto(final double[] b, final double[] r) {
+		System.arraycopy(multLeft(b),0,r,0,cols());
+	}
 }
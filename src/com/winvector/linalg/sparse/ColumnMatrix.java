@@ -4,9 +4,11 @@ import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
-import java.util.SortedMap;
-import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
+import com.winvector.linalg.Kernels;
 import com.winvector.linalg.PreMatrixI;
 
 /**
@@ -20,19 +22,23 @@ public final class ColumnMatrix implements PreMatrixI {
 	private final int rows;
 	private final int cols;
 	private final SparseVec[] columns;
-	
-	
+	private final long nnz;
+
+	/**
+	 * mult()/multLeft() on matrices with at least this many stored entries are split across
+	 * the common fork/join pool (set with -Dcom.winvector.parallelMinNNZ=)
+	 */
+	public static final int PARALLEL_MIN_NNZ = Integer.getInteger("com.winvector.parallelMinNNZ",1<<17);
+
 	public ColumnMatrix(final int rows, final SparseVec[] columns) {
 		this.rows = rows;
 		this.cols = columns.length;
 		this.columns = columns;
-	}
-	
-	
-	private ColumnMatrix(final int rows, final int cols) {
-		this.rows = rows;
-		this.cols = cols;
-		columns = new SparseVec[cols];
+		long nz = 0;
+		for(final SparseVec col: columns) {
+			nz += col.indices.length;
+		}
+		nnz = nz;
 	}
 	
 	/**
@@ -81,61 +87,231 @@ public final class ColumnMatrix implements PreMatrixI {
 	@Override
 	public double[] mult(final double[] x) {
 		final double[] res = new double[rows];
-		for(int j=0;j<cols;++j) {
+		multInto(x,res);
+		return res;
+	}
+
+	@Override
+	public void multInto(final double[] x, final double[] res) {
+		if(goParallel()) {
+			multInto(x,res,ForkJoinPool.commonPool());
+		} else {
+			multColumns(columns,x,0,cols,rows,res);
+		}
+	}
+
+	/**
+	 * res = sum_{lo<=j<hi} x[j] column[j] (res[0..rows-1] is overwritten)
+	 */
+	private static void multColumns(final SparseVec[] columns, final double[] x, final int lo, final int hi,
+			final int rows, final double[] res) {
+		Arrays.fill(res,0,rows,0.0);
+		for(int j=lo;j<hi;++j) {
 			if(x[j]!=0) {
 				final SparseVec col = columns[j];
-				final int colindiceslength = col.indices.length;
-				for(int ii=0;ii<colindiceslength;++ii) {
-					final int i = col.indices[ii];
-					final double aij = col.values[ii];
-					res[i] += aij*x[j];
-				}
+				Kernels.active.sparseAxpy(x[j],col.indices,col.values,col.indices.length,res);
 			}
 		}
-		return res;
 	}
 
 
 	@Override
 	public double[] multLeft(final double[] y) {
 		final double[] res = new double[cols];
-		for(int j=0;j<cols;++j) {
+		multLeftInto(y,res);
+		return res;
+	}
+
+	@Override
+	public void multLeftInto(final double[] y, final double[] res) {
+		if(goParallel()) {
+			multLeftInto(y,res,ForkJoinPool.commonPool());
+		} else {
+			multLeftColumns(columns,y,0,cols,res);
+		}
+	}
+
+	private static void multLeftColumns(final SparseVec[] columns, final double[] y, final int lo, final int hi, final double[] res) {
+		for(int j=lo;j<hi;++j) {
 			final SparseVec col = columns[j];
-			final int colindiceslength = col.indices.length;
-			for(int ii=0;ii<colindiceslength;++ii) {
-				final int i = col.indices[ii];
-				final double aij = col.values[ii];
-				res[j] += aij*y[i];
+			res[j] = Kernels.active.sparseDot(col.indices,col.values,col.indices.length,y);
+		}
+	}
+
+	/**
+	 * @return number of stored entries
+	 */
+	public long nnz() {
+		return nnz;
+	}
+
+	/**
+	 * split only big products, and not from inside a pool (batch solves already use every core)
+	 */
+	private boolean goParallel() {
+		return (nnz>=PARALLEL_MIN_NNZ)&&(cols>1)&&(Runtime.getRuntime().availableProcessors()>1)
+				&&(!ForkJoinTask.inForkJoinPool());
+	}
+
+	/**
+	 * multLeft columns in independent ranges, no shared writes
+	 */
+	private static final class MultLeftRange extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final SparseVec[] columns;
+		private final double[] y;
+		private final double[] res;
+		private final int lo;
+		private final int hi;
+		private final int grain;
+
+		MultLeftRange(final SparseVec[] columns, final double[] y, final double[] res, final int lo, final int hi, final int grain) {
+			this.columns = columns;
+			this.y = y;
+			this.res = res;
+			this.lo = lo;
+			this.hi = hi;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if(hi-lo<=grain) {
+				multLeftColumns(columns,y,lo,hi,res);
+			} else {
+				final int mid = (lo+hi)>>>1;
+				invokeAll(new MultLeftRange(columns,y,res,lo,mid,grain),
+						new MultLeftRange(columns,y,res,mid,hi,grain));
 			}
 		}
-		return res;
+	}
+
+	/**
+	 * res = y A with column ranges spread over pool
+	 * @param y
+	 * @param res overwritten (length cols())
+	 * @param pool
+	 */
+	public void multLeftInto(final double[] y, final double[] res, final ForkJoinPool pool) {
+		if(rows!=y.length) {
+			throw new IllegalArgumentException();
+		}
+		final int grain = Math.max(64,cols/(8*pool.getParallelism()));
+		pool.invoke(new MultLeftRange(columns,y,res,0,cols,grain));
+	}
+
+	/**
+	 * A x: each part accumulates its column range into a private row vector, then row ranges of
+	 * the partial sums are added up
+	 */
+	private static final class ParallelMult extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final SparseVec[] columns;
+		private final double[] x;
+		private final int rows;
+		private final double[] res;
+		private final int[] bounds; // part p has columns bounds[p] to bounds[p+1]-1
+
+		ParallelMult(final SparseVec[] columns, final double[] x, final int rows, final double[] res, final int[] bounds) {
+			this.columns = columns;
+			this.x = x;
+			this.rows = rows;
+			this.res = res;
+			this.bounds = bounds;
+		}
+
+		@Override
+		protected void compute() {
+			final int nParts = bounds.length-1;
+			final double[][] partial = new double[nParts][];
+			final ArrayList<RecursiveAction> tasks = new ArrayList<RecursiveAction>(nParts);
+			for(int p=0;p<nParts;++p) {
+				final int part = p;
+				partial[p] = (0==p)?res:new double[rows];
+				tasks.add(new RecursiveAction() {
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					protected void compute() {
+						multColumns(columns,x,bounds[part],bounds[part+1],rows,partial[part]);
+					}
+				});
+			}
+			invokeAll(tasks);
+			tasks.clear();
+			final int rowGrain = Math.max(1024,(rows+nParts-1)/nParts);
+			for(int r0=0;r0<rows;r0+=rowGrain) {
+				final int lo = r0;
+				final int hi = Math.min(rows,r0+rowGrain);
+				tasks.add(new RecursiveAction() {
+					private static final long serialVersionUID = 1L;
+
+					@Override
+					protected void compute() {
+						for(int p=1;p<nParts;++p) {
+							final double[] pp = partial[p];
+							for(int i=lo;i<hi;++i) {
+								res[i] += pp[i];
+							}
+						}
+					}
+				});
+			}
+			invokeAll(tasks);
+		}
+	}
+
+	/**
+	 * res = A x with columns split (by stored entries) over pool
+	 * @param x
+	 * @param res overwritten (length rows())
+	 * @param pool
+	 */
+	public void multInto(final double[] x, final double[] res, final ForkJoinPool pool) {
+		if(cols!=x.length) {
+			throw new IllegalArgumentException();
+		}
+		final int nParts = Math.max(1,Math.min(cols,pool.getParallelism()));
+		// balance parts by stored entries, not column count
+		final long perPart = nnz/nParts + 1;
+		final int[] bounds = new int[nParts+1];
+		int p = 1;
+		long acc = 0;
+		for(int j=0;(j<cols)&&(p<nParts);++j) {
+			acc += columns[j].indices.length;
+			if(acc>=p*perPart) {
+				bounds[p] = j+1;
+				++p;
+			}
+		}
+		for(;p<=nParts;++p) {
+			bounds[p] = cols;
+		}
+		pool.invoke(new ParallelMult(columns,x,rows,res,bounds));
 	}
 	
 	
+	/**
+	 * @return view sharing this matrix's columns (costs O(basis.length))
+	 */
 	@Override
-	public ColumnMatrix extractColumns(final int[] basis) {
-		final int newCols = basis.length;
-		final ColumnMatrix newMatrix = new ColumnMatrix(rows,newCols);
-		for(int j=0;j<newCols;++j) {
-			newMatrix.columns[j] = columns[basis[j]];
-		}
-		return newMatrix;
+	public SubMatrixView extractColumns(final int[] basis) {
+		return SubMatrixView.columns(this,basis);
 	}
 
 	@Override
 	public ColumnMatrix addColumns(final ArrayList<SparseVec> cs) {
 		final int cssize = cs.size();
-		final ColumnMatrix r = new ColumnMatrix(rows,cols+cssize);
-		for(int i=0;i<cols;++i) {
-			r.columns[i] = columns[i];
-		}
+		final SparseVec[] ncolumns = Arrays.copyOf(columns,cols+cssize);
 		for(int i=0;i<cssize;++i) {
 			if(cs.get(i).dim!=rows) {
 				throw new IllegalArgumentException();
 			}
-			r.columns[cols+i] = cs.get(i);
+			ncolumns[cols+i] = cs.get(i);
 		}
-		return r;
+		return new ColumnMatrix(rows,ncolumns);
 	}
 	
 	@Override
@@ -155,29 +331,21 @@ public final class ColumnMatrix implements PreMatrixI {
 		return r;
 	}
 	
+	/**
+	 * @return view of the selected rows (in increasing order), columns are renumbered as they are used
+	 */
 	@Override
-	public ColumnMatrix extractRows(final int[] rbIn) {
-		final int[] rb = Arrays.copyOf(rbIn,rbIn.length);
-		Arrays.sort(rb);
-		final int newDim = rb.length;
-		final SortedMap<Integer,Integer> renumbering = new TreeMap<Integer,Integer>();
-		for(int i=0;i<rb.length;++i) {
-			renumbering.put(rb[i],i);
-		}
-		final ColumnMatrix newMat = new ColumnMatrix(newDim,cols);
-		for(int j=0;j<cols;++j) {
-			newMat.columns[j] = columns[j].extractRows(newDim, renumbering);
-		}
-		return newMat;
+	public SubMatrixView extractRows(final int[] rbIn) {
+		return SubMatrixView.rows(this,rbIn);
 	}
 
 	@Override
 	public ColumnMatrix rescaleRows(double[] scale) {
-		final ColumnMatrix r = new ColumnMatrix(rows,cols);
+		final SparseVec[] ncolumns = new SparseVec[cols];
 		for(int j=0;j<cols;++j) {
-			r.columns[j] = columns[j].scale(scale);
+			ncolumns[j] = columns[j].scale(scale);
 		}
-		return r;
+		return new ColumnMatrix(rows,ncolumns);
 	}
 
 	@Override
@@ -192,73 +360,28 @@ public final class ColumnMatrix implements PreMatrixI {
 
 	@Override
 	public double[] mult(final HVec x) {
-		final int rows = rows();
 		final double[] r = new double[rows];
+		multInto(x,r);
+		return r;
+	}
+
+	@Override
+	public void multInto(final HVec x, final double[] r) {
+		Arrays.fill(r,0,rows,0.0);
 		final int nColIndices = x.indices.length;
 		for(int jj=0;jj<nColIndices;++jj) {
 			final int k = x.indices[jj];
 			final double xk = x.values[jj];
 			if(Math.abs(xk)>1.0e-8) {
 				final SparseVec col = columns[k];
-				final int nRowIndices = col.nIndices();
-				for(int ii=0;ii<nRowIndices;++ii) {
-					final int i = col.index(ii);
-					final double vij = col.value(ii);
-					r[i] += xk*vij;
-				}
+				Kernels.active.sparseAxpy(xk,col.indices,col.values,col.indices.length,r);
 			}
 		}
-		return r;		
 	}
 	
 	
 	
 	
-	private static int firstNZRow(final double[] col, final double minVal, final BitSet usedRows) {
-		final int nrows = col.length;
-		for(int i=0;i<nrows;++i) {
-			if(!usedRows.get(i)) {
-				final double coliAbs = Math.abs(col[i]);
-				if((coliAbs>0)&&(coliAbs>=minVal)) {
-					return i;
-				}
-			}
-		}
-		return -1;
-	}
-	
-	private static void elimBasis(final SparseVec[] basisCols, final int[] foundRow, final double[] col) {
-		final int nf = basisCols.length;
-		for(int jj=0;jj<nf;++jj) {
-			final SparseVec v = basisCols[jj];
-			if(null==v) {
-				break;
-			}
-			final int r = foundRow[jj];
-			final double scale = -col[r];
-			if(Math.abs(scale)>0) {
-				final int nr = v.nIndices();
-				for(int ii=0;ii<nr;++ii) {
-					final int i = v.index(ii);
-					final double vi = v.value(ii);
-					col[i] += scale*vi;
-				}
-			}
-			col[r] = 0.0;  //smash some floating point error
-		}
-	}
-	
-	private static SparseVec addBasis(final int nFound, final double[] workCol,
-			final int[] foundRow, final int[] foundCol,
-			final BitSet usedRows,
-			final int newRow, final int newCol) { 
-		final SparseVec nC = SparseVec.sparseVec(workCol).scale(1.0/workCol[newRow]);
-		foundRow[nFound] = newRow;
-		foundCol[nFound] = newCol;
-		usedRows.set(newRow);
-		return nC;
-	}
-	
 	/**
 	 * picks rows in order given (skipping rows in span of others)
 	 * @param forcedCols
@@ -268,48 +391,21 @@ public final class ColumnMatrix implements PreMatrixI {
 	public int[] colBasis(final int[] forcedCols, final double minVal) {
 		final int nGoal = Math.min(cols,rows);
 		final BitSet colsSeen = new BitSet(cols);
-		final BitSet usedRows = new BitSet(rows);
-		final int[] foundRow = new int[nGoal];
-		final int[] foundCol = new int[nGoal];
-		final SparseVec[] basisCols = new SparseVec[nGoal];
-		final double[] workCol = new double[rows];
-		Arrays.fill(foundRow,-1);
-		Arrays.fill(foundCol,-1);
-		int nFound = 0;
+		final IncrementalColBasis found = new IncrementalColBasis(rows,nGoal);
 		if(null!=forcedCols) {
 			for(final int cj: forcedCols) {
 				colsSeen.set(cj);
-				columns[cj].toArray(workCol);
-				elimBasis(basisCols,foundRow,workCol);
-				final int i = firstNZRow(workCol,minVal,usedRows);
-				if(i<0) {
+				if(found.add(columns[cj],cj,minVal)<0) {
 					throw new IllegalArgumentException("candidate cols were not independent");	
 				}
-				basisCols[nFound] = addBasis(nFound,workCol,foundRow,foundCol,usedRows,i,cj);
-				++nFound;
 			}
 		}
-		if(nFound<nGoal) {
-			for(int cj=0;cj<cols;++cj) {
-				if(!colsSeen.get(cj)) {
-					columns[cj].toArray(workCol);
-					elimBasis(basisCols,foundRow,workCol);
-					final int i = firstNZRow(workCol,minVal,usedRows);
-					if(i>=0) {
-						basisCols[nFound] = addBasis(nFound,workCol,foundRow,foundCol,usedRows,i,cj);
-						++nFound;
-						if(nFound>=nGoal) {
-							break;
-						}
-					}
-				}
+		for(int cj=0;(cj<cols)&&(found.size()<nGoal);++cj) {
+			if(!colsSeen.get(cj)) {
+				found.add(columns[cj],cj,minVal);
 			}
 		}
-		final int[] b = new int[nFound];
-		for(int j=0;j<nFound;++j) {
-			b[j] = foundCol[j];
-		}
-		return b;
+		return found.basis();
 	}
 	
 	@Override
@@ -345,10 +441,10 @@ public final class ColumnMatrix implements PreMatrixI {
 			}
 		}
 		// copy out to matrix structure
-		final ColumnMatrix t = new ColumnMatrix(cols,rows);
+		final SparseVec[] tcolumns = new SparseVec[rows];
 		for(int i=0;i<rows;++i) {
-			t.columns[i] = new SparseVec(cols,nindices[i],nvalues[i]);
+			tcolumns[i] = new SparseVec(cols,nindices[i],nvalues[i]);
 		}
-		return t;
+		return new ColumnMatrix(cols,tcolumns);
 	}
 }
@@ -3,6 +3,7 @@ package com.winvector.linalg.sparse;
 import java.io.Serializable;
 import java.util.Arrays;
 
+import com.winvector.linalg.Kernels;
 import com.winvector.linalg.PreVecI;
 
 
@@ -133,12 +134,7 @@ public class HVec implements Serializable {
 	
 	
 	public double dot(final double[] x) {
-		final int nindices = indices.length;
-		double d = 0.0;
-		for(int ii=0;ii<nindices;++ii) {
-			d += values[ii]*x[indices[ii]];
-		}
-		return d;
+		return Kernels.active.sparseDot(indices,values,indices.length,x);
 	}
 	
 	public double dot(final PreVecI x) {
@@ -185,6 +181,26 @@ public class HVec implements Serializable {
 		}
 	}
 	
+	/**
+	 * receives the stored (non-zero) entries of a vector
+	 * @author johnmount
+	 *
+	 */
+	public interface NonZeroVisitor {
+		void visit(int index, double value);
+	}
+	
+	/**
+	 * call visitor once per stored entry, in increasing index order (no lookups, no allocation)
+	 * @param visitor
+	 */
+	public void forEachNonZero(final NonZeroVisitor visitor) {
+		final int nindices = indices.length;
+		for(int ii=0;ii<nindices;++ii) {
+			visitor.visit(indices[ii],values[ii]);
+		}
+	}
+	
 	public double[] toArray(final int columns) {
 		final double[] x = new double[columns];
 		final int nindices = indices.length;
@@ -0,0 +1,235 @@
+package com.winvector.linalg.sparse;
+
+import java.util.Arrays;
+
+
+/**
+ * incremental sparse column echelon form, for picking a maximal independent set of columns in a
+ * given order.  Each accepted column is stored eliminated against the earlier ones and scaled to 1 in its
+ * pivot row (and 0 in all earlier pivot rows).  A candidate is scattered into a sparse accumulator and
+ * reduced by the earlier columns in acceptance order (a heap over the pivot rows it touches, including fill),
+ * so the work is proportional to the non-zeros involved rather than to rows().
+ * Pivot rows are chosen as the lowest numbered unused row with |value|>=minVal.
+ * @author johnmount
+ *
+ */
+final class IncrementalColBasis {
+	/**
+	 * at or below this many rows the plain dense sweep is cheaper than any bookkeeping
+	 */
+	static final int DENSE_ROWS = 256;
+
+	private final int rows;
+	private final SparseVec[] basisCols;
+	private final int[] foundRow;
+	private final int[] foundCol;
+	private final int[] rowToBasis;  // position of the basis column pivoting on row i, or -1
+	private int nFound = 0;
+	// sparse accumulator
+	private final double[] w;
+	private final boolean[] inPattern;
+	private final int[] pattern;
+	private int nPattern = 0;
+	private final int[] heap;
+	private int heapSize = 0;
+	private boolean sweeping = false; // heap abandoned for a plain pass over the remaining columns
+	private boolean dense = false;    // pattern abandoned too, w treated as a dense column
+
+	/**
+	 * @param rows
+	 * @param nGoal maximum number of columns to accept
+	 */
+	IncrementalColBasis(final int rows, final int nGoal) {
+		this.rows = rows;
+		basisCols = new SparseVec[nGoal];
+		foundRow = new int[nGoal];
+		foundCol = new int[nGoal];
+		rowToBasis = new int[rows];
+		Arrays.fill(rowToBasis,-1);
+		w = new double[rows];
+		inPattern = new boolean[rows];
+		pattern = new int[rows];
+		heap = new int[nGoal];
+	}
+
+	/**
+	 * @return number of columns accepted
+	 */
+	int size() {
+		return nFound;
+	}
+
+	/**
+	 * @return accepted column ids, in acceptance order
+	 */
+	int[] basis() {
+		return Arrays.copyOf(foundCol,nFound);
+	}
+
+	private void push(final int jj) {
+		int pos = heapSize;
+		++heapSize;
+		while(pos>0) {
+			final int parent = (pos-1)>>>1;
+			if(heap[parent]<=jj) {
+				break;
+			}
+			heap[pos] = heap[parent];
+			pos = parent;
+		}
+		heap[pos] = jj;
+	}
+
+	private int pop() {
+		final int r = heap[0];
+		--heapSize;
+		if(heapSize>0) {
+			final int last = heap[heapSize];
+			int pos = 0;
+			while(true) {
+				int child = 2*pos+1;
+				if(child>=heapSize) {
+					break;
+				}
+				if((child+1<heapSize)&&(heap[child+1]<heap[child])) {
+					++child;
+				}
+				if(heap[child]>=last) {
+					break;
+				}
+				heap[pos] = heap[child];
+				pos = child;
+			}
+			heap[pos] = last;
+		}
+		return r;
+	}
+
+	// w is all zero outside the pattern between calls
+	private void touch(final int i) {
+		if(!inPattern[i]) {
+			inPattern[i] = true;
+			pattern[nPattern] = i;
+			++nPattern;
+			if((!sweeping)&&(rowToBasis[i]>=0)) {
+				push(rowToBasis[i]);
+			}
+		}
+	}
+
+	private void eliminate(final int jj) {
+		final int r = foundRow[jj];
+		final double scale = -w[r];
+		if(Math.abs(scale)>0) {
+			final SparseVec v = basisCols[jj];
+			final int nr = v.indices.length;
+			if(dense) {
+				for(int ii=0;ii<nr;++ii) {
+					w[v.indices[ii]] += scale*v.values[ii];
+				}
+			} else {
+				for(int ii=0;ii<nr;++ii) {
+					final int i = v.indices[ii];
+					touch(i);
+					w[i] += scale*v.values[ii];
+				}
+			}
+		}
+		w[r] = 0.0;  //smash some floating point error
+	}
+
+	/**
+	 * reduce col against the accepted columns and accept it if something of size at least minVal
+	 * is left in an unused row
+	 * @param col
+	 * @param colId reported by basis()
+	 * @param minVal
+	 * @return pivot row, or -1 if col was rejected
+	 */
+	int add(final SparseVec col, final int colId, final double minVal) {
+		nPattern = 0;
+		heapSize = 0;
+		dense = rows<=DENSE_ROWS;
+		sweeping = dense;
+		final int nc = col.nIndices();
+		for(int ii=0;ii<nc;++ii) {
+			final int i = col.index(ii);
+			if(!dense) {
+				touch(i);
+			}
+			w[i] = col.value(ii);
+		}
+		if(dense) {
+			for(int jj=0;jj<nFound;++jj) {
+				eliminate(jj);
+			}
+		}
+		// basis column jj is zero on the pivot rows of the columns before it, so fill only ever
+		// adds later columns to the heap and they are applied in the same order as a dense sweep
+		while(heapSize>0) {
+			final int jj = pop();
+			eliminate(jj);
+			if((4*heapSize>nFound-jj)||(8*nPattern>=rows)) {
+				// filled in: heap (and then pattern) upkeep now costs more than just visiting the rest in order
+				sweeping = true;
+				for(int jj2=jj+1;jj2<nFound;++jj2) {
+					dense = dense||(8*nPattern>=rows);
+					eliminate(jj2);
+				}
+				break;
+			}
+		}
+		int newRow = -1;
+		if(dense) {
+			for(int i=0;i<rows;++i) {
+				if(rowToBasis[i]<0) {
+					final double wiAbs = Math.abs(w[i]);
+					if((wiAbs>0)&&(wiAbs>=minVal)) {
+						newRow = i;
+						break;
+					}
+				}
+			}
+		} else {
+			for(int k=0;k<nPattern;++k) {
+				final int i = pattern[k];
+				if((rowToBasis[i]<0)&&((newRow<0)||(i<newRow))) {
+					final double wiAbs = Math.abs(w[i]);
+					if((wiAbs>0)&&(wiAbs>=minVal)) {
+						newRow = i;
+					}
+				}
+			}
+		}
+		if((newRow>=0)&&(nFound<basisCols.length)) {
+			final SparseVec reduced;
+			if(dense) {
+				reduced = SparseVec.sparseVec(w);
+			} else {
+				Arrays.sort(pattern,0,nPattern);
+				final double[] values = new double[nPattern];
+				for(int k=0;k<nPattern;++k) {
+					values[k] = w[pattern[k]];
+				}
+				reduced = new SparseVec(rows,Arrays.copyOf(pattern,nPattern),values);
+			}
+			basisCols[nFound] = reduced.scale(1.0/w[newRow]);
+			foundRow[nFound] = newRow;
+			foundCol[nFound] = colId;
+			rowToBasis[newRow] = nFound;
+			++nFound;
+		} else {
+			newRow = -1;
+		}
+		for(int k=0;k<nPattern;++k) {
+			final int i = pattern[k];
+			w[i] = 0.0;
+			inPattern[i] = false;
+		}
+		if(dense) {
+			Arrays.fill(w,0.0);
+		}
+		nPattern = 0;
+		return newRow;
+	}
+}
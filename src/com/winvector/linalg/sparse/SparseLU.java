@@ -0,0 +1,485 @@
+package com.winvector.linalg.sparse;
+
+import java.util.Arrays;
+
+import com.winvector.linalg.Factorization;
+import com.winvector.linalg.PreMatrixI;
+
+
+/**
+ * sparse LU factorization P A Q = L U built directly from sparse columns.  Pivots are picked by
+ * Markowitz count (r-1)(c-1) among entries passing a threshold partial pivoting test
+ * (|a_ij| >= threshold * max_k |a_kj|), searching columns and rows in order of increasing count so
+ * row and column singletons (the bulk of a typical simplex basis) are taken first with no fill.
+ * Triangular solves skip zero entries, so sparse right hand sides stay cheap.
+ * @author johnmount
+ *
+ */
+public final class SparseLU extends Factorization {
+	public static final double DEFAULT_THRESHOLD = 0.1;
+	private static final int SEARCH_LIMIT = 4;  // columns/rows to examine once some pivot is found
+
+	private final int n;
+	private final double norm1;
+	private final int[] rowPerm;   // row of the k-th pivot
+	private final int[] colPerm;   // column of the k-th pivot
+	private final double[] diag;   // k-th pivot value
+	private final int[][] lRows;   // multipliers for step k: rows (original indices, pivoted after k)
+	private final double[][] lVals;
+	private final int[][] uCols;   // rest of pivot row k: columns (original indices, pivoted after k)
+	private final double[][] uVals;
+
+	/**
+	 * @param a square matrix
+	 * @throws IllegalArgumentException if not square or singular
+	 */
+	public SparseLU(final PreMatrixI a) {
+		this(a,DEFAULT_THRESHOLD);
+	}
+
+	/**
+	 * @param a square matrix
+	 * @param threshold in (0,1], smaller favors sparsity, larger favors stability
+	 * @throws IllegalArgumentException if not square or singular
+	 */
+	public SparseLU(final PreMatrixI a, final double threshold) {
+		n = a.rows();
+		if(n!=a.cols()) {
+			throw new IllegalArgumentException();
+		}
+		rowPerm = new int[n];
+		colPerm = new int[n];
+		diag = new double[n];
+		lRows = new int[n][];
+		lVals = new double[n][];
+		uCols = new int[n][];
+		uVals = new double[n][];
+		final Active act = new Active(n);
+		double nrm = 0.0;
+		for(int j=0;j<n;++j) {
+			final SparseVec col = a.extractColumn(j);
+			double colSum = 0.0;
+			final int nindices = col.nIndices();
+			for(int ii=0;ii<nindices;++ii) {
+				final double v = col.value(ii);
+				if(v!=0.0) {
+					act.add(col.index(ii),j,v);
+					colSum += Math.abs(v);
+				}
+			}
+			nrm = Math.max(nrm,colSum);
+		}
+		norm1 = nrm;
+		act.buildBuckets();
+		for(int k=0;k<n;++k) {
+			if(!act.findPivot(threshold)) {
+				throw new IllegalArgumentException("Matrix is singular.");
+			}
+			act.eliminate(k,this);
+		}
+	}
+
+
+	/**
+	 * the not yet factored part of the matrix: column lists with values, row lists of column
+	 * indices, and count buckets (doubly linked) for the Markowitz search
+	 */
+	private static final class Active {
+		final int n;
+		final int[][] cRows;
+		final double[][] cVals;
+		final int[] cLen;
+		final int[][] rCols;
+		final int[] rLen;
+		final boolean[] rowDone;
+		final boolean[] colDone;
+		// count buckets: head[count], next/prev per member
+		final int[] colHead;
+		final int[] colNext;
+		final int[] colPrev;
+		final int[] rowHead;
+		final int[] rowNext;
+		final int[] rowPrev;
+		// scratch
+		final int[] mark;    // position+1 of row i in the column being updated, 0 if absent
+		int pivRow = -1;
+		int pivCol = -1;
+
+		Active(final int n) {
+			this.n = n;
+			cRows = new int[n][];
+			cVals = new double[n][];
+			cLen = new int[n];
+			rCols = new int[n][];
+			rLen = new int[n];
+			for(int i=0;i<n;++i) {
+				cRows[i] = new int[4];
+				cVals[i] = new double[4];
+				rCols[i] = new int[4];
+			}
+			rowDone = new boolean[n];
+			colDone = new boolean[n];
+			colHead = new int[n+1];
+			colNext = new int[n];
+			colPrev = new int[n];
+			rowHead = new int[n+1];
+			rowNext = new int[n];
+			rowPrev = new int[n];
+			mark = new int[n];
+		}
+
+		void add(final int i, final int j, final double v) {
+			if(cLen[j]>=cRows[j].length) {
+				cRows[j] = Arrays.copyOf(cRows[j],2*cRows[j].length);
+				cVals[j] = Arrays.copyOf(cVals[j],2*cVals[j].length);
+			}
+			cRows[j][cLen[j]] = i;
+			cVals[j][cLen[j]] = v;
+			++cLen[j];
+			if(rLen[i]>=rCols[i].length) {
+				rCols[i] = Arrays.copyOf(rCols[i],2*rCols[i].length);
+			}
+			rCols[i][rLen[i]] = j;
+			++rLen[i];
+		}
+
+		void buildBuckets() {
+			Arrays.fill(colHead,-1);
+			Arrays.fill(rowHead,-1);
+			for(int j=0;j<n;++j) {
+				linkCol(j);
+			}
+			for(int i=0;i<n;++i) {
+				linkRow(i);
+			}
+		}
+
+		private void linkCol(final int j) {
+			final int c = cLen[j];
+			colPrev[j] = -1;
+			colNext[j] = colHead[c];
+			if(colHead[c]>=0) {
+				colPrev[colHead[c]] = j;
+			}
+			colHead[c] = j;
+		}
+
+		private void unlinkCol(final int j) {
+			if(colPrev[j]>=0) {
+				colNext[colPrev[j]] = colNext[j];
+			} else {
+				colHead[cLen[j]] = colNext[j];
+			}
+			if(colNext[j]>=0) {
+				colPrev[colNext[j]] = colPrev[j];
+			}
+		}
+
+		private void linkRow(final int i) {
+			final int c = rLen[i];
+			rowPrev[i] = -1;
+			rowNext[i] = rowHead[c];
+			if(rowHead[c]>=0) {
+				rowPrev[rowHead[c]] = i;
+			}
+			rowHead[c] = i;
+		}
+
+		private void unlinkRow(final int i) {
+			if(rowPrev[i]>=0) {
+				rowNext[rowPrev[i]] = rowNext[i];
+			} else {
+				rowHead[rLen[i]] = rowNext[i];
+			}
+			if(rowNext[i]>=0) {
+				rowPrev[rowNext[i]] = rowPrev[i];
+			}
+		}
+
+		private double colMax(final int j) {
+			double m = 0.0;
+			final double[] vals = cVals[j];
+			for(int ii=cLen[j]-1;ii>=0;--ii) {
+				m = Math.max(m,Math.abs(vals[ii]));
+			}
+			return m;
+		}
+
+		private int find(final int j, final int i) {
+			final int[] rows = cRows[j];
+			for(int ii=cLen[j]-1;ii>=0;--ii) {
+				if(rows[ii]==i) {
+					return ii;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Markowitz search (after Suhl and Suhl): once counts c have been searched every remaining
+		 * candidate costs at least c*c, so stop when the best seen is that cheap or enough
+		 * candidates have been looked at
+		 * @return false if no acceptable pivot exists (singular)
+		 */
+		boolean findPivot(final double threshold) {
+			long bestCost = Long.MAX_VALUE;
+			double bestAbs = 0.0;
+			int examined = 0;
+			pivRow = -1;
+			pivCol = -1;
+			for(int c=1;c<=n;++c) {
+				for(int j=colHead[c];j>=0;j=colNext[j]) {
+					final double cutoff = threshold*colMax(j);
+					for(int ii=0;ii<c;++ii) {
+						final double v = Math.abs(cVals[j][ii]);
+						if((v>0.0)&&(v>=cutoff)) {
+							final long cost = (long)(rLen[cRows[j][ii]]-1)*(c-1);
+							if((cost<bestCost)||((cost==bestCost)&&(v>bestAbs))) {
+								bestCost = cost;
+								bestAbs = v;
+								pivRow = cRows[j][ii];
+								pivCol = j;
+							}
+						}
+					}
+					++examined;
+					if((pivRow>=0)&&((bestCost<=(long)(c-1)*(c-1))||(examined>=SEARCH_LIMIT))) {
+						return true;
+					}
+				}
+				for(int i=rowHead[c];i>=0;i=rowNext[i]) {
+					for(int jj=0;jj<c;++jj) {
+						final int j = rCols[i][jj];
+						final int ii = find(j,i);
+						final double v = Math.abs(cVals[j][ii]);
+						if((v>0.0)&&(v>=threshold*colMax(j))) {
+							final long cost = (long)(c-1)*(cLen[j]-1);
+							if((cost<bestCost)||((cost==bestCost)&&(v>bestAbs))) {
+								bestCost = cost;
+								bestAbs = v;
+								pivRow = i;
+								pivCol = j;
+							}
+						}
+					}
+					++examined;
+					if((pivRow>=0)&&((bestCost<=(long)c*(c-1))||(examined>=SEARCH_LIMIT))) {
+						return true;
+					}
+				}
+				if((pivRow>=0)&&(bestCost<=(long)c*c)) {
+					return true;
+				}
+			}
+			return pivRow>=0;
+		}
+
+		/**
+		 * record step k (pivot at pivRow,pivCol) into lu and apply the rank 1 update to what is left
+		 */
+		void eliminate(final int k, final SparseLU lu) {
+			final int p = pivRow;
+			final int q = pivCol;
+			// take column q out of the active matrix: it becomes the multipliers
+			unlinkCol(q);
+			colDone[q] = true;
+			final int qLen = cLen[q];
+			final int[] qRows = cRows[q];
+			final double[] qVals = cVals[q];
+			final int pq = find(q,p);
+			final double pivot = qVals[pq];
+			final int[] lr = new int[qLen-1];
+			final double[] lv = new double[qLen-1];
+			int nl = 0;
+			for(int ii=0;ii<qLen;++ii) {
+				final int i = qRows[ii];
+				if(i!=p) {
+					lr[nl] = i;
+					lv[nl] = qVals[ii]/pivot;
+					++nl;
+				}
+				removeFromRow(i,q);
+			}
+			cLen[q] = 0;
+			// take row p out: it becomes the U row
+			unlinkRow(p);
+			rowDone[p] = true;
+			final int pLen = rLen[p];
+			final int[] ur = new int[pLen];
+			final double[] uv = new double[pLen];
+			for(int jj=0;jj<pLen;++jj) {
+				final int j = rCols[p][jj];
+				final int ii = find(j,p);
+				ur[jj] = j;
+				uv[jj] = cVals[j][ii];
+				unlinkCol(j);
+				removeAt(j,ii);
+			}
+			rLen[p] = 0;
+			// A22 -= l u, column by column with a row marker for fill detection
+			for(int jj=0;jj<pLen;++jj) {
+				final int j = ur[jj];
+				final double upj = uv[jj];
+				if(nl>0) {
+					for(int ii=0;ii<cLen[j];++ii) {
+						mark[cRows[j][ii]] = ii+1;
+					}
+					for(int t=0;t<nl;++t) {
+						final int i = lr[t];
+						final double d = lv[t]*upj;
+						final int at = mark[i];
+						if(at>0) {
+							cVals[j][at-1] -= d;
+						} else {
+							unlinkRow(i);
+							add(i,j,-d);
+							mark[i] = cLen[j];
+							linkRow(i);
+						}
+					}
+					for(int ii=0;ii<cLen[j];++ii) {
+						mark[cRows[j][ii]] = 0;
+					}
+				}
+				linkCol(j);
+			}
+			lu.rowPerm[k] = p;
+			lu.colPerm[k] = q;
+			lu.diag[k] = pivot;
+			lu.lRows[k] = lr;
+			lu.lVals[k] = lv;
+			lu.uCols[k] = ur;
+			lu.uVals[k] = uv;
+		}
+
+		private void removeFromRow(final int i, final int j) {
+			final int[] cols = rCols[i];
+			final int len = rLen[i];
+			for(int jj=0;jj<len;++jj) {
+				if(cols[jj]==j) {
+					if(!rowDone[i]) {
+						unlinkRow(i);
+					}
+					cols[jj] = cols[len-1];
+					rLen[i] = len-1;
+					if(!rowDone[i]) {
+						linkRow(i);
+					}
+					return;
+				}
+			}
+		}
+
+		private void removeAt(final int j, final int ii) {
+			final int last = cLen[j]-1;
+			cRows[j][ii] = cRows[j][last];
+			cVals[j][ii] = cVals[j][last];
+			cLen[j] = last;
+		}
+	}
+
+
+	@Override
+	public int size() {
+		return n;
+	}
+
+	@Override
+	public double norm1() {
+		return norm1;
+	}
+
+	/**
+	 * @return number of stored off-diagonal entries in L and U (a fill measure)
+	 */
+	public int nnzLU() {
+		int t = 0;
+		for(int k=0;k<n;++k) {
+			t += lRows[k].length + uCols[k].length;
+		}
+		return t;
+	}
+
+	/**
+	 * A x = b: forward through L in pivot order (skipping zero multiplier columns), then back through U
+	 * @param y b on entry (indexed by row), overwritten
+	 */
+	private double[] solveInPlace(final double[] y) {
+		for(int k=0;k<n;++k) {
+			final double yp = y[rowPerm[k]];
+			if(yp!=0.0) {
+				final int[] lr = lRows[k];
+				final double[] lv = lVals[k];
+				for(int t=0;t<lr.length;++t) {
+					y[lr[t]] -= lv[t]*yp;
+				}
+			}
+		}
+		final double[] x = new double[n];
+		for(int k=n-1;k>=0;--k) {
+			double s = y[rowPerm[k]];
+			final int[] ur = uCols[k];
+			final double[] uv = uVals[k];
+			for(int t=0;t<ur.length;++t) {
+				s -= uv[t]*x[ur[t]];
+			}
+			x[colPerm[k]] = s/diag[k];
+		}
+		return x;
+	}
+
+	@Override
+	public double[] solve(final double[] b) {
+		if(b.length!=n) {
+			throw new IllegalArgumentException();
+		}
+		return solveInPlace(b.clone());
+	}
+
+	/**
+	 * @param b sparse right hand side
+	 * @return x with A x = b
+	 */
+	public double[] solve(final HVec b) {
+		final double[] y = new double[n];
+		final int nindices = b.nIndices();
+		for(int ii=0;ii<nindices;++ii) {
+			y[b.index(ii)] = b.value(ii);
+		}
+		return solveInPlace(y);
+	}
+
+	/**
+	 * transpose(A) y = c: forward through transpose(U) in pivot order, then back through transpose(L)
+	 */
+	@Override
+	public double[] solveLeft(final double[] c) {
+		if(c.length!=n) {
+			throw new IllegalArgumentException();
+		}
+		final double[] w = c.clone();
+		final double[] t = new double[n];
+		for(int k=0;k<n;++k) {
+			final double tk = w[colPerm[k]]/diag[k];
+			t[k] = tk;
+			if(tk!=0.0) {
+				final int[] ur = uCols[k];
+				final double[] uv = uVals[k];
+				for(int s=0;s<ur.length;++s) {
+					w[ur[s]] -= uv[s]*tk;
+				}
+			}
+		}
+		final double[] y = new double[n];
+		for(int k=n-1;k>=0;--k) {
+			double s = t[k];
+			final int[] lr = lRows[k];
+			final double[] lv = lVals[k];
+			for(int r=0;r<lr.length;++r) {
+				s -= lv[r]*y[lr[r]];
+			}
+			y[rowPerm[k]] = s;
+		}
+		return y;
+	}
+}
@@ -1,6 +1,5 @@
 package com.winvector.linalg.sparse;
 
-import java.util.SortedMap;
 
 
 
@@ -94,26 +93,25 @@ public final class SparseVec extends HVec {
 		return toArray(dim);
 	}
 	
-	SparseVec extractRows(final int newDim, final SortedMap<Integer,Integer> renumbering) {
+	/**
+	 * @param newDim
+	 * @param renumbering new index of each old index (-1 to drop), must preserve order
+	 * @return
+	 */
+	SparseVec extractRows(final int newDim, final int[] renumbering) {
 		final int nindices = indices.length;
-		final int nnz;
-		{
-			int k = 0;
-			for(int ii=0;ii<nindices;++ii) {
-				final int i = indices[ii];
-				if(renumbering.containsKey(i)) {
-					++k;
-				}
+		int nnz = 0;
+		for(int ii=0;ii<nindices;++ii) {
+			if(renumbering[indices[ii]]>=0) {
+				++nnz;
 			}
-			nnz = k;
 		}
 		final int[] newIndices = new int[nnz];
 		final double[] newValues = new double[nnz];
 		int k = 0;
 		for(int ii=0;(ii<nindices)&&(k<nnz);++ii) {
-			final int i = indices[ii];
-			final Integer newIndex = renumbering.get(i);
-			if(null!=newIndex) {
+			final int newIndex = renumbering[indices[ii]];
+			if(newIndex>=0) {
 				newIndices[k] = newIndex;
 				newValues[k] = values[ii];
 				++k;
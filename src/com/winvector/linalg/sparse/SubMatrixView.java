@@ -0,0 +1,229 @@
+package com.winvector.linalg.sparse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.winvector.linalg.Kernels;
+import com.winvector.linalg.PreMatrixI;
+
+/**
+ * immutable selection of rows and columns of a ColumnMatrix, held as index maps over the parent's storage.
+ * Column selections hand back the parent's columns as is, so building one costs O(selected columns).
+ * Row selections renumber a parent column the first time it is asked for and cache it; views derived
+ * from a row selection by extractColumns() share that cache.
+ * @author johnmount
+ *
+ */
+public final class SubMatrixView implements PreMatrixI {
+	private static final long serialVersionUID = 1L;
+
+	private final ColumnMatrix parent;
+	private final int rows;
+	private final int cols;
+	private final int[] colMap;          // view column j is parent column colMap[j] (null: identity)
+	private final int[] rowMap;          // view row i is parent row rowMap[i], increasing (null: identity)
+	private final int[] parentRowToRow;  // inverse of rowMap, -1 for dropped rows (null if rowMap is)
+	private final SparseVec[] rowCache;  // renumbered parent columns (null if rowMap is)
+
+	private SubMatrixView(final ColumnMatrix parent, final int[] colMap, final int[] rowMap,
+			final int[] parentRowToRow, final SparseVec[] rowCache) {
+		this.parent = parent;
+		this.colMap = colMap;
+		this.rowMap = rowMap;
+		this.parentRowToRow = parentRowToRow;
+		this.rowCache = rowCache;
+		rows = (null==rowMap)?parent.rows():rowMap.length;
+		cols = (null==colMap)?parent.cols():colMap.length;
+	}
+
+	/**
+	 * @param parent
+	 * @param basis parent column indices (copied)
+	 * @return view of those columns
+	 */
+	static SubMatrixView columns(final ColumnMatrix parent, final int[] basis) {
+		return new SubMatrixView(parent,checkedCopy(basis,parent.cols()),null,null,null);
+	}
+
+	/**
+	 * @param parent
+	 * @param rb parent row indices (distinct, any order)
+	 * @return view of those rows, in increasing order
+	 */
+	static SubMatrixView rows(final ColumnMatrix parent, final int[] rb) {
+		return new SubMatrixView(parent,null,null,null,null).extractRows(rb);
+	}
+
+	private static int[] checkedCopy(final int[] idx, final int bound) {
+		final int[] r = Arrays.copyOf(idx,idx.length);
+		for(final int i: r) {
+			if((i<0)||(i>=bound)) {
+				throw new IllegalArgumentException("index out of range");
+			}
+		}
+		return r;
+	}
+
+	@Override
+	public int rows() {
+		return rows;
+	}
+
+	@Override
+	public int cols() {
+		return cols;
+	}
+
+	@Override
+	public SparseVec extractColumn(final int j) {
+		final int pj = (null==colMap)?j:colMap[j];
+		if(null==rowMap) {
+			return parent.extractColumn(pj);
+		}
+		// racing threads may both build a column, either copy is fine
+		SparseVec c = rowCache[pj];
+		if(null==c) {
+			c = parent.extractColumn(pj).extractRows(rows,parentRowToRow);
+			rowCache[pj] = c;
+		}
+		return c;
+	}
+
+	@Override
+	public SubMatrixView extractColumns(final int[] basis) {
+		final int[] newColMap = checkedCopy(basis,cols);
+		if(null!=colMap) {
+			for(int j=0;j<newColMap.length;++j) {
+				newColMap[j] = colMap[newColMap[j]];
+			}
+		}
+		return new SubMatrixView(parent,newColMap,rowMap,parentRowToRow,rowCache);
+	}
+
+	@Override
+	public SubMatrixView extractRows(final int[] rbIn) {
+		final int[] rb = checkedCopy(rbIn,rows);
+		Arrays.sort(rb);
+		if(null!=rowMap) {
+			for(int i=0;i<rb.length;++i) {
+				rb[i] = rowMap[rb[i]];
+			}
+		}
+		final int[] inverse = new int[parent.rows()];
+		Arrays.fill(inverse,-1);
+		for(int i=0;i<rb.length;++i) {
+			inverse[rb[i]] = i;
+		}
+		return new SubMatrixView(parent,colMap,rb,inverse,new SparseVec[parent.cols()]);
+	}
+
+	/**
+	 * @return the same matrix as a ColumnMatrix (shares column storage)
+	 */
+	public ColumnMatrix toColumnMatrix() {
+		final SparseVec[] columns = new SparseVec[cols];
+		for(int j=0;j<cols;++j) {
+			columns[j] = extractColumn(j);
+		}
+		return new ColumnMatrix(rows,columns);
+	}
+
+	@Override
+	public ColumnMatrix addColumns(final ArrayList<SparseVec> cs) {
+		return toColumnMatrix().addColumns(cs);
+	}
+
+	@Override
+	public double[] sumAbsRowValues() {
+		final double[] r = new double[rows];
+		for(int j=0;j<cols;++j) {
+			final SparseVec col = extractColumn(j);
+			final int nindices = col.indices.length;
+			for(int ii=0;ii<nindices;++ii) {
+				r[col.indices[ii]] += Math.abs(col.values[ii]);
+			}
+		}
+		return r;
+	}
+
+	@Override
+	public ColumnMatrix rescaleRows(final double[] scale) {
+		return toColumnMatrix().rescaleRows(scale);
+	}
+
+	@Override
+	public int[] colBasis(final int[] forcedCols, final double minVal) {
+		return toColumnMatrix().colBasis(forcedCols,minVal);
+	}
+
+	@Override
+	public ColumnMatrix transpose() {
+		return toColumnMatrix().transpose();
+	}
+
+	@Override
+	public double get(final int i, final int j) {
+		return extractColumn(j).get(i);
+	}
+
+	@Override
+	public double[] mult(final double[] x) {
+		final double[] r = new double[rows];
+		multInto(x,r);
+		return r;
+	}
+
+	@Override
+	public void multInto(final double[] x, final double[] r) {
+		if(cols!=x.length) {
+			throw new IllegalArgumentException();
+		}
+		Arrays.fill(r,0,rows,0.0);
+		for(int j=0;j<cols;++j) {
+			if(x[j]!=0) {
+				final SparseVec col = extractColumn(j);
+				Kernels.active.sparseAxpy(x[j],col.indices,col.values,col.indices.length,r);
+			}
+		}
+	}
+
+	@Override
+	public double[] mult(final HVec x) {
+		final double[] r = new double[rows];
+		multInto(x,r);
+		return r;
+	}
+
+	@Override
+	public void multInto(final HVec x, final double[] r) {
+		Arrays.fill(r,0,rows,0.0);
+		final int nindices = x.indices.length;
+		for(int jj=0;jj<nindices;++jj) {
+			final SparseVec col = extractColumn(x.indices[jj]);
+			Kernels.active.sparseAxpy(x.values[jj],col.indices,col.values,col.indices.length,r);
+		}
+	}
+
+	@Override
+	public double[] multLeft(final double[] y) {
+		final double[] r = new double[cols];
+		multLeftInto(y,r);
+		return r;
+	}
+
+	@Override
+	public void multLeftInto(final double[] y, final double[] r) {
+		if(rows!=y.length) {
+			throw new IllegalArgumentException();
+		}
+		for(int j=0;j<cols;++j) {
+			final SparseVec col = extractColumn(j);
+			r[j] = Kernels.active.sparseDot(col.indices,col.values,col.indices.length,y);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return toColumnMatrix().toString();
+	}
+}
@@ -2,10 +2,20 @@ package com.winvector.linalg.sparse;
 
 import java.util.Arrays;
 
+import com.winvector.linalg.Factorization;
 import com.winvector.linalg.LinOpI;
+import com.winvector.linalg.LinalgFactory;
 import com.winvector.linalg.Matrix;
 
 
+/**
+ * sparse matrix as a table of (i,j,value) cells threaded on doubly linked row and column lists,
+ * sized for at most maxCells non-zeros.  Meant to hold a sparse basis inverse: pivot() applies the
+ * Gauss-Jordan rank 1 update touching only the affected cells, and cells that cancel are recycled
+ * through a free list.  Any operation that would need more than maxCells cells marks the table invalid.
+ * @author johnmount
+ *
+ */
 public final class TabularLinOp implements LinOpI {
 	private final double epsilon = 1.0e-10;
 	private final int size;
@@ -14,13 +24,21 @@ public final class TabularLinOp implements LinOpI {
 	private final int[] iv;
 	private final int[] jv;
 	private final double[] av;
-	private int k;
+	private int k;            // high water mark of used slots
+	private int freeHead;     // recycled slots, chained through nextWithSameI
+	private int nnz;
 	private final int[] nextWithSameI;
+	private final int[] prevWithSameI;
 	private final int[] nextWithSameJ;
+	private final int[] prevWithSameJ;
 	private final int[] firstWithI;
 	private final int[] firstWithJ;
+	// pivot() scratch
+	private final int[] mark;
+	private final int[] kCols;
+	private final double[] kVals;
 	private boolean valid = false;
-	
+
 	public TabularLinOp(final int rows, final int cols, final int maxCells) {
 		this.rows = rows;
 		this.cols = cols;
@@ -29,18 +47,21 @@ public final class TabularLinOp implements LinOpI {
 		jv = new int[size];
 		av = new double[size];
 		nextWithSameI = new int[size];
+		prevWithSameI = new int[size];
 		nextWithSameJ = new int[size];
+		prevWithSameJ = new int[size];
 		firstWithI = new int[rows];
 		firstWithJ = new int[cols];
-		Arrays.fill(firstWithI,-1);
-		Arrays.fill(firstWithJ,-1);
-		k = 0;
+		mark = new int[cols];
+		kCols = new int[cols];
+		kVals = new double[cols];
+		clear();
 	}
-	
+
 	public boolean valid() {
 		return valid;
 	}
-	
+
 	public void invalidate() {
 		valid = false;
 	}
@@ -55,67 +76,225 @@ public final class TabularLinOp implements LinOpI {
 		return cols;
 	}
 
-	public <T extends Matrix<T>> void setV(final T m) {
-		if((m.rows()!=rows)||(m.cols()!=cols)) {
-			throw new IllegalArgumentException();
-		}
+	/**
+	 * @return number of stored cells
+	 */
+	public int nnz() {
+		return nnz;
+	}
+
+	/**
+	 * @return maximum number of cells
+	 */
+	public int capacity() {
+		return size;
+	}
+
+	private void clear() {
 		k = 0;
+		freeHead = -1;
+		nnz = 0;
 		valid = false;
 		Arrays.fill(firstWithI,-1);
 		Arrays.fill(firstWithJ,-1);
-		final int[] lastSameI = new int[rows];
-		final int[] lastSameJ = new int[cols];
-		Arrays.fill(lastSameI,-1);
-		Arrays.fill(lastSameJ,-1);
+		Arrays.fill(mark,0);
+	}
+
+	/**
+	 * @return false if out of cells
+	 */
+	private boolean insert(final int i, final int j, final double v) {
+		final int s;
+		if(freeHead>=0) {
+			s = freeHead;
+			freeHead = nextWithSameI[s];
+		} else if(k<size) {
+			s = k;
+			++k;
+		} else {
+			return false;
+		}
+		iv[s] = i;
+		jv[s] = j;
+		av[s] = v;
+		prevWithSameI[s] = -1;
+		nextWithSameI[s] = firstWithI[i];
+		if(firstWithI[i]>=0) {
+			prevWithSameI[firstWithI[i]] = s;
+		}
+		firstWithI[i] = s;
+		prevWithSameJ[s] = -1;
+		nextWithSameJ[s] = firstWithJ[j];
+		if(firstWithJ[j]>=0) {
+			prevWithSameJ[firstWithJ[j]] = s;
+		}
+		firstWithJ[j] = s;
+		++nnz;
+		return true;
+	}
+
+	private void remove(final int s) {
+		if(prevWithSameI[s]>=0) {
+			nextWithSameI[prevWithSameI[s]] = nextWithSameI[s];
+		} else {
+			firstWithI[iv[s]] = nextWithSameI[s];
+		}
+		if(nextWithSameI[s]>=0) {
+			prevWithSameI[nextWithSameI[s]] = prevWithSameI[s];
+		}
+		if(prevWithSameJ[s]>=0) {
+			nextWithSameJ[prevWithSameJ[s]] = nextWithSameJ[s];
+		} else {
+			firstWithJ[jv[s]] = nextWithSameJ[s];
+		}
+		if(nextWithSameJ[s]>=0) {
+			prevWithSameJ[nextWithSameJ[s]] = prevWithSameJ[s];
+		}
+		nextWithSameI[s] = freeHead;
+		freeHead = s;
+		--nnz;
+	}
+
+	public <T extends Matrix<T>> void setV(final T m) {
+		if((m.rows()!=rows)||(m.cols()!=cols)) {
+			throw new IllegalArgumentException();
+		}
+		clear();
 		final Object extractTemps = m.buildExtractTemps();
 		final int[] tmpIndices = new int[rows];
 		final double[] tmpValues = new double[rows];
 		for(int j=0;j<cols;++j) {
 			final int nRowIndices = m.extractColumnToTemps(j, extractTemps, tmpIndices, tmpValues);
 			for(int ii=0;ii<nRowIndices;++ii) {
-				final int i = tmpIndices[ii];
 				final double mij = tmpValues[ii];
 				if(Math.abs(mij)>epsilon) {
-					if(k>=size) {
-						valid = false;
+					if(!insert(tmpIndices[ii],j,mij)) {
 						return;
 					}
-					iv[k] = i;
-					jv[k] = j;
-					av[k] = mij;
-					nextWithSameI[k] = -1;
-					nextWithSameJ[k] = -1;
-					if(firstWithI[i]<0) {
-						firstWithI[i] = k;
+				}
+			}
+		}
+		valid = true;
+	}
+
+	/**
+	 * fill in the inverse of a factored square matrix, one solve per column
+	 * @param f
+	 * @return true if the inverse fit (else the table is left invalid)
+	 */
+	public boolean setInverse(final Factorization f) {
+		if((f.size()!=rows)||(rows!=cols)) {
+			throw new IllegalArgumentException();
+		}
+		clear();
+		final double[] e = new double[rows];
+		for(int j=0;j<cols;++j) {
+			e[j] = 1.0;
+			final double[] x = f.solve(e);
+			e[j] = 0.0;
+			for(int i=0;i<rows;++i) {
+				if(Math.abs(x[i])>epsilon) {
+					if(!insert(i,j,x[i])) {
+						return false;
 					}
-					if(firstWithJ[j]<0) {
-						firstWithJ[j] = k;
+				}
+			}
+		}
+		valid = true;
+		return true;
+	}
+
+	/**
+	 * Gauss-Jordan pivot on row r (the rank 1 update of an explicit basis inverse, same contract as
+	 * Matrix.pivotRows()): each row i!=r with |w[i]|>wEpsilon gets -w[i]/w[r] times row r added,
+	 * then row r is divided by w[r].  Costs time proportional to the rows and cells touched.
+	 * @param r
+	 * @param w
+	 * @param wEpsilon
+	 * @return false if the result did not fit (table is then invalid)
+	 */
+	public boolean pivot(final int r, final double[] w, final double wEpsilon) {
+		if(!valid) {
+			return false;
+		}
+		final double vKInv = 1.0/w[r];
+		int nk = 0;
+		for(int s=firstWithI[r];s>=0;s=nextWithSameI[s]) {
+			kCols[nk] = jv[s];
+			kVals[nk] = av[s];
+			++nk;
+		}
+		for(int i=0;i<rows;++i) {
+			if(r!=i) {
+				final double wi = w[i];
+				if(Math.abs(wi)>wEpsilon) {
+					final double vi = -wi*vKInv;
+					for(int s=firstWithI[i];s>=0;s=nextWithSameI[s]) {
+						mark[jv[s]] = s+1;
 					}
-					if(lastSameI[i]>=0) {
-						nextWithSameI[lastSameI[i]] = k;
+					for(int t=0;t<nk;++t) {
+						final int j = kCols[t];
+						final double d = vi*kVals[t];
+						final int at = mark[j];
+						if(at>0) {
+							final int s = at-1;
+							av[s] += d;
+							if(Math.abs(av[s])<=epsilon) {
+								mark[j] = 0;
+								remove(s);
+							}
+						} else if(Math.abs(d)>epsilon) {
+							if(!insert(i,j,d)) {
+								for(int s=firstWithI[i];s>=0;s=nextWithSameI[s]) {
+									mark[jv[s]] = 0;
+								}
+								valid = false;
+								return false;
+							}
+						}
 					}
-					if(lastSameJ[j]>=0) {
-						nextWithSameJ[lastSameJ[j]] = k;
+					for(int s=firstWithI[i];s>=0;s=nextWithSameI[s]) {
+						mark[jv[s]] = 0;
 					}
-					// prepare for next pass
-					lastSameI[i] = k;
-					lastSameJ[j] = k;
-					++k;
 				}
 			}
 		}
-		valid = true;
+		for(int s=firstWithI[r];s>=0;s=nextWithSameI[s]) {
+			av[s] *= vKInv;
+		}
+		return true;
+	}
+
+	/**
+	 * @param factory
+	 * @return dense copy
+	 */
+	public <T extends Matrix<T>> T toMatrix(final LinalgFactory<T> factory) {
+		final T m = factory.newMatrix(rows,cols,false);
+		for(int i=0;i<rows;++i) {
+			for(int s=firstWithI[i];s>=0;s=nextWithSameI[s]) {
+				m.set(i,jv[s],av[s]);
+			}
+		}
+		return m;
 	}
-	
+
 	@Override
 	public double[] multLeft(final double[] y) {
+		final double[] r = new double[cols];
+		multLeftInto(y,r);
+		return r;
+	}
+
+	@Override
+	public void multLeftInto(final double[] y, final double[] r) {
 		if(!valid) {
 			throw new IllegalArgumentException();
 		}
 		if(rows!=y.length) {
 			throw new IllegalArgumentException();
 		}
-		final double[] r = new double[cols];
+		Arrays.fill(r,0,cols,0.0);
 		for(int i=0;i<rows;++i) {
 			final double yi = y[i];
 			if(Math.abs(yi)>epsilon) {
@@ -126,20 +305,26 @@ public final class TabularLinOp implements LinOpI {
 					r[j] += aij*yi;
 					ii = nextWithSameI[ii];
 				}
-			}			
+			}
 		}
-		return r;
 	}
 
 	@Override
 	public double[] mult(final double[] x) {
+		final double[] r = new double[rows];
+		multInto(x,r);
+		return r;
+	}
+
+	@Override
+	public void multInto(final double[] x, final double[] r) {
 		if(!valid) {
 			throw new IllegalArgumentException();
 		}
 		if(cols!=x.length) {
 			throw new IllegalArgumentException();
 		}
-		final double[] r = new double[rows];
+		Arrays.fill(r,0,rows,0.0);
 		for(int j=0;j<cols;++j) {
 			final double xj = x[j];
 			if(Math.abs(xj)>epsilon) {
@@ -152,15 +337,21 @@ public final class TabularLinOp implements LinOpI {
 				}
 			}
 		}
-		return r;
 	}
 
 	@Override
 	public double[] mult(final HVec x) {
+		final double[] r = new double[rows];
+		multInto(x,r);
+		return r;
+	}
+
+	@Override
+	public void multInto(final HVec x, final double[] r) {
 		if(!valid) {
 			throw new IllegalArgumentException();
 		}
-		final double[] r = new double[rows];
+		Arrays.fill(r,0,rows,0.0);
 		final int nindices = x.nIndices();
 		for(int jj=0;jj<nindices;++jj) {
 			final int j = x.index(jj);
@@ -175,6 +366,5 @@ public final class TabularLinOp implements LinOpI {
 				}
 			}
 		}
-		return r;
 	}
 }
@@ -0,0 +1,209 @@
+package com.winvector.lp;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+
+import com.winvector.linalg.LinalgFactory;
+import com.winvector.linalg.Matrix;
+
+/**
+ * solve many independent LPs in parallel.  Individual failures are reported in the per-problem
+ * Result instead of being thrown.  The solver must be safe to share between threads
+ * (RevisedSimplexSolver is: it borrows scratch space from an internal pool per solve, so
+ * workers re-use workspaces across problems).
+ * @author johnmount
+ *
+ */
+public final class BatchSolver {
+	private BatchSolver() {
+	}
+
+	public enum Status {
+		OPTIMAL,
+		INFEASIBLE,
+		UNBOUNDED,
+		TOO_MANY_STEPS,
+		MALFORMED,
+		ERROR
+	}
+
+	public static final class Result {
+		public final int index;         // position in the input list
+		public final Status status;
+		public final LPSoln soln;       // null unless status==OPTIMAL
+		public final Exception failure; // null if status==OPTIMAL
+
+		Result(final int index, final Status status, final LPSoln soln, final Exception failure) {
+			this.index = index;
+			this.status = status;
+			this.soln = soln;
+			this.failure = failure;
+		}
+
+		@Override
+		public String toString() {
+			return "" + index + ":" + status + ((null!=failure)?(" " + failure):"");
+		}
+	}
+
+	private static ForkJoinPool sharedPool = null;
+
+	/**
+	 * @return lazily built process-wide work-stealing pool (one worker per core)
+	 */
+	public static synchronized ForkJoinPool sharedPool() {
+		if(null==sharedPool) {
+			sharedPool = new ForkJoinPool();
+		}
+		return sharedPool;
+	}
+
+	static Status statusOf(final Exception e) {
+		if(e instanceof LPException.LPInfeasibleException) {
+			return Status.INFEASIBLE;
+		}
+		if(e instanceof LPException.LPUnboundedException) {
+			return Status.UNBOUNDED;
+		}
+		if(e instanceof LPException.LPTooManyStepsException) {
+			return Status.TOO_MANY_STEPS;
+		}
+		if(e instanceof LPException.LPMalformedException) {
+			return Status.MALFORMED;
+		}
+		return Status.ERROR;
+	}
+
+	static <T extends Matrix<T>> Result solveOne(final int index, final LPSolver solver, final LPEQProb prob,
+			final double tol, final int maxRounds, final LinalgFactory<T> factory) {
+		try {
+			final LPSoln soln = solver.solve(prob, null, tol, maxRounds, factory);
+			return new Result(index,Status.OPTIMAL,soln,null);
+		} catch (Exception e) {
+			return new Result(index,statusOf(e),null,e);
+		}
+	}
+
+	private static final class SolveRange<T extends Matrix<T>> extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final LPSolver solver;
+		private final List<LPEQProb> probs;
+		private final double tol;
+		private final int maxRounds;
+		private final LinalgFactory<T> factory;
+		private final Result[] results;
+		private final int lo;
+		private final int hi;
+
+		SolveRange(final LPSolver solver, final List<LPEQProb> probs, final double tol, final int maxRounds,
+				final LinalgFactory<T> factory, final Result[] results, final int lo, final int hi) {
+			this.solver = solver;
+			this.probs = probs;
+			this.tol = tol;
+			this.maxRounds = maxRounds;
+			this.factory = factory;
+			this.results = results;
+			this.lo = lo;
+			this.hi = hi;
+		}
+
+		@Override
+		protected void compute() {
+			if(hi-lo<=1) {
+				for(int i=lo;i<hi;++i) {
+					results[i] = solveOne(i,solver,probs.get(i),tol,maxRounds,factory);
+				}
+			} else {
+				// split so idle workers can steal the other half
+				final int mid = (lo+hi)>>>1;
+				invokeAll(new SolveRange<T>(solver,probs,tol,maxRounds,factory,results,lo,mid),
+						new SolveRange<T>(solver,probs,tol,maxRounds,factory,results,mid,hi));
+			}
+		}
+	}
+
+	/**
+	 * solve each problem (from a cold start) on a work-stealing pool
+	 * @param solver thread safe solver
+	 * @param probs
+	 * @param tol
+	 * @param maxRounds
+	 * @param factory
+	 * @param pool
+	 * @return one result per problem, in input order
+	 */
+	public static <T extends Matrix<T>> List<Result> solveAll(final LPSolver solver, final List<LPEQProb> probs,
+			final double tol, final int maxRounds, final LinalgFactory<T> factory, final ForkJoinPool pool) {
+		final Result[] results = new Result[probs.size()];
+		if(results.length>0) {
+			pool.invoke(new SolveRange<T>(solver,probs,tol,maxRounds,factory,results,0,results.length));
+		}
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * solve each problem (from a cold start) on the shared work-stealing pool
+	 */
+	public static <T extends Matrix<T>> List<Result> solveAll(final LPSolver solver, final List<LPEQProb> probs,
+			final double tol, final int maxRounds, final LinalgFactory<T> factory) {
+		return solveAll(solver,probs,tol,maxRounds,factory,sharedPool());
+	}
+
+	/**
+	 * solve each problem as its own task on a caller supplied executor (for example one built by
+	 * newVirtualThreadExecutor())
+	 * @param solver thread safe solver
+	 * @param probs
+	 * @param tol
+	 * @param maxRounds
+	 * @param factory
+	 * @param executor
+	 * @return one result per problem, in input order
+	 * @throws InterruptedException
+	 */
+	public static <T extends Matrix<T>> List<Result> solveAll(final LPSolver solver, final List<LPEQProb> probs,
+			final double tol, final int maxRounds, final LinalgFactory<T> factory, final ExecutorService executor) throws InterruptedException {
+		final int n = probs.size();
+		final ArrayList<Future<Result>> futures = new ArrayList<Future<Result>>(n);
+		for(int i=0;i<n;++i) {
+			final int index = i;
+			futures.add(executor.submit(new Callable<Result>() {
+				@Override
+				public Result call() {
+					return solveOne(index,solver,probs.get(index),tol,maxRounds,factory);
+				}
+			}));
+		}
+		final ArrayList<Result> results = new ArrayList<Result>(n);
+		for(int i=0;i<n;++i) {
+			try {
+				results.add(futures.get(i).get());
+			} catch (ExecutionException e) {
+				final Throwable cause = e.getCause();
+				results.add(new Result(i,Status.ERROR,null,(cause instanceof Exception)?(Exception)cause:e));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * @return a new virtual thread per task executor, or null if this JVM does not have virtual threads
+	 */
+	public static ExecutorService newVirtualThreadExecutor() {
+		try {
+			final Method m = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService)m.invoke(null);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+}
@@ -1,11 +1,11 @@
 package com.winvector.lp;
 
+import java.io.IOException;
 import java.io.PrintStream;
 import java.io.Serializable;
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
 import java.util.Random;
 
+import com.winvector.linalg.Factorization;
 import com.winvector.linalg.LinalgFactory;
 import com.winvector.linalg.Matrix;
 import com.winvector.linalg.PreMatrixI;
@@ -13,6 +13,7 @@ import com.winvector.linalg.PreVecI;
 import com.winvector.linalg.sparse.HVec;
 import com.winvector.linalg.sparse.SparseVec;
 import com.winvector.lp.impl.RandomOrder;
+import com.winvector.lp.io.CPLEXWriter;
 
 
 /**
@@ -27,6 +28,7 @@ public final class LPEQProb implements Serializable, LPEQProbI {
 	public final PreMatrixI A;
 	public final double[] b;
 	public final PreVecI c;
+	private transient volatile PreMatrixI rowView = null;
 	
 
 	/**
@@ -240,9 +242,49 @@ public final class LPEQProb implements Serializable, LPEQProbI {
 		}
 	}
 	
+	@Override
+	public <T extends Matrix<T>> Factorization factorBasis(final int[] colBasis, final LinalgFactory<T> factory) throws LPException {
+		if(colBasis.length!=rows()) {
+			throw new LPException.LPErrorException("basis is not square");
+		}
+		try {
+			return factory.factor(extractColumns(colBasis));
+		} catch (IllegalArgumentException ex) {
+			throw new LPException.LPErrorException("basis is singular");
+		}
+	}
+
+	@Override
+	public HVec primalSoln(final int[] colBasis, final Factorization basisFactorization) {
+		return new HVec(colBasis,basisFactorization.solve(b()));
+	}
+
+	@Override
+	public double[] dualSolution(final int[] colBasis, final Factorization basisFactorization) {
+		final int nc = colBasis.length;
+		final double[] cB = new double[nc];
+		for(int bi=0;bi<nc;++bi) {
+			cB[bi] = c.get(colBasis[bi]);
+		}
+		return basisFactorization.solveLeft(cB);
+	}
+
+	/**
+	 * dual solution for soln's basis, re-using soln.basisFactorization when the solver left one
+	 */
+	public <T extends Matrix<T>> double[] dualSolution(final LPSoln soln, final LinalgFactory<T> factory) throws LPException {
+		if(null!=soln.basisFactorization) {
+			return dualSolution(soln.basisColumns,soln.basisFactorization);
+		}
+		return dualSolution(soln.basisColumns,factory);
+	}
+
 	@Override
 	public <T extends Matrix<T>> HVec primalSoln(final int[] colBasis, final LinalgFactory<T> factory)
 			throws LPException {
+		if(colBasis.length==rows()) {
+			return primalSoln(colBasis,factorBasis(colBasis,factory));
+		}
 		final Matrix<T> AP = factory.matrixCopy(extractColumns(colBasis));
 		final double[] xp = AP.solve(b());
 		if (xp == null) {
@@ -262,6 +304,13 @@ public final class LPEQProb implements Serializable, LPEQProbI {
 	 */
 	@Override
 	public <T extends Matrix<T>> double[] dualSolution(final int[] colBasis, final LinalgFactory<T> factory) throws LPException {
+		 if(colBasis.length==rows()) {
+			 try {
+				 return dualSolution(colBasis,factorBasis(colBasis,factory));
+			 } catch (LPException ex) {
+				 // singular, fall through to the ridge form
+			 }
+		 }
 		 // we now have a list of equality constraints to work with
 		 final PreMatrixI eqmatT = extractColumns(colBasis);
 		 final int nc = colBasis.length;
@@ -315,7 +364,7 @@ public final class LPEQProb implements Serializable, LPEQProbI {
 	 */
 	public <T extends Matrix<T>> LPSoln solveDebug(final LPSolver solver, final double tol, final int maxRounds, final LinalgFactory<T> factory) throws LPException {
 		final LPSoln primSoln = solver.solve(this, null, tol, maxRounds, factory);
-		final double[] dualSoln = dualSolution(primSoln.basisColumns,factory);
+		final double[] dualSoln = dualSolution(primSoln,factory);
 		checkPrimDualOpt(primSoln.primalSolution, dualSoln, tol);
 		return primSoln;
 	}
@@ -336,78 +385,28 @@ public final class LPEQProb implements Serializable, LPEQProbI {
 		print(System.out);
 	}
 	
+	/**
+	 * @return A transposed (so extractColumn(i) is row i of A), built once and cached
+	 */
+	public PreMatrixI rowView() {
+		PreMatrixI r = rowView;
+		if(null==r) {
+			r = A.transpose();
+			rowView = r;
+		}
+		return r;
+	}
+
 	/**
 	 * print out in CPLEX problem format
 	 * @param p
 	 */
 	public void printCPLEX(final PrintStream p) {
-		final NumberFormat vnf = new DecimalFormat("00000");
-		final NumberFormat vvf = new DecimalFormat("#.######E0");
-		p.println("\\* WVLPSovler com.winvector.lp.LPEQProb see: http://www.win-vector.com/blog/2012/11/yet-another-java-linear-programming-library/ *\\");
-		p.println();
-		p.println("Minimize");
-		p.print("\tvalue: ");
-		{
-			boolean first = true;
-			for(int j=0;j<c.dim();++j) {
-				final double cj = c.get(j);
-				if(Math.abs(cj)!=0) {
-					final String valCStr = vvf.format(cj);
-					if(!first) {
-						if(valCStr.charAt(0)!='-') {
-							p.print(" +");
-						} else {
-							p.print(" ");
-						}
-					} else {
-						first = false;
-					}
-					p.print(valCStr + " " + "x" + vnf.format(j));
-				}
-			}
-		}
-		p.println();
-		p.println();
-		p.println("Subject To");
-		for(int i=0;i<b.length;++i) {
-			int nnz = 0;
-			for(int j=0;j<c.dim();++j) {
-				final double aij = A.get(i, j);
-				if(Math.abs(aij)!=0) {
-					++nnz;
-				}
-			}
-			if(nnz>0) {
-				p.print("\teq" + vnf.format(i) + ":\t");
-				boolean first = true;
-				for(int j=0;j<c.dim();++j) {
-					final double aij = A.get(i, j);
-					if(Math.abs(aij)!=0) {
-						final String valStr = vvf.format(aij);
-						if(!first) {
-							if(valStr.charAt(0)!='-') {
-								p.print(" +");
-							} else {
-								p.print(" ");
-							}
-						} else {
-							first = false;
-						}
-						p.print(valStr + " " + "x" + vnf.format(j));
-					}
-				}
-				p.println(" " + "=" + " " + vvf.format(b[i]));
-			}
-		}
-		p.println();
-		p.println("Bounds");
-		for(int j=0;j<c.dim();++j) {
-			p.println("\t0 <= x" + vnf.format(j));
+		try {
+			CPLEXWriter.write(this,p);
+		} catch (IOException e) {
+			p.println("\\* write failed: " + e + " *\\");
 		}
-		p.println();
-		p.println("End");
-		p.println();
-		p.println("\\* eof *\\");
 	}
 
 	
@@ -419,6 +418,11 @@ public final class LPEQProb implements Serializable, LPEQProbI {
 	}
 	
 
+	@Override
+	public int cols() {
+		return A.cols();
+	}
+
 	@Override
 	public SparseVec extractColumn(final int j) {
 		return A.extractColumn(j);
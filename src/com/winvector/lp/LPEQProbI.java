@@ -2,6 +2,7 @@ package com.winvector.lp;
 
 import java.util.Random;
 
+import com.winvector.linalg.Factorization;
 import com.winvector.linalg.LinalgFactory;
 import com.winvector.linalg.Matrix;
 import com.winvector.linalg.PreMatrixI;
@@ -17,6 +18,7 @@ import com.winvector.linalg.sparse.SparseVec;
  */
 public interface LPEQProbI {
 	int rows();
+	int cols();
 	double[] b();
 	double c(int i);
 	SparseVec extractColumn(int j);
@@ -40,4 +42,27 @@ public interface LPEQProbI {
 	 * @throws LPException
 	 */
 	<T extends Matrix<T>> double[] dualSolution(int[] colBasis, LinalgFactory<T> factory) throws LPException;
+
+	/**
+	 * factor the square basis matrix once, for any number of primalSoln()/dualSolution() calls
+	 * @param colBasis sorted column basis (rows() entries)
+	 * @param factory
+	 * @return factorization of extractColumns(colBasis)
+	 * @throws LPException if the basis is not square or is singular
+	 */
+	<T extends Matrix<T>> Factorization factorBasis(int[] colBasis, LinalgFactory<T> factory) throws LPException;
+
+	/**
+	 * @param colBasis sorted column basis
+	 * @param basisFactorization from factorBasis(colBasis,*)
+	 * @return
+	 */
+	HVec primalSoln(int[] colBasis, Factorization basisFactorization);
+
+	/**
+	 * @param colBasis sorted column basis
+	 * @param basisFactorization from factorBasis(colBasis,*)
+	 * @return
+	 */
+	double[] dualSolution(int[] colBasis, Factorization basisFactorization);
 }
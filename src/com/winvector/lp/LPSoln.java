@@ -2,6 +2,7 @@ package com.winvector.lp;
 
 import java.io.Serializable;
 
+import com.winvector.linalg.Factorization;
 import com.winvector.linalg.sparse.HVec;
 
 
@@ -14,6 +15,8 @@ public final class LPSoln implements Serializable {
 	public final int[] basisColumns;
 	public long reportedRunTimeMS;
 	public int[] basisRows;
+	public SolveStats stats = null;  // optional, filled in by solvers that count their work
+	public transient Factorization basisFactorization = null; // optional, factored basis (basisColumns order) for re-use
 
 	public LPSoln(final HVec primalSoln_in, final int[] basisColumns_in, final int[] basisRows_in,
 			final long reportedRunTimeMS_in) {
@@ -23,6 +26,14 @@ public final class LPSoln implements Serializable {
 		reportedRunTimeMS = reportedRunTimeMS_in;
 	}
 
+	/**
+	 * walk the non-zero entries of the primal solution (prefer this to primalSolution.get() in loops)
+	 * @param visitor
+	 */
+	public void forEachPrimalNonZero(final HVec.NonZeroVisitor visitor) {
+		primalSolution.forEachNonZero(visitor);
+	}
+
 	public String toString() {
 		final StringBuilder b = new StringBuilder();
 		if (primalSolution != null) {
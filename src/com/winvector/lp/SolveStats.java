@@ -0,0 +1,37 @@
+package com.winvector.lp;
+
+import java.io.Serializable;
+
+/**
+ * counters for a single solve (times in nanoseconds from System.nanoTime())
+ * @author johnmount
+ *
+ */
+public final class SolveStats implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	public long pivots = 0;
+	public long inspections = 0;
+	public long refactorizations = 0;
+	public long totalTimeNS = 0;
+	public long inspectionTimeNS = 0;
+	public long prePivotTimeNS = 0;
+	public long postPivotTimeNS = 0;
+
+	public void add(final SolveStats o) {
+		pivots += o.pivots;
+		inspections += o.inspections;
+		refactorizations += o.refactorizations;
+		totalTimeNS += o.totalTimeNS;
+		inspectionTimeNS += o.inspectionTimeNS;
+		prePivotTimeNS += o.prePivotTimeNS;
+		postPivotTimeNS += o.postPivotTimeNS;
+	}
+
+	@Override
+	public String toString() {
+		return "pivots: " + pivots + ", inspections: " + inspections + ", refactorizations: " + refactorizations
+				+ ", totalTimeNS: " + totalTimeNS + ", inspectionTimeNS: " + inspectionTimeNS
+				+ ", prePivotTimeNS: " + prePivotTimeNS + ", postPivotTimeNS: " + postPivotTimeNS;
+	}
+}
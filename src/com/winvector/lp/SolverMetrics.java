@@ -0,0 +1,49 @@
+package com.winvector.lp;
+
+/**
+ * listener for solver progress events, all durations in nanoseconds (System.nanoTime()).
+ * Solvers hold a null reference when no listener is wanted, so a disabled listener costs one
+ * branch per event (no clock reads).  Implementations may be shared across threads and must be thread safe.
+ * @author johnmount
+ *
+ */
+public interface SolverMetrics {
+	/**
+	 * phase numbers passed to phaseStarted()/phaseFinished()
+	 */
+	int PHASE1 = 1;
+	int PHASE2 = 2;
+
+	void solveStarted(int rows, int cols);
+	void solveFinished(long elapsedNS, boolean succeeded);
+	void phaseStarted(int phase, int rows);
+	/**
+	 * sent for every phaseStarted(), including when the phase ends in an exception
+	 * @param phase
+	 * @param pivots basis changes made
+	 * @param elapsedNS
+	 * @param succeeded false if the phase threw (unbounded, too many steps, ...)
+	 */
+	void phaseFinished(int phase, long pivots, long elapsedNS, boolean succeeded);
+	/**
+	 * basis inverse was rebuilt from scratch
+	 * @param m basis size
+	 * @param elapsedNS
+	 */
+	void refactored(int m, long elapsedNS);
+	/**
+	 * one simplex step (pricing plus pivot)
+	 * @param inspections number of columns priced this step
+	 * @param prePivotNS time spent preparing (basis solves) before pricing
+	 * @param inspectionNS time spent pricing
+	 * @param postPivotNS time spent in ratio test and basis update
+	 */
+	void pivoted(int inspections, long prePivotNS, long inspectionNS, long postPivotNS);
+	/**
+	 * final pricing pass of a phase, which found no entering column (so no pivot)
+	 * @param inspections number of columns priced
+	 * @param prePivotNS time spent preparing (basis solves) before pricing
+	 * @param inspectionNS time spent pricing
+	 */
+	void priced(int inspections, long prePivotNS, long inspectionNS);
+}
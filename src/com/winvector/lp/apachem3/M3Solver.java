@@ -1,7 +1,9 @@
 package com.winvector.lp.apachem3;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
+import org.apache.commons.math3.linear.OpenMapRealVector;
 import org.apache.commons.math3.optimization.GoalType;
 import org.apache.commons.math3.optimization.PointValuePair;
 import org.apache.commons.math3.optimization.linear.LinearConstraint;
@@ -11,14 +13,18 @@ import org.apache.commons.math3.optimization.linear.SimplexSolver;
 
 import com.winvector.linalg.LinalgFactory;
 import com.winvector.linalg.Matrix;
+import com.winvector.linalg.PreMatrixI;
 import com.winvector.linalg.sparse.HVec;
+import com.winvector.linalg.sparse.SparseVec;
 import com.winvector.lp.LPEQProb;
 import com.winvector.lp.LPException;
 import com.winvector.lp.LPSoln;
 import com.winvector.lp.LPSolver;
+import com.winvector.lp.impl.RevisedSimplexSolver;
 
 /**
- * use Apache math 3 to solve LP
+ * use Apache math 3 to solve LP.  The result carries an optimal basis recovered from the solution
+ * (plus a crossover), so it can be used for dual checks and as a warm start for the other solvers.
  * @author johnmount
  *
  * @param <T>
@@ -38,14 +44,21 @@ public final class M3Solver implements LPSolver {
 		}
 	}
 
+	/**
+	 * build the Apache problem row by row from the problem's cached transpose (sparse rows, no
+	 * per-entry lookups into A)
+	 */
 	public static M3Prob convertProbToM3(final LPEQProb p) {
-		M3Prob r = new M3Prob();
+		final M3Prob r = new M3Prob();
 		final int m = p.A.rows();
 		final int n = p.A.cols();
+		final PreMatrixI rows = p.rowView();
 		for(int i=0;i<m;++i) {
-			final double[] coef = new double[n];
-			for(int j=0;j<n;++j) {
-				coef[j] = p.A.get(i, j);
+			final SparseVec row = rows.extractColumn(i);
+			final int nnz = row.nIndices();
+			final OpenMapRealVector coef = new OpenMapRealVector(n,Math.max(nnz,1));
+			for(int k=0;k<nnz;++k) {
+				coef.setEntry(row.index(k),row.value(k));
 			}
 			final LinearConstraint lc = new LinearConstraint(coef,Relationship.EQ,p.b[i]);
 			r.constraints.add(lc);
@@ -57,7 +70,40 @@ public final class M3Solver implements LPSolver {
 		r.f =  new LinearObjectiveFunction(obj,0.0);
 		return r;
 	}
-	
+
+	/**
+	 * recover a basis for a basic solution: the columns carrying positive values, extended
+	 * (degenerate case) to a maximal independent set.
+	 * @param p problem
+	 * @param x basic solution
+	 * @param tol values at most tol are treated as zero
+	 * @return column basis, or null if the positive columns are not independent (x is not basic)
+	 */
+	public static int[] recoverBasis(final LPEQProb p, final double[] x, final double tol) {
+		int nPos = 0;
+		for(int j=0;j<x.length;++j) {
+			if(x[j]>tol) {
+				++nPos;
+			}
+		}
+		final int[] forced = new int[nPos];
+		nPos = 0;
+		for(int j=0;j<x.length;++j) {
+			if(x[j]>tol) {
+				forced[nPos++] = j;
+			}
+		}
+		try {
+			final int[] basis = p.A.colBasis(forced,basisEpsilon);
+			Arrays.sort(basis);
+			return basis;
+		} catch (IllegalArgumentException ex) {
+			return null;
+		}
+	}
+
+	private static final double basisEpsilon = 1.0e-3;
+	private static final RevisedSimplexSolver crossover = new RevisedSimplexSolver();
 
 	@Override
 	public <T extends Matrix<T>> LPSoln solve(final LPEQProb prob, final int[] basis_in, final double tol,
@@ -72,7 +118,20 @@ public final class M3Solver implements LPSolver {
 		for(int i=0;i<s.length;++i) {
 			solnVec[i] = s[i];
 		}
-		final LPSoln r = new LPSoln(HVec.hVec(solnVec),null,null,endTimeMS-startTimeMS);
+		int[] basis = recoverBasis(prob,solnVec,Math.max(tol,1.0e-9));
+		int[] rows = null;
+		if(null!=basis) {
+			// crossover: a degenerate completion need not be dual feasible, so warm start the
+			// revised simplex from it (x is already optimal, so only degenerate pivots happen)
+			try {
+				final LPSoln opt = crossover.solve(prob,basis,tol,maxRounds,factory);
+				basis = opt.basisColumns;
+				rows = opt.basisRows;
+			} catch (LPException ex) {
+				basis = null;
+			}
+		}
+		final LPSoln r = new LPSoln(HVec.hVec(solnVec),basis,rows,endTimeMS-startTimeMS);
 		return r;
 	}
 
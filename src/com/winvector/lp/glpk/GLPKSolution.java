@@ -0,0 +1,188 @@
+package com.winvector.lp.glpk;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.winvector.lp.io.ByteLines;
+
+/**
+ * parse a glpsol -w solution straight off the byte stream (both the old numeric layout and the
+ * "c/s/i/j/e" layout GLPK has written since 4.57).
+ * @author johnmount
+ *
+ */
+final class GLPKSolution {
+	// solution status, as GLPK's glp_get_prim_stat()/glp_get_dual_stat() codes
+	static final int UNDEF = 1;
+	static final int FEAS = 2;
+	static final int INFEAS = 3;
+	static final int NOFEAS = 4;
+	static final int OPT = 5;
+	static final int UNBND = 6;
+
+	int primalStatus = UNDEF;
+	int dualStatus = UNDEF;
+	double objective = Double.NaN;
+	final double[] x; // primal values by GLPK column number (0 based)
+
+	private GLPKSolution(final int n) {
+		x = new double[n];
+	}
+
+	private static final class Tokens {
+		final ByteLines lines;
+		int p;
+		int off;
+		int len;
+
+		Tokens(final ByteLines lines) {
+			this.lines = lines;
+		}
+
+		void line() {
+			p = lines.lineStart;
+		}
+
+		boolean next() {
+			final byte[] buf = lines.buf;
+			final int end = lines.lineEnd;
+			while((p<end)&&(buf[p]<=' ')) {
+				++p;
+			}
+			off = p;
+			while((p<end)&&(buf[p]>' ')) {
+				++p;
+			}
+			len = p-off;
+			return len>0;
+		}
+
+		IOException error(final String msg) {
+			return lines.error("glpk solution",msg);
+		}
+
+		byte first() throws IOException {
+			if(!next()) {
+				throw error("missing field");
+			}
+			return lines.buf[off];
+		}
+
+		double number() throws IOException {
+			if(!next()) {
+				throw error("missing number");
+			}
+			try {
+				return ByteLines.parseNumber(lines.buf,off,len);
+			} catch (NumberFormatException ex) {
+				throw error("bad number '" + lines.string(off,len) + "'");
+			}
+		}
+
+		int integer() throws IOException {
+			final double v = number();
+			if((v!=Math.rint(v))||(Math.abs(v)>Integer.MAX_VALUE)) {
+				throw error("expected an integer");
+			}
+			return (int)v;
+		}
+	}
+
+	private static int statusCode(final byte c) {
+		switch(c) {
+		case 'o': return OPT;
+		case 'f': return FEAS;
+		case 'i': return INFEAS;
+		case 'n': return NOFEAS;
+		default: return UNDEF;
+		}
+	}
+
+	/**
+	 * @param is solution bytes (read to end of stream, not closed)
+	 * @param n number of columns in the problem glpsol was given
+	 * @return parsed solution
+	 * @throws IOException on malformed input
+	 */
+	static GLPKSolution parse(final InputStream is, final int n) throws IOException {
+		final ByteLines lines = ByteLines.open(is);
+		final Tokens t = new Tokens(lines);
+		final GLPKSolution soln = new GLPKSolution(n);
+		if(!lines.nextLine()) {
+			throw t.error("empty solution");
+		}
+		t.line();
+		final byte c0 = t.first();
+		if((c0>='0')&&(c0<='9')) {
+			// old layout: "m n", "pst dst obj", then m row and n column lines of "stat prim dual"
+			t.p = lines.lineStart;
+			final int m = t.integer();
+			final int nc = t.integer();
+			if(nc!=n) {
+				throw t.error("expected " + n + " columns, saw " + nc);
+			}
+			if(!lines.nextLine()) {
+				throw t.error("missing status line");
+			}
+			t.line();
+			soln.primalStatus = t.integer();
+			soln.dualStatus = t.integer();
+			soln.objective = t.number();
+			for(int i=0;i<m;++i) {
+				if(!lines.nextLine()) {
+					throw t.error("missing row line");
+				}
+			}
+			for(int j=0;j<n;++j) {
+				if(!lines.nextLine()) {
+					throw t.error("missing column line");
+				}
+				t.line();
+				t.integer(); // basis status
+				soln.x[j] = t.number();
+			}
+		} else {
+			boolean interior = false;
+			boolean sawSolution = false;
+			do {
+				t.line();
+				if(!t.next()) {
+					continue;
+				}
+				final byte kind = (t.len==1)?lines.buf[t.off]:0;
+				if(kind=='s') {
+					// s bas m n pst dst obj   or   s ipt m n pst dst obj
+					t.next();
+					interior = (t.len==3)&&(lines.buf[t.off]=='i');
+					t.integer();
+					final int nc = t.integer();
+					if(nc!=n) {
+						throw t.error("expected " + n + " columns, saw " + nc);
+					}
+					soln.primalStatus = statusCode(t.first());
+					soln.dualStatus = statusCode(t.first());
+					soln.objective = t.number();
+					sawSolution = true;
+				} else if(kind=='j') {
+					final int j = t.integer();
+					if((j<1)||(j>n)) {
+						throw t.error("column " + j + " out of range");
+					}
+					if(!interior) {
+						t.next(); // basis status
+					}
+					soln.x[j-1] = t.number();
+				} else if(kind=='e') {
+					break;
+				}
+			} while(lines.nextLine());
+			if(!sawSolution) {
+				throw t.error("no solution line");
+			}
+		}
+		// consume anything left so the writer never blocks
+		while(lines.nextLine()) {
+		}
+		return soln;
+	}
+}
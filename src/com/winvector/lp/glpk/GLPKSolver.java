@@ -1,10 +1,9 @@
 package com.winvector.lp.glpk;
 
-import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.LineNumberReader;
-import java.io.PrintStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Semaphore;
 
 import com.winvector.linalg.LinalgFactory;
 import com.winvector.linalg.Matrix;
@@ -12,56 +11,169 @@ import com.winvector.linalg.sparse.HVec;
 import com.winvector.lp.LPEQProb;
 import com.winvector.lp.LPException;
 import com.winvector.lp.LPException.LPErrorException;
+import com.winvector.lp.LPException.LPInfeasibleException;
+import com.winvector.lp.LPException.LPUnboundedException;
 import com.winvector.lp.LPSoln;
 import com.winvector.lp.LPSolver;
+import com.winvector.lp.io.CPLEXWriter;
 
 /**
- * call GLPK solver through file system (involves expensive parsing/un-parsing of results)
+ * call the GLPK command line solver over pipes: the problem is written to glpsol's stdin and the
+ * solution is parsed as it arrives on glpsol's stderr (its log goes to stdout and is drained),
+ * so nothing touches the file system.  At most maxProcesses glpsol children run at once; extra
+ * callers block, so it is safe (and cheap, with virtual threads from
+ * BatchSolver.newVirtualThreadExecutor()) to drive many solves concurrently.
  * @author johnmount
  *
  */
 public class GLPKSolver implements LPSolver {
-	private final String glpksolverPath = "/opt/local/bin/glpsol";
-	
+	public static final String DEFAULT_PATH = "/opt/local/bin/glpsol";
+	/**
+	 * system property that overrides DEFAULT_PATH for the no-argument constructor
+	 */
+	public static final String PATH_PROPERTY = "com.winvector.glpsol";
+
+	public final String glpsolPath;
+	public final int maxProcesses;
+	private final Semaphore slots;
+
+	public GLPKSolver(final String glpsolPath, final int maxProcesses) {
+		if(maxProcesses<1) {
+			throw new IllegalArgumentException("maxProcesses must be positive");
+		}
+		this.glpsolPath = glpsolPath;
+		this.maxProcesses = maxProcesses;
+		slots = new Semaphore(maxProcesses,true);
+	}
+
+	public GLPKSolver(final String glpsolPath) {
+		this(glpsolPath,Runtime.getRuntime().availableProcessors());
+	}
+
+	public GLPKSolver() {
+		this(System.getProperty(PATH_PROPERTY,DEFAULT_PATH));
+	}
+
+	/**
+	 * reads a child's log stream to the end, keeping the last few bytes for error messages
+	 */
+	private static final class LogDrain extends Thread {
+		private final InputStream in;
+		private final byte[] tail = new byte[1024];
+		private long total = 0;
+
+		LogDrain(final InputStream in) {
+			super("glpsol-log");
+			setDaemon(true);
+			this.in = in;
+		}
+
+		@Override
+		public void run() {
+			final byte[] buf = new byte[8192];
+			try {
+				int r;
+				while((r=in.read(buf))>=0) {
+					synchronized(this) {
+						for(int i=0;i<r;++i) {
+							tail[(int)((total++)%tail.length)] = buf[i];
+						}
+					}
+				}
+			} catch (IOException e) {
+			} finally {
+				try {
+					in.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+
+		synchronized String tail() {
+			final int len = (int)Math.min(total,tail.length);
+			final StringBuilder b = new StringBuilder(len);
+			for(long k=total-len;k<total;++k) {
+				b.append((char)tail[(int)(k%tail.length)]);
+			}
+			return b.toString().trim();
+		}
+	}
+
 	@Override
 	public <T extends Matrix<T>> LPSoln solve(final LPEQProb prob, final int[] basis_in,
 			final double tol, final int maxRounds, final  LinalgFactory<T> factory) throws LPException {
 		try {
-			final File tempFI = File.createTempFile("glpkProb",".txt");
-			final File tempFS = File.createTempFile("glpkSoln",".txt");
-			tempFI.delete();
-			tempFS.delete();
-			final PrintStream p = new PrintStream(tempFI);
-			prob.printCPLEX(p);
-			p.close();
-			// glpsol --lp tmp.txt -w soln.txt
-			final String[] cmd = { glpksolverPath, "--lp", tempFI.getAbsolutePath(), "-w", tempFS.getAbsolutePath() };
-			final long startTimeMS = System.currentTimeMillis();
-			final Process r = Runtime.getRuntime().exec(cmd);
-			final int status = r.waitFor();
-			final long endTimeMS = System.currentTimeMillis();
-			if(status!=0) {
-				throw new LPErrorException("glpk status: " + status);
+			slots.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new LPErrorException("glpk interrupted waiting for a process slot");
+		}
+		Process proc = null;
+		try {
+			final long startTimeNS = System.nanoTime();
+			final String[] cmd = { glpsolPath, "--lp", "/dev/stdin", "-w", "/dev/stderr" };
+			proc = new ProcessBuilder(cmd).start();
+			final LogDrain log = new LogDrain(proc.getInputStream());
+			log.start();
+			int[] order = null;
+			IOException writeFailure = null;
+			final OutputStream os = proc.getOutputStream();
+			try {
+				order = CPLEXWriter.write(prob,os);
+			} catch (IOException e) {
+				writeFailure = e; // child exited early, report its status instead
+			} finally {
+				try {
+					os.close();
+				} catch (IOException e) {
+				}
+			}
+			GLPKSolution soln = null;
+			IOException parseFailure = null;
+			final InputStream es = proc.getErrorStream();
+			try {
+				soln = GLPKSolution.parse(es,prob.c.dim());
+			} catch (IOException e) {
+				parseFailure = e;
+				proc.destroy();
+			} finally {
+				es.close();
+			}
+			final int status = proc.waitFor();
+			log.join();
+			final long endTimeNS = System.nanoTime();
+			if((null!=writeFailure)||(status!=0)) {
+				throw new LPErrorException("glpk status: " + status + " " + log.tail());
+			}
+			if(null!=parseFailure) {
+				throw new LPErrorException("glpk caught: " + parseFailure + " " + log.tail());
 			}
-			final LineNumberReader lnr = new LineNumberReader(new FileReader(tempFS));
-			final String header = lnr.readLine();
-			final int m = Integer.parseInt(header.split(" ")[0]);
-			lnr.readLine(); // throw out descriptive line
-			for(int i=0;i<m;++i) { // throw out constraint lines
-				lnr.readLine();
+			if(soln.primalStatus==GLPKSolution.NOFEAS) {
+				throw new LPInfeasibleException("glpk: no primal feasible solution");
 			}
+			if((soln.primalStatus==GLPKSolution.UNBND)||(soln.dualStatus==GLPKSolution.UNBND)
+					||(soln.dualStatus==GLPKSolution.NOFEAS)) {
+				throw new LPUnboundedException("glpk: unbounded");
+			}
+			if((soln.primalStatus!=GLPKSolution.OPT)&&(soln.primalStatus!=GLPKSolution.FEAS)) {
+				throw new LPErrorException("glpk primal status: " + soln.primalStatus + " " + log.tail());
+			}
+			// glpsol numbers columns in order of first appearance in the LP text
 			final double[] v = new double[prob.c.dim()];
-			for(int i=0;i<v.length;++i) {
-				final String vline = lnr.readLine();
-				v[i] = Double.parseDouble(vline.split("\\s+")[1]);
+			for(int k=0;k<order.length;++k) {
+				v[order[k]] = soln.x[k];
 			}
-			tempFI.delete();
-			tempFS.delete();
-			return new LPSoln(HVec.hVec(v),null,null,endTimeMS-startTimeMS);
+			return new LPSoln(HVec.hVec(v),null,null,(endTimeNS-startTimeNS)/1000000L);
 		} catch (IOException e) {
 			throw new LPErrorException("glpk caught: " + e);
 		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 			throw new LPErrorException("glpk caught: " + e);
+		} finally {
+			if(null!=proc) {
+				proc.destroy();
+			}
+			slots.release();
 		}
 	}
 
@@ -1,7 +1,9 @@
 package com.winvector.lp.impl;
 
 import java.io.Serializable;
+import java.util.Arrays;
 
+import com.winvector.linalg.Factorization;
 import com.winvector.linalg.LinalgFactory;
 import com.winvector.linalg.Matrix;
 import com.winvector.linalg.sparse.SparseVec;
@@ -9,6 +11,8 @@ import com.winvector.linalg.sparse.TabularLinOp;
 import com.winvector.lp.LPEQProbI;
 import com.winvector.lp.LPException;
 import com.winvector.lp.LPException.LPErrorException;
+import com.winvector.lp.SolveStats;
+import com.winvector.lp.SolverMetrics;
 
 /**
  * Basis enhanced with extra record keeping
@@ -24,26 +28,62 @@ final class EnhancedBasis<T extends Matrix<T>> implements Serializable {
 
 	public final int m;  // rank of basis
 	public final int[] basis; // variables in basis
+	private final int[] basisPosition; // basisPosition[v] = i if basis[i]==v, else -1
 	
 	private final LinalgFactory<T> factory;
 	private final int[] binvNZJTmp;
-	T binvW = null;
-	private final TabularLinOp binvS;
+	T binvW = null;  // dense inverse (null while the sparse one is in use)
+	private Factorization binvFactor = null; // LU of the basis, only while no pivots since the last refresh
+	private final double sparseInverseDensity;
+	private TabularLinOp binvS = null; // sparse inverse (in use when valid)
 	private final double[] cBTemp;
+	// per-iteration results, re-used so a simplex step allocates nothing
+	private final double[] lambdaTmp;
+	private final double[] xBTmp;
+	private final double[] binvuTmp;
+	private final transient SolverMetrics metrics;
+	private final SolveStats stats;
 	// run counters
 	private long normalSteps = 0;
 
 
+	/**
+	 * try to hold the inverse of the current basis in binvS, only succeeds if the inverse
+	 * measures at most sparseInverseDensity full (binvS is sized to allow pivots to double that)
+	 */
+	private boolean sparseInverse() {
+		if(sparseInverseDensity<=0.0) {
+			return false;
+		}
+		final double mm = ((double)m)*((double)m);
+		if(null==binvS) {
+			binvS = new TabularLinOp(m,m,(int)Math.min(mm,2.0*sparseInverseDensity*mm+m));
+		}
+		if(binvS.setInverse(binvFactor)&&(binvS.nnz()<=sparseInverseDensity*mm)) {
+			return true;
+		}
+		binvS.invalidate();
+		return false;
+	}
+
 	private void readyBinv() throws LPErrorException {
-		if(null==binvW) {
+		if((null==binvW)&&((null==binvS)||(!binvS.valid()))) {
+			final long startNS = (null!=metrics)?System.nanoTime():0L;
 			try {
-				binvW = factory.matrixCopy(prob.extractColumns(basis)).inverse();
-				if(null!=binvS) {
-					binvS.setV(binvW);
+				// one factorization serves both the explicit inverse and (until the next pivot) direct solves
+				binvFactor = factory.factor(prob.extractColumns(basis));
+				if(!sparseInverse()) {
+					binvW = binvFactor.inverse(factory);
 				}
 			} catch (Exception e) {
 				throw new LPErrorException("couldn't invert basis");
 			}
+			if(null!=stats) {
+				stats.refactorizations += 1;
+			}
+			if(null!=metrics) {
+				metrics.refactored(m,System.nanoTime()-startNS);
+			}
 		}
 	}
 	
@@ -51,16 +91,17 @@ final class EnhancedBasis<T extends Matrix<T>> implements Serializable {
 	 * try to use inverse to solve (if present)
 	 * 
 	 * @param y
-	 * @return x s.t. x = BInv y (if BInv!=null) 
+	 * @param x overwritten with x s.t. x = BInv y (if BInv!=null) 
 	 *         prob.extractColumns(basis) x = y (otherwise)
 	 *         (want x>=0)
-	 * @throws LPErrorException 
 	 */
-	public double[] basisSolveRight(final double[] y) throws LPErrorException {
-		if((null!=binvS)&&(binvS.valid())) {
-			return binvS.mult(y);
+	public void basisSolveRightInto(final double[] y, final double[] x) {
+		if(null!=binvFactor) {
+			System.arraycopy(binvFactor.solve(y),0,x,0,m); // only the first step after a refactor
+		} else if((null!=binvS)&&(binvS.valid())) {
+			binvS.multInto(y,x);
 		} else {
-			return binvW.mult(y);
+			binvW.multInto(y,x);
 		}
 	}
 
@@ -68,16 +109,17 @@ final class EnhancedBasis<T extends Matrix<T>> implements Serializable {
 	 * try to use inverse to solve (if present)
 	 * 
 	 * @param y
-	 * @return x s.t. x = BInv y (if BInv!=null) 
+	 * @param x overwritten with x s.t. x = BInv y (if BInv!=null) 
 	 *         prob.extractColumns(basis) x = y (otherwise)
 	 *         (want x>=0)
-	 * @throws LPErrorException 
 	 */
-	public double[] basisSolveRight(final SparseVec y) throws LPErrorException {
-		if((null!=binvS)&&(binvS.valid())) {
-			return binvS.mult(y);
+	public void basisSolveRightInto(final SparseVec y, final double[] x) {
+		if(null!=binvFactor) {
+			System.arraycopy(binvFactor.solve(y.toArray(m)),0,x,0,m);
+		} else if((null!=binvS)&&(binvS.valid())) {
+			binvS.multInto(y,x);
 		} else {
-			return binvW.mult(y);
+			binvW.multInto(y,x);
 		}
 	}
 
@@ -85,18 +127,46 @@ final class EnhancedBasis<T extends Matrix<T>> implements Serializable {
 	 * try to use inverse to solve (if present)
 	 * 
 	 * @param y
-	 * @return x s.t. x = y BInv (if BInv!=null) or x
+	 * @param x overwritten with x s.t. x = y BInv (if BInv!=null) or x
 	 *         prob.extractColumns(basis) = y (otherwise)
-	 * @throws LPErrorException 
 	 */
-	public double[] basisSolveLeft(final double[] y) throws LPErrorException {
-		if((null!=binvS)&&(binvS.valid())) {
-			return binvS.multLeft(y);
+	public void basisSolveLeftInto(final double[] y, final double[] x) {
+		if(null!=binvFactor) {
+			System.arraycopy(binvFactor.solveLeft(y),0,x,0,m);
+		} else if((null!=binvS)&&(binvS.valid())) {
+			binvS.multLeftInto(y,x);
 		} else {
-			return binvW.multLeft(y);
+			binvW.multLeftInto(y,x);
 		}
 	}
 
+	/**
+	 * allocating form of basisSolveRightInto()
+	 */
+	public double[] basisSolveRight(final double[] y) throws LPErrorException {
+		final double[] x = new double[m];
+		basisSolveRightInto(y,x);
+		return x;
+	}
+
+	/**
+	 * allocating form of basisSolveRightInto()
+	 */
+	public double[] basisSolveRight(final SparseVec y) throws LPErrorException {
+		final double[] x = new double[m];
+		basisSolveRightInto(y,x);
+		return x;
+	}
+
+	/**
+	 * allocating form of basisSolveLeftInto()
+	 */
+	public double[] basisSolveLeft(final double[] y) throws LPErrorException {
+		final double[] x = new double[m];
+		basisSolveLeftInto(y,x);
+		return x;
+	}
+
 	/**
 	 * build initial RTableu from Gilbert String Linear Algebra and its
 	 * Applications second edition. Section 8.2 The Simplex Method (pp.
@@ -108,27 +178,91 @@ final class EnhancedBasis<T extends Matrix<T>> implements Serializable {
 	 *            m-vector that is a valid starting basis
 	 */
 	public EnhancedBasis(final LPEQProbI prob_in, final int[] basis_in, final LinalgFactory<T> factory) throws LPException {
+		this(prob_in,basis_in,factory,null);
+	}
+
+	/**
+	 * @param prob_in
+	 * @param basis_in
+	 * @param factory
+	 * @param ctx (optional) per-solve counters, listener and scratch space
+	 */
+	public EnhancedBasis(final LPEQProbI prob_in, final int[] basis_in, final LinalgFactory<T> factory, final SolveContext ctx) throws LPException {
 		this.factory = factory;
 		prob = prob_in;
 		m = prob.rows();
-		cBTemp = new double[m];
+		if(null!=ctx) {
+			metrics = ctx.metrics;
+			stats = ctx.stats;
+			sparseInverseDensity = ctx.config.sparseInverseDensity;
+			cBTemp = ctx.workspace.doubles(Workspace.D_CB,m);
+			lambdaTmp = ctx.workspace.doubles(Workspace.D_LAMBDA,m);
+			xBTmp = ctx.workspace.doubles(Workspace.D_XB,m);
+			binvuTmp = ctx.workspace.doubles(Workspace.D_BINVU,m);
+			binvNZJTmp = ctx.workspace.ints(Workspace.I_BINVNZJ,m);
+			basisPosition = ctx.workspace.ints(Workspace.I_BASISPOS,prob.cols());
+		} else {
+			metrics = null;
+			stats = null;
+			sparseInverseDensity = new SolverConfig().sparseInverseDensity;
+			cBTemp = new double[m];
+			lambdaTmp = new double[m];
+			xBTmp = new double[m];
+			binvuTmp = new double[m];
+			binvNZJTmp = new int[m];
+			basisPosition = new int[prob.cols()];
+		}
 		//RevisedSimplexSolver.checkParams(prob.A, prob.b, prob.c, basis_in);
-		binvNZJTmp = new int[m];
 		basis = new int[basis_in.length];
 		for (int i = 0; i < basis.length; ++i) {
 			basis[i] = basis_in[i];
 		}
-		binvS = null; // new TabularLinOp(m,m,10000);
+		indexBasis();
 		readyBinv();
 	}
 	
 
+	private void indexBasis() {
+		Arrays.fill(basisPosition,-1);
+		for(int i=0;i<m;++i) {
+			basisPosition[basis[i]] = i;
+		}
+	}
+
+	/**
+	 * @param v variable index
+	 * @return true if v is in the basis
+	 */
+	public boolean inBasis(final int v) {
+		return basisPosition[v]>=0;
+	}
+
+	/**
+	 * @return lambda with lambda B = c_B (re-used array, overwritten by the next call)
+	 */
 	double[] leftBasisSoln() throws LPErrorException {
 		for(int i=0;i<m;++i) {
 			cBTemp[i] = prob.c(basis[i]);
 		}
-		final double[] lambda = basisSolveLeft(cBTemp);
-		return lambda;
+		basisSolveLeftInto(cBTemp,lambdaTmp);
+		return lambdaTmp;
+	}
+
+	/**
+	 * @return x_B with B x_B = b (re-used array, overwritten by the next call)
+	 */
+	double[] basisSoln() throws LPErrorException {
+		basisSolveRightInto(prob.b(),xBTmp);
+		return xBTmp;
+	}
+
+	/**
+	 * @param u column of the entering variable
+	 * @return w with B w = u (re-used array, overwritten by the next call)
+	 */
+	double[] enteringSoln(final SparseVec u) throws LPErrorException {
+		basisSolveRightInto(u,binvuTmp);
+		return binvuTmp;
 	}
 	
 	public double computeRI(final double[] lambda, final int vi) {
@@ -140,20 +274,37 @@ final class EnhancedBasis<T extends Matrix<T>> implements Serializable {
 	
 
 
+	/**
+	 * @return number of basisPivot() calls so far
+	 */
+	long pivots() {
+		return normalSteps;
+	}
+
 	public void basisPivot(final int leavingI, final int enteringV, final double[] binvu) throws LPErrorException {
+		basisPosition[basis[leavingI]] = -1;
+		basisPosition[enteringV] = leavingI;
 		basis[leavingI] = enteringV;
+		binvFactor = null; // now factors the old basis
 		++normalSteps;
 		if(normalSteps%(25*m+1)==0) {
 			binvW = null; // forced refresh
-			binvS.invalidate();
+			if(null!=binvS) {
+				binvS.invalidate();
+			}
 			// ideas is BInv is getting unreliable due to rounding
 			// a refresh takes around O(m^3) steps and updates take O(m^2) steps.
 			// so every m steps we can hide the extra m^3 work which amortizes to m^3/m per-step 
 			// of a refresh
 		}
-		if (binvW != null) {
+		if((null!=binvS)&&binvS.valid()) {
+			// sparse rank 1 update, touches only rows with binvu[i]!=0
+			if(!binvS.pivot(leavingI,binvu,epsilon)) {
+				// filled in past capacity: refactor, falls back to dense if still too full
+				readyBinv();
+			}
+		} else if (binvW != null) {
 			// rank 1 update the inverse
-			final double vKInv = 1.0/binvu[leavingI];
 			int nextJJ = 0;
 			for(int j=0;j<m;++j) {
 				if(Math.abs(binvW.get(leavingI,j))>epsilon) {
@@ -161,26 +312,7 @@ final class EnhancedBasis<T extends Matrix<T>> implements Serializable {
 					++nextJJ;
 				}
 			}
-			final int nJJ = nextJJ;
-			for(int i=0;i<m;++i) {
-				if(leavingI!=i) {
-					final double binvui = binvu[i];
-					if(Math.abs(binvui)>epsilon) {
-						final double vi = -binvui*vKInv;
-						for(nextJJ=0;nextJJ<nJJ;++nextJJ) {
-							final int j = binvNZJTmp[nextJJ];
-							binvW.set(i, j,binvW.get(i, j)+vi*binvW.get(leavingI,j));
-						}
-					}
-				}
-			}
-			for(nextJJ=0;nextJJ<nJJ;++nextJJ) {
-				final int j = binvNZJTmp[nextJJ];
-				binvW.set(leavingI, j,vKInv*binvW.get(leavingI,j));
-			}
-			if(null!=binvS) {
-				binvS.setV(binvW);
-			}
+			binvW.pivotRows(leavingI,binvu,epsilon,binvNZJTmp,nextJJ);
 		} else {
 			readyBinv();
 		}
@@ -190,7 +322,12 @@ final class EnhancedBasis<T extends Matrix<T>> implements Serializable {
 		for(int i=0;i<basis.length;++i) {
 			basis[i] = d[i];
 		}
+		indexBasis();
 		binvW = null;
+		binvFactor = null;
+		if(null!=binvS) {
+			binvS.invalidate();
+		}
 		readyBinv();
 	}
 }
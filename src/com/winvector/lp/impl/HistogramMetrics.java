@@ -0,0 +1,118 @@
+package com.winvector.lp.impl;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.winvector.lp.SolverMetrics;
+
+/**
+ * SolverMetrics that accumulates in-process latency histograms (nanoseconds), thread safe
+ * so one instance can watch many concurrent solves.
+ * @author johnmount
+ *
+ */
+public final class HistogramMetrics implements SolverMetrics {
+	public final AtomicLong solves = new AtomicLong(0L);
+	public final AtomicLong failures = new AtomicLong(0L);
+	public final AtomicLong pivots = new AtomicLong(0L);
+	public final AtomicLong inspections = new AtomicLong(0L);
+	public final AtomicLong refactorizations = new AtomicLong(0L);
+	public final LogHistogram solveNS = new LogHistogram();
+	public final LogHistogram phase1NS = new LogHistogram();
+	public final LogHistogram phase2NS = new LogHistogram();
+	public final LogHistogram phase1Pivots = new LogHistogram();
+	public final LogHistogram phase2Pivots = new LogHistogram();
+	public final LogHistogram refactorNS = new LogHistogram();
+	public final LogHistogram stepNS = new LogHistogram();
+	public final LogHistogram prePivotNS = new LogHistogram();
+	public final LogHistogram inspectionNS = new LogHistogram();
+	public final LogHistogram postPivotNS = new LogHistogram();
+	public final LogHistogram inspectionsPerStep = new LogHistogram();
+
+	@Override
+	public void solveStarted(final int rows, final int cols) {
+	}
+
+	@Override
+	public void solveFinished(final long elapsedNS, final boolean succeeded) {
+		solves.incrementAndGet();
+		if(!succeeded) {
+			failures.incrementAndGet();
+		}
+		solveNS.record(elapsedNS);
+	}
+
+	@Override
+	public void phaseStarted(final int phase, final int rows) {
+	}
+
+	@Override
+	public void phaseFinished(final int phase, final long nPivots, final long elapsedNS, final boolean succeeded) {
+		if(phase==PHASE1) {
+			phase1NS.record(elapsedNS);
+			phase1Pivots.record(nPivots);
+		} else {
+			phase2NS.record(elapsedNS);
+			phase2Pivots.record(nPivots);
+		}
+	}
+
+	@Override
+	public void refactored(final int m, final long elapsedNS) {
+		refactorizations.incrementAndGet();
+		refactorNS.record(elapsedNS);
+	}
+
+	@Override
+	public void pivoted(final int nInspections, final long prePivot, final long inspection, final long postPivot) {
+		pivots.incrementAndGet();
+		inspections.addAndGet(nInspections);
+		inspectionsPerStep.record(nInspections);
+		prePivotNS.record(prePivot);
+		inspectionNS.record(inspection);
+		postPivotNS.record(postPivot);
+		stepNS.record(prePivot+inspection+postPivot);
+	}
+
+	@Override
+	public void priced(final int nInspections, final long prePivot, final long inspection) {
+		inspections.addAndGet(nInspections);
+		prePivotNS.record(prePivot);
+		inspectionNS.record(inspection);
+	}
+
+	public void clear() {
+		solves.set(0L);
+		failures.set(0L);
+		pivots.set(0L);
+		inspections.set(0L);
+		refactorizations.set(0L);
+		solveNS.clear();
+		phase1NS.clear();
+		phase2NS.clear();
+		phase1Pivots.clear();
+		phase2Pivots.clear();
+		refactorNS.clear();
+		stepNS.clear();
+		prePivotNS.clear();
+		inspectionNS.clear();
+		postPivotNS.clear();
+		inspectionsPerStep.clear();
+	}
+
+	public void print(final PrintStream p) {
+		p.println("solves: " + solves.get() + ", failures: " + failures.get() + ", pivots: " + pivots.get()
+				+ ", inspections: " + inspections.get() + ", refactorizations: " + refactorizations.get());
+		p.println("\tsolveNS\t" + solveNS);
+		p.println("\tphase1NS\t" + phase1NS);
+		p.println("\tphase2NS\t" + phase2NS);
+		p.println("\tphase1Pivots\t" + phase1Pivots);
+		p.println("\tphase2Pivots\t" + phase2Pivots);
+		p.println("\trefactorNS\t" + refactorNS);
+		p.println("\tstepNS\t" + stepNS);
+		p.println("\tprePivotNS\t" + prePivotNS);
+		p.println("\tinspectionNS\t" + inspectionNS);
+		p.println("\tpostPivotNS\t" + postPivotNS);
+		p.println("\tinspectionsPerStep\t" + inspectionsPerStep);
+	}
+}
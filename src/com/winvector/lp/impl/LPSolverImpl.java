@@ -2,6 +2,7 @@ package com.winvector.lp.impl;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import com.winvector.linalg.DenseVec;
 import com.winvector.linalg.LinalgFactory;
@@ -16,6 +17,7 @@ import com.winvector.lp.LPEQProbI;
 import com.winvector.lp.LPException;
 import com.winvector.lp.LPSoln;
 import com.winvector.lp.LPSolver;
+import com.winvector.lp.SolverMetrics;
 
 /**
  * primal: min c.x: A x = b, x>=0 dual: max y.b: y A <= c y b = y A x <= c x (by
@@ -27,9 +29,20 @@ import com.winvector.lp.LPSolver;
  * A(basis0)^-1 b, x>=0 and x=0 for non-basis elements)
  */
 abstract class LPSolverImpl implements LPSolver {
-	public int verbose = 0;
-	public double minBasisEpsilon = 1.0e-3;
-	public boolean rescale = false;
+	protected final SolverConfig config;       // private copy, never altered
+	// idle scratch space, borrowed for the duration of a solve (works for pooled and virtual threads alike)
+	private final ConcurrentLinkedQueue<Workspace> workspaces = new ConcurrentLinkedQueue<Workspace>();
+	
+	protected LPSolverImpl(final SolverConfig config) {
+		this.config = config.clone();
+	}
+	
+	/**
+	 * @return copy of the settings this solver was built with
+	 */
+	public SolverConfig config() {
+		return config.clone();
+	}
 
 
 	static String stringBasis(final int[] b) {
@@ -51,6 +64,10 @@ abstract class LPSolverImpl implements LPSolver {
 	/**
 	 * find: min c.x: A x = b, x>=0
 	 * 
+	 * @param ctx
+	 *            per-solve state (counters, random source, scratch space)
+	 * @param phase
+	 *            SolverMetrics.PHASE1 or SolverMetrics.PHASE2 (for reporting)
 	 * @param prob
 	 *            valid LPProb with full row rank
 	 * @param basis0
@@ -66,7 +83,7 @@ abstract class LPSolverImpl implements LPSolver {
 	 *             (if infeas or unbounded) no need to check feasibility of
 	 *             input or output (check by wrapper)
 	 */
-	protected abstract <T extends Matrix<T>> LPSoln rawSolve(LPEQProbI prob, int[] basis0,
+	protected abstract <T extends Matrix<T>> LPSoln rawSolve(SolveContext ctx, int phase, LPEQProbI prob, int[] basis0,
 			final double tol, final int maxRounds, final LinalgFactory<T> factory, final EarlyExitCondition earlyExitCondition) throws LPException;
 
 	/**
@@ -84,7 +101,7 @@ abstract class LPSolverImpl implements LPSolver {
 	 * 
 	 * phase 1 get a basis 
 	 */
-	private <T extends Matrix<T>> int[] solvePhase1(final PreMatrixI A, final double[] b, final PreVecI cin, final double tol, 
+	private <T extends Matrix<T>> int[] solvePhase1(final SolveContext ctx, final PreMatrixI A, final double[] b, final PreVecI cin, final double tol, 
 			final int maxRounds, final LinalgFactory<T> factory) 
 			throws LPException {
 		final int m = A.rows();
@@ -133,7 +150,7 @@ abstract class LPSolverImpl implements LPSolver {
 			c[i] = 1.0;
 		}
 		final LPEQProb p1prob = new LPEQProb(AP, b, new DenseVec(c));
-		LPSoln soln = rawSolve(p1prob, basis0, tol, maxRounds, factory, new EarlyExitCondition() {
+		LPSoln soln = rawSolve(ctx, SolverMetrics.PHASE1, p1prob, basis0, tol, maxRounds, factory, new EarlyExitCondition() {
 			@Override
 			public boolean canExit(final int[] basis) {
 				for(final int bi: basis) {
@@ -149,9 +166,14 @@ abstract class LPSolverImpl implements LPSolver {
 			throw new LPException.LPErrorException(
 					"bad basis back from phase1 raw solve");
 		}
-		// check objective value is zero
-		final double v = soln.primalSolution.dot(c);
-		if (Math.abs(v)>tol) {
+		// check artificial slacks are zero (not the full objective, which includes the scaled hint)
+		double v = 0.0;
+		for(int ii=0;ii<soln.primalSolution.nIndices();++ii) {
+			if(soln.primalSolution.index(ii)>=n) {
+				v += Math.abs(soln.primalSolution.value(ii));
+			}
+		}
+		if (v>tol) {
 			throw new LPException.LPInfeasibleException("primal infeasible");
 		}
 		// check basis is good
@@ -189,8 +211,8 @@ abstract class LPSolverImpl implements LPSolver {
 				eligableCols[i] = i;
 			}
 			// TODO: cut down the copies here!
-			//final int[] nb = factory.matrixCopy(A.extractColumns(eligableCols)).colBasis(sb,minBasisEpsilon);
-			final int[] nb = A.extractColumns(eligableCols).colBasis(sb,minBasisEpsilon);
+			//final int[] nb = factory.matrixCopy(A.extractColumns(eligableCols)).colBasis(sb,config.minBasisEpsilon);
+			final int[] nb = A.extractColumns(eligableCols).colBasis(sb,config.minBasisEpsilon);
 			return nb;
 		}
 		return soln.basisColumns;
@@ -210,10 +232,37 @@ abstract class LPSolverImpl implements LPSolver {
 	@Override
 	public <T extends Matrix<T>> LPSoln solve(final LPEQProb origProb, final int[] basis_in, final double tol,final int maxRounds, final LinalgFactory<T> factory)
 			throws LPException {
+		Workspace workspace = workspaces.poll();
+		if(null==workspace) {
+			workspace = new Workspace();
+		}
+		try {
+			final SolveContext ctx = new SolveContext(config,workspace);
+			final SolverMetrics metrics = ctx.metrics;
+			if(null==metrics) {
+				return solveImpl(ctx, origProb, basis_in, tol, maxRounds, factory);
+			}
+			final long startTimeNS = System.nanoTime();
+			metrics.solveStarted(origProb.A.rows(),origProb.A.cols());
+			boolean succeeded = false;
+			try {
+				final LPSoln soln = solveImpl(ctx, origProb, basis_in, tol, maxRounds, factory);
+				succeeded = true;
+				return soln;
+			} finally {
+				metrics.solveFinished(System.nanoTime()-startTimeNS,succeeded);
+			}
+		} finally {
+			workspaces.offer(workspace);
+		}
+	}
+	
+	private <T extends Matrix<T>> LPSoln solveImpl(final SolveContext ctx, final LPEQProb origProb, final int[] basis_in, final double tol,final int maxRounds, final LinalgFactory<T> factory)
+			throws LPException {
 		final long startTimeMS = System.currentTimeMillis();
-		if (verbose > 0) {
+		if (config.verbose > 0) {
 			System.out.println("solve:");
-			if (verbose > 1) {
+			if (config.verbose > 1) {
 				origProb.print();
 			}
 		}
@@ -221,7 +270,7 @@ abstract class LPSolverImpl implements LPSolver {
 		final LPSoln soln;
 		if((prob.A.rows()>0)&&(prob.A.cols()>0)) {
 			// re-scale
-			if(rescale) {
+			if(config.rescale) {
 				final DenseVec newC = new DenseVec(origProb.c); // copy so we can re-scale without side effects
 				prob = new LPEQProb(origProb.A, origProb.b.clone(),newC);
 				final double scaleRange = 10.0;
@@ -252,7 +301,7 @@ abstract class LPSolverImpl implements LPSolver {
 			}
 			final int[] basis0;
 			if(null==basis_in) {
-				basis0 = solvePhase1(prob.A, prob.b , prob.c, tol, maxRounds, factory);
+				basis0 = solvePhase1(ctx, prob.A, prob.b , prob.c, tol, maxRounds, factory);
 			} else {
 				basis0 = basis_in;
 			}
@@ -265,7 +314,7 @@ abstract class LPSolverImpl implements LPSolver {
 				}
 			} else {
 				// extract row basis, only need to use columns in our column basis
-				rb = prob.A.extractColumns(basis0).transpose().colBasis(null,minBasisEpsilon);
+				rb = prob.A.extractColumns(basis0).transpose().colBasis(null,config.minBasisEpsilon);
 				Arrays.sort(rb);
 			}
 			if(rb.length>0) {
@@ -275,13 +324,16 @@ abstract class LPSolverImpl implements LPSolver {
 					final double[] nb = Matrix.extract(prob.b,rb);
 					prob = new LPEQProb(nA, nb, prob.c);
 				}
-				soln = rawSolve(prob, basis0, tol, maxRounds, factory, null);
+				soln = rawSolve(ctx, SolverMetrics.PHASE2, prob, basis0, tol, maxRounds, factory, null);
 				if ((soln == null) || (soln.primalSolution == null) || (soln.basisColumns == null)
 						|| (soln.basisColumns.length != basis0.length)) {
 					throw new LPException.LPErrorException(
 							"bad basis back from phase1 raw solve");
 				}
 				soln.basisRows = rb;
+				if(prob!=origProb) {
+					soln.basisFactorization = null; // factors a rescaled or row reduced basis, not origProb's
+				}
 			} else {
 				soln = new LPSoln(new HVec(new int[0],new double[0]),new int[0],new int[0],0L);
 			}
@@ -303,6 +355,7 @@ abstract class LPSolverImpl implements LPSolver {
 		}
 		final long endTimeMS = System.currentTimeMillis();
 		soln.reportedRunTimeMS = endTimeMS - startTimeMS;
+		soln.stats = ctx.stats;
 		return soln;
 	}
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+package com.winvector.lp.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * lock-free histogram of non-negative longs (HDR style: power of two magnitudes split into
+ * 2^subBits linear sub-buckets, so relative bucket width is at most 2^-subBits).
+ * Safe to record into from many threads at once.
+ * @author johnmount
+ *
+ */
+public final class LogHistogram {
+	private final int subBits;
+	private final int subCount;
+	private final AtomicLongArray counts;
+	private final AtomicLong total = new AtomicLong(0L);
+	private final AtomicLong sum = new AtomicLong(0L);
+	private final AtomicLong max = new AtomicLong(0L);
+
+	/**
+	 * @param subBits linear sub-buckets per power of two (1 to 10)
+	 */
+	public LogHistogram(final int subBits) {
+		if((subBits<1)||(subBits>10)) {
+			throw new IllegalArgumentException("subBits must be in range 1 to 10");
+		}
+		this.subBits = subBits;
+		subCount = 1<<subBits;
+		counts = new AtomicLongArray(bucketIndex(Long.MAX_VALUE)+1);
+	}
+
+	public LogHistogram() {
+		this(4);
+	}
+
+	int bucketIndex(final long v) {
+		if(v<subCount) {
+			return (int)v;
+		}
+		final int e = 63 - Long.numberOfLeadingZeros(v);
+		final int sub = (int)((v>>>(e-subBits))&(subCount-1));
+		return (e-subBits+1)*subCount + sub;
+	}
+
+	/**
+	 * @param index
+	 * @return smallest value that lands in bucket index
+	 */
+	long bucketLowValue(final int index) {
+		if(index<subCount) {
+			return index;
+		}
+		final int e = index/subCount + subBits - 1;
+		final long sub = index%subCount;
+		return (1L<<e) | (sub<<(e-subBits));
+	}
+
+	public void record(long v) {
+		if(v<0) {
+			v = 0;
+		}
+		counts.incrementAndGet(bucketIndex(v));
+		total.incrementAndGet();
+		sum.addAndGet(v);
+		while(true) {
+			final long seen = max.get();
+			if((v<=seen)||max.compareAndSet(seen,v)) {
+				break;
+			}
+		}
+	}
+
+	public long count() {
+		return total.get();
+	}
+
+	public long sum() {
+		return sum.get();
+	}
+
+	public long max() {
+		return max.get();
+	}
+
+	public double mean() {
+		final long n = total.get();
+		if(n<=0) {
+			return Double.NaN;
+		}
+		return sum.get()/(double)n;
+	}
+
+	/**
+	 * @param q quantile in [0,1]
+	 * @return lower edge of the bucket holding the q-th quantile (0 if empty)
+	 */
+	public long quantile(final double q) {
+		final long n = total.get();
+		if(n<=0) {
+			return 0L;
+		}
+		final long rank = Math.max(1L,(long)Math.ceil(Math.min(1.0,Math.max(0.0,q))*n));
+		long seen = 0;
+		final int nbuckets = counts.length();
+		for(int i=0;i<nbuckets;++i) {
+			seen += counts.get(i);
+			if(seen>=rank) {
+				return Math.min(bucketLowValue(i),max.get());
+			}
+		}
+		return max.get();
+	}
+
+	public void clear() {
+		final int nbuckets = counts.length();
+		for(int i=0;i<nbuckets;++i) {
+			counts.set(i,0L);
+		}
+		total.set(0L);
+		sum.set(0L);
+		max.set(0L);
+	}
+
+	@Override
+	public String toString() {
+		return "n=" + count() + " mean=" + mean() + " p50=" + quantile(0.5)
+				+ " p90=" + quantile(0.9) + " p99=" + quantile(0.99) + " max=" + max();
+	}
+}
@@ -1,8 +1,8 @@
 package com.winvector.lp.impl;
 
 import java.util.Arrays;
-import java.util.Random;
 
+import com.winvector.linalg.Factorization;
 import com.winvector.linalg.LinalgFactory;
 import com.winvector.linalg.Matrix;
 import com.winvector.linalg.sparse.HVec;
@@ -13,6 +13,8 @@ import com.winvector.lp.LPEQProbI;
 import com.winvector.lp.LPException;
 import com.winvector.lp.LPException.LPTooManyStepsException;
 import com.winvector.lp.LPSoln;
+import com.winvector.lp.SolveStats;
+import com.winvector.lp.SolverMetrics;
 
 /**
  * basic primal revised simplex method
@@ -22,99 +24,76 @@ import com.winvector.lp.LPSoln;
  * hosted at: https://github.com/WinVector/WVLPSolver
  */
 public final class RevisedSimplexSolver extends LPSolverImpl {
-	public int debug = 0;
-	public double checkTol = 1.0e-8;
-	public double enteringTol = 1.0e-5;
-	public double leavingTol = 1.0e-7;
-	public boolean earlyR = false;                 // allow partial inspection for entering columns
-	public boolean resuffle = true;              // re-shuffle inspection order each pass
-	private final Random rand = new Random(3252351L);
-	// run counters
-	public long pivots = 0;
-	public long inspections = 0;
-	public long totalTimeMS = 0;
-	public long inspectionTimeMS = 0;
-	public long prePivotTimeMS = 0;
-	public long postPivotTimeMS = 0;	
-
-	
-	private void endRunTimingUpdate(final long startTimeMS, final long endInspectionMS) {
-		final long currentTimeMillis = System.currentTimeMillis();
-		totalTimeMS += currentTimeMillis - startTimeMS;
-		postPivotTimeMS += currentTimeMillis - endInspectionMS;
+	public RevisedSimplexSolver(final SolverConfig config) {
+		super(config);
 	}
 	
-	public void clearCounters() {
-		pivots = 0;
-		inspections = 0;
-		totalTimeMS = 0;
-		inspectionTimeMS = 0;
-		prePivotTimeMS = 0;
-		postPivotTimeMS = 0;		
+	public RevisedSimplexSolver() {
+		this(new SolverConfig());
 	}
 	
+	private static void endRunTimingUpdate(final SolveStats stats, final long startTimeNS, final long endInspectionNS) {
+		final long currentTimeNS = System.nanoTime();
+		stats.totalTimeNS += currentTimeNS - startTimeNS;
+		stats.postPivotTimeNS += currentTimeNS - endInspectionNS;
+	}
 
 	
-	private <T extends Matrix<T>> void runSimplex(final EnhancedBasis<T> tab, final double tol, 
+	private <T extends Matrix<T>> int runSimplex(final SolveContext ctx, final EnhancedBasis<T> tab, final double tol, 
 			final int maxRounds, final EarlyExitCondition earlyExitCondition) throws LPException {
-		if (debug > 0) {
+		final SolverMetrics metrics = ctx.metrics;
+		final SolveStats stats = ctx.stats;
+		if (config.debug > 0) {
 			System.out.println("start: " + stringBasis(tab.basis));
 		}
 		// start timing clear counters
-		final long startTimeMS = System.currentTimeMillis();
-		final InspectionOrder inspectionOrder = tab.prob.buildOrderTracker(rand);
-		final double[] bRatPtr = new double[1];
-		final int[] sortedBasis = new int[tab.basis.length];
-		double[] b = tab.prob.b();
+		final long startTimeNS = System.nanoTime();
+		final InspectionOrder inspectionOrder = tab.prob.buildOrderTracker(ctx.rand);
+		final double[] bRatPtr = ctx.workspace.doubles(Workspace.D_RATIO,1);
 		int steps = 0;
 		while (steps<=maxRounds) {
-			final long startRoundMS = System.currentTimeMillis();
+			final long startRoundNS = System.nanoTime();
 			if(null!=earlyExitCondition) {
 				if(earlyExitCondition.canExit(tab.basis)) {
 					//System.out.println("steps: " + normalSteps + ", inspections: " + inspections + ", ratio: " + (inspections/(double)normalSteps));
-					final long endTimeMS = System.currentTimeMillis();
-					endRunTimingUpdate(startTimeMS,endTimeMS);
-					return;
+					final long endTimeNS = System.nanoTime();
+					endRunTimingUpdate(stats,startTimeNS,endTimeNS);
+					return steps;
 				}
 			}
 			++steps;
-			++pivots;
+			++stats.pivots;
 			//prob.soln(basis,tol);
 			//System.out.println("basis good");
 			inspectionOrder.startPass();
-			if(resuffle) {
+			if(config.resuffle) {
 				inspectionOrder.shuffle();
 			}
 			final double[] lambda = tab.leftBasisSoln();
-			final double[] preB = tab.basisSolveRight(b);
+			final double[] preB = tab.basisSoln();
 			for(int i=0;i<preB.length;++i) { // assume any negative are rounding errors
 				preB[i] = Math.max(0.0,preB[i]);
 			}
 			// find most negative entry of r, if any
 			// determines joining variable
+			final long inspectionsAtStart = stats.inspections;
 			int rEnteringV = -1;
 			double bestRi = Double.NaN;
-			final long startInspectionMS = System.currentTimeMillis();
-			prePivotTimeMS += startInspectionMS-startRoundMS;
-			// quick low-object way to check for items in basis
-			for(int i=0;i<tab.basis.length;++i) {
-				sortedBasis[i] = tab.basis[i];
-			}
-			Arrays.sort(sortedBasis);
+			final long startInspectionNS = System.nanoTime();
+			stats.prePivotTimeNS += startInspectionNS-startRoundNS;
 			// try to find pivot
 			inspectionLoop:
 				while(inspectionOrder.hasNext()) {
-					++inspections;
+					++stats.inspections;
 					final int v = inspectionOrder.take(tab.basis,lambda);
 					final double ri = tab.computeRI(lambda, v);
 					//System.out.println("\t" + v + " ri: " + ri);
-					if(ri < -enteringTol) {
+					if(ri < -config.enteringTol) {
 						if((rEnteringV < 0)||(ri < bestRi)) {
-							final int basisIndex = Arrays.binarySearch(sortedBasis,v);
-							if(basisIndex<0) { // not already in basis
+							if(!tab.inBasis(v)) {
 								rEnteringV = v;
 								bestRi = ri;
-								if(earlyR) {
+								if(config.earlyR) {
 									inspectionOrder.liked(v);
 									break inspectionLoop;
 								}
@@ -123,23 +102,27 @@ public final class RevisedSimplexSolver extends LPSolverImpl {
 					}
 					inspectionOrder.disliked(v);
 				}
-			final long endInspectionMS = System.currentTimeMillis();
-			inspectionTimeMS += endInspectionMS - startInspectionMS;
+			final long endInspectionNS = System.nanoTime();
+			stats.inspectionTimeNS += endInspectionNS - startInspectionNS;
 			final int enteringV = rEnteringV;
 			if (enteringV < 0) {
 				// no entry, at optimum
-				endRunTimingUpdate(startTimeMS,endInspectionMS);
-				return;
+				endRunTimingUpdate(stats,startTimeNS,endInspectionNS);
+				if(null!=metrics) {
+					metrics.priced((int)(stats.inspections-inspectionsAtStart),startInspectionNS-startRoundNS,
+							endInspectionNS-startInspectionNS);
+				}
+				return steps;
 			}
 			final SparseVec u = tab.prob.extractColumn(enteringV);
-			final double[] binvu = tab.basisSolveRight(u);
+			final double[] binvu = tab.enteringSoln(u);
 			final int leavingI = findLeaving(preB,binvu,bRatPtr);
 			if (leavingI < 0) {
-				endRunTimingUpdate(startTimeMS,endInspectionMS);
+				endRunTimingUpdate(stats,startTimeNS,endInspectionNS);
 				throw new LPException.LPUnboundedException(
 						"problem unbounded");
 			}
-			if (debug > 0) {
+			if (config.debug > 0) {
 				System.out.print(" leavingI: " + leavingI);
 				if (leavingI >= 0) {
 					System.out.print(" var=" + tab.basis[leavingI]);
@@ -149,10 +132,14 @@ public final class RevisedSimplexSolver extends LPSolverImpl {
 			// perform the swap
 			tab.basisPivot(leavingI,enteringV,binvu);
 			//System.out.println("leave: " + basis[leavingI]);
-			final long endRoundMS = System.currentTimeMillis();
-			postPivotTimeMS += endRoundMS-endInspectionMS;
+			final long endRoundNS = System.nanoTime();
+			stats.postPivotTimeNS += endRoundNS-endInspectionNS;
+			if(null!=metrics) {
+				metrics.pivoted((int)(stats.inspections-inspectionsAtStart),startInspectionNS-startRoundNS,
+						endInspectionNS-startInspectionNS,endRoundNS-endInspectionNS);
+			}
 		}
-		totalTimeMS += System.currentTimeMillis() - startTimeMS;
+		stats.totalTimeNS += System.nanoTime() - startTimeNS;
 		throw new LPTooManyStepsException("max steps>" + maxRounds);
 	}
 
@@ -172,7 +159,7 @@ public final class RevisedSimplexSolver extends LPSolverImpl {
 		for(int i=0;i<binvu.length;++i) {
 			final double vi = binvu[i];
 			//System.out.println("l(" + basis[i] + ")= " + vi);
-			if (vi>leavingTol) {
+			if (vi>config.leavingTol) {
 				final double xBi = preB[i];
 				final double rat = Math.max(0.0,xBi)/vi;
 				if ((leavingI<0)
@@ -193,6 +180,10 @@ public final class RevisedSimplexSolver extends LPSolverImpl {
 	/**
 	 * solve: min c.x: A x = b, x>=0
 	 * 
+	 * @param ctx
+	 *            per-solve state (counters, random source, scratch space)
+	 * @param phase
+	 *            SolverMetrics.PHASE1 or SolverMetrics.PHASE2 (for reporting)
 	 * @param prob
 	 *            well formed LPProb
 	 * @param basis0
@@ -206,22 +197,39 @@ public final class RevisedSimplexSolver extends LPSolverImpl {
 	 *             (if infeas or unbounded)
 	 */
 	@Override
-	public <T extends Matrix<T>> LPSoln rawSolve(final LPEQProbI prob,
+	protected <T extends Matrix<T>> LPSoln rawSolve(final SolveContext ctx, final int phase, final LPEQProbI prob,
 			final int[] basis0, double tol, final int maxRounds, final LinalgFactory<T> factory,
 			final EarlyExitCondition earlyExitCondition) throws LPException {
 		final long startTimeMS = System.currentTimeMillis();
+		final SolverMetrics metrics = ctx.metrics;
+		final long startPhaseNS = (null!=metrics)?System.nanoTime():0L;
+		if(null!=metrics) {
+			metrics.phaseStarted(phase,prob.rows());
+		}
 		if ((tol<=0)||Double.isNaN(tol)||Double.isInfinite(tol)) {
 			tol = 0.0;
 		}
 		final int[] basis;
 		{
-			final EnhancedBasis<T> t = new EnhancedBasis<T>(prob, basis0,factory);
-			runSimplex(t,tol,maxRounds,earlyExitCondition);
+			EnhancedBasis<T> t = null;
+			boolean succeeded = false;
+			try {
+				t = new EnhancedBasis<T>(prob, basis0,factory,ctx);
+				runSimplex(ctx,t,tol,maxRounds,earlyExitCondition);
+				succeeded = true;
+			} finally {
+				if(null!=metrics) {
+					metrics.phaseFinished(phase,(null!=t)?t.pivots():0L,System.nanoTime()-startPhaseNS,succeeded);
+				}
+			}
 			basis = t.basis;
 		}
 		Arrays.sort(basis); // other t-structures now out of sync with basis, and no longer usable
-		final HVec x = prob.primalSoln(basis, factory); // would like to use t.preB, but it isn't correct on all exit conditions and also depens on a sorted basis
+		// would like to use t.preB, but it isn't correct on all exit conditions and also depens on a sorted basis
+		final Factorization basisFactorization = prob.factorBasis(basis, factory);
+		final HVec x = prob.primalSoln(basis, basisFactorization);
 		final LPSoln lpSoln = new LPSoln(x, basis, null,0L);
+		lpSoln.basisFactorization = basisFactorization; // lets callers get the dual without re-factoring
 		final long endTimeMS = System.currentTimeMillis();
 		lpSoln.reportedRunTimeMS = endTimeMS - startTimeMS; // for our solution only count construction time
 		return lpSoln;
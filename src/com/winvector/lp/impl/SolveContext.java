@@ -0,0 +1,27 @@
+package com.winvector.lp.impl;
+
+import java.util.Random;
+
+import com.winvector.lp.SolveStats;
+import com.winvector.lp.SolverMetrics;
+
+/**
+ * mutable state for exactly one solve (random source, counters, scratch space), so the
+ * solver object itself holds only immutable configuration.
+ * @author johnmount
+ *
+ */
+final class SolveContext {
+	public final SolverConfig config;
+	public final SolverMetrics metrics;
+	public final Random rand;
+	public final SolveStats stats = new SolveStats();
+	public final Workspace workspace;
+
+	SolveContext(final SolverConfig config, final Workspace workspace) {
+		this.config = config;
+		this.metrics = config.metrics;
+		this.workspace = workspace;
+		rand = new Random(config.seed);
+	}
+}
@@ -0,0 +1,37 @@
+package com.winvector.lp.impl;
+
+import java.io.Serializable;
+
+import com.winvector.lp.SolverMetrics;
+
+/**
+ * tuning settings for LPSolverImpl.  Solvers copy their settings at construction, so changing
+ * a SolverConfig after building a solver has no effect on that solver (one solver instance
+ * can then be shared by concurrent callers).
+ * @author johnmount
+ *
+ */
+public final class SolverConfig implements Serializable, Cloneable {
+	private static final long serialVersionUID = 1L;
+
+	public int verbose = 0;
+	public int debug = 0;
+	public double minBasisEpsilon = 1.0e-3;
+	public boolean rescale = false;
+	public double enteringTol = 1.0e-5;
+	public double leavingTol = 1.0e-7;
+	public boolean earlyR = false;                 // allow partial inspection for entering columns
+	public boolean resuffle = true;                // re-shuffle inspection order each pass
+	public long seed = 3252351L;                   // each solve gets a fresh Random(seed)
+	public double sparseInverseDensity = 0.1;      // hold the basis inverse sparsely while its fill is at most this fraction (0 for always dense)
+	public transient SolverMetrics metrics = null; // optional progress listener (must be thread safe if solver is shared)
+
+	@Override
+	public SolverConfig clone() {
+		try {
+			return (SolverConfig)super.clone();
+		} catch (CloneNotSupportedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
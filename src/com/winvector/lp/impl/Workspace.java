@@ -0,0 +1,52 @@
+package com.winvector.lp.impl;
+
+/**
+ * scratch arrays re-used across solves (held by only one solve at a time).
+ * Arrays are handed out by slot and re-allocated only when the requested length changes.
+ * @author johnmount
+ *
+ */
+final class Workspace {
+	// double[] slots
+	static final int D_CB = 0;
+	static final int D_RATIO = 1;
+	static final int D_LAMBDA = 2;
+	static final int D_XB = 3;
+	static final int D_BINVU = 4;
+	static final int N_DOUBLE_SLOTS = 5;
+	// int[] slots
+	static final int I_BINVNZJ = 0;
+	static final int I_BASISPOS = 1;
+	static final int N_INT_SLOTS = 2;
+
+	private final double[][] doubles = new double[N_DOUBLE_SLOTS][];
+	private final int[][] ints = new int[N_INT_SLOTS][];
+
+	/**
+	 * @param slot
+	 * @param n
+	 * @return array of length exactly n (contents undefined)
+	 */
+	double[] doubles(final int slot, final int n) {
+		double[] r = doubles[slot];
+		if((null==r)||(r.length!=n)) {
+			r = new double[n];
+			doubles[slot] = r;
+		}
+		return r;
+	}
+
+	/**
+	 * @param slot
+	 * @param n
+	 * @return array of length exactly n (contents undefined)
+	 */
+	int[] ints(final int slot, final int n) {
+		int[] r = ints[slot];
+		if((null==r)||(r.length!=n)) {
+			r = new int[n];
+			ints[slot] = r;
+		}
+		return r;
+	}
+}
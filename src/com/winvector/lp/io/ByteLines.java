@@ -0,0 +1,225 @@
+package com.winvector.lp.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * line at a time access to a byte channel with no per-line allocation: after nextLine() the
+ * line is buf[lineStart,lineEnd) (line end markers removed).  Shared by the text model readers
+ * and the external solver result parsers.
+ * @author johnmount
+ *
+ */
+public final class ByteLines implements Closeable {
+	static final int BUFSIZE = 1<<16;
+
+	private final ReadableByteChannel in;
+	public byte[] buf = new byte[BUFSIZE];
+	private ByteBuffer bb = ByteBuffer.wrap(buf);
+	private int pos = 0;
+	private int lim = 0;
+	private boolean eof = false;
+	public int lineNum = 0;
+	public int lineStart = 0;
+	public int lineEnd = 0;
+
+	ByteLines(final ReadableByteChannel in) {
+		this.in = in;
+	}
+
+	private static boolean isGzipMagic(final byte b0, final byte b1) {
+		return ((b0&0xff)==0x1f)&&((b1&0xff)==0x8b);
+	}
+
+	/**
+	 * @param f file (optionally gzipped)
+	 * @return lines of f (close when done)
+	 */
+	public static ByteLines open(final File f) throws IOException {
+		final FileInputStream fis = new FileInputStream(f);
+		try {
+			final FileChannel fc = fis.getChannel();
+			final ByteBuffer magic = ByteBuffer.allocate(2);
+			while(magic.hasRemaining()&&(fc.read(magic)>=0)) {
+			}
+			fc.position(0);
+			if((magic.position()==2)&&isGzipMagic(magic.get(0),magic.get(1))) {
+				return new ByteLines(Channels.newChannel(new GZIPInputStream(Channels.newInputStream(fc),BUFSIZE)));
+			}
+			return new ByteLines(fc);
+		} catch (IOException e) {
+			fis.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @param is data (optionally gzipped), closing the result closes is
+	 * @return lines of is
+	 */
+	public static ByteLines open(final InputStream is) throws IOException {
+		final PushbackInputStream pis = new PushbackInputStream(is,2);
+		final byte[] magic = new byte[2];
+		int n = 0;
+		while(n<2) {
+			final int r = pis.read(magic,n,2-n);
+			if(r<0) {
+				break;
+			}
+			n += r;
+		}
+		pis.unread(magic,0,n);
+		if((n==2)&&isGzipMagic(magic[0],magic[1])) {
+			return new ByteLines(Channels.newChannel(new GZIPInputStream(pis,BUFSIZE)));
+		}
+		return new ByteLines(Channels.newChannel(pis));
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	/**
+	 * advance to the next line
+	 * @return false at end of input
+	 */
+	public boolean nextLine() throws IOException {
+		int scan = pos;
+		while(true) {
+			while(scan<lim) {
+				if(buf[scan]=='\n') {
+					lineStart = pos;
+					lineEnd = (scan>pos)&&(buf[scan-1]=='\r')?scan-1:scan;
+					pos = scan+1;
+					++lineNum;
+					return true;
+				}
+				++scan;
+			}
+			if(eof) {
+				if(pos<lim) {
+					lineStart = pos;
+					lineEnd = ((lim>pos)&&(buf[lim-1]=='\r'))?lim-1:lim;
+					pos = lim;
+					++lineNum;
+					return true;
+				}
+				return false;
+			}
+			// shift partial line to front (growing if a single line fills the buffer) and refill
+			final int keep = lim-pos;
+			if(keep>=buf.length) {
+				buf = Arrays.copyOf(buf,2*buf.length);
+				bb = ByteBuffer.wrap(buf);
+			} else {
+				System.arraycopy(buf,pos,buf,0,keep);
+			}
+			scan -= pos;
+			pos = 0;
+			lim = keep;
+			bb.clear();
+			bb.position(lim);
+			final int r = in.read(bb);
+			if(r<0) {
+				eof = true;
+			} else {
+				lim += r;
+			}
+		}
+	}
+
+	public String string(final int off, final int len) {
+		return new String(buf,off,len,NameIndex.ASCII);
+	}
+
+	public IOException error(final String kind, final String msg) {
+		return new IOException(kind + " line " + lineNum + ": " + msg);
+	}
+
+	private static final double[] POW10 = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	/**
+	 * Parse a decimal number (Fortran style d/D exponents allowed).  Exact fast path for up to 15
+	 * significant digits and small exponents (both the mantissa and the power of ten are then exact
+	 * doubles, so one multiply or divide rounds correctly), Double.parseDouble otherwise.
+	 * @throws NumberFormatException
+	 */
+	public static double parseNumber(final byte[] buf, final int off, final int len) {
+		final int end = off+len;
+		int i = off;
+		boolean neg = false;
+		if((i<end)&&((buf[i]=='-')||(buf[i]=='+'))) {
+			neg = buf[i]=='-';
+			++i;
+		}
+		long mant = 0;
+		int digits = 0;
+		int exp10 = 0;
+		boolean sawDigit = false;
+		while((i<end)&&(buf[i]>='0')&&(buf[i]<='9')) {
+			sawDigit = true;
+			if((mant!=0)||(buf[i]!='0')) {
+				if(digits<18) {
+					mant = 10*mant + (buf[i]-'0');
+				} else {
+					++exp10;
+				}
+				++digits;
+			}
+			++i;
+		}
+		if((i<end)&&(buf[i]=='.')) {
+			++i;
+			while((i<end)&&(buf[i]>='0')&&(buf[i]<='9')) {
+				sawDigit = true;
+				if((mant!=0)||(buf[i]!='0')) {
+					if(digits<18) {
+						mant = 10*mant + (buf[i]-'0');
+						--exp10;
+					}
+					++digits;
+				} else {
+					--exp10;
+				}
+				++i;
+			}
+		}
+		if((i<end)&&((buf[i]=='e')||(buf[i]=='E')||(buf[i]=='d')||(buf[i]=='D'))&&sawDigit) {
+			++i;
+			boolean eneg = false;
+			if((i<end)&&((buf[i]=='-')||(buf[i]=='+'))) {
+				eneg = buf[i]=='-';
+				++i;
+			}
+			int e = 0;
+			boolean sawE = false;
+			while((i<end)&&(buf[i]>='0')&&(buf[i]<='9')&&(e<100000)) {
+				e = 10*e + (buf[i]-'0');
+				sawE = true;
+				++i;
+			}
+			if(!sawE) {
+				sawDigit = false;
+			}
+			exp10 += eneg?-e:e;
+		}
+		if(sawDigit&&(i==end)&&(digits<=15)&&(exp10>=-22)&&(exp10<=22)) {
+			final double v = (exp10>=0)?mant*POW10[exp10]:mant/POW10[-exp10];
+			return neg?-v:v;
+		}
+		return Double.parseDouble(new String(buf,off,len,NameIndex.ASCII).replace('d','e').replace('D','E'));
+	}
+}
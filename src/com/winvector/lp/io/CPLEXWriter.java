@@ -0,0 +1,217 @@
+package com.winvector.lp.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import com.winvector.linalg.PreMatrixI;
+import com.winvector.linalg.sparse.SparseVec;
+import com.winvector.lp.LPEQProb;
+
+/**
+ * Writes an LPEQProb in CPLEX LP format (variables x00000..., rows eq00000...) row by row from
+ * the problem's cached transpose, formatting numbers straight into a large byte buffer.
+ * Numbers are written so they parse back to the identical double.  The write methods return the
+ * order in which variables first appear in the file, which is the column numbering LP readers
+ * (such as GLPK's) assign.
+ * @author johnmount
+ *
+ */
+public final class CPLEXWriter {
+	private static final int BUFSIZE = 1<<18;
+
+	private final WritableByteChannel out;
+	private final byte[] buf = new byte[BUFSIZE];
+	private final ByteBuffer bb = ByteBuffer.wrap(buf);
+	private int n = 0;
+	private boolean[] seen = null;
+	private int[] order = null;
+	private int nOrder = 0;
+
+	private CPLEXWriter(final WritableByteChannel out) {
+		this.out = out;
+	}
+
+	/**
+	 * @param prob
+	 * @param out (flushed, not closed)
+	 * @return variable indices in order of first appearance in the file
+	 * @throws IOException
+	 */
+	public static int[] write(final LPEQProb prob, final OutputStream out) throws IOException {
+		final int[] order = write(prob,Channels.newChannel(out));
+		out.flush();
+		return order;
+	}
+
+	/**
+	 * @param prob
+	 * @param out (not closed)
+	 * @return variable indices in order of first appearance in the file
+	 * @throws IOException
+	 */
+	public static int[] write(final LPEQProb prob, final WritableByteChannel out) throws IOException {
+		final CPLEXWriter w = new CPLEXWriter(out);
+		w.writeProb(prob);
+		w.flush();
+		return w.order;
+	}
+
+	private void flush() throws IOException {
+		bb.clear();
+		bb.limit(n);
+		while(bb.hasRemaining()) {
+			out.write(bb);
+		}
+		n = 0;
+	}
+
+	private void ensure(final int k) throws IOException {
+		if(n+k>buf.length) {
+			flush();
+		}
+	}
+
+	private void ascii(final String s) throws IOException {
+		final int len = s.length();
+		ensure(len);
+		for(int i=0;i<len;++i) {
+			buf[n++] = (byte)s.charAt(i);
+		}
+	}
+
+	private void ch(final char c) throws IOException {
+		ensure(1);
+		buf[n++] = (byte)c;
+	}
+
+	/**
+	 * non-negative v, left padded with zeros to at least minWidth digits
+	 */
+	private void digits(long v, final int minWidth) throws IOException {
+		ensure(20+minWidth);
+		int len = 0;
+		long t = v;
+		do {
+			++len;
+			t /= 10;
+		} while(t>0);
+		for(int k=len;k<minWidth;++k) {
+			buf[n++] = '0';
+		}
+		int at = n+len;
+		n = at;
+		do {
+			buf[--at] = (byte)('0'+(v%10));
+			v /= 10;
+		} while(v>0);
+	}
+
+	private static final double[] POW10 = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9 };
+
+	/**
+	 * shortest fixed point form with at most 9 decimals when that parses back exactly,
+	 * Double.toString() otherwise
+	 */
+	private void number(final double v) throws IOException {
+		final double a = Math.abs(v);
+		if(a<1.0e15) {
+			for(int k=0;k<POW10.length;++k) {
+				final double s = a*POW10[k];
+				if(s>=1.0e15) {
+					break;
+				}
+				final double r = Math.rint(s);
+				if((r==s)&&(r/POW10[k]==a)) {
+					final long l = (long)r;
+					if(v<0) {
+						ch('-');
+					}
+					if(k==0) {
+						digits(l,1);
+					} else {
+						final long p = (long)POW10[k];
+						digits(l/p,1);
+						ch('.');
+						digits(l%p,k);
+					}
+					return;
+				}
+			}
+		}
+		ascii(Double.toString(v));
+	}
+
+	private void variable(final int j) throws IOException {
+		if(!seen[j]) {
+			seen[j] = true;
+			order[nOrder++] = j;
+		}
+		ascii("x");
+		digits(j,5);
+	}
+
+	private void term(final double v, final int j, final boolean first) throws IOException {
+		if(!first) {
+			ascii((v<0)?" ":" +");
+		}
+		number(v);
+		ch(' ');
+		variable(j);
+	}
+
+	private void writeProb(final LPEQProb prob) throws IOException {
+		final int nvars = prob.c.dim();
+		final int m = prob.b.length;
+		seen = new boolean[nvars];
+		order = new int[nvars];
+		nOrder = 0;
+		ascii("\\* WVLPSovler com.winvector.lp.LPEQProb see: http://www.win-vector.com/blog/2012/11/yet-another-java-linear-programming-library/ *\\\n");
+		ascii("\nMinimize\n");
+		ascii("\tvalue: ");
+		{
+			boolean first = true;
+			for(int j=0;j<nvars;++j) {
+				final double cj = prob.c.get(j);
+				if(cj!=0) {
+					term(cj,j,first);
+					first = false;
+				}
+			}
+		}
+		ascii("\n\nSubject To\n");
+		final PreMatrixI rows = prob.rowView();
+		for(int i=0;i<m;++i) {
+			final SparseVec row = rows.extractColumn(i);
+			final int nnz = row.nIndices();
+			boolean first = true;
+			for(int jj=0;jj<nnz;++jj) {
+				final double aij = row.value(jj);
+				if(aij!=0) {
+					if(first) {
+						ascii("\teq");
+						digits(i,5);
+						ascii(":\t");
+					}
+					term(aij,row.index(jj),first);
+					first = false;
+				}
+			}
+			if(!first) {
+				ascii(" = ");
+				number(prob.b[i]);
+				ch('\n');
+			}
+		}
+		ascii("\nBounds\n");
+		for(int j=0;j<nvars;++j) {
+			ascii("\t0 <= ");
+			variable(j);
+			ch('\n');
+		}
+		ascii("\nEnd\n\n\\* eof *\\\n");
+	}
+}
@@ -0,0 +1,219 @@
+package com.winvector.lp.io;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.LineNumberReader;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.winvector.linalg.LinalgFactory;
+import com.winvector.linalg.Matrix;
+import com.winvector.linalg.colt.NativeMatrix;
+import com.winvector.lp.LPSoln;
+import com.winvector.lp.LPSolver;
+import com.winvector.lp.apachem3.M3Solver;
+import com.winvector.lp.glpk.GLPKSolver;
+import com.winvector.lp.impl.RevisedSimplexSolver;
+
+/**
+ * Solve every MPS instance in a directory with every registered solver.  The directory holds
+ * name.mps files and optionally optima.tsv (lines: name TAB optimal objective).
+ * Writes a TSV with the same leading column and per-solver time columns as AssignmentSpeed
+ * (so plotSteps.R can plot it; assignmentSize is the equality form column count) plus per-solver
+ * pivots, objective error and peak heap columns.  Lines starting with # name the instance
+ * of the following row (read.table skips them).
+ * @author johnmount
+ *
+ */
+public final class CorpusSpeed {
+	public static final class Instance {
+		public final String name;
+		public final File file;
+		public final double optimum; // NaN if not known
+
+		public Instance(final String name, final File file, final double optimum) {
+			this.name = name;
+			this.file = file;
+			this.optimum = optimum;
+		}
+	}
+
+	public static final class RunResult {
+		public long timeMS = -1;
+		public long pivots = -1;
+		public double objective = Double.NaN;
+		public double objErr = Double.NaN;
+		public long peakMemBytes = -1;
+		public Exception failure = null;
+	}
+
+	public static Map<String,LPSolver> defaultSolvers() {
+		final Map<String,LPSolver> solvers = new TreeMap<String,LPSolver>();
+		solvers.put("ApacheM3Simplex",new M3Solver());
+		solvers.put("WVLPSolver",new RevisedSimplexSolver());
+		solvers.put("GLPK",new GLPKSolver());
+		return solvers;
+	}
+
+	/**
+	 * @param dir
+	 * @return instances sorted by name
+	 * @throws IOException
+	 */
+	public static ArrayList<Instance> listCorpus(final File dir) throws IOException {
+		final Map<String,Double> optima = new TreeMap<String,Double>();
+		final File optFile = new File(dir,"optima.tsv");
+		if(optFile.exists()) {
+			final LineNumberReader lnr = new LineNumberReader(new FileReader(optFile));
+			try {
+				String line;
+				while(null!=(line=lnr.readLine())) {
+					line = line.trim();
+					if((line.length()<=0)||line.startsWith("#")) {
+						continue;
+					}
+					final String[] flds = line.split("\t");
+					optima.put(flds[0],Double.parseDouble(flds[1]));
+				}
+			} finally {
+				lnr.close();
+			}
+		}
+		final File[] files = dir.listFiles();
+		if(null==files) {
+			throw new IOException("not a directory: " + dir);
+		}
+		Arrays.sort(files);
+		final ArrayList<Instance> instances = new ArrayList<Instance>();
+		for(final File f: files) {
+			final String fname = f.getName();
+			if(fname.toLowerCase().endsWith(".mps")) {
+				final String name = fname.substring(0,fname.length()-4);
+				final Double opt = optima.get(name);
+				instances.add(new Instance(name,f,(null!=opt)?opt:Double.NaN));
+			}
+		}
+		return instances;
+	}
+
+	private static ArrayList<MemoryPoolMXBean> heapPools() {
+		final ArrayList<MemoryPoolMXBean> pools = new ArrayList<MemoryPoolMXBean>();
+		for(final MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()) {
+			if(pool.getType()==MemoryType.HEAP) {
+				pools.add(pool);
+			}
+		}
+		return pools;
+	}
+
+	/**
+	 * @param form
+	 * @param optimum (NaN if not known)
+	 * @param solver
+	 * @param factory
+	 * @return result (failures are recorded, not thrown)
+	 */
+	public static <T extends Matrix<T>> RunResult runOne(final LPModel.EQForm form, final double optimum,
+			final LPSolver solver, final LinalgFactory<T> factory) {
+		final RunResult res = new RunResult();
+		final ArrayList<MemoryPoolMXBean> pools = heapPools();
+		System.gc();
+		for(final MemoryPoolMXBean pool: pools) {
+			pool.resetPeakUsage();
+		}
+		final long startNS = System.nanoTime();
+		try {
+			final LPSoln soln = solver.solve(form.prob,null,1.0e-7,1000000,factory);
+			res.timeMS = (System.nanoTime()-startNS)/1000000L;
+			if(null!=soln.stats) {
+				res.pivots = soln.stats.pivots;
+			}
+			res.objective = form.objective(soln.primalSolution);
+			res.objErr = Math.abs(res.objective-optimum);
+		} catch (Exception e) {
+			res.timeMS = (System.nanoTime()-startNS)/1000000L;
+			res.failure = e;
+		}
+		long peak = 0;
+		for(final MemoryPoolMXBean pool: pools) {
+			peak += pool.getPeakUsage().getUsed();
+		}
+		res.peakMemBytes = peak;
+		return res;
+	}
+
+	private static String fmt(final long v) {
+		return (v>=0)?Long.toString(v):"NaN";
+	}
+
+	/**
+	 * @param instances
+	 * @param solvers
+	 * @param factory
+	 * @param p where to write the TSV
+	 * @throws IOException
+	 */
+	public static <T extends Matrix<T>> void runCorpus(final ArrayList<Instance> instances,
+			final Map<String,LPSolver> solvers, final LinalgFactory<T> factory, final PrintStream p) throws IOException {
+		p.print("assignmentSize");
+		p.print("\t" + "instance");
+		p.print("\t" + "dim");
+		p.print("\t" + "rows");
+		for(final String name: solvers.keySet()) {
+			p.print("\t" + name);
+		}
+		for(final String name: solvers.keySet()) {
+			p.print("\t" + name + "Pivots");
+			p.print("\t" + name + "ObjErr");
+			p.print("\t" + name + "PeakMemMB");
+		}
+		p.println();
+		for(int k=0;k<instances.size();++k) {
+			final Instance inst = instances.get(k);
+			final LPModel.EQForm form;
+			try {
+				form = MPSReader.read(inst.file).toEQForm();
+			} catch (Exception e) {
+				p.println("# " + k + " " + inst.name + " could not be read: " + e);
+				continue;
+			}
+			final Map<String,RunResult> results = new TreeMap<String,RunResult>();
+			for(final Map.Entry<String,LPSolver> me: solvers.entrySet()) {
+				results.put(me.getKey(),runOne(form,inst.optimum,me.getValue(),factory));
+			}
+			p.println("# " + k + " " + inst.name);
+			p.print(form.prob.nvars());
+			p.print("\t" + k);
+			p.print("\t" + form.prob.nvars());
+			p.print("\t" + form.prob.rows());
+			for(final String name: solvers.keySet()) {
+				final RunResult r = results.get(name);
+				p.print("\t" + ((null==r.failure)?Long.toString(r.timeMS):"NaN"));
+			}
+			for(final String name: solvers.keySet()) {
+				final RunResult r = results.get(name);
+				p.print("\t" + fmt(r.pivots));
+				p.print("\t" + r.objErr);
+				p.print("\t" + fmt((r.peakMemBytes>=0)?r.peakMemBytes/(1024L*1024L):-1));
+			}
+			p.println();
+		}
+		p.flush();
+	}
+
+	/**
+	 * @param args [corpusDir] (default test/resources/lpcorpus)
+	 * @throws IOException
+	 */
+	public static void main(final String[] args) throws IOException {
+		final File dir = new File((args.length>0)?args[0]:"test/resources/lpcorpus");
+		runCorpus(listCorpus(dir),defaultSolvers(),NativeMatrix.factory,System.out);
+	}
+}
@@ -0,0 +1,571 @@
+package com.winvector.lp.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Streaming reader for (the linear subset of) CPLEX LP format: objective, Subject To, Bounds,
+ * Generals/Binaries (integrality is dropped, binaries get 0/1 bounds) and End.  Reads the output
+ * of CPLEXWriter and of most external tools.  Constants on the left of a constraint are moved to
+ * the right hand side; an objective constant goes to LPModel.objConst.
+ * @author johnmount
+ *
+ */
+public final class LPFormatReader {
+	private enum Section {
+		NONE, OBJECTIVE, CONSTRAINTS, BOUNDS, INTEGERS, BINARIES, SKIP, END
+	}
+
+	// token types
+	private static final int T_EOF = 0;
+	private static final int T_SECTION = 1;
+	private static final int T_NUM = 2;
+	private static final int T_NAME = 3;
+	private static final int T_LABEL = 4;
+	private static final int T_SIGN = 5;
+	private static final int T_OP = 6;
+
+	private final ByteLines lines;
+	private byte[] buf;
+	private int p = 0;     // cursor in current line
+	private int end = 0;   // end of current line
+	private boolean started = false;
+	private boolean inBlockComment = false;
+	// current token
+	private int tokType;
+	private int tokOff;
+	private int tokLen;
+	private double tokNum;
+	private char tokOp;      // LPModel.LE, GE or EQ
+	private boolean tokNeg;  // for T_SIGN
+	private Section tokSection;
+	private boolean pushedBack = false;
+
+	private final LPModel model = new LPModel();
+	// constraint entries (row, col, value) in row order, bucketed by column at the end
+	private int nTrip = 0;
+	private int[] tripRow = new int[1024];
+	private int[] tripCol = new int[1024];
+	private double[] tripVal = new double[1024];
+
+	private LPFormatReader(final ByteLines lines) {
+		this.lines = lines;
+	}
+
+	/**
+	 * @param f LP file (optionally gzipped)
+	 * @return model
+	 * @throws IOException on read or format errors
+	 */
+	public static LPModel read(final File f) throws IOException {
+		final ByteLines lines = ByteLines.open(f);
+		try {
+			return new LPFormatReader(lines).parse();
+		} finally {
+			lines.close();
+		}
+	}
+
+	/**
+	 * @param is LP data (optionally gzipped), not closed
+	 * @return model
+	 * @throws IOException on read or format errors
+	 */
+	public static LPModel read(final InputStream is) throws IOException {
+		return new LPFormatReader(ByteLines.open(is)).parse();
+	}
+
+	private IOException error(final String msg) {
+		return lines.error("LP",msg);
+	}
+
+	private String tokString() {
+		return lines.string(tokOff,tokLen);
+	}
+
+	private static boolean isNameChar(final byte c) {
+		return (c>' ')&&(c!='+')&&(c!='-')&&(c!='<')&&(c!='>')&&(c!='=')&&(c!=':')&&(c!='\\')&&(c!='*')&&(c!='^')&&(c!='[')&&(c!=']');
+	}
+
+	private boolean wordIs(final int off, final int len, final String w) {
+		if(len!=w.length()) {
+			return false;
+		}
+		for(int i=0;i<len;++i) {
+			if(Character.toLowerCase((char)buf[off+i])!=w.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean wordIn(final int off, final int len, final String[] ws) {
+		for(final String w: ws) {
+			if(wordIs(off,len,w)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static final String[] MIN_WORDS = { "minimize", "minimise", "minimum", "min" };
+	private static final String[] MAX_WORDS = { "maximize", "maximise", "maximum", "max" };
+	private static final String[] ST_WORDS = { "st", "s.t.", "st." };
+	private static final String[] BOUNDS_WORDS = { "bounds", "bound" };
+	private static final String[] INT_WORDS = { "general", "generals", "gen", "integer", "integers" };
+	private static final String[] BIN_WORDS = { "binary", "binaries", "bin" };
+	private static final String[] SKIP_WORDS = { "semi-continuous", "semis", "semi", "sos" };
+	private static final String[] INF_WORDS = { "inf", "infinity" };
+
+	/**
+	 * @return section if the current line (at p) starts with a section keyword (consuming it)
+	 */
+	private Section sectionAtLineStart() {
+		int k = p;
+		while((k<end)&&(buf[k]<=' ')) {
+			++k;
+		}
+		final int w1 = k;
+		while((k<end)&&(buf[k]>' ')) {
+			++k;
+		}
+		final int w1Len = k-w1;
+		if(w1Len<=0) {
+			return null;
+		}
+		int j = k;
+		while((j<end)&&(buf[j]<=' ')) {
+			++j;
+		}
+		final int w2 = j;
+		while((j<end)&&(buf[j]>' ')) {
+			++j;
+		}
+		final int w2Len = j-w2;
+		Section s = null;
+		int after = k;
+		if(wordIn(w1,w1Len,MIN_WORDS)) {
+			model.maximize = false;
+			s = Section.OBJECTIVE;
+		} else if(wordIn(w1,w1Len,MAX_WORDS)) {
+			model.maximize = true;
+			s = Section.OBJECTIVE;
+		} else if((wordIs(w1,w1Len,"subject")&&wordIs(w2,w2Len,"to"))
+				||(wordIs(w1,w1Len,"such")&&wordIs(w2,w2Len,"that"))) {
+			s = Section.CONSTRAINTS;
+			after = j;
+		} else if(wordIn(w1,w1Len,ST_WORDS)) {
+			s = Section.CONSTRAINTS;
+		} else if(wordIn(w1,w1Len,BOUNDS_WORDS)) {
+			s = Section.BOUNDS;
+		} else if(wordIn(w1,w1Len,INT_WORDS)) {
+			s = Section.INTEGERS;
+		} else if(wordIn(w1,w1Len,BIN_WORDS)) {
+			s = Section.BINARIES;
+		} else if(wordIn(w1,w1Len,SKIP_WORDS)) {
+			s = Section.SKIP;
+		} else if(wordIs(w1,w1Len,"end")) {
+			s = Section.END;
+		}
+		if(null!=s) {
+			p = after;
+		}
+		return s;
+	}
+
+	private void pushBack() {
+		pushedBack = true;
+	}
+
+	/**
+	 * read the next token (crossing lines, skipping comments)
+	 */
+	private int next() throws IOException {
+		if(pushedBack) {
+			pushedBack = false;
+			return tokType;
+		}
+		while(true) {
+			if((!started)||(p>=end)) {
+				if(!lines.nextLine()) {
+					tokType = T_EOF;
+					return tokType;
+				}
+				started = true;
+				buf = lines.buf;
+				p = lines.lineStart;
+				end = lines.lineEnd;
+				if(inBlockComment) {
+					skipBlockComment();
+					continue;
+				}
+				final Section s = sectionAtLineStart();
+				if(null!=s) {
+					tokType = T_SECTION;
+					tokSection = s;
+					return tokType;
+				}
+			}
+			while((p<end)&&(buf[p]<=' ')) {
+				++p;
+			}
+			if(p>=end) {
+				continue;
+			}
+			final byte c = buf[p];
+			if(c=='\\') {
+				if((p+1<end)&&(buf[p+1]=='*')) {
+					p += 2;
+					inBlockComment = true;
+					skipBlockComment();
+				} else {
+					p = end; // comment to end of line
+				}
+				continue;
+			}
+			if((c=='+')||(c=='-')) {
+				tokType = T_SIGN;
+				tokNeg = c=='-';
+				++p;
+				return tokType;
+			}
+			if((c=='<')||(c=='>')||(c=='=')) {
+				char op = LPModel.EQ;
+				while((p<end)&&((buf[p]=='<')||(buf[p]=='>')||(buf[p]=='='))) {
+					if(buf[p]=='<') {
+						op = LPModel.LE;
+					} else if(buf[p]=='>') {
+						op = LPModel.GE;
+					}
+					++p;
+				}
+				tokType = T_OP;
+				tokOp = op;
+				return tokType;
+			}
+			if(((c>='0')&&(c<='9'))||((c=='.')&&(p+1<end)&&(buf[p+1]>='0')&&(buf[p+1]<='9'))) {
+				final int start = p;
+				while((p<end)&&(((buf[p]>='0')&&(buf[p]<='9'))||(buf[p]=='.'))) {
+					++p;
+				}
+				if((p<end)&&((buf[p]=='e')||(buf[p]=='E'))) {
+					int q = p+1;
+					if((q<end)&&((buf[q]=='+')||(buf[q]=='-'))) {
+						++q;
+					}
+					if((q<end)&&(buf[q]>='0')&&(buf[q]<='9')) {
+						p = q;
+						while((p<end)&&(buf[p]>='0')&&(buf[p]<='9')) {
+							++p;
+						}
+					}
+				}
+				tokType = T_NUM;
+				tokOff = start;
+				tokLen = p-start;
+				try {
+					tokNum = ByteLines.parseNumber(buf,start,p-start);
+				} catch (NumberFormatException ex) {
+					throw error("bad number '" + tokString() + "'");
+				}
+				return tokType;
+			}
+			if(isNameChar(c)) {
+				final int start = p;
+				while((p<end)&&isNameChar(buf[p])) {
+					++p;
+				}
+				tokOff = start;
+				tokLen = p-start;
+				int q = p;
+				while((q<end)&&(buf[q]<=' ')) {
+					++q;
+				}
+				if((q<end)&&(buf[q]==':')) {
+					p = q+1;
+					tokType = T_LABEL;
+				} else if(wordIn(start,p-start,INF_WORDS)) {
+					tokType = T_NUM;
+					tokNum = Double.POSITIVE_INFINITY;
+				} else {
+					tokType = T_NAME;
+				}
+				return tokType;
+			}
+			throw error("unexpected character '" + (char)c + "'");
+		}
+	}
+
+	private void skipBlockComment() {
+		while(p+1<end) {
+			if((buf[p]=='*')&&(buf[p+1]=='\\')) {
+				p += 2;
+				inBlockComment = false;
+				return;
+			}
+			++p;
+		}
+		p = end;
+	}
+
+	private int column() {
+		final int j = model.colNames.intern(buf,tokOff,tokLen);
+		if(j==model.columns.size()) {
+			model.columns.add(new LPModel.Column(tokString()));
+		}
+		return j;
+	}
+
+	private void addTrip(final int row, final int col, final double v) {
+		if(nTrip>=tripRow.length) {
+			final int n = 2*tripRow.length;
+			tripRow = Arrays.copyOf(tripRow,n);
+			tripCol = Arrays.copyOf(tripCol,n);
+			tripVal = Arrays.copyOf(tripVal,n);
+		}
+		tripRow[nTrip] = row;
+		tripCol[nTrip] = col;
+		tripVal[nTrip] = v;
+		++nTrip;
+	}
+
+	/**
+	 * signed number (or +-inf) at the current position
+	 */
+	private double signedNumber() throws IOException {
+		double sign = 1.0;
+		int t = next();
+		while(t==T_SIGN) {
+			if(tokNeg) {
+				sign = -sign;
+			}
+			t = next();
+		}
+		if(t!=T_NUM) {
+			throw error("expected a number");
+		}
+		return sign*tokNum;
+	}
+
+	/**
+	 * read linear terms up to (not including) an operator, section or end
+	 * @param row row index for entries, -1 for the objective
+	 * @return sum of constant terms
+	 */
+	private double readTerms(final int row) throws IOException {
+		double constant = 0.0;
+		double sign = 1.0;
+		double pending = Double.NaN;
+		while(true) {
+			final int t = next();
+			if(t==T_SIGN) {
+				if(!Double.isNaN(pending)) {
+					constant += sign*pending;
+					pending = Double.NaN;
+					sign = 1.0;
+				}
+				if(tokNeg) {
+					sign = -sign;
+				}
+			} else if(t==T_NUM) {
+				if(!Double.isNaN(pending)) {
+					throw error("two numbers in a row");
+				}
+				pending = tokNum;
+			} else if(t==T_NAME) {
+				final double coef = sign*(Double.isNaN(pending)?1.0:pending);
+				final int j = column();
+				if(row<0) {
+					model.columns.get(j).cost += coef;
+				} else {
+					addTrip(row,j,coef);
+				}
+				sign = 1.0;
+				pending = Double.NaN;
+			} else if((t==T_LABEL)&&(row<0)) {
+				// objective label
+			} else {
+				if(!Double.isNaN(pending)) {
+					constant += sign*pending;
+				}
+				pushBack();
+				return constant;
+			}
+		}
+	}
+
+	private void readConstraint() throws IOException {
+		String rowName = null;
+		if(next()==T_LABEL) {
+			rowName = tokString();
+		} else {
+			pushBack();
+		}
+		final int row = model.rows.size();
+		if(null==rowName) {
+			rowName = "R" + (row+1);
+		}
+		final double constant = readTerms(row);
+		if(next()!=T_OP) {
+			throw error("expected <=, >= or = in constraint " + rowName);
+		}
+		final char op = tokOp;
+		final double rhs = signedNumber();
+		if(model.rowNames.intern(rowName)!=row) {
+			throw error("duplicate row '" + rowName + "'");
+		}
+		final LPModel.Row r = new LPModel.Row(rowName,op);
+		r.rhs = rhs - constant;
+		model.rows.add(r);
+	}
+
+	private LPModel.Column boundColumn() throws IOException {
+		if(next()!=T_NAME) {
+			throw error("expected a variable name in bound");
+		}
+		return model.columns.get(column());
+	}
+
+	private static void applyBound(final LPModel.Column c, final char op, final double v) {
+		if(op==LPModel.EQ) {
+			c.lo = v;
+			c.up = v;
+		} else if(op==LPModel.LE) {
+			c.up = v;
+		} else {
+			c.lo = v;
+		}
+	}
+
+	private static char flip(final char op) {
+		return (op==LPModel.LE)?LPModel.GE:((op==LPModel.GE)?LPModel.LE:op);
+	}
+
+	private void readBound() throws IOException {
+		final int t = next();
+		if((t==T_NUM)||(t==T_SIGN)) {
+			// v op x [op w]
+			pushBack();
+			final double v = signedNumber();
+			if(next()!=T_OP) {
+				throw error("expected operator in bound");
+			}
+			final char op1 = tokOp;
+			final LPModel.Column c = boundColumn();
+			applyBound(c,flip(op1),v);
+			if(next()==T_OP) {
+				final char op2 = tokOp;
+				applyBound(c,op2,signedNumber());
+			} else {
+				pushBack();
+			}
+		} else if(t==T_NAME) {
+			pushBack();
+			final LPModel.Column c = boundColumn();
+			final int t2 = next();
+			if((t2==T_NAME)&&wordIs(tokOff,tokLen,"free")) {
+				c.lo = Double.NEGATIVE_INFINITY;
+				c.up = Double.POSITIVE_INFINITY;
+			} else if(t2==T_OP) {
+				final char op = tokOp;
+				applyBound(c,op,signedNumber());
+			} else {
+				throw error("bad bound for " + c.name);
+			}
+		} else {
+			throw error("bad bound");
+		}
+	}
+
+	/**
+	 * bucket the row ordered entries by column (counting sort, so rows stay sorted)
+	 */
+	private void buildColumns() throws IOException {
+		final int n = model.columns.size();
+		final int[] count = new int[n+1];
+		for(int k=0;k<nTrip;++k) {
+			count[tripCol[k]+1] += 1;
+		}
+		for(int j=0;j<n;++j) {
+			count[j+1] += count[j];
+		}
+		final int[] rowsAll = new int[nTrip];
+		final double[] valsAll = new double[nTrip];
+		final int[] fill = Arrays.copyOf(count,n);
+		for(int k=0;k<nTrip;++k) {
+			final int at = fill[tripCol[k]]++;
+			rowsAll[at] = tripRow[k];
+			valsAll[at] = tripVal[k];
+		}
+		for(int j=0;j<n;++j) {
+			final int from = count[j];
+			final int to = count[j+1];
+			// merge repeats of a variable within one row (adjacent after bucketing)
+			int nk = 0;
+			for(int k=from;k<to;++k) {
+				if((nk>0)&&(rowsAll[from+nk-1]==rowsAll[k])) {
+					valsAll[from+nk-1] += valsAll[k];
+				} else {
+					rowsAll[from+nk] = rowsAll[k];
+					valsAll[from+nk] = valsAll[k];
+					++nk;
+				}
+			}
+			model.columns.get(j).setEntries(Arrays.copyOfRange(rowsAll,from,from+nk),
+					Arrays.copyOfRange(valsAll,from,from+nk));
+		}
+		nTrip = 0;
+	}
+
+	private LPModel parse() throws IOException {
+		Section section = Section.NONE;
+		boolean sawEnd = false;
+		while(!sawEnd) {
+			final int t = next();
+			if(t==T_EOF) {
+				break;
+			}
+			if(t==T_SECTION) {
+				section = tokSection;
+				if(section==Section.END) {
+					sawEnd = true;
+				} else if(section==Section.OBJECTIVE) {
+					model.objConst += readTerms(-1);
+				}
+				continue;
+			}
+			pushBack();
+			switch(section) {
+			case OBJECTIVE:
+				model.objConst += readTerms(-1);
+				break;
+			case CONSTRAINTS:
+				readConstraint();
+				break;
+			case BOUNDS:
+				readBound();
+				break;
+			case INTEGERS:
+			case BINARIES:
+				if(next()!=T_NAME) {
+					throw error("expected variable name");
+				}
+				final LPModel.Column c = model.columns.get(column());
+				if(section==Section.BINARIES) {
+					c.lo = 0.0;
+					c.up = 1.0;
+				}
+				break;
+			case SKIP:
+				next();
+				break;
+			default:
+				throw error("data outside of a section");
+			}
+		}
+		buildColumns();
+		return model;
+	}
+}
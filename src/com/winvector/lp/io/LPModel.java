@@ -0,0 +1,364 @@
+package com.winvector.lp.io;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.winvector.linalg.DenseVec;
+import com.winvector.linalg.PreVecI;
+import com.winvector.linalg.sparse.ColumnMatrix;
+import com.winvector.linalg.sparse.HVec;
+import com.winvector.linalg.sparse.SparseVec;
+import com.winvector.lp.LPEQProb;
+import com.winvector.lp.LPException.LPMalformedException;
+
+/**
+ * general form LP (as found in MPS files):
+ *   min (or max) c.x + objConst: rlo <= A x <= rup, lo <= x <= up
+ * with conversion to the solver's equality form min c.y: A' y = b, y>=0
+ * @author johnmount
+ *
+ */
+public final class LPModel {
+	public static final char EQ = 'E';
+	public static final char LE = 'L';
+	public static final char GE = 'G';
+
+	public static final class Row {
+		public final String name;
+		public final char type; // EQ, LE or GE
+		public double rhs = 0.0;
+		public double range = Double.NaN; // NaN if no range given
+
+		Row(final String name, final char type) {
+			this.name = name;
+			this.type = type;
+		}
+
+		/**
+		 * @return lower limit on row activity (MPS range rules)
+		 */
+		public double lower() {
+			switch(type) {
+			case LE:
+				return Double.isNaN(range)?Double.NEGATIVE_INFINITY:rhs-Math.abs(range);
+			case GE:
+				return rhs;
+			default:
+				return (Double.isNaN(range)||(range>=0))?rhs:rhs+range;
+			}
+		}
+
+		/**
+		 * @return upper limit on row activity (MPS range rules)
+		 */
+		public double upper() {
+			switch(type) {
+			case LE:
+				return rhs;
+			case GE:
+				return Double.isNaN(range)?Double.POSITIVE_INFINITY:rhs+Math.abs(range);
+			default:
+				return (Double.isNaN(range)||(range<=0))?rhs:rhs+range;
+			}
+		}
+	}
+
+	public static final class Column {
+		public final String name;
+		public double cost = 0.0;
+		public double lo = 0.0;
+		public double up = Double.POSITIVE_INFINITY;
+		int[] rowIndices = new int[0];    // sorted constraint row indices
+		double[] values = new double[0];  // matching coefficients
+
+		Column(final String name) {
+			this.name = name;
+		}
+
+		/**
+		 * @param rowIndices sorted, no duplicates (not copied)
+		 * @param values (not copied)
+		 */
+		public void setEntries(final int[] rowIndices, final double[] values) {
+			if(rowIndices.length!=values.length) {
+				throw new IllegalArgumentException("rowIndices.length!=values.length");
+			}
+			for(int k=1;k<rowIndices.length;++k) {
+				if(rowIndices[k]<=rowIndices[k-1]) {
+					throw new IllegalArgumentException("row indices not strictly increasing in column " + name);
+				}
+			}
+			this.rowIndices = rowIndices;
+			this.values = values;
+		}
+
+		public int nEntries() {
+			return rowIndices.length;
+		}
+
+		public int rowIndex(final int k) {
+			return rowIndices[k];
+		}
+
+		public double value(final int k) {
+			return values[k];
+		}
+
+		/**
+		 * @param row
+		 * @return coefficient of row (0.0 if not present)
+		 */
+		public double get(final int row) {
+			final int k = Arrays.binarySearch(rowIndices,row);
+			return (k>=0)?values[k]:0.0;
+		}
+	}
+
+	public String name = null;
+	public String objectiveName = null;
+	public boolean maximize = false;
+	public double objConst = 0.0;
+	public final ArrayList<Row> rows = new ArrayList<Row>();
+	public final ArrayList<Column> columns = new ArrayList<Column>();
+	final NameIndex rowNames = new NameIndex();
+	final NameIndex colNames = new NameIndex();
+
+	public Row addRow(final String rowName, final char type) {
+		if(rowNames.intern(rowName)!=rows.size()) {
+			throw new IllegalArgumentException("duplicate row: " + rowName);
+		}
+		final Row r = new Row(rowName,type);
+		rows.add(r);
+		return r;
+	}
+
+	public Column addColumn(final String colName) {
+		if(colNames.intern(colName)!=columns.size()) {
+			throw new IllegalArgumentException("duplicate column: " + colName);
+		}
+		final Column c = new Column(colName);
+		columns.add(c);
+		return c;
+	}
+
+	/**
+	 * @param rowName
+	 * @return index or -1 if not a constraint row
+	 */
+	public int rowIndex(final String rowName) {
+		return rowNames.find(rowName);
+	}
+
+	/**
+	 * @param colName
+	 * @return index or -1 if not a column
+	 */
+	public int colIndex(final String colName) {
+		return colNames.find(colName);
+	}
+
+	/**
+	 * equality form of a model plus what is needed to map solutions back
+	 */
+	public static final class EQForm {
+		public final LPEQProb prob;
+		public final boolean maximize;
+		public final double objOffset;      // added to prob.c.y (in minimization sense)
+		private final double[] shift;       // x_j = shift_j + scale_j y_{col_j} - y_{negCol_j}
+		private final double[] scale;
+		private final int[] col;            // -1 if x_j is fixed
+		private final int[] negCol;         // -1 unless x_j is free
+
+		EQForm(final LPEQProb prob, final boolean maximize, final double objOffset,
+				final double[] shift, final double[] scale, final int[] col, final int[] negCol) {
+			this.prob = prob;
+			this.maximize = maximize;
+			this.objOffset = objOffset;
+			this.shift = shift;
+			this.scale = scale;
+			this.col = col;
+			this.negCol = negCol;
+		}
+
+		/**
+		 * @param y solution of prob
+		 * @return objective of the original model (in its own sense)
+		 */
+		public double objective(final HVec y) {
+			final double v = y.dot(prob.c) + objOffset;
+			return maximize?-v:v;
+		}
+
+		/**
+		 * @param y solution of prob
+		 * @return values of the original model's columns
+		 */
+		public double[] originalSolution(final HVec y) {
+			final double[] yd = y.toArray(prob.c.dim());
+			final int n = shift.length;
+			final double[] x = new double[n];
+			for(int j=0;j<n;++j) {
+				double xj = shift[j];
+				if(col[j]>=0) {
+					xj += scale[j]*yd[col[j]];
+				}
+				if(negCol[j]>=0) {
+					xj -= yd[negCol[j]];
+				}
+				x[j] = xj;
+			}
+			return x;
+		}
+	}
+
+	private static SparseVec unit(final int m, final int i, final double v) {
+		return new SparseVec(m,new int[] {i},new double[] {v});
+	}
+
+	/**
+	 * @return col scaled, with (extraRow,1.0) appended if extraRow>=0 (must be past all rows of col)
+	 */
+	private static SparseVec structural(final int m, final Column col, final double scale, final int extraRow) {
+		final int k = col.rowIndices.length;
+		final int nk = (extraRow>=0)?k+1:k;
+		final int[] indices = Arrays.copyOf(col.rowIndices,nk);
+		final double[] values = new double[nk];
+		for(int ii=0;ii<k;++ii) {
+			values[ii] = scale*col.values[ii];
+		}
+		if(extraRow>=0) {
+			indices[k] = extraRow;
+			values[k] = 1.0;
+		}
+		return new SparseVec(m,indices,values);
+	}
+
+	/**
+	 * Convert to min c.y: A y = b, y>=0 by shifting columns to their finite bound, splitting free
+	 * columns, and adding slack columns (and rows for finite upper bounds and ranges).
+	 * @return equality form
+	 * @throws LPMalformedException if bounds or rows are inconsistent
+	 */
+	public EQForm toEQForm() throws LPMalformedException {
+		final int m0 = rows.size();
+		final int n0 = columns.size();
+		final double sense = maximize?-1.0:1.0;
+		// size the result first (one pass over bounds and rows)
+		int m = m0;
+		int n = 0;
+		for(final Column c: columns) {
+			if(c.lo>c.up) {
+				throw new LPMalformedException("column " + c.name + " has lo>up");
+			}
+			final boolean loFinite = !Double.isInfinite(c.lo);
+			final boolean upFinite = !Double.isInfinite(c.up);
+			if(loFinite&&upFinite) {
+				if(c.lo!=c.up) {
+					m += 1;
+					n += 2;
+				}
+			} else if(loFinite||upFinite) {
+				n += 1;
+			} else {
+				n += 2;
+			}
+		}
+		for(final Row r: rows) {
+			final double lower = r.lower();
+			final double upper = r.upper();
+			if(lower>upper) {
+				throw new LPMalformedException("row " + r.name + " has empty range");
+			}
+			if(lower!=upper) {
+				n += 1;
+				if(!(Double.isInfinite(lower)||Double.isInfinite(upper))) {
+					m += 1;
+					n += 1;
+				}
+			}
+		}
+		final SparseVec[] cols = new SparseVec[n];
+		final double[] c = new double[n];
+		final double[] b = new double[m];
+		final double[] shift = new double[n0];
+		final double[] scale = new double[n0];
+		final int[] col = new int[n0];
+		final int[] negCol = new int[n0];
+		double objOffset = sense*objConst;
+		int nextCol = 0;
+		int nextRow = m0;
+		for(int j=0;j<n0;++j) {
+			final Column cj = columns.get(j);
+			final double cost = sense*cj.cost;
+			col[j] = -1;
+			negCol[j] = -1;
+			scale[j] = 1.0;
+			final boolean loFinite = !Double.isInfinite(cj.lo);
+			final boolean upFinite = !Double.isInfinite(cj.up);
+			if(loFinite&&upFinite&&(cj.lo==cj.up)) {
+				shift[j] = cj.lo;
+			} else if(loFinite) {
+				shift[j] = cj.lo;
+				col[j] = nextCol;
+				c[nextCol] = cost;
+				if(upFinite) {
+					// y + s = up - lo
+					final int r = nextRow++;
+					b[r] = cj.up-cj.lo;
+					cols[nextCol++] = structural(m,cj,1.0,r);
+					cols[nextCol++] = unit(m,r,1.0);
+				} else {
+					cols[nextCol++] = structural(m,cj,1.0,-1);
+				}
+			} else if(upFinite) {
+				shift[j] = cj.up;
+				scale[j] = -1.0;
+				col[j] = nextCol;
+				c[nextCol] = -cost;
+				cols[nextCol++] = structural(m,cj,-1.0,-1);
+			} else {
+				shift[j] = 0.0;
+				col[j] = nextCol;
+				c[nextCol] = cost;
+				cols[nextCol++] = structural(m,cj,1.0,-1);
+				negCol[j] = nextCol;
+				c[nextCol] = -cost;
+				cols[nextCol++] = structural(m,cj,-1.0,-1);
+			}
+			objOffset += cost*shift[j];
+			if(shift[j]!=0.0) {
+				final int k = cj.rowIndices.length;
+				for(int ii=0;ii<k;++ii) {
+					b[cj.rowIndices[ii]] -= cj.values[ii]*shift[j];
+				}
+			}
+		}
+		// rows: shifted rhs is in b already as -A.shift
+		for(int i=0;i<m0;++i) {
+			final Row r = rows.get(i);
+			final double lower = r.lower();
+			final double upper = r.upper();
+			if(lower==upper) {
+				b[i] += lower;
+			} else if(Double.isInfinite(lower)) {
+				// a.x + s = upper
+				b[i] += upper;
+				cols[nextCol++] = unit(m,i,1.0);
+			} else if(Double.isInfinite(upper)) {
+				// a.x - s = lower
+				b[i] += lower;
+				cols[nextCol++] = unit(m,i,-1.0);
+			} else {
+				// a.x - s = lower, s + t = upper - lower
+				b[i] += lower;
+				final int ri = nextRow++;
+				b[ri] = upper-lower;
+				cols[nextCol++] = new SparseVec(m,new int[] {i,ri},new double[] {-1.0,1.0});
+				cols[nextCol++] = unit(m,ri,1.0);
+			}
+		}
+		final PreVecI cv = new DenseVec(c);
+		final LPEQProb prob = new LPEQProb(new ColumnMatrix(m,cols),b,cv);
+		return new EQForm(prob,maximize,objOffset,shift,scale,col,negCol);
+	}
+}
@@ -0,0 +1,390 @@
+package com.winvector.lp.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+
+import com.winvector.linalg.DenseVec;
+import com.winvector.linalg.PreVecI;
+import com.winvector.linalg.sparse.SparseVec;
+import com.winvector.lp.LPEQProb;
+import com.winvector.lp.LPException.LPMalformedException;
+
+/**
+ * Versioned binary snapshot of an LPEQProb (plus optional row/column names and warm start basis),
+ * written with one gathering channel write and loaded by memory-mapping the file.  Loading only
+ * reads the header and copies b and c; columns of A are decoded from the mapping the first time
+ * they are used, so start up time does not grow with the size of the model.
+ * <pre>
+ * header (little endian, HEADER_BYTES long):
+ *   magic "WVLPSNAP", int version, int m, int n, int basis length (-1: none), long nnz,
+ *   long positions of: column offsets, column data, b, c, row names, column names, basis (0: absent), end
+ * column offsets: n+1 longs, start of each column relative to column data
+ * column data, per column: varint count, count raw doubles, count varint row gaps (row - previous row - 1)
+ * b: m doubles, c: n doubles
+ * names: per name varint byte length then UTF-8 bytes
+ * basis: varint column indices
+ * </pre>
+ * @author johnmount
+ *
+ */
+public final class LPSnapshot {
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 96;
+	private static final byte[] MAGIC = { 'W', 'V', 'L', 'P', 'S', 'N', 'A', 'P' };
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final int WRITE_CHUNK = 1<<24;
+	static final long MAP_CHUNK = 1L<<30;
+
+	public final LPEQProb prob;
+	public final int[] basis;  // null if none was saved
+	private final ByteBuffer rowNameBytes;
+	private final ByteBuffer colNameBytes;
+
+	private LPSnapshot(final LPEQProb prob, final int[] basis, final ByteBuffer rowNameBytes, final ByteBuffer colNameBytes) {
+		this.prob = prob;
+		this.basis = basis;
+		this.rowNameBytes = rowNameBytes;
+		this.colNameBytes = colNameBytes;
+	}
+
+	/**
+	 * @return saved row names (decoded on each call), null if none were saved
+	 */
+	public String[] rowNames() {
+		return decodeNames(rowNameBytes,prob.rows());
+	}
+
+	/**
+	 * @return saved column names (decoded on each call), null if none were saved
+	 */
+	public String[] colNames() {
+		return decodeNames(colNameBytes,prob.cols());
+	}
+
+	static int varintBytes(int v) {
+		int k = 1;
+		while((v&~0x7f)!=0) {
+			++k;
+			v >>>= 7;
+		}
+		return k;
+	}
+
+	static void putVarint(final ByteBuffer b, int v) {
+		while((v&~0x7f)!=0) {
+			b.put((byte)((v&0x7f)|0x80));
+			v >>>= 7;
+		}
+		b.put((byte)v);
+	}
+
+	/**
+	 * @param b read from b.position(), which is advanced
+	 */
+	static int getVarint(final ByteBuffer b) throws IOException {
+		int v = 0;
+		for(int shift=0;shift<35;shift+=7) {
+			final byte bt = b.get();
+			v |= (bt&0x7f)<<shift;
+			if(bt>=0) {
+				return v;
+			}
+		}
+		throw new IOException("bad varint");
+	}
+
+	private static ByteBuffer allocate(final long n) throws IOException {
+		if(n>Integer.MAX_VALUE) {
+			throw new IOException("snapshot section too large");
+		}
+		return ByteBuffer.allocate((int)n).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static ByteBuffer encodeNames(final String[] names, final int expect) throws IOException {
+		if(names.length!=expect) {
+			throw new IllegalArgumentException("expected " + expect + " names, got " + names.length);
+		}
+		final byte[][] bytes = new byte[names.length][];
+		long size = 0;
+		for(int i=0;i<names.length;++i) {
+			bytes[i] = names[i].getBytes(UTF8);
+			size += varintBytes(bytes[i].length) + bytes[i].length;
+		}
+		final ByteBuffer r = allocate(size);
+		for(final byte[] bi: bytes) {
+			putVarint(r,bi.length);
+			r.put(bi);
+		}
+		return r;
+	}
+
+	private static ByteBuffer encodeDoubles(final PreVecI v) throws IOException {
+		final int n = v.dim();
+		final ByteBuffer r = allocate(8L*n);
+		for(int i=0;i<n;++i) {
+			r.putDouble(v.get(i));
+		}
+		return r;
+	}
+
+	/**
+	 * @param prob
+	 * @param rowNames optional (null or prob.rows() names)
+	 * @param colNames optional (null or prob.cols() names)
+	 * @param basis optional warm start columns
+	 * @param f
+	 * @throws IOException
+	 */
+	public static void write(final LPEQProb prob, final String[] rowNames, final String[] colNames, final int[] basis,
+			final File f) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(f,"rw");
+		try {
+			final FileChannel ch = raf.getChannel();
+			ch.truncate(0);
+			write(prob,rowNames,colNames,basis,ch);
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * encode everything into buffers, then hand them to out in one gathering write
+	 * @param prob
+	 * @param rowNames optional (null or prob.rows() names)
+	 * @param colNames optional (null or prob.cols() names)
+	 * @param basis optional warm start columns
+	 * @param out (not closed)
+	 * @throws IOException
+	 */
+	public static void write(final LPEQProb prob, final String[] rowNames, final String[] colNames, final int[] basis,
+			final GatheringByteChannel out) throws IOException {
+		final int m = prob.rows();
+		final int n = prob.cols();
+		final ArrayList<ByteBuffer> colData = new ArrayList<ByteBuffer>();
+		final ByteBuffer offsets = allocate(8L*(n+1));
+		long nnz = 0;
+		long pos = 0;
+		ByteBuffer cur = null;
+		for(int j=0;j<n;++j) {
+			final SparseVec col = prob.extractColumn(j);
+			final int k = col.nIndices();
+			final long need = 5L + 13L*k;
+			if((null==cur)||(cur.remaining()<need)) {
+				cur = allocate(Math.max(need,WRITE_CHUNK));
+				colData.add(cur);
+			}
+			offsets.putLong(pos);
+			final int start = cur.position();
+			putVarint(cur,k);
+			for(int ii=0;ii<k;++ii) {
+				cur.putDouble(col.value(ii));
+			}
+			int prev = -1;
+			for(int ii=0;ii<k;++ii) {
+				final int i = col.index(ii);
+				putVarint(cur,i-prev-1);
+				prev = i;
+			}
+			pos += cur.position() - start;
+			nnz += k;
+		}
+		offsets.putLong(pos);
+		final ByteBuffer bb = encodeDoubles(new DenseVec(prob.b));
+		final ByteBuffer cb = encodeDoubles(prob.c);
+		final ByteBuffer rb = (null==rowNames)?null:encodeNames(rowNames,m);
+		final ByteBuffer cnb = (null==colNames)?null:encodeNames(colNames,n);
+		ByteBuffer basisb = null;
+		if(null!=basis) {
+			long size = 0;
+			for(final int bj: basis) {
+				if((bj<0)||(bj>=n)) {
+					throw new IllegalArgumentException("basis column out of range");
+				}
+				size += varintBytes(bj);
+			}
+			basisb = allocate(size);
+			for(final int bj: basis) {
+				putVarint(basisb,bj);
+			}
+		}
+		// lay out sections
+		final ByteBuffer header = allocate(HEADER_BYTES);
+		final ArrayList<ByteBuffer> all = new ArrayList<ByteBuffer>();
+		all.add(header);
+		long at = HEADER_BYTES;
+		final long offsetsPos = at;
+		all.add(offsets);
+		at += offsets.position();
+		final long colDataPos = at;
+		all.addAll(colData);
+		at += pos;
+		final long bPos = at;
+		all.add(bb);
+		at += bb.position();
+		final long cPos = at;
+		all.add(cb);
+		at += cb.position();
+		final ByteBuffer[] optional = { rb, cnb, basisb };
+		final long[] optionalPos = new long[optional.length];
+		for(int s=0;s<optional.length;++s) {
+			if(null!=optional[s]) {
+				optionalPos[s] = at;
+				all.add(optional[s]);
+				at += optional[s].position();
+			}
+		}
+		header.put(MAGIC);
+		header.putInt(VERSION);
+		header.putInt(m);
+		header.putInt(n);
+		header.putInt((null==basis)?-1:basis.length);
+		header.putLong(nnz);
+		header.putLong(offsetsPos);
+		header.putLong(colDataPos);
+		header.putLong(bPos);
+		header.putLong(cPos);
+		for(final long p: optionalPos) {
+			header.putLong(p);
+		}
+		header.putLong(at);
+		header.position(HEADER_BYTES);
+		final ByteBuffer[] bufs = all.toArray(new ByteBuffer[all.size()]);
+		long remaining = 0;
+		for(final ByteBuffer b: bufs) {
+			b.flip();
+			remaining += b.remaining();
+		}
+		while(remaining>0) {
+			remaining -= out.write(bufs);
+		}
+	}
+
+	private static ByteBuffer map(final FileChannel ch, final long pos, final long size) throws IOException {
+		if(size>Integer.MAX_VALUE) {
+			throw new IOException("snapshot section too large to map");
+		}
+		return ch.map(FileChannel.MapMode.READ_ONLY,pos,size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	private static double[] readDoubles(final FileChannel ch, final long pos, final int n) throws IOException {
+		final double[] r = new double[n];
+		if(n>0) {
+			final DoubleBuffer d = map(ch,pos,8L*n).asDoubleBuffer();
+			d.get(r);
+		}
+		return r;
+	}
+
+	/**
+	 * @param f snapshot written by write()
+	 * @return problem backed by a read-only mapping of f
+	 * @throws IOException if f is not a snapshot this version can read
+	 */
+	public static LPSnapshot read(final File f) throws IOException {
+		return read(f,MAP_CHUNK);
+	}
+
+	/**
+	 * @param mapChunk largest single mapping of column data (columns do not straddle mappings)
+	 */
+	static LPSnapshot read(final File f, final long mapChunk) throws IOException {
+		final RandomAccessFile raf = new RandomAccessFile(f,"r");
+		try {
+			final FileChannel ch = raf.getChannel();
+			final long fileSize = ch.size();
+			if(fileSize<HEADER_BYTES) {
+				throw new IOException("not a snapshot (too short)");
+			}
+			final ByteBuffer header = map(ch,0,HEADER_BYTES);
+			for(final byte mb: MAGIC) {
+				if(header.get()!=mb) {
+					throw new IOException("not a snapshot (bad magic)");
+				}
+			}
+			final int version = header.getInt();
+			if(version!=VERSION) {
+				throw new IOException("unsupported snapshot version " + version);
+			}
+			final int m = header.getInt();
+			final int n = header.getInt();
+			final int nBasis = header.getInt();
+			final long nnz = header.getLong();
+			final long offsetsPos = header.getLong();
+			final long colDataPos = header.getLong();
+			final long bPos = header.getLong();
+			final long cPos = header.getLong();
+			final long rowNamesPos = header.getLong();
+			final long colNamesPos = header.getLong();
+			final long basisPos = header.getLong();
+			final long end = header.getLong();
+			if((m<0)||(n<0)||(nnz<0)||(end!=fileSize)) {
+				throw new IOException("corrupt snapshot header");
+			}
+			final ByteBuffer offsets = map(ch,offsetsPos,8L*(n+1));
+			final SnapshotMatrix A = SnapshotMatrix.map(ch,colDataPos,m,n,offsets,mapChunk);
+			final double[] b = readDoubles(ch,bPos,m);
+			final double[] c = readDoubles(ch,cPos,n);
+			// sections are in file order, so each optional section ends where the next present one starts
+			final long[] optionalPos = { rowNamesPos, colNamesPos, basisPos };
+			final ByteBuffer[] optional = new ByteBuffer[optionalPos.length];
+			for(int s=0;s<optionalPos.length;++s) {
+				if(optionalPos[s]>0) {
+					long sEnd = end;
+					for(int t=s+1;t<optionalPos.length;++t) {
+						if(optionalPos[t]>0) {
+							sEnd = optionalPos[t];
+							break;
+						}
+					}
+					optional[s] = map(ch,optionalPos[s],sEnd-optionalPos[s]);
+				}
+			}
+			int[] basis = null;
+			if(null!=optional[2]) {
+				basis = new int[nBasis];
+				for(int i=0;i<nBasis;++i) {
+					basis[i] = getVarint(optional[2]);
+				}
+			}
+			final LPEQProb prob;
+			try {
+				prob = new LPEQProb(A,b,new DenseVec(c));
+			} catch (LPMalformedException ex) {
+				throw new IOException("corrupt snapshot: " + ex);
+			}
+			return new LPSnapshot(prob,basis,optional[0],optional[1]);
+		} finally {
+			raf.close(); // mappings stay valid
+		}
+	}
+
+	private static String[] decodeNames(final ByteBuffer bytes, final int n) {
+		if(null==bytes) {
+			return null;
+		}
+		final ByteBuffer b = bytes.duplicate();
+		final String[] r = new String[n];
+		byte[] tmp = new byte[64];
+		try {
+			for(int i=0;i<n;++i) {
+				final int len = getVarint(b);
+				if(len>tmp.length) {
+					tmp = new byte[Math.max(len,2*tmp.length)];
+				}
+				b.get(tmp,0,len);
+				r[i] = new String(tmp,0,len,UTF8);
+			}
+		} catch (IOException ex) {
+			throw new IllegalStateException(ex);
+		}
+		return r;
+	}
+}
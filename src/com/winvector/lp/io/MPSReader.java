@@ -0,0 +1,392 @@
+package com.winvector.lp.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Streaming reader for (fixed or free format) MPS files, as used by the Netlib LP test set.
+ * Works on raw bytes from a channel: names are interned in a primitive hash without building
+ * Strings and each column is built in one pass (MPS lists columns contiguously).  Gzip input
+ * is detected from its magic bytes.  Names may not contain spaces.  Integer markers are
+ * skipped (the LP relaxation is read).
+ * @author johnmount
+ *
+ */
+public final class MPSReader {
+	private static final int MAXTOKS = 8;
+
+	private enum Section {
+		NONE, OBJSENSE, ROWS, COLUMNS, RHS, RANGES, BOUNDS, END
+	}
+
+	private final ByteLines lines;
+	private byte[] buf; // current line buffer (lines.buf)
+	// tokens of the current line
+	private int nToks = 0;
+	private final int[] tokOff = new int[MAXTOKS];
+	private final int[] tokLen = new int[MAXTOKS];
+
+	private final LPModel model = new LPModel();
+	private final NameIndex freeRows = new NameIndex(); // N rows after the first are dropped
+	private byte[] objName = null;
+	// column being built
+	private LPModel.Column curCol = null;
+	private int curN = 0;
+	private int[] curRows = new int[64];
+	private double[] curVals = new double[64];
+
+	private MPSReader(final ByteLines lines) {
+		this.lines = lines;
+	}
+
+	/**
+	 * @param f MPS file (optionally gzipped)
+	 * @return model
+	 * @throws IOException on read or format errors
+	 */
+	public static LPModel read(final File f) throws IOException {
+		final ByteLines lines = ByteLines.open(f);
+		try {
+			return new MPSReader(lines).parse();
+		} finally {
+			lines.close();
+		}
+	}
+
+	/**
+	 * @param is MPS data (optionally gzipped), not closed
+	 * @return model
+	 * @throws IOException on read or format errors
+	 */
+	public static LPModel read(final InputStream is) throws IOException {
+		return new MPSReader(ByteLines.open(is)).parse();
+	}
+
+	private IOException error(final String msg) {
+		return lines.error("MPS",msg);
+	}
+
+	private String tok(final int k) {
+		return lines.string(tokOff[k],tokLen[k]);
+	}
+
+	private void tokenize() {
+		nToks = 0;
+		final int lineEnd = lines.lineEnd;
+		int k = lines.lineStart;
+		while(k<lineEnd) {
+			while((k<lineEnd)&&(buf[k]<=' ')) {
+				++k;
+			}
+			if(k>=lineEnd) {
+				break;
+			}
+			final int start = k;
+			while((k<lineEnd)&&(buf[k]>' ')) {
+				++k;
+			}
+			if(nToks<MAXTOKS) {
+				tokOff[nToks] = start;
+				tokLen[nToks] = k-start;
+			}
+			++nToks;
+		}
+	}
+
+	private boolean tokIs(final int k, final String s) {
+		final int len = tokLen[k];
+		if(len!=s.length()) {
+			return false;
+		}
+		final int off = tokOff[k];
+		for(int i=0;i<len;++i) {
+			if(Character.toUpperCase((char)buf[off+i])!=s.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean tokIsObjective(final int k) {
+		if((null==objName)||(tokLen[k]!=objName.length)) {
+			return false;
+		}
+		final int off = tokOff[k];
+		for(int i=0;i<objName.length;++i) {
+			if(buf[off+i]!=objName[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private double number(final int k) throws IOException {
+		try {
+			return ByteLines.parseNumber(buf,tokOff[k],tokLen[k]);
+		} catch (NumberFormatException ex) {
+			throw error("bad number '" + tok(k) + "'");
+		}
+	}
+
+	private int constraintRow(final int k) throws IOException {
+		final int i = model.rowNames.find(buf,tokOff[k],tokLen[k]);
+		if(i<0) {
+			throw error("unknown row '" + tok(k) + "'");
+		}
+		return i;
+	}
+
+	private void addEntry(final int row, final double v) {
+		if(curN>=curRows.length) {
+			curRows = Arrays.copyOf(curRows,2*curRows.length);
+			curVals = Arrays.copyOf(curVals,2*curVals.length);
+		}
+		curRows[curN] = row;
+		curVals[curN] = v;
+		++curN;
+	}
+
+	/**
+	 * move buffered entries of the current column into it (sorted by row)
+	 */
+	private void finishColumn() throws IOException {
+		if(null==curCol) {
+			return;
+		}
+		final int n = curN;
+		final int[] rowIndices = Arrays.copyOf(curRows,n);
+		final double[] values = Arrays.copyOf(curVals,n);
+		boolean sorted = true;
+		for(int k=1;k<n;++k) {
+			if(rowIndices[k]<=rowIndices[k-1]) {
+				sorted = false;
+				break;
+			}
+		}
+		if(!sorted) {
+			// sort positions by row without boxing: key = row<<32 | position
+			final long[] keys = new long[n];
+			for(int k=0;k<n;++k) {
+				keys[k] = (((long)rowIndices[k])<<32)|k;
+			}
+			Arrays.sort(keys);
+			for(int k=0;k<n;++k) {
+				final int at = (int)(keys[k]&0xffffffffL);
+				rowIndices[k] = curRows[at];
+				values[k] = curVals[at];
+				if((k>0)&&(rowIndices[k]==rowIndices[k-1])) {
+					throw error("column " + curCol.name + " lists row " + model.rows.get(rowIndices[k]).name + " twice");
+				}
+			}
+		}
+		curCol.rowIndices = rowIndices;
+		curCol.values = values;
+		curCol = null;
+		curN = 0;
+	}
+
+	private LPModel parse() throws IOException {
+		Section section = Section.NONE;
+		while((section!=Section.END)&&lines.nextLine()) {
+			buf = lines.buf;
+			if((lines.lineEnd<=lines.lineStart)||(buf[lines.lineStart]=='*')) {
+				continue;
+			}
+			tokenize();
+			if(nToks<=0) {
+				continue;
+			}
+			if(nToks>MAXTOKS) {
+				throw error("too many fields");
+			}
+			if(buf[lines.lineStart]>' ') {
+				// section header
+				final Section next;
+				if(tokIs(0,"NAME")) {
+					model.name = (nToks>1)?tok(1):"";
+					next = Section.NONE;
+				} else if(tokIs(0,"OBJSENSE")) {
+					next = Section.OBJSENSE;
+					if(nToks>1) {
+						model.maximize = tok(1).toUpperCase().startsWith("MAX");
+					}
+				} else if(tokIs(0,"ROWS")) {
+					next = Section.ROWS;
+				} else if(tokIs(0,"COLUMNS")) {
+					next = Section.COLUMNS;
+				} else if(tokIs(0,"RHS")) {
+					next = Section.RHS;
+				} else if(tokIs(0,"RANGES")) {
+					next = Section.RANGES;
+				} else if(tokIs(0,"BOUNDS")) {
+					next = Section.BOUNDS;
+				} else if(tokIs(0,"ENDATA")) {
+					next = Section.END;
+				} else {
+					throw error("unknown section '" + tok(0) + "'");
+				}
+				if(section==Section.COLUMNS) {
+					finishColumn();
+				}
+				section = next;
+				continue;
+			}
+			switch(section) {
+			case OBJSENSE:
+				model.maximize = tok(0).toUpperCase().startsWith("MAX");
+				break;
+			case ROWS:
+				readRow();
+				break;
+			case COLUMNS:
+				readColumnLine();
+				break;
+			case RHS:
+			case RANGES:
+				readRhsOrRange(section==Section.RHS);
+				break;
+			case BOUNDS:
+				readBound();
+				break;
+			default:
+				throw error("data outside of a section");
+			}
+		}
+		if(section==Section.COLUMNS) {
+			finishColumn();
+		}
+		return model;
+	}
+
+	private void readRow() throws IOException {
+		if(nToks<2) {
+			throw error("short ROWS line");
+		}
+		final char type = (tokLen[0]==1)?Character.toUpperCase((char)buf[tokOff[0]]):'?';
+		if(type=='N') {
+			if(null==objName) {
+				objName = Arrays.copyOfRange(buf,tokOff[1],tokOff[1]+tokLen[1]);
+				model.objectiveName = tok(1);
+			} else {
+				freeRows.intern(buf,tokOff[1],tokLen[1]);
+			}
+		} else if((type==LPModel.EQ)||(type==LPModel.LE)||(type==LPModel.GE)) {
+			final int id = model.rowNames.intern(buf,tokOff[1],tokLen[1]);
+			if(id!=model.rows.size()) {
+				throw error("duplicate row '" + tok(1) + "'");
+			}
+			model.rows.add(new LPModel.Row(tok(1),type));
+		} else {
+			throw error("unknown row type '" + tok(0) + "'");
+		}
+	}
+
+	private boolean sameAsCurrentColumn(final int k) {
+		if(null==curCol) {
+			return false;
+		}
+		return model.colNames.find(buf,tokOff[k],tokLen[k])==model.columns.size()-1;
+	}
+
+	private void readColumnLine() throws IOException {
+		if((nToks>=3)&&tokIs(1,"'MARKER'")) {
+			return;
+		}
+		if((nToks!=3)&&(nToks!=5)) {
+			throw error("expected column row value [row value]");
+		}
+		if(!sameAsCurrentColumn(0)) {
+			finishColumn();
+			final int id = model.colNames.intern(buf,tokOff[0],tokLen[0]);
+			if(id!=model.columns.size()) {
+				throw error("column '" + tok(0) + "' is not contiguous");
+			}
+			curCol = new LPModel.Column(tok(0));
+			model.columns.add(curCol);
+		}
+		for(int k=1;k+1<nToks;k+=2) {
+			final double v = number(k+1);
+			if(tokIsObjective(k)) {
+				curCol.cost = v;
+			} else {
+				final int i = model.rowNames.find(buf,tokOff[k],tokLen[k]);
+				if(i>=0) {
+					addEntry(i,v);
+				} else if(freeRows.find(buf,tokOff[k],tokLen[k])<0) {
+					throw error("unknown row '" + tok(k) + "'");
+				}
+			}
+		}
+	}
+
+	private void readRhsOrRange(final boolean isRhs) throws IOException {
+		// optional set name: odd token count means it is present
+		final int start = (nToks%2==1)?1:0;
+		for(int k=start;k+1<nToks;k+=2) {
+			final double v = number(k+1);
+			if(tokIsObjective(k)) {
+				if(isRhs) {
+					model.objConst = -v;
+				}
+			} else if(freeRows.find(buf,tokOff[k],tokLen[k])<0) {
+				final LPModel.Row row = model.rows.get(constraintRow(k));
+				if(isRhs) {
+					row.rhs = v;
+				} else {
+					row.range = v;
+				}
+			}
+		}
+	}
+
+	private void readBound() throws IOException {
+		final boolean needsValue = !(tokIs(0,"FR")||tokIs(0,"MI")||tokIs(0,"PL")||tokIs(0,"BV"));
+		final int colPos;
+		if(needsValue) {
+			colPos = (nToks>=4)?2:1;
+		} else {
+			colPos = ((nToks>=3)&&(model.colNames.find(buf,tokOff[2],tokLen[2])>=0))?2:1;
+		}
+		if(colPos>=nToks) {
+			throw error("short BOUNDS line");
+		}
+		final int j = model.colNames.find(buf,tokOff[colPos],tokLen[colPos]);
+		if(j<0) {
+			throw error("unknown column '" + tok(colPos) + "'");
+		}
+		final LPModel.Column c = model.columns.get(j);
+		double v = 0.0;
+		if(needsValue) {
+			if(colPos+1>=nToks) {
+				throw error("missing bound value");
+			}
+			v = number(colPos+1);
+		}
+		if(tokIs(0,"UP")||tokIs(0,"UI")) {
+			c.up = v;
+			if((v<0)&&(c.lo==0.0)) {
+				// MPS convention: negative upper bound with default lower bound means lower is -infinity
+				c.lo = Double.NEGATIVE_INFINITY;
+			}
+		} else if(tokIs(0,"LO")||tokIs(0,"LI")) {
+			c.lo = v;
+		} else if(tokIs(0,"FX")) {
+			c.lo = v;
+			c.up = v;
+		} else if(tokIs(0,"FR")) {
+			c.lo = Double.NEGATIVE_INFINITY;
+			c.up = Double.POSITIVE_INFINITY;
+		} else if(tokIs(0,"MI")) {
+			c.lo = Double.NEGATIVE_INFINITY;
+		} else if(tokIs(0,"PL")) {
+			c.up = Double.POSITIVE_INFINITY;
+		} else if(tokIs(0,"BV")) {
+			c.lo = 0.0;
+			c.up = 1.0;
+		} else {
+			throw error("unknown bound type '" + tok(0) + "'");
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package com.winvector.lp.io;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * open addressing hash from (ASCII) names to dense ids 0,1,2,...  Names are kept as bytes in one
+ * pool, so lookups from a parse buffer allocate nothing.
+ * @author johnmount
+ *
+ */
+final class NameIndex {
+	static final Charset ASCII = Charset.forName("ISO-8859-1");
+
+	private byte[] pool = new byte[1024];
+	private int poolSize = 0;
+	private int[] offsets = new int[16];
+	private int[] lengths = new int[16];
+	private int[] hashes = new int[16];
+	private int[] table = newTable(32); // id or -1
+	private int size = 0;
+
+	private static int[] newTable(final int n) {
+		final int[] t = new int[n];
+		Arrays.fill(t,-1);
+		return t;
+	}
+
+	private static int hash(final byte[] b, final int off, final int len) {
+		int h = 0x811c9dc5;
+		for(int k=0;k<len;++k) {
+			h = (h^b[off+k])*0x01000193;
+		}
+		return h^(h>>>16);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private boolean matches(final int id, final int h, final byte[] b, final int off, final int len) {
+		if((hashes[id]!=h)||(lengths[id]!=len)) {
+			return false;
+		}
+		final int o = offsets[id];
+		for(int k=0;k<len;++k) {
+			if(pool[o+k]!=b[off+k]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return id of name or -1
+	 */
+	public int find(final byte[] b, final int off, final int len) {
+		final int h = hash(b,off,len);
+		final int mask = table.length-1;
+		int slot = h&mask;
+		while(true) {
+			final int id = table[slot];
+			if(id<0) {
+				return -1;
+			}
+			if(matches(id,h,b,off,len)) {
+				return id;
+			}
+			slot = (slot+1)&mask;
+		}
+	}
+
+	public int find(final String name) {
+		final byte[] b = ascii(name);
+		return find(b,0,b.length);
+	}
+
+	/**
+	 * @return id of name (assigned if new)
+	 */
+	public int intern(final byte[] b, final int off, final int len) {
+		final int h = hash(b,off,len);
+		int mask = table.length-1;
+		int slot = h&mask;
+		while(true) {
+			final int id = table[slot];
+			if(id<0) {
+				break;
+			}
+			if(matches(id,h,b,off,len)) {
+				return id;
+			}
+			slot = (slot+1)&mask;
+		}
+		final int id = size;
+		if(id>=offsets.length) {
+			final int n = 2*offsets.length;
+			offsets = Arrays.copyOf(offsets,n);
+			lengths = Arrays.copyOf(lengths,n);
+			hashes = Arrays.copyOf(hashes,n);
+		}
+		if(poolSize+len>pool.length) {
+			pool = Arrays.copyOf(pool,Math.max(2*pool.length,poolSize+len));
+		}
+		System.arraycopy(b,off,pool,poolSize,len);
+		offsets[id] = poolSize;
+		lengths[id] = len;
+		hashes[id] = h;
+		poolSize += len;
+		++size;
+		if(2*size>table.length) {
+			// rehash at half full
+			table = newTable(2*table.length);
+			mask = table.length-1;
+			for(int k=0;k<size;++k) {
+				int s = hashes[k]&mask;
+				while(table[s]>=0) {
+					s = (s+1)&mask;
+				}
+				table[s] = k;
+			}
+		} else {
+			table[slot] = id;
+		}
+		return id;
+	}
+
+	public int intern(final String name) {
+		final byte[] b = ascii(name);
+		return intern(b,0,b.length);
+	}
+
+	public String name(final int id) {
+		return new String(pool,offsets[id],lengths[id],ASCII);
+	}
+
+	static byte[] ascii(final String s) {
+		return s.getBytes(ASCII);
+	}
+}
@@ -0,0 +1,274 @@
+package com.winvector.lp.io;
+
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import com.winvector.linalg.PreMatrixI;
+import com.winvector.linalg.sparse.ColumnMatrix;
+import com.winvector.linalg.sparse.HVec;
+import com.winvector.linalg.sparse.SparseVec;
+
+/**
+ * column matrix backed by the memory-mapped column data of an LPSnapshot.  A column is decoded
+ * the first time it is asked for and kept; operations that need the whole structure
+ * (transpose, colBasis, ...) go through toColumnMatrix().  Serializes as a plain ColumnMatrix.
+ * @author johnmount
+ *
+ */
+final class SnapshotMatrix implements PreMatrixI {
+	private static final long serialVersionUID = 1L;
+
+	private final int rows;
+	private final int cols;
+	private final transient ByteBuffer offsets;  // cols+1 longs, relative to the column data
+	private final transient int[] chunkStart;    // first column held by each mapping
+	private final transient long[] chunkBase;    // column data offset of each mapping's first byte
+	private final transient ByteBuffer[] chunks;
+	private final transient SparseVec[] decoded;
+
+	private SnapshotMatrix(final int rows, final int cols, final ByteBuffer offsets,
+			final int[] chunkStart, final long[] chunkBase, final ByteBuffer[] chunks) {
+		this.rows = rows;
+		this.cols = cols;
+		this.offsets = offsets;
+		this.chunkStart = chunkStart;
+		this.chunkBase = chunkBase;
+		this.chunks = chunks;
+		decoded = new SparseVec[cols];
+	}
+
+	private static long offset(final ByteBuffer offsets, final int j) {
+		return offsets.getLong(8*j);
+	}
+
+	/**
+	 * map the column data as a few large read-only mappings, each holding whole columns
+	 * @param ch
+	 * @param colDataPos file position of the column data
+	 * @param rows
+	 * @param cols
+	 * @param offsets mapped column offsets (cols+1 longs)
+	 * @param mapChunk largest mapping to ask for (a single larger column still gets its own)
+	 * @return matrix over the mappings
+	 * @throws IOException
+	 */
+	static SnapshotMatrix map(final FileChannel ch, final long colDataPos, final int rows, final int cols,
+			final ByteBuffer offsets, final long mapChunk) throws IOException {
+		final ArrayList<Integer> starts = new ArrayList<Integer>();
+		final ArrayList<ByteBuffer> maps = new ArrayList<ByteBuffer>();
+		int start = 0;
+		while(start<cols) {
+			final long base = offset(offsets,start);
+			// last column end within mapChunk of base (binary search, offsets are increasing)
+			int lo = start+1;
+			int hi = cols;
+			while(lo<hi) {
+				final int mid = (lo+hi+1)>>>1;
+				if(offset(offsets,mid)-base<=mapChunk) {
+					lo = mid;
+				} else {
+					hi = mid-1;
+				}
+			}
+			final long size = offset(offsets,lo)-base;
+			if((size<0)||(size>Integer.MAX_VALUE)||(colDataPos+base+size>ch.size())) {
+				throw new IOException("corrupt snapshot column offsets");
+			}
+			starts.add(start);
+			maps.add(ch.map(FileChannel.MapMode.READ_ONLY,colDataPos+base,size).order(ByteOrder.LITTLE_ENDIAN));
+			start = lo;
+		}
+		final int nChunks = starts.size();
+		final int[] chunkStart = new int[nChunks];
+		final long[] chunkBase = new long[nChunks];
+		for(int c=0;c<nChunks;++c) {
+			chunkStart[c] = starts.get(c);
+			chunkBase[c] = offset(offsets,chunkStart[c]);
+		}
+		return new SnapshotMatrix(rows,cols,offsets,chunkStart,chunkBase,maps.toArray(new ByteBuffer[nChunks]));
+	}
+
+	private SparseVec decode(final int j) {
+		int c = Arrays.binarySearch(chunkStart,j);
+		if(c<0) {
+			c = -c-2;
+		}
+		final ByteBuffer b = chunks[c].duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		b.position((int)(offset(offsets,j)-chunkBase[c]));
+		try {
+			final int k = LPSnapshot.getVarint(b);
+			final double[] values = new double[k];
+			b.asDoubleBuffer().get(values);
+			b.position(b.position()+8*k);
+			final int[] indices = new int[k];
+			int prev = -1;
+			for(int ii=0;ii<k;++ii) {
+				prev += LPSnapshot.getVarint(b) + 1;
+				indices[ii] = prev;
+			}
+			return new SparseVec(rows,indices,values);
+		} catch (IOException ex) {
+			throw new IllegalStateException("corrupt snapshot column " + j,ex);
+		}
+	}
+
+	@Override
+	public int rows() {
+		return rows;
+	}
+
+	@Override
+	public int cols() {
+		return cols;
+	}
+
+	@Override
+	public SparseVec extractColumn(final int j) {
+		// racing threads may both decode a column, either copy is fine
+		SparseVec c = decoded[j];
+		if(null==c) {
+			c = decode(j);
+			decoded[j] = c;
+		}
+		return c;
+	}
+
+	/**
+	 * @return the same matrix as a ColumnMatrix (decodes every column)
+	 */
+	public ColumnMatrix toColumnMatrix() {
+		final SparseVec[] columns = new SparseVec[cols];
+		for(int j=0;j<cols;++j) {
+			columns[j] = extractColumn(j);
+		}
+		return new ColumnMatrix(rows,columns);
+	}
+
+	private Object writeReplace() throws ObjectStreamException {
+		return toColumnMatrix();
+	}
+
+	@Override
+	public PreMatrixI extractColumns(final int[] basis) {
+		final SparseVec[] columns = new SparseVec[basis.length];
+		for(int jj=0;jj<basis.length;++jj) {
+			columns[jj] = extractColumn(basis[jj]);
+		}
+		return new ColumnMatrix(rows,columns);
+	}
+
+	@Override
+	public PreMatrixI extractRows(final int[] rb) {
+		return toColumnMatrix().extractRows(rb);
+	}
+
+	@Override
+	public PreMatrixI addColumns(final ArrayList<SparseVec> cs) {
+		return toColumnMatrix().addColumns(cs);
+	}
+
+	@Override
+	public double[] sumAbsRowValues() {
+		final double[] r = new double[rows];
+		for(int j=0;j<cols;++j) {
+			final SparseVec col = extractColumn(j);
+			final int nindices = col.nIndices();
+			for(int ii=0;ii<nindices;++ii) {
+				r[col.index(ii)] += Math.abs(col.value(ii));
+			}
+		}
+		return r;
+	}
+
+	@Override
+	public PreMatrixI rescaleRows(final double[] scale) {
+		return toColumnMatrix().rescaleRows(scale);
+	}
+
+	@Override
+	public int[] colBasis(final int[] forcedCols, final double minVal) {
+		return toColumnMatrix().colBasis(forcedCols,minVal);
+	}
+
+	@Override
+	public PreMatrixI transpose() {
+		return toColumnMatrix().transpose();
+	}
+
+	@Override
+	public double get(final int i, final int j) {
+		return extractColumn(j).get(i);
+	}
+
+	@Override
+	public double[] mult(final double[] x) {
+		final double[] r = new double[rows];
+		multInto(x,r);
+		return r;
+	}
+
+	@Override
+	public void multInto(final double[] x, final double[] r) {
+		if(cols!=x.length) {
+			throw new IllegalArgumentException();
+		}
+		Arrays.fill(r,0,rows,0.0);
+		for(int j=0;j<cols;++j) {
+			if(x[j]!=0) {
+				final SparseVec col = extractColumn(j);
+				final int nindices = col.nIndices();
+				for(int ii=0;ii<nindices;++ii) {
+					r[col.index(ii)] += x[j]*col.value(ii);
+				}
+			}
+		}
+	}
+
+	@Override
+	public double[] mult(final HVec x) {
+		final double[] r = new double[rows];
+		multInto(x,r);
+		return r;
+	}
+
+	@Override
+	public void multInto(final HVec x, final double[] r) {
+		Arrays.fill(r,0,rows,0.0);
+		final int nx = x.nIndices();
+		for(int jj=0;jj<nx;++jj) {
+			final double xj = x.value(jj);
+			final SparseVec col = extractColumn(x.index(jj));
+			final int nindices = col.nIndices();
+			for(int ii=0;ii<nindices;++ii) {
+				r[col.index(ii)] += xj*col.value(ii);
+			}
+		}
+	}
+
+	@Override
+	public double[] multLeft(final double[] y) {
+		final double[] r = new double[cols];
+		multLeftInto(y,r);
+		return r;
+	}
+
+	@Override
+	public void multLeftInto(final double[] y, final double[] r) {
+		if(rows!=y.length) {
+			throw new IllegalArgumentException();
+		}
+		for(int j=0;j<cols;++j) {
+			r[j] = extractColumn(j).dot(y);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return toColumnMatrix().toString();
+	}
+}
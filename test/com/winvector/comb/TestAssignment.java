@@ -1,7 +1,9 @@
 package com.winvector.comb;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
@@ -12,8 +14,13 @@ import org.junit.Test;
 import com.winvector.linalg.LinalgFactory;
 import com.winvector.linalg.colt.ColtMatrix;
 import com.winvector.linalg.colt.NativeMatrix;
+import com.winvector.linalg.dense.FlatMatrix;
 import com.winvector.linalg.jblas.JBlasMatrix;
+import com.winvector.linalg.sparse.HVec;
+import com.winvector.lp.LPEQProb;
+import com.winvector.lp.LPSoln;
 import com.winvector.lp.apachem3.M3Solver;
+import com.winvector.lp.impl.RevisedSimplexSolver;
 
 public class TestAssignment {
 	private static final ArrayList<LinalgFactory<?>> factories = new ArrayList<LinalgFactory<?>>();
@@ -21,6 +28,7 @@ public class TestAssignment {
 		factories.add(NativeMatrix.factory);
 		factories.add(ColtMatrix.factory);
 		factories.add(JBlasMatrix.factory);
+		factories.add(FlatMatrix.factory);
 	};
 	
 	@Test
@@ -72,4 +80,131 @@ public class TestAssignment {
 			}
 		}
 	}
+
+	@Test
+	public void testHungarian() {
+		final double[][] c = {
+				{ 1, 10, Double.NaN },
+				{ 1, Double.NaN, 4 },
+				{ 3, 100, 3 }
+		};
+		final int[] assignment = Assignment.computeAssignment(c);
+		assertTrue(Assignment.checkValid(c,assignment));
+		final int[] expect = {1, 0, 2};
+		for(int i=0;i<expect.length;++i) {
+			assertEquals(expect[i],assignment[i]);
+		}
+		assertEquals(0,Hungarian.computeAssignment(new double[0][0]).length);
+		// rows 0 and 1 can only use column 0
+		final double[][] noMatch = {
+				{ 1, Double.NaN, Double.POSITIVE_INFINITY },
+				{ 2, Double.NaN, Double.NaN },
+				{ 3, 4, 5 }
+		};
+		assertNull(Hungarian.computeAssignment(noMatch));
+		assertFalse(Assignment.checkValid(c,new int[] { 0, 0, 2 }));
+	}
+
+	@Test
+	public void testHungarianMatchesLP() {
+		final Random rand = new Random(97797L);
+		for(int rep=0;rep<20;++rep) {
+			final int n = 1 + rand.nextInt(25);
+			final double[][] c = new double[n][n];
+			for(int i=0;i<n;++i) {
+				for(int j=0;j<n;++j) {
+					c[i][j] = (rep%2==0)?rand.nextDouble():rand.nextInt(5)-2; // integer costs have many ties
+				}
+			}
+			for(int splotch=0;splotch<n-1;++splotch) {
+				c[rand.nextInt(n)][rand.nextInt(n)] = Double.NaN;
+			}
+			final int[] assignment = Hungarian.computeAssignment(c);
+			final int[] check = Assignment.computeAssignment(c,10000,NativeMatrix.factory);
+			assertTrue(Assignment.checkValid(c,assignment));
+			assertTrue(Assignment.checkValid(c,check));
+			assertEquals(Assignment.cost(c,check),Assignment.cost(c,assignment),1.0e-8);
+		}
+	}
+
+	@Test
+	public void testPrimalVisitor() throws Exception {
+		final double[][] c = {
+				{ 1, 10, Double.NaN },
+				{ 1, Double.NaN, 4 },
+				{ 3, 100, 3 }
+		};
+		final LPEQProb prob = Assignment.buildAssignmentProb(NativeMatrix.factory,c);
+		final LPSoln soln = new RevisedSimplexSolver().solve(prob,null,1.0e-6,1000,NativeMatrix.factory);
+		final double[] seen = new double[prob.nvars()];
+		final int[] count = new int[1];
+		soln.forEachPrimalNonZero(new HVec.NonZeroVisitor() {
+			@Override
+			public void visit(final int index, final double value) {
+				assertTrue(value!=0.0);
+				seen[index] = value;
+				++count[0];
+			}
+		});
+		assertEquals(soln.primalSolution.nIndices(),count[0]);
+		for(int k=0;k<seen.length;++k) {
+			assertEquals(soln.primalSolution.get(k),seen[k],0.0);
+		}
+	}
+
+	@Test
+	public void testEdgeList() {
+		final Random rand = new Random(43513L);
+		for(int rep=0;rep<12;++rep) {
+			final int n = (rep<8)?(2 + rand.nextInt(20)):(100 + rand.nextInt(200));
+			final double density = (rep<8)?0.3:0.02;
+			// a random permutation guarantees a complete matching, plus random extra edges
+			final ArrayList<int[]> edges = new ArrayList<int[]>();
+			final int[] perm = new int[n];
+			for(int i=0;i<n;++i) {
+				perm[i] = i;
+			}
+			for(int i=n-1;i>0;--i) {
+				final int k = rand.nextInt(i+1);
+				final int t = perm[i];
+				perm[i] = perm[k];
+				perm[k] = t;
+			}
+			final double[][] dense = new double[n][n];
+			for(int i=0;i<n;++i) {
+				for(int j=0;j<n;++j) {
+					dense[i][j] = Double.NaN;
+					if((perm[i]==j)||(rand.nextDouble()<density)) {
+						dense[i][j] = rand.nextInt(100) - 30;
+						edges.add(new int[] { i, j });
+					}
+				}
+			}
+			final int nEdges = edges.size();
+			final int[] from = new int[nEdges+1];
+			final int[] to = new int[nEdges+1];
+			final double[] cost = new double[nEdges+1];
+			for(int e=0;e<nEdges;++e) {
+				from[e] = edges.get(e)[0];
+				to[e] = edges.get(e)[1];
+				cost[e] = dense[from[e]][to[e]];
+			}
+			cost[nEdges] = Double.NaN; // explicit non-edge is skipped
+			final int[] expect = Hungarian.computeAssignment(dense);
+			final int[] sparse = Assignment.computeAssignment(n,from,to,cost);
+			assertTrue(Assignment.checkValid(dense,sparse));
+			assertEquals(Assignment.cost(dense,expect),Assignment.cost(dense,sparse),1.0e-8);
+			if(n<=30) {
+				final int[] lp = Assignment.computeAssignment(n,from,to,cost,NativeMatrix.factory,new RevisedSimplexSolver(),10000);
+				assertTrue(Assignment.checkValid(dense,lp));
+				assertEquals(Assignment.cost(dense,expect),Assignment.cost(dense,lp),1.0e-8);
+			}
+		}
+		// rows 0 and 1 only reach column 0
+		final int[] from = { 0, 1, 2, 2 };
+		final int[] to = { 0, 0, 1, 2 };
+		final double[] cost = { 1, 1, 1, 1 };
+		assertNull(Assignment.computeAssignment(3,from,to,cost));
+		assertNull(Assignment.computeAssignment(3,from,to,cost,NativeMatrix.factory,new RevisedSimplexSolver(),1000));
+	}
 }
@@ -0,0 +1,64 @@
+package com.winvector.comb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class TestAuction {
+	@Test
+	public void testOrderKey() {
+		final double[] xs = { Double.NEGATIVE_INFINITY, -1.0e300, -2.5, -0.0, 0.0, 1.0e-300, 3.0, Double.POSITIVE_INFINITY };
+		for(int a=0;a<xs.length;++a) {
+			assertEquals(xs[a],Auction.fromOrderKey(Auction.orderKey(xs[a])),0.0);
+			for(int b=a+1;b<xs.length;++b) {
+				if(xs[a]<xs[b]) {
+					assertTrue(Auction.orderKey(xs[a])<Auction.orderKey(xs[b]));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testMatchesHungarian() {
+		final Random rand = new Random(5315L);
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for(int rep=0;rep<30;++rep) {
+				final int n = 1 + rand.nextInt((rep<20)?30:300);
+				final boolean integral = rep%2==0;
+				final double[][] c = new double[n][n];
+				for(int i=0;i<n;++i) {
+					for(int j=0;j<n;++j) {
+						c[i][j] = integral?rand.nextInt(2*n):rand.nextDouble();
+					}
+				}
+				for(int splotch=0;splotch<n-1;++splotch) {
+					c[rand.nextInt(n)][rand.nextInt(n)] = Double.NaN;
+				}
+				final int[] expect = Hungarian.computeAssignment(c);
+				final int[] assignment = Auction.computeAssignment(c,pool);
+				assertTrue(Assignment.checkValid(c,assignment));
+				assertEquals(Assignment.cost(c,expect),Assignment.cost(c,assignment),integral?0.0:1.0e-8);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testNoCompleteMatching() {
+		final double[][] c = {
+				{ 1, Double.NaN, Double.POSITIVE_INFINITY },
+				{ 2, Double.NaN, Double.NaN },
+				{ 3, 4, 5 }
+		};
+		assertNull(Auction.computeAssignment(c));
+		assertTrue(Auction.hasCompleteMatching(new double[][] { { 1, 2 }, { 3, Double.NaN } }));
+		assertEquals(0,Auction.computeAssignment(new double[0][0]).length);
+	}
+}
@@ -0,0 +1,64 @@
+package com.winvector.comb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestIncrementalAssignment {
+	@Test
+	public void testRandomChanges() {
+		final Random rand = new Random(773L);
+		final int n = 60;
+		final double[][] c = new double[n][n];
+		for(int i=0;i<n;++i) {
+			for(int j=0;j<n;++j) {
+				c[i][j] = rand.nextInt(1000);
+			}
+		}
+		final IncrementalAssignment inc = new IncrementalAssignment(c);
+		assertEquals(Assignment.cost(c,Hungarian.computeAssignment(c)),inc.cost(),0.0);
+		assertEquals(n,inc.augmentations());
+		for(int round=0;round<200;++round) {
+			final long before = inc.augmentations();
+			final int nChanges = 1 + rand.nextInt(3);
+			for(int k=0;k<nChanges;++k) {
+				final int i = rand.nextInt(n);
+				// bias toward matched entries, which always need attention when raised
+				final int j = (rand.nextBoolean())?inc.assignment()[i]:rand.nextInt(n);
+				final double nc = (rand.nextInt(10)==0)?Double.NaN:rand.nextInt(1000);
+				c[i][j] = nc;
+				inc.setCost(i,j,nc);
+			}
+			final int[] expect = Hungarian.computeAssignment(c);
+			final int[] got = inc.assignment();
+			assertTrue(Assignment.checkValid(c,got));
+			assertEquals(Assignment.cost(c,expect),Assignment.cost(c,got),0.0);
+			assertEquals(Assignment.cost(c,expect),inc.cost(),0.0);
+			// repair work is bounded by the number of changed entries
+			assertTrue(inc.augmentations()-before<=nChanges);
+		}
+	}
+
+	@Test
+	public void testLoseAndRegainMatching() {
+		final double[][] c = {
+				{ 1, 2 },
+				{ 3, 4 }
+		};
+		final IncrementalAssignment inc = new IncrementalAssignment(c);
+		assertEquals(5.0,inc.cost(),0.0);
+		inc.setCost(0,1,Double.NaN);
+		inc.setCost(1,1,Double.NaN);
+		assertNull(inc.assignment());
+		assertTrue(Double.isNaN(inc.cost()));
+		inc.setCost(1,1,-10.0);
+		final int[] a = inc.assignment();
+		assertEquals(0,a[0]);
+		assertEquals(1,a[1]);
+		assertEquals(-9.0,inc.cost(),0.0);
+	}
+}
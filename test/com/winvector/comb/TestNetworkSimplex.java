@@ -0,0 +1,184 @@
+package com.winvector.comb;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.winvector.linalg.colt.NativeMatrix;
+import com.winvector.lp.LPEQProb;
+import com.winvector.lp.LPSoln;
+import com.winvector.lp.impl.RevisedSimplexSolver;
+
+public class TestNetworkSimplex {
+	private static double lpValue(final NetworkSimplex ns) throws Exception {
+		final LPEQProb prob = ns.toLPEQProb();
+		final LPSoln soln = new RevisedSimplexSolver().solve(prob,null,1.0e-9,100000,NativeMatrix.factory);
+		return soln.primalSolution.dot(prob.c);
+	}
+
+	/**
+	 * flow conservation, bounds and reduced cost optimality
+	 */
+	private static void checkOptimal(final NetworkSimplex ns, final int[] from, final int[] to, final double[] cost,
+			final double[] cap, final double[] supply) {
+		final double[] net = new double[ns.nNodes];
+		for(int a=0;a<from.length;++a) {
+			final double f = ns.flow(a);
+			final double u = (null!=cap)?cap[a]:Double.POSITIVE_INFINITY;
+			assertTrue(f>=-1.0e-9);
+			assertTrue(f<=u+1.0e-9);
+			net[from[a]] += f;
+			net[to[a]] -= f;
+			final double rc = cost[a] + ns.potential(from[a]) - ns.potential(to[a]);
+			if(f<u-1.0e-9) {
+				assertTrue(rc>=-1.0e-7);
+			}
+			if(f>1.0e-9) {
+				assertTrue(rc<=1.0e-7);
+			}
+		}
+		for(int v=0;v<ns.nNodes;++v) {
+			assertEquals(supply[v],net[v],1.0e-9);
+		}
+	}
+
+	@Test
+	public void testTransportation() throws Exception {
+		final double[] supply = { 20, 30, 25 };
+		final double[] demand = { 10, 25, 15, 25 };
+		final double[][] cost = {
+				{ 8, 6, 10, 9 },
+				{ 9, 12, 13, 7 },
+				{ 14, 9, 16, 5 }
+		};
+		final NetworkSimplex ns = NetworkSimplex.transportation(supply,demand,cost);
+		assertEquals(NetworkSimplex.Status.OPTIMAL,ns.solve());
+		assertEquals(lpValue(ns),ns.totalCost(),1.0e-8);
+		final double[][] x = ns.transportationFlow(supply.length,demand.length);
+		for(int i=0;i<supply.length;++i) {
+			double tot = 0.0;
+			for(int j=0;j<demand.length;++j) {
+				tot += x[i][j];
+			}
+			assertEquals(supply[i],tot,1.0e-9);
+		}
+	}
+
+	@Test
+	public void testRandomMinCostFlow() throws Exception {
+		final Random rand = new Random(88413L);
+		for(int rep=0;rep<25;++rep) {
+			final int n = 3 + rand.nextInt(12);
+			final int m = n + rand.nextInt(4*n);
+			final int[] from = new int[m];
+			final int[] to = new int[m];
+			final double[] cost = new double[m];
+			final double[] cap = new double[m];
+			for(int a=0;a<m;++a) {
+				from[a] = rand.nextInt(n);
+				to[a] = rand.nextInt(n);
+				cost[a] = rand.nextInt(20) - ((rep%3==0)?5:0); // some negative costs (capacities keep it bounded)
+				cap[a] = 1 + rand.nextInt(10);
+			}
+			final double[] supply = new double[n];
+			for(int k=0;k<n;++k) {
+				final int a = rand.nextInt(n);
+				final int b = rand.nextInt(n);
+				final double amt = rand.nextInt(5);
+				supply[a] += amt;
+				supply[b] -= amt;
+			}
+			final NetworkSimplex ns = NetworkSimplex.minCostFlow(n,from,to,cost,cap,supply);
+			final NetworkSimplex.Status status = ns.solve();
+			double lp = Double.NaN;
+			try {
+				lp = lpValue(ns);
+			} catch (Exception ex) {
+				// LP reports infeasible
+			}
+			if(status==NetworkSimplex.Status.OPTIMAL) {
+				checkOptimal(ns,from,to,cost,cap,supply);
+				assertEquals(lp,ns.totalCost(),1.0e-7);
+			} else {
+				assertEquals(NetworkSimplex.Status.INFEASIBLE,status);
+				assertTrue(Double.isNaN(lp));
+			}
+		}
+	}
+
+	@Test
+	public void testUnboundedAndInfeasible() {
+		final NetworkSimplex cycle = new NetworkSimplex(2);
+		cycle.addArc(0,1,-1.0);
+		cycle.addArc(1,0,0.0);
+		assertEquals(NetworkSimplex.Status.UNBOUNDED,cycle.solve());
+		final NetworkSimplex unbalanced = new NetworkSimplex(2);
+		unbalanced.addArc(0,1,1.0);
+		unbalanced.setSupply(0,2.0);
+		assertEquals(NetworkSimplex.Status.INFEASIBLE,unbalanced.solve());
+		final NetworkSimplex capped = new NetworkSimplex(2);
+		capped.addArc(0,1,1.0,1.0);
+		capped.setSupply(0,2.0);
+		capped.setSupply(1,-2.0);
+		assertEquals(NetworkSimplex.Status.INFEASIBLE,capped.solve());
+		// negative cost self-loop (unbounded cycle) on a problem with no feasible flow
+		final NetworkSimplex infeasibleLoop = new NetworkSimplex(2);
+		infeasibleLoop.addArc(0,0,-1.0);
+		infeasibleLoop.addArc(0,1,1.0,1.0);
+		infeasibleLoop.setSupply(0,2.0);
+		infeasibleLoop.setSupply(1,-2.0);
+		assertEquals(NetworkSimplex.Status.INFEASIBLE,infeasibleLoop.solve());
+		// same loop once the flow fits
+		final NetworkSimplex feasibleLoop = new NetworkSimplex(2);
+		feasibleLoop.addArc(0,0,-1.0);
+		feasibleLoop.addArc(0,1,1.0,2.0);
+		feasibleLoop.setSupply(0,2.0);
+		feasibleLoop.setSupply(1,-2.0);
+		assertEquals(NetworkSimplex.Status.UNBOUNDED,feasibleLoop.solve());
+	}
+
+	@Test
+	public void testLargeTransportation() {
+		// big enough that the general simplex would be slow; checked by optimality conditions
+		final Random rand = new Random(2212L);
+		final int ns = 150;
+		final int nd = 200;
+		final double[] supply = new double[ns];
+		final double[] demand = new double[nd];
+		for(int k=0;k<2000;++k) {
+			supply[rand.nextInt(ns)] += 1.0;
+			demand[rand.nextInt(nd)] += 1.0;
+		}
+		final double[][] cost = new double[ns][nd];
+		for(int i=0;i<ns;++i) {
+			for(int j=0;j<nd;++j) {
+				cost[i][j] = rand.nextInt(1000);
+			}
+		}
+		final NetworkSimplex p = NetworkSimplex.transportation(supply,demand,cost);
+		assertEquals(NetworkSimplex.Status.OPTIMAL,p.solve());
+		final int[] from = new int[p.nArcs()];
+		final int[] to = new int[p.nArcs()];
+		final double[] c = new double[p.nArcs()];
+		int a = 0;
+		for(int i=0;i<ns;++i) {
+			for(int j=0;j<nd;++j) {
+				from[a] = i;
+				to[a] = ns+j;
+				c[a] = cost[i][j];
+				++a;
+			}
+		}
+		final double[] nodeSupply = new double[ns+nd];
+		for(int i=0;i<ns;++i) {
+			nodeSupply[i] = supply[i];
+		}
+		for(int j=0;j<nd;++j) {
+			nodeSupply[ns+j] = -demand[j];
+		}
+		checkOptimal(p,from,to,c,null,nodeSupply);
+	}
+}
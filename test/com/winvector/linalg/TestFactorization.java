@@ -0,0 +1,105 @@
+package com.winvector.linalg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.winvector.linalg.colt.ColtMatrix;
+import com.winvector.linalg.colt.NativeMatrix;
+import com.winvector.linalg.dense.FlatMatrix;
+import com.winvector.lp.LPEQProb;
+import com.winvector.lp.LPSoln;
+import com.winvector.lp.TestLP;
+import com.winvector.lp.impl.RevisedSimplexSolver;
+
+public class TestFactorization {
+	private static <T extends Matrix<T>> void checkFactor(final LinalgFactory<T> factory, final int n, final Random rand) {
+		final T a = factory.newMatrix(n,n,false);
+		for(int i=0;i<n;++i) {
+			for(int j=0;j<n;++j) {
+				if(rand.nextInt(3)!=0) {
+					a.set(i,j,rand.nextGaussian());
+				}
+			}
+			a.set(i,i,a.get(i,i)+3.0);
+		}
+		final Factorization f = a.factor();
+		assertEquals(n,f.size());
+		final double[][] rhs = new double[3][n];
+		for(int k=0;k<rhs.length;++k) {
+			for(int i=0;i<n;++i) {
+				rhs[k][i] = rand.nextGaussian();
+			}
+		}
+		final double[][] xs = f.solve(rhs);
+		for(int k=0;k<rhs.length;++k) {
+			final double[] ax = a.mult(xs[k]);
+			final double[] ya = a.multLeft(f.solveLeft(rhs[k]));
+			for(int i=0;i<n;++i) {
+				assertEquals(rhs[k][i],ax[i],1.0e-8);
+				assertEquals(rhs[k][i],ya[i],1.0e-8);
+			}
+		}
+		final T inv = a.factor().inverse(factory);
+		final T prod = a.multMat(inv);
+		for(int i=0;i<n;++i) {
+			for(int j=0;j<n;++j) {
+				assertEquals((i==j)?1.0:0.0,prod.get(i,j),1.0e-8);
+			}
+		}
+		assertTrue(f.conditionEstimate()>=1.0-1.0e-12);
+	}
+
+	@Test
+	public void testFactor() {
+		final ArrayList<LinalgFactory<?>> factories = new ArrayList<LinalgFactory<?>>();
+		factories.add(NativeMatrix.factory);
+		factories.add(ColtMatrix.factory);
+		factories.add(FlatMatrix.factory);
+		final Random rand = new Random(8383L);
+		for(final LinalgFactory<?> f: factories) {
+			for(final int n: new int[] {1, 5, 70}) {
+				checkFactor(f,n,rand);
+			}
+		}
+	}
+
+	@Test
+	public void testConditionEstimate() {
+		final int n = 10;
+		final FlatMatrix a = FlatMatrix.factory.identityMatrix(n,false);
+		assertEquals(1.0,a.factor().conditionEstimate(),1.0e-12);
+		a.set(3,3,1.0e-6);
+		final double kappa = a.factor().conditionEstimate();
+		assertEquals(1.0e6,kappa,1.0);
+		final FlatMatrix s = FlatMatrix.factory.newMatrix(2,2,false);
+		s.set(0,0,1.0);
+		s.set(1,0,2.0);
+		boolean threw = false;
+		try {
+			s.factor();
+		} catch (IllegalArgumentException ex) {
+			threw = true;
+		}
+		assertTrue(threw);
+	}
+
+	@Test
+	public void testSolutionReuse() throws Exception {
+		final LPEQProb prob = TestLP.exampleProblem(NativeMatrix.factory);
+		final LPSoln soln = new RevisedSimplexSolver().solve(prob,null,1.0e-6,1000,NativeMatrix.factory);
+		assertNotNull(soln.basisFactorization);
+		final double[] reused = prob.dualSolution(soln,NativeMatrix.factory);
+		final double[] fresh = prob.dualSolution(soln.basisColumns,NativeMatrix.factory);
+		assertEquals(fresh.length,reused.length);
+		for(int i=0;i<fresh.length;++i) {
+			assertEquals(fresh[i],reused[i],1.0e-10);
+		}
+		prob.checkPrimDualOpt(soln.primalSolution,reused,1.0e-6);
+	}
+}
@@ -0,0 +1,60 @@
+package com.winvector.linalg;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestKernels {
+	private static void checkAgainstScalar(final Kernels k) {
+		final Random rand = new Random(5151L);
+		for(int n=0;n<70;++n) {
+			final double[] x = new double[n+3];
+			final double[] y = new double[n+3];
+			for(int i=0;i<x.length;++i) {
+				x[i] = rand.nextGaussian();
+				y[i] = rand.nextGaussian();
+			}
+			assertEquals(Kernels.scalar.dot(x,y,n),k.dot(x,y,n),1.0e-12);
+			final ArrayList<Integer> picked = new ArrayList<Integer>();
+			for(int i=0;i<x.length;++i) {
+				if(rand.nextBoolean()) {
+					picked.add(i);
+				}
+			}
+			final int nnz = picked.size();
+			final int[] indices = new int[nnz];
+			final double[] values = new double[nnz];
+			for(int ii=0;ii<nnz;++ii) {
+				indices[ii] = picked.get(ii);
+				values[ii] = rand.nextGaussian();
+			}
+			assertEquals(Kernels.scalar.sparseDot(indices,values,nnz,x),k.sparseDot(indices,values,nnz,x),1.0e-12);
+			final double[] e1 = y.clone();
+			final double[] e2 = y.clone();
+			Kernels.scalar.axpy(0.5,x,3,e1,1,n);
+			k.axpy(0.5,x,3,e2,1,n);
+			Kernels.scalar.sparseAxpy(-2.0,indices,values,nnz,e1);
+			k.sparseAxpy(-2.0,indices,values,nnz,e2);
+			Kernels.scalar.scale(3.0,e1,2,n);
+			k.scale(3.0,e2,2,n);
+			for(int i=0;i<e1.length;++i) {
+				assertEquals(e1[i],e2[i],1.0e-12);
+			}
+		}
+	}
+
+	@Test
+	public void testKernels() {
+		assertNotNull(Kernels.active);
+		checkAgainstScalar(Kernels.scalar);
+		checkAgainstScalar(Kernels.active);
+		final Kernels v = Kernels.load(Kernels.VECTOR_CLASS);
+		if(null!=v) {
+			checkAgainstScalar(v);
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package com.winvector.linalg;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.winvector.linalg.colt.ColtMatrix;
+import com.winvector.linalg.colt.NativeMatrix;
+import com.winvector.linalg.dense.FlatMatrix;
+import com.winvector.linalg.sparse.HVec;
+
+public class TestMultInto {
+	private static void checkSame(final double[] expect, final double[] got) {
+		assertEquals(expect.length,got.length);
+		for(int i=0;i<expect.length;++i) {
+			assertEquals(expect[i],got[i],1.0e-10);
+		}
+	}
+
+	private static void checkOp(final LinOpI a, final Random rand) {
+		final double[] x = new double[a.cols()];
+		for(int j=0;j<x.length;++j) {
+			x[j] = (rand.nextInt(3)==0)?rand.nextGaussian():0.0;
+		}
+		final double[] y = new double[a.rows()];
+		for(int i=0;i<y.length;++i) {
+			y[i] = rand.nextGaussian();
+		}
+		// results must not depend on what was in the output array
+		final double[] r = new double[a.rows()];
+		final double[] l = new double[a.cols()];
+		Arrays.fill(r,Double.NaN);
+		a.multInto(x,r);
+		checkSame(a.mult(x),r);
+		Arrays.fill(r,7.0);
+		a.multInto(HVec.hVec(x),r);
+		checkSame(a.mult(x),r);
+		Arrays.fill(l,Double.NaN);
+		a.multLeftInto(y,l);
+		checkSame(a.multLeft(y),l);
+	}
+
+	@Test
+	public <Z extends Matrix<Z>> void testBackends() {
+		final ArrayList<LinalgFactory<?>> factories = new ArrayList<LinalgFactory<?>>();
+		factories.add(NativeMatrix.factory);
+		factories.add(ColtMatrix.factory);
+		factories.add(FlatMatrix.factory);
+		final Random rand = new Random(6231L);
+		for(final LinalgFactory<?> f: factories) {
+			@SuppressWarnings("unchecked")
+			final LinalgFactory<Z> factory = (LinalgFactory<Z>)f;
+			final Z a = factory.newMatrix(7,5,false);
+			for(int i=0;i<a.rows();++i) {
+				for(int j=0;j<a.cols();++j) {
+					if(rand.nextBoolean()) {
+						a.set(i,j,rand.nextGaussian());
+					}
+				}
+			}
+			checkOp(a,rand);
+			checkOp(a.columnMatrix(),rand);
+		}
+	}
+}
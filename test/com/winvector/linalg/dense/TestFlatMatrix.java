@@ -0,0 +1,90 @@
+package com.winvector.linalg.dense;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.winvector.linalg.colt.NativeMatrix;
+import com.winvector.linalg.sparse.HVec;
+
+public class TestFlatMatrix {
+	private static void fill(final Random rand, final FlatMatrix f, final NativeMatrix m) {
+		for(int i=0;i<f.rows();++i) {
+			for(int j=0;j<f.cols();++j) {
+				final double v = (rand.nextInt(4)==0)?0.0:rand.nextGaussian();
+				f.set(i,j,v);
+				m.set(i,j,v);
+			}
+		}
+	}
+
+	private static void assertClose(final double[] a, final double[] b) {
+		assertEquals(a.length,b.length);
+		for(int i=0;i<a.length;++i) {
+			assertEquals(a[i],b[i],1.0e-8*Math.max(1.0,Math.abs(a[i])));
+		}
+	}
+
+	@Test
+	public void testAgainstNative() {
+		final Random rand = new Random(25253L);
+		// sizes straddle the block edge
+		for(final int n: new int[] {1, 2, 7, 63, 64, 65, 150}) {
+			final FlatMatrix f = FlatMatrix.factory.newMatrix(n,n,false);
+			final NativeMatrix m = NativeMatrix.factory.newMatrix(n,n,false);
+			fill(rand,f,m);
+			final double[] x = new double[n];
+			for(int i=0;i<n;++i) {
+				x[i] = rand.nextGaussian();
+			}
+			assertClose(m.mult(x),f.mult(x));
+			assertClose(m.multLeft(x),f.multLeft(x));
+			assertClose(m.mult(HVec.hVec(x)),f.mult(HVec.hVec(x)));
+			assertClose(m.solve(x),f.solve(x));
+			final FlatMatrix finv = f.inverse();
+			final FlatMatrix prod = f.multMat(finv);
+			for(int i=0;i<n;++i) {
+				for(int j=0;j<n;++j) {
+					assertEquals((i==j)?1.0:0.0,prod.get(i,j),1.0e-8);
+				}
+			}
+			final NativeMatrix mm = m.multMat(m);
+			final FlatMatrix ff = f.multMat(f);
+			for(int i=0;i<n;++i) {
+				for(int j=0;j<n;++j) {
+					assertEquals(mm.get(i,j),ff.get(i,j),1.0e-8);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testLeastSquares() {
+		final Random rand = new Random(9932L);
+		final FlatMatrix f = FlatMatrix.factory.newMatrix(30,7,false);
+		final NativeMatrix m = NativeMatrix.factory.newMatrix(30,7,false);
+		fill(rand,f,m);
+		final double[] b = new double[30];
+		for(int i=0;i<b.length;++i) {
+			b[i] = rand.nextGaussian();
+		}
+		assertClose(m.solve(b),f.solve(b));
+	}
+
+	@Test
+	public void testSingular() {
+		final FlatMatrix f = FlatMatrix.factory.newMatrix(3,3,false);
+		f.set(0,0,1.0);
+		f.set(1,1,1.0);
+		boolean threw = false;
+		try {
+			f.inverse();
+		} catch (IllegalArgumentException ex) {
+			threw = true;
+		}
+		assertTrue(threw);
+	}
+}
@@ -0,0 +1,122 @@
+package com.winvector.linalg.sparse;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestColBasis {
+	/**
+	 * the original dense elimination colBasis(), kept as a reference
+	 */
+	private static int[] denseColBasis(final ColumnMatrix a, final int[] forcedCols, final double minVal) {
+		final int rows = a.rows();
+		final int cols = a.cols();
+		final int nGoal = Math.min(cols,rows);
+		final BitSet colsSeen = new BitSet(cols);
+		final BitSet usedRows = new BitSet(rows);
+		final int[] foundRow = new int[nGoal];
+		final int[] foundCol = new int[nGoal];
+		final SparseVec[] basisCols = new SparseVec[nGoal];
+		final double[] col = new double[rows];
+		int nFound = 0;
+		final int[] order = new int[cols + ((null!=forcedCols)?forcedCols.length:0)];
+		int nOrder = 0;
+		if(null!=forcedCols) {
+			for(final int cj: forcedCols) {
+				order[nOrder++] = cj;
+				colsSeen.set(cj);
+			}
+		}
+		for(int cj=0;cj<cols;++cj) {
+			if(!colsSeen.get(cj)) {
+				order[nOrder++] = cj;
+			}
+		}
+		for(int k=0;(k<nOrder)&&(nFound<nGoal);++k) {
+			final int cj = order[k];
+			a.extractColumn(cj).toArray(col);
+			for(int jj=0;jj<nFound;++jj) {
+				final int r = foundRow[jj];
+				final double scale = -col[r];
+				if(Math.abs(scale)>0) {
+					final SparseVec v = basisCols[jj];
+					for(int ii=0;ii<v.nIndices();++ii) {
+						col[v.index(ii)] += scale*v.value(ii);
+					}
+				}
+				col[r] = 0.0;
+			}
+			int newRow = -1;
+			for(int i=0;i<rows;++i) {
+				if((!usedRows.get(i))&&(Math.abs(col[i])>0)&&(Math.abs(col[i])>=minVal)) {
+					newRow = i;
+					break;
+				}
+			}
+			if(newRow>=0) {
+				basisCols[nFound] = SparseVec.sparseVec(col).scale(1.0/col[newRow]);
+				foundRow[nFound] = newRow;
+				foundCol[nFound] = cj;
+				usedRows.set(newRow);
+				++nFound;
+			}
+		}
+		return Arrays.copyOf(foundCol,nFound);
+	}
+
+	private static ColumnMatrix randomMatrix(final Random rand, final int rows, final int cols, final int nnzPerCol) {
+		final SparseVec[] columns = new SparseVec[cols];
+		for(int j=0;j<cols;++j) {
+			final double[] x = new double[rows];
+			if((j>=2)&&(rand.nextInt(4)==0)) {
+				// dependent column
+				final SparseVec p = columns[rand.nextInt(j)];
+				final SparseVec q = columns[rand.nextInt(j)];
+				for(int ii=0;ii<p.nIndices();++ii) {
+					x[p.index(ii)] += 2.0*p.value(ii);
+				}
+				for(int ii=0;ii<q.nIndices();++ii) {
+					x[q.index(ii)] -= q.value(ii);
+				}
+			} else {
+				for(int e=0;e<nnzPerCol;++e) {
+					x[rand.nextInt(rows)] = (rand.nextInt(3)==0)?1.0:rand.nextGaussian();
+				}
+			}
+			columns[j] = SparseVec.sparseVec(x);
+		}
+		return new ColumnMatrix(rows,columns);
+	}
+
+	@Test
+	public void testMatchesDense() {
+		final Random rand = new Random(4521L);
+		for(final int[] shape: new int[][] { {1, 1}, {5, 3}, {5, 12}, {30, 60}, {200, 150}, {100, 400}, {400, 300}, {300, 900}, {1000, 700} }) {
+			for(int rep=0;rep<5;++rep) {
+				final ColumnMatrix a = randomMatrix(rand,shape[0],shape[1],1+rep);
+				assertArrayEquals(denseColBasis(a,null,1.0e-7),a.colBasis(null,1.0e-7));
+				assertArrayEquals(denseColBasis(a,null,0.5),a.colBasis(null,0.5));
+				final int[] forced = a.colBasis(null,1.0e-7);
+				if(forced.length>1) {
+					final int[] someForced = { forced[forced.length-1], forced[0] };
+					assertArrayEquals(denseColBasis(a,someForced,1.0e-7),a.colBasis(someForced,1.0e-7));
+				}
+				final ColumnMatrix t = a.transpose();
+				assertArrayEquals(denseColBasis(t,null,1.0e-7),t.colBasis(null,1.0e-7));
+			}
+		}
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void testDependentForced() {
+		final SparseVec[] columns = {
+				SparseVec.sparseVec(new double[] { 1.0, 2.0, 0.0 }),
+				SparseVec.sparseVec(new double[] { 2.0, 4.0, 0.0 }),
+		};
+		new ColumnMatrix(3,columns).colBasis(new int[] { 0, 1 },1.0e-7);
+	}
+}
@@ -0,0 +1,57 @@
+package com.winvector.linalg.sparse;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class TestParallelColumnMatrix {
+	@Test
+	public void testMatchesSerial() {
+		final Random rand = new Random(8812L);
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			for(final int[] shape: new int[][] { {1, 1}, {3, 2}, {50, 2000}, {3000, 700} }) {
+				final int rows = shape[0];
+				final int cols = shape[1];
+				final SparseVec[] columns = new SparseVec[cols];
+				for(int j=0;j<cols;++j) {
+					final double[] c = new double[rows];
+					// skewed column lengths, to exercise the entry balanced split
+					final int k = (j%7==0)?rows/2:2;
+					for(int e=0;e<k;++e) {
+						c[rand.nextInt(rows)] = rand.nextGaussian();
+					}
+					columns[j] = SparseVec.sparseVec(c);
+				}
+				final ColumnMatrix a = new ColumnMatrix(rows,columns);
+				final double[] x = new double[cols];
+				for(int j=0;j<cols;++j) {
+					x[j] = rand.nextGaussian();
+				}
+				final double[] y = new double[rows];
+				for(int i=0;i<rows;++i) {
+					y[i] = rand.nextGaussian();
+				}
+				final double[] ax = a.mult(x);
+				final double[] ya = a.multLeft(y);
+				final double[] pax = new double[rows];
+				final double[] pya = new double[cols];
+				Arrays.fill(pax,Double.NaN);
+				a.multInto(x,pax,pool);
+				a.multLeftInto(y,pya,pool);
+				for(int i=0;i<rows;++i) {
+					assertEquals(ax[i],pax[i],1.0e-9);
+				}
+				for(int j=0;j<cols;++j) {
+					assertEquals(ya[j],pya[j],0.0);
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
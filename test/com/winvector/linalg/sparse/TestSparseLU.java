@@ -0,0 +1,104 @@
+package com.winvector.linalg.sparse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestSparseLU {
+	/**
+	 * random sparse matrix: a permuted non-singular diagonal plus a few extra entries per column
+	 */
+	private static ColumnMatrix randomSparse(final Random rand, final int n, final int extraPerCol) {
+		final int[] perm = new int[n];
+		for(int i=0;i<n;++i) {
+			perm[i] = i;
+		}
+		for(int i=n-1;i>0;--i) {
+			final int j = rand.nextInt(i+1);
+			final int t = perm[i];
+			perm[i] = perm[j];
+			perm[j] = t;
+		}
+		final SparseVec[] cols = new SparseVec[n];
+		for(int j=0;j<n;++j) {
+			final double[] x = new double[n];
+			x[perm[j]] = 2.0 + rand.nextDouble();
+			for(int e=0;e<extraPerCol;++e) {
+				x[rand.nextInt(n)] += rand.nextGaussian();
+			}
+			cols[j] = SparseVec.sparseVec(x);
+		}
+		return new ColumnMatrix(n,cols);
+	}
+
+	private static void check(final ColumnMatrix a, final SparseLU lu, final Random rand) {
+		final int n = a.rows();
+		final double[] b = new double[n];
+		for(int i=0;i<n;++i) {
+			b[i] = rand.nextGaussian();
+		}
+		final double[] ax = a.mult(lu.solve(b));
+		final double[] ya = a.multLeft(lu.solveLeft(b));
+		final double[] axs = a.mult(lu.solve(HVec.hVec(b)));
+		for(int i=0;i<n;++i) {
+			assertEquals(b[i],ax[i],1.0e-8);
+			assertEquals(b[i],ya[i],1.0e-8);
+			assertEquals(b[i],axs[i],1.0e-8);
+		}
+	}
+
+	@Test
+	public void testRandom() {
+		final Random rand = new Random(31313L);
+		for(final int n: new int[] {1, 2, 10, 200}) {
+			for(int extra=0;extra<4;++extra) {
+				final ColumnMatrix a = randomSparse(rand,n,extra);
+				check(a,new SparseLU(a),rand);
+				check(a,new SparseLU(a,1.0),rand);
+			}
+		}
+	}
+
+	@Test
+	public void testSingletonsNoFill() {
+		// upper triangular (after a row permutation): all pivots are singletons, so no fill
+		final Random rand = new Random(2L);
+		final int n = 50;
+		final SparseVec[] cols = new SparseVec[n];
+		for(int j=0;j<n;++j) {
+			final double[] x = new double[n];
+			for(int i=0;i<=j;++i) {
+				if((i==j)||(rand.nextInt(5)==0)) {
+					x[n-1-i] = 1.0 + rand.nextDouble();
+				}
+			}
+			cols[j] = SparseVec.sparseVec(x);
+		}
+		final ColumnMatrix a = new ColumnMatrix(n,cols);
+		int nnz = 0;
+		for(final SparseVec c: cols) {
+			nnz += c.nIndices();
+		}
+		final SparseLU lu = new SparseLU(a);
+		assertEquals(nnz-n,lu.nnzLU());
+		check(a,lu,rand);
+	}
+
+	@Test
+	public void testSingular() {
+		final SparseVec[] cols = new SparseVec[3];
+		cols[0] = SparseVec.sparseVec(new double[] {1, 1, 0});
+		cols[1] = SparseVec.sparseVec(new double[] {2, 2, 0});
+		cols[2] = SparseVec.sparseVec(new double[] {0, 0, 1});
+		boolean threw = false;
+		try {
+			new SparseLU(new ColumnMatrix(3,cols));
+		} catch (IllegalArgumentException ex) {
+			threw = true;
+		}
+		assertTrue(threw);
+	}
+}
@@ -0,0 +1,126 @@
+package com.winvector.linalg.sparse;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.winvector.linalg.PreMatrixI;
+
+public class TestSubMatrixView {
+	private static void checkAgainst(final double[][] expect, final PreMatrixI a, final Random rand) {
+		final int rows = expect.length;
+		final int cols = expect[0].length;
+		assertEquals(rows,a.rows());
+		assertEquals(cols,a.cols());
+		for(int i=0;i<rows;++i) {
+			for(int j=0;j<cols;++j) {
+				assertEquals(expect[i][j],a.get(i,j),0.0);
+			}
+		}
+		final double[] x = new double[cols];
+		for(int j=0;j<cols;++j) {
+			x[j] = rand.nextGaussian();
+		}
+		final double[] y = new double[rows];
+		for(int i=0;i<rows;++i) {
+			y[i] = rand.nextGaussian();
+		}
+		final double[] ax = a.mult(x);
+		final double[] axh = a.mult(HVec.hVec(x));
+		final double[] ya = a.multLeft(y);
+		final double[] sums = a.sumAbsRowValues();
+		for(int i=0;i<rows;++i) {
+			double e = 0.0;
+			double s = 0.0;
+			for(int j=0;j<cols;++j) {
+				e += expect[i][j]*x[j];
+				s += Math.abs(expect[i][j]);
+			}
+			assertEquals(e,ax[i],1.0e-10);
+			assertEquals(e,axh[i],1.0e-10);
+			assertEquals(s,sums[i],1.0e-10);
+		}
+		for(int j=0;j<cols;++j) {
+			double e = 0.0;
+			for(int i=0;i<rows;++i) {
+				e += y[i]*expect[i][j];
+			}
+			assertEquals(e,ya[j],1.0e-10);
+		}
+		final PreMatrixI t = a.transpose();
+		for(int i=0;i<rows;++i) {
+			for(int j=0;j<cols;++j) {
+				assertEquals(expect[i][j],t.get(j,i),0.0);
+			}
+		}
+	}
+
+	private static double[][] select(final double[][] m, final int[] rowSel, final int[] colSel) {
+		final double[][] r = new double[rowSel.length][colSel.length];
+		for(int i=0;i<rowSel.length;++i) {
+			for(int j=0;j<colSel.length;++j) {
+				r[i][j] = m[rowSel[i]][colSel[j]];
+			}
+		}
+		return r;
+	}
+
+	@Test
+	public void testViews() {
+		final Random rand = new Random(20331L);
+		final int rows = 12;
+		final int cols = 9;
+		final double[][] dense = new double[rows][cols];
+		final SparseVec[] columns = new SparseVec[cols];
+		for(int j=0;j<cols;++j) {
+			final double[] c = new double[rows];
+			for(int i=0;i<rows;++i) {
+				if(rand.nextInt(3)==0) {
+					c[i] = rand.nextGaussian();
+					dense[i][j] = c[i];
+				}
+			}
+			columns[j] = SparseVec.sparseVec(c);
+		}
+		final ColumnMatrix a = new ColumnMatrix(rows,columns);
+		final int[] allRows = new int[rows];
+		for(int i=0;i<rows;++i) {
+			allRows[i] = i;
+		}
+		final int[] allCols = new int[cols];
+		for(int j=0;j<cols;++j) {
+			allCols[j] = j;
+		}
+		final int[] colSel = { 7, 2, 2, 0, 5 };
+		final int[] rowSelUnsorted = { 10, 3, 0, 6, 7, 11 };
+		final int[] rowSel = { 0, 3, 6, 7, 10, 11 };
+		// column views share the parent's columns
+		final SubMatrixView cv = a.extractColumns(colSel);
+		assertSame(columns[7],cv.extractColumn(0));
+		checkAgainst(select(dense,allRows,colSel),cv,rand);
+		// row views
+		final SubMatrixView rv = a.extractRows(rowSelUnsorted);
+		checkAgainst(select(dense,rowSel,allCols),rv,rand);
+		assertSame(rv.extractColumn(4),rv.extractColumn(4));
+		// compositions, both ways
+		final int[] colSel2 = { 4, 1 }; // of colSel
+		checkAgainst(select(dense,rowSel,new int[] { 5, 2 }),cv.extractRows(rowSelUnsorted).extractColumns(colSel2),rand);
+		checkAgainst(select(dense,rowSel,colSel),rv.extractColumns(colSel),rand);
+		final int[] rowSel2 = { 5, 1, 2 }; // of rowSel
+		checkAgainst(select(dense,new int[] { 3, 6, 11 },colSel),rv.extractColumns(colSel).extractRows(rowSel2),rand);
+		// derived column view shares the row view's renumbered columns
+		assertSame(rv.extractColumn(7),rv.extractColumns(colSel).extractColumn(0));
+		// materializing operations
+		assertArrayEquals(rv.toColumnMatrix().colBasis(null,1.0e-7),rv.colBasis(null,1.0e-7));
+		final ArrayList<SparseVec> extra = new ArrayList<SparseVec>();
+		extra.add(SparseVec.sparseVec(rowSel.length,2,1.0));
+		final PreMatrixI withExtra = rv.addColumns(extra);
+		assertEquals(cols+1,withExtra.cols());
+		assertEquals(1.0,withExtra.get(2,cols),0.0);
+	}
+}
@@ -0,0 +1,100 @@
+package com.winvector.linalg.sparse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.winvector.linalg.colt.NativeMatrix;
+
+public class TestTabularLinOp {
+	private static SparseVec randomColumn(final Random rand, final int n, final int diag) {
+		final double[] x = new double[n];
+		x[diag] = 2.0 + rand.nextDouble();
+		if(rand.nextBoolean()) {
+			x[rand.nextInt(n)] += rand.nextGaussian();
+		}
+		return SparseVec.sparseVec(x);
+	}
+
+	@Test
+	public void testPivotTracksInverse() {
+		final Random rand = new Random(5235L);
+		final int n = 40;
+		final SparseVec[] cols = new SparseVec[n];
+		for(int j=0;j<n;++j) {
+			cols[j] = randomColumn(rand,n,j);
+		}
+		final TabularLinOp binv = new TabularLinOp(n,n,n*n);
+		assertTrue(binv.setInverse(new SparseLU(new ColumnMatrix(n,cols))));
+		final NativeMatrix dense = binv.toMatrix(NativeMatrix.factory);
+		final int[] nzCols = new int[n];
+		for(int j=0;j<n;++j) {
+			nzCols[j] = j;
+		}
+		for(int step=0;step<200;++step) {
+			// replace a column of B, w = BInv u
+			final int r = rand.nextInt(n);
+			final SparseVec u = randomColumn(rand,n,r);
+			final double[] w = binv.mult(u.toArray(n));
+			if(Math.abs(w[r])<0.1) {
+				continue;
+			}
+			cols[r] = u;
+			assertTrue(binv.pivot(r,w,1.0e-12));
+			dense.pivotRows(r,w,1.0e-12,nzCols,n);
+			assertTrue(binv.nnz()<=binv.capacity());
+			final ColumnMatrix b = new ColumnMatrix(n,cols);
+			final double[] y = new double[n];
+			for(int i=0;i<n;++i) {
+				y[i] = rand.nextGaussian();
+			}
+			final double[] x = binv.mult(y);
+			final double[] xd = dense.mult(y);
+			final double[] bx = b.mult(x);
+			final double[] yb = b.multLeft(binv.multLeft(y));
+			for(int i=0;i<n;++i) {
+				assertEquals(xd[i],x[i],1.0e-8);
+				assertEquals(y[i],bx[i],1.0e-8);
+				assertEquals(y[i],yb[i],1.0e-8);
+			}
+		}
+	}
+
+	@Test
+	public void testOverflow() {
+		final int n = 5;
+		final SparseVec[] cols = new SparseVec[n];
+		for(int j=0;j<n;++j) {
+			final double[] x = new double[n];
+			x[j] = 1.0;
+			cols[j] = SparseVec.sparseVec(x);
+		}
+		final TabularLinOp binv = new TabularLinOp(n,n,n+2);
+		assertTrue(binv.setInverse(new SparseLU(new ColumnMatrix(n,cols))));
+		assertEquals(n,binv.nnz());
+		// entering column with all entries non-zero fills in all of column 0
+		final double[] w = { 1.0, 1.0, 1.0, 1.0, 1.0 };
+		assertFalse(binv.pivot(0,w,1.0e-12));
+		assertFalse(binv.valid());
+		// re-use the same table after the overflow (as EnhancedBasis does), check against the dense update
+		final SparseLU identity = new SparseLU(new ColumnMatrix(n,cols));
+		assertTrue(binv.setInverse(identity));
+		final NativeMatrix dense = binv.toMatrix(NativeMatrix.factory);
+		final int[] nzCols = { 0, 1, 2, 3, 4 };
+		final double[] w2 = { 0.5, 0.0, 0.0, 2.0, 0.75 };
+		assertTrue(binv.pivot(3,w2,1.0e-12));
+		dense.pivotRows(3,w2,1.0e-12,nzCols,n);
+		final NativeMatrix sparse = binv.toMatrix(NativeMatrix.factory);
+		for(int i=0;i<n;++i) {
+			for(int j=0;j<n;++j) {
+				assertEquals(dense.get(i,j),sparse.get(i,j),1.0e-12);
+			}
+		}
+		final TabularLinOp small = new TabularLinOp(n,n,n-1);
+		assertFalse(small.setInverse(new SparseLU(new ColumnMatrix(n,cols))));
+	}
+}
@@ -0,0 +1,86 @@
+package com.winvector.lp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.winvector.comb.Assignment;
+import com.winvector.linalg.DenseVec;
+import com.winvector.linalg.Matrix;
+import com.winvector.linalg.colt.NativeMatrix;
+import com.winvector.lp.impl.RevisedSimplexSolver;
+
+public class TestBatchSolver {
+	private static List<LPEQProb> problems() throws LPException {
+		final Random rand = new Random(2352L);
+		final ArrayList<LPEQProb> probs = new ArrayList<LPEQProb>();
+		for(int rep=0;rep<20;++rep) {
+			final int n = 3 + rep%6;
+			final double[][] c = new double[n][n];
+			for(int i=0;i<n;++i) {
+				for(int j=0;j<n;++j) {
+					c[i][j] = rand.nextDouble();
+				}
+			}
+			probs.add(Assignment.buildAssignmentProb(NativeMatrix.factory,c));
+		}
+		{ // x = -1, x>=0: infeasible
+			final Matrix<NativeMatrix> m = NativeMatrix.factory.newMatrix(1,1,false);
+			m.set(0,0,1.0);
+			probs.add(new LPEQProb(m.columnMatrix(),new double[] {-1.0},new DenseVec(new double[] {1.0})));
+		}
+		{ // minimize -x, 0*x = 0: unbounded
+			probs.add(new LPEQProb(NativeMatrix.factory.newMatrix(1,1,false).columnMatrix(),
+					new double[1],new DenseVec(new double[] {-1.0})));
+		}
+		return probs;
+	}
+
+	private static void check(final LPSolver solver, final List<LPEQProb> probs, final List<BatchSolver.Result> results) throws LPException {
+		assertEquals(probs.size(),results.size());
+		final int nAssignments = probs.size()-2;
+		for(int i=0;i<nAssignments;++i) {
+			final BatchSolver.Result r = results.get(i);
+			assertEquals(i,r.index);
+			assertEquals(BatchSolver.Status.OPTIMAL,r.status);
+			assertNull(r.failure);
+			final LPSoln serial = solver.solve(probs.get(i),null,1.0e-6,10000,NativeMatrix.factory);
+			assertTrue(Math.abs(serial.primalSolution.dot(probs.get(i).c)-r.soln.primalSolution.dot(probs.get(i).c))<1.0e-6);
+		}
+		assertEquals(BatchSolver.Status.INFEASIBLE,results.get(nAssignments).status);
+		assertNotNull(results.get(nAssignments).failure);
+		assertEquals(BatchSolver.Status.UNBOUNDED,results.get(nAssignments+1).status);
+		assertNull(results.get(nAssignments+1).soln);
+	}
+
+	@Test
+	public void testForkJoin() throws LPException {
+		final List<LPEQProb> probs = problems();
+		final RevisedSimplexSolver solver = new RevisedSimplexSolver();
+		check(solver,probs,BatchSolver.solveAll(solver,probs,1.0e-6,10000,NativeMatrix.factory));
+	}
+
+	@Test
+	public void testExecutor() throws Exception {
+		final List<LPEQProb> probs = problems();
+		final RevisedSimplexSolver solver = new RevisedSimplexSolver();
+		ExecutorService executor = BatchSolver.newVirtualThreadExecutor();
+		if(null==executor) {
+			executor = Executors.newFixedThreadPool(4);
+		}
+		try {
+			check(solver,probs,BatchSolver.solveAll(solver,probs,1.0e-6,10000,NativeMatrix.factory,executor));
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
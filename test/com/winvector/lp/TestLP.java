@@ -21,6 +21,7 @@ import com.winvector.linalg.PreMatrixI;
 import com.winvector.linalg.PreVecI;
 import com.winvector.linalg.colt.ColtMatrix;
 import com.winvector.linalg.colt.NativeMatrix;
+import com.winvector.linalg.dense.FlatMatrix;
 import com.winvector.linalg.jblas.JBlasMatrix;
 import com.winvector.linalg.sparse.SparseVec;
 import com.winvector.lp.LPException.LPMalformedException;
@@ -95,6 +96,7 @@ public final class TestLP  {
 		factories.add(NativeMatrix.factory);
 		factories.add(ColtMatrix.factory);
 		factories.add(JBlasMatrix.factory);
+		factories.add(FlatMatrix.factory);
 		for(final LinalgFactory<?> f: factories) {
 			testLPSolverTrivial(f);
 			testLPExample(f);
@@ -0,0 +1,60 @@
+package com.winvector.lp.apachem3;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.apache.commons.math3.linear.RealVector;
+import org.junit.Test;
+
+import com.winvector.comb.Assignment;
+import com.winvector.linalg.colt.NativeMatrix;
+import com.winvector.lp.LPEQProb;
+import com.winvector.lp.LPSoln;
+import com.winvector.lp.TestLP;
+import com.winvector.lp.impl.RevisedSimplexSolver;
+
+public class TestM3Solver {
+	@Test
+	public void testConversion() throws Exception {
+		final LPEQProb prob = TestLP.exampleProblem(NativeMatrix.factory);
+		final M3Solver.M3Prob m3 = M3Solver.convertProbToM3(prob);
+		assertEquals(prob.A.rows(),m3.constraints.size());
+		for(int i=0;i<prob.A.rows();++i) {
+			final RealVector coef = m3.constraints.get(i).getCoefficients();
+			assertEquals(prob.b[i],m3.constraints.get(i).getValue(),0.0);
+			for(int j=0;j<prob.A.cols();++j) {
+				assertEquals(prob.A.get(i,j),coef.getEntry(j),0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testBasisAndWarmStart() throws Exception {
+		final Random rand = new Random(2352L);
+		final M3Solver m3 = new M3Solver();
+		final RevisedSimplexSolver rs = new RevisedSimplexSolver();
+		for(int rep=0;rep<5;++rep) {
+			// assignment problems are degenerate and rank deficient, so the basis needs extending
+			final int n = 3 + rep;
+			final double[][] c = new double[n][n];
+			for(int i=0;i<n;++i) {
+				for(int j=0;j<n;++j) {
+					c[i][j] = rand.nextInt(20);
+				}
+			}
+			final LPEQProb prob = Assignment.buildAssignmentProb(NativeMatrix.factory,c);
+			final LPSoln soln = m3.solve(prob,null,1.0e-6,1000,NativeMatrix.factory);
+			assertNotNull(soln.basisColumns);
+			assertNotNull(soln.basisRows);
+			assertEquals(soln.basisRows.length,soln.basisColumns.length);
+			final double[] dual = prob.dualSolution(soln.basisColumns,NativeMatrix.factory);
+			prob.checkPrimDualOpt(soln.primalSolution,dual,1.0e-5);
+			final LPSoln warm = rs.solve(prob,soln.basisColumns,1.0e-6,1000,NativeMatrix.factory);
+			final double v = soln.primalSolution.dot(prob.c);
+			assertTrue(Math.abs(warm.primalSolution.dot(prob.c)-v)<1.0e-6);
+		}
+	}
+}
@@ -0,0 +1,205 @@
+package com.winvector.lp.glpk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.LineNumberReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.winvector.linalg.DenseVec;
+import com.winvector.linalg.colt.NativeMatrix;
+import com.winvector.lp.BatchSolver;
+import com.winvector.lp.LPEQProb;
+import com.winvector.lp.LPException;
+import com.winvector.lp.LPSoln;
+import com.winvector.lp.io.LPFormatReader;
+import com.winvector.lp.io.LPModel;
+
+/**
+ * drives GLPKSolver against a shell script standing in for glpsol: the script saves the model it
+ * is sent, logs start/end events and writes back a canned solution
+ */
+public class TestGLPKSolver {
+	private File dir = null;
+	private File glpsol = null;
+
+	@Before
+	public void setUp() throws IOException {
+		Assume.assumeTrue(new File("/bin/sh").canExecute());
+		dir = File.createTempFile("fakeglpk","");
+		dir.delete();
+		dir.mkdirs();
+		glpsol = new File(dir,"glpsol");
+		final PrintStream p = new PrintStream(new FileOutputStream(glpsol));
+		p.print("#!/bin/sh\n"
+				+ "D='" + dir.getAbsolutePath() + "'\n"
+				+ "OUT=''\n"
+				+ "while [ $# -gt 0 ]; do\n"
+				+ "  if [ \"$1\" = '-w' ]; then OUT=\"$2\"; shift; fi\n"
+				+ "  shift\n"
+				+ "done\n"
+				+ "cat > \"$D/model.$$.lp\"\n"
+				+ "echo 'GLPSOL: fake glpsol'\n"
+				+ "echo start >> \"$D/events\"\n"
+				+ "if [ -f \"$D/delay\" ]; then sleep `cat \"$D/delay\"`; fi\n"
+				+ "cat \"$D/solution\" > \"$OUT\"\n"
+				+ "echo end >> \"$D/events\"\n"
+				+ "if [ -f \"$D/status\" ]; then echo 'fake failure'; exit `cat \"$D/status\"`; fi\n"
+				+ "exit 0\n");
+		p.close();
+		glpsol.setExecutable(true);
+	}
+
+	@After
+	public void tearDown() {
+		if(null!=dir) {
+			for(final File f: dir.listFiles()) {
+				f.delete();
+			}
+			dir.delete();
+		}
+	}
+
+	private void put(final String name, final String content) throws IOException {
+		final PrintStream p = new PrintStream(new FileOutputStream(new File(dir,name)));
+		p.print(content);
+		p.close();
+	}
+
+	/**
+	 * min x0 + x2 : x0 + x1 + x2 = 1, x>=0 (x1 has zero cost so is first written after x2,
+	 * making it GLPK column 3)
+	 */
+	private static LPEQProb problem() throws LPException {
+		final NativeMatrix m = NativeMatrix.factory.newMatrix(1,3,true);
+		for(int j=0;j<3;++j) {
+			m.set(0,j,1.0);
+		}
+		return new LPEQProb(m.columnMatrix(),new double[] { 1.0 },new DenseVec(new double[] { 1.0, 0.0, 1.0 }));
+	}
+
+	private static final String NEW_SOLN = "c Problem:\nc Rows: 1\n"
+			+ "s bas 1 3 f f 0\n"
+			+ "i 1 s 1 0\n"
+			+ "j 1 l 0 1\n"
+			+ "j 2 l 0 1\n"
+			+ "j 3 b 1 0\n"
+			+ "e o f\n";
+
+	private static final String OLD_SOLN = "1 3\n"
+			+ "2 2 0\n"
+			+ "5 1 0\n"
+			+ "2 0 1\n"
+			+ "2 0 1\n"
+			+ "1 1 0\n";
+
+	private void checkSolution() throws Exception {
+		final LPEQProb prob = problem();
+		final GLPKSolver solver = new GLPKSolver(glpsol.getAbsolutePath(),2);
+		final LPSoln soln = solver.solve(prob,null,1.0e-6,1000,NativeMatrix.factory);
+		assertEquals(0.0,soln.primalSolution.get(0),0.0);
+		assertEquals(1.0,soln.primalSolution.get(1),0.0);
+		assertEquals(0.0,soln.primalSolution.get(2),0.0);
+		// the model glpsol received is complete
+		final File[] models = dir.listFiles();
+		LPModel model = null;
+		for(final File f: models) {
+			if(f.getName().startsWith("model.")) {
+				model = LPFormatReader.read(f);
+			}
+		}
+		assertEquals(3,model.columns.size());
+		assertEquals(1,model.rows.size());
+	}
+
+	@Test
+	public void testNewFormat() throws Exception {
+		put("solution",NEW_SOLN);
+		checkSolution();
+	}
+
+	@Test
+	public void testOldFormat() throws Exception {
+		put("solution",OLD_SOLN);
+		checkSolution();
+	}
+
+	@Test
+	public void testInfeasible() throws Exception {
+		put("solution","s bas 1 3 n f 0\ne o f\n");
+		try {
+			new GLPKSolver(glpsol.getAbsolutePath(),1).solve(problem(),null,1.0e-6,1000,NativeMatrix.factory);
+			fail("expected infeasible");
+		} catch (LPException.LPInfeasibleException e) {
+		}
+	}
+
+	@Test
+	public void testFailure() throws Exception {
+		put("solution","");
+		put("status","3");
+		try {
+			new GLPKSolver(glpsol.getAbsolutePath(),1).solve(problem(),null,1.0e-6,1000,NativeMatrix.factory);
+			fail("expected error");
+		} catch (LPException.LPErrorException e) {
+			assertTrue(e.getMessage(),e.getMessage().contains("status: 3"));
+			assertTrue(e.getMessage(),e.getMessage().contains("fake failure"));
+		}
+	}
+
+	@Test
+	public void testBoundedConcurrency() throws Exception {
+		put("solution",NEW_SOLN);
+		put("delay","0.2");
+		final GLPKSolver solver = new GLPKSolver(glpsol.getAbsolutePath(),2);
+		final ArrayList<LPEQProb> probs = new ArrayList<LPEQProb>();
+		for(int i=0;i<8;++i) {
+			probs.add(problem());
+		}
+		ExecutorService executor = BatchSolver.newVirtualThreadExecutor();
+		if(null==executor) {
+			executor = Executors.newFixedThreadPool(8);
+		}
+		try {
+			final List<BatchSolver.Result> results = BatchSolver.solveAll(solver,probs,1.0e-6,1000,NativeMatrix.factory,executor);
+			for(final BatchSolver.Result r: results) {
+				assertEquals(r.toString(),BatchSolver.Status.OPTIMAL,r.status);
+				assertEquals(1.0,r.soln.primalSolution.get(1),0.0);
+			}
+		} finally {
+			executor.shutdown();
+		}
+		final LineNumberReader lnr = new LineNumberReader(new FileReader(new File(dir,"events")));
+		int running = 0;
+		int maxRunning = 0;
+		int starts = 0;
+		String line;
+		while(null!=(line=lnr.readLine())) {
+			if(line.equals("start")) {
+				++running;
+				++starts;
+			} else {
+				--running;
+			}
+			maxRunning = Math.max(maxRunning,running);
+		}
+		lnr.close();
+		assertEquals(8,starts);
+		assertTrue(maxRunning>=1);
+		assertTrue("max running " + maxRunning,maxRunning<=2);
+	}
+}
@@ -0,0 +1,68 @@
+package com.winvector.lp.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.winvector.comb.Assignment;
+import com.winvector.linalg.colt.NativeMatrix;
+import com.winvector.lp.LPEQProb;
+import com.winvector.lp.LPSoln;
+
+public class TestConcurrentSolve {
+	@Test
+	public void testSharedSolver() throws Exception {
+		final Random rand = new Random(6326L);
+		final ArrayList<LPEQProb> probs = new ArrayList<LPEQProb>();
+		for(int rep=0;rep<24;++rep) {
+			final int n = 4 + rep%5;
+			final double[][] c = new double[n][n];
+			for(int i=0;i<n;++i) {
+				for(int j=0;j<n;++j) {
+					c[i][j] = rand.nextDouble();
+				}
+			}
+			probs.add(Assignment.buildAssignmentProb(NativeMatrix.factory,c));
+		}
+		final RevisedSimplexSolver solver = new RevisedSimplexSolver();
+		final double[] serial = new double[probs.size()];
+		final long[] serialPivots = new long[probs.size()];
+		for(int i=0;i<serial.length;++i) {
+			final LPSoln soln = solver.solve(probs.get(i),null,1.0e-6,10000,NativeMatrix.factory);
+			serial[i] = soln.primalSolution.dot(probs.get(i).c);
+			serialPivots[i] = soln.stats.pivots;
+		}
+		final ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			final ArrayList<Future<LPSoln>> futures = new ArrayList<Future<LPSoln>>();
+			for(int rep=0;rep<4;++rep) {
+				for(final LPEQProb prob: probs) {
+					futures.add(pool.submit(new Callable<LPSoln>() {
+						@Override
+						public LPSoln call() throws Exception {
+							return solver.solve(prob,null,1.0e-6,10000,NativeMatrix.factory);
+						}
+					}));
+				}
+			}
+			for(int k=0;k<futures.size();++k) {
+				final int i = k%probs.size();
+				final LPSoln soln = futures.get(k).get();
+				final double v = soln.primalSolution.dot(probs.get(i).c);
+				assertTrue(Math.abs(v-serial[i])<1.0e-6);
+				// fresh random source per solve: counters are reproducible
+				assertEquals(serialPivots[i],soln.stats.pivots);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -10,6 +10,7 @@ import com.winvector.comb.Assignment;
 import com.winvector.linalg.LinalgFactory;
 import com.winvector.linalg.colt.ColtMatrix;
 import com.winvector.linalg.colt.NativeMatrix;
+import com.winvector.linalg.dense.FlatMatrix;
 import com.winvector.linalg.jblas.JBlasMatrix;
 
 public class TestHardAssignment {
@@ -61,6 +62,7 @@ public class TestHardAssignment {
 		factories.add(NativeMatrix.factory);
 		factories.add(ColtMatrix.factory);
 		factories.add(JBlasMatrix.factory);
+		factories.add(FlatMatrix.factory);
 		for(final LinalgFactory<?> f: factories) {
 			final int[] lres = Assignment.computeAssignment(c,10000,f);
 			final boolean good = Assignment.checkValid(c,lres);
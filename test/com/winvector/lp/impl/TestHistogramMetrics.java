@@ -0,0 +1,127 @@
+package com.winvector.lp.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.winvector.linalg.DenseVec;
+import com.winvector.linalg.colt.NativeMatrix;
+import com.winvector.linalg.sparse.ColumnMatrix;
+import com.winvector.linalg.sparse.SparseVec;
+import com.winvector.lp.LPEQProb;
+import com.winvector.lp.LPException;
+import com.winvector.lp.LPSoln;
+import com.winvector.lp.SolverMetrics;
+import com.winvector.lp.TestLP;
+
+public class TestHistogramMetrics {
+	@Test
+	public void testHistogram() {
+		final LogHistogram h = new LogHistogram();
+		for(long v=1;v<=1000;++v) {
+			h.record(v);
+		}
+		assertEquals(1000L,h.count());
+		assertEquals(1000L,h.max());
+		final long p50 = h.quantile(0.5);
+		assertTrue(Math.abs(p50-500)<=500/16+1);
+		final long p99 = h.quantile(0.99);
+		assertTrue(Math.abs(p99-990)<=990/16+1);
+		for(int i=0;i<2000;++i) {
+			assertTrue(h.bucketLowValue(h.bucketIndex(i))<=i);
+		}
+	}
+
+	@Test
+	public void testSolveEvents() throws LPException {
+		final LPEQProb prob = TestLP.exampleProblem(NativeMatrix.factory);
+		final HistogramMetrics metrics = new HistogramMetrics();
+		final SolverConfig config = new SolverConfig();
+		config.metrics = metrics;
+		final RevisedSimplexSolver solver = new RevisedSimplexSolver(config);
+		final LPSoln soln = solver.solve(prob,null,1.0e-6,1000,NativeMatrix.factory);
+		assertEquals(1L,metrics.solves.get());
+		assertEquals(0L,metrics.failures.get());
+		assertEquals(1L,metrics.phase1NS.count());
+		assertEquals(1L,metrics.phase2NS.count());
+		assertTrue(metrics.pivots.get()>0);
+		assertTrue(metrics.refactorizations.get()>=2);
+		assertEquals(soln.stats.inspections,metrics.inspections.get());
+		assertTrue(metrics.pivots.get()<soln.stats.pivots);  // stats also count each phase's final pricing pass
+	}
+
+	private static final class CountingMetrics implements SolverMetrics {
+		int phasesStarted = 0;
+		int phasesFinished = 0;
+		int phasesFailed = 0;
+		long phasePivots = 0;
+		long pivots = 0;
+		long pricings = 0;
+
+		@Override
+		public void solveStarted(final int rows, final int cols) {
+		}
+
+		@Override
+		public void solveFinished(final long elapsedNS, final boolean succeeded) {
+		}
+
+		@Override
+		public void phaseStarted(final int phase, final int rows) {
+			++phasesStarted;
+		}
+
+		@Override
+		public void phaseFinished(final int phase, final long nPivots, final long elapsedNS, final boolean succeeded) {
+			++phasesFinished;
+			if(!succeeded) {
+				++phasesFailed;
+			}
+			phasePivots += nPivots;
+		}
+
+		@Override
+		public void refactored(final int m, final long elapsedNS) {
+		}
+
+		@Override
+		public void pivoted(final int inspections, final long prePivotNS, final long inspectionNS, final long postPivotNS) {
+			++pivots;
+		}
+
+		@Override
+		public void priced(final int inspections, final long prePivotNS, final long inspectionNS) {
+			++pricings;
+		}
+	}
+
+	@Test
+	public void testEventBalance() throws LPException {
+		final CountingMetrics metrics = new CountingMetrics();
+		final SolverConfig config = new SolverConfig();
+		config.metrics = metrics;
+		final RevisedSimplexSolver solver = new RevisedSimplexSolver(config);
+		final LPSoln soln = solver.solve(TestLP.exampleProblem(NativeMatrix.factory),null,1.0e-6,1000,NativeMatrix.factory);
+		assertEquals(metrics.phasesStarted,metrics.phasesFinished);
+		assertEquals(0,metrics.phasesFailed);
+		assertEquals(metrics.pivots,metrics.phasePivots);
+		assertEquals(soln.stats.pivots,metrics.pivots+metrics.pricings);
+		// minimize -y, x - y = 1: unbounded, phase 2 throws
+		final CountingMetrics failing = new CountingMetrics();
+		config.metrics = failing;
+		final ColumnMatrix a = new ColumnMatrix(1,new SparseVec[] { SparseVec.sparseVec(1,0,1.0), SparseVec.sparseVec(1,0,-1.0) });
+		try {
+			new RevisedSimplexSolver(config).solve(new LPEQProb(a,new double[] {1.0},new DenseVec(new double[] {0.0,-1.0})),
+					null,1.0e-6,1000,NativeMatrix.factory);
+			fail("expected unbounded");
+		} catch (LPException.LPUnboundedException ex) {
+			// expected
+		}
+		assertTrue(failing.phasesStarted>0);
+		assertEquals(failing.phasesStarted,failing.phasesFinished);
+		assertEquals(1,failing.phasesFailed);
+		assertEquals(failing.pivots,failing.phasePivots);
+	}
+}
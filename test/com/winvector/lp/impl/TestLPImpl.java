@@ -1,15 +1,19 @@
 package com.winvector.lp.impl;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Random;
 
 import org.junit.Test;
 
+import com.winvector.comb.Assignment;
 import com.winvector.linalg.LinalgFactory;
 import com.winvector.linalg.Matrix;
 import com.winvector.linalg.colt.ColtMatrix;
 import com.winvector.linalg.colt.NativeMatrix;
+import com.winvector.linalg.dense.FlatMatrix;
 import com.winvector.linalg.jblas.JBlasMatrix;
 import com.winvector.linalg.sparse.SparseVec;
 import com.winvector.lp.LPEQProb;
@@ -57,8 +61,31 @@ public class TestLPImpl {
 		factories.add(NativeMatrix.factory);
 		factories.add(ColtMatrix.factory);
 		factories.add(JBlasMatrix.factory);
+		factories.add(FlatMatrix.factory);
 		for(final LinalgFactory<?> f: factories) {
 			testRank1Update(f);
 		}
 	}
+
+	@Test
+	public void testSparseInverse() {
+		// same problem with the basis inverse always sparse and always dense
+		final Random rand = new Random(97831L);
+		final int n = 12;
+		final double[][] c = new double[n][n];
+		for(int i=0;i<n;++i) {
+			for(int j=0;j<n;++j) {
+				c[i][j] = rand.nextDouble();
+			}
+		}
+		final SolverConfig sparseConfig = new SolverConfig();
+		sparseConfig.sparseInverseDensity = 1.0;
+		final SolverConfig denseConfig = new SolverConfig();
+		denseConfig.sparseInverseDensity = 0.0;
+		final int[] sparseRes = Assignment.computeAssignment(c,NativeMatrix.factory,new RevisedSimplexSolver(sparseConfig),10000);
+		final int[] denseRes = Assignment.computeAssignment(c,NativeMatrix.factory,new RevisedSimplexSolver(denseConfig),10000);
+		assertTrue(Assignment.checkValid(c,sparseRes));
+		assertTrue(Assignment.checkValid(c,denseRes));
+		assertEquals(Assignment.cost(c,denseRes),Assignment.cost(c,sparseRes),1.0e-8);
+	}
 }
@@ -0,0 +1,101 @@
+package com.winvector.lp.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import com.winvector.linalg.DenseVec;
+import com.winvector.linalg.colt.NativeMatrix;
+import com.winvector.lp.LPEQProb;
+import com.winvector.lp.LPSoln;
+import com.winvector.lp.impl.RevisedSimplexSolver;
+
+public class TestCPLEXFormat {
+	private static final File corpus = new File("test/resources/lpcorpus");
+
+	@Test
+	public void testParse() throws IOException {
+		final String lp = "\\ a comment\n"
+				+ "Maximize\n obj: 3 x + 2y - z + 4\n"
+				+ "Subject To\n"
+				+ " c1: x + y <= 4\n"
+				+ " c2: x + 3 y\n   - 2 >= -1.5e1 \\ trailing comment\n"
+				+ " 2 x - z = 0\n"
+				+ "\\* block\n comment *\\\n"
+				+ "Bounds\n x <= 10\n -inf <= y <= 3\n z free\n"
+				+ "Binary\n b\n"
+				+ "End\n";
+		final LPModel model = LPFormatReader.read(new ByteArrayInputStream(lp.getBytes("US-ASCII")));
+		assertTrue(model.maximize);
+		assertEquals(4.0,model.objConst,0.0);
+		assertEquals(3,model.rows.size());
+		assertEquals(4,model.columns.size());
+		final LPModel.Column x = model.columns.get(model.colIndex("x"));
+		final LPModel.Column y = model.columns.get(model.colIndex("y"));
+		final LPModel.Column z = model.columns.get(model.colIndex("z"));
+		final LPModel.Column b = model.columns.get(model.colIndex("b"));
+		assertEquals(3.0,x.cost,0.0);
+		assertEquals(2.0,y.cost,0.0);
+		assertEquals(-1.0,z.cost,0.0);
+		assertEquals(0.0,x.lo,0.0);
+		assertEquals(10.0,x.up,0.0);
+		assertEquals(Double.NEGATIVE_INFINITY,y.lo,0.0);
+		assertEquals(3.0,y.up,0.0);
+		assertEquals(Double.NEGATIVE_INFINITY,z.lo,0.0);
+		assertEquals(Double.POSITIVE_INFINITY,z.up,0.0);
+		assertEquals(1.0,b.up,0.0);
+		final LPModel.Row c2 = model.rows.get(model.rowIndex("c2"));
+		assertEquals(LPModel.GE,c2.type);
+		assertEquals(-13.0,c2.rhs,0.0);
+		assertEquals(3.0,y.get(model.rowIndex("c2")),0.0);
+		assertEquals(LPModel.EQ,model.rows.get(2).type);
+		assertEquals(-1.0,z.get(2),0.0);
+		assertEquals(2.0,x.get(2),0.0);
+	}
+
+	@Test
+	public void testExactNumbers() throws Exception {
+		final double[] vals = { 0.1, 1.0/3.0, -2.5, 2.5e-11, 6.02214076e23, -7.0, 123456.789, Math.PI };
+		final int n = vals.length;
+		final NativeMatrix m = NativeMatrix.factory.newMatrix(1,n,true);
+		final double[] c = new double[n];
+		for(int j=0;j<n;++j) {
+			m.set(0,j,vals[j]);
+			c[j] = vals[n-1-j];
+		}
+		final LPEQProb prob = new LPEQProb(m.columnMatrix(),new double[] { 1.0/7.0 },new DenseVec(c));
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		CPLEXWriter.write(prob,bos);
+		final LPModel model = LPFormatReader.read(new ByteArrayInputStream(bos.toByteArray()));
+		assertEquals(1,model.rows.size());
+		assertEquals(1.0/7.0,model.rows.get(0).rhs,0.0);
+		for(int j=0;j<n;++j) {
+			final LPModel.Column col = model.columns.get(model.colIndex(String.format("x%05d",j)));
+			assertEquals(vals[j],col.get(0),0.0);
+			assertEquals(c[j],col.cost,0.0);
+			assertEquals(0.0,col.lo,0.0);
+		}
+	}
+
+	@Test
+	public void testCorpusRoundTrip() throws Exception {
+		final RevisedSimplexSolver solver = new RevisedSimplexSolver();
+		for(final CorpusSpeed.Instance inst: CorpusSpeed.listCorpus(corpus)) {
+			final LPEQProb prob = MPSReader.read(inst.file).toEQForm().prob;
+			final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			CPLEXWriter.write(prob,bos);
+			final LPEQProb back = LPFormatReader.read(new ByteArrayInputStream(bos.toByteArray())).toEQForm().prob;
+			final LPSoln s1 = solver.solve(prob,null,1.0e-9,10000,NativeMatrix.factory);
+			final LPSoln s2 = solver.solve(back,null,1.0e-9,10000,NativeMatrix.factory);
+			final double v1 = s1.primalSolution.dot(prob.c);
+			final double v2 = s2.primalSolution.dot(back.c);
+			assertTrue(inst.name + ": " + v1 + " vs " + v2,Math.abs(v1-v2)<1.0e-8);
+		}
+	}
+}
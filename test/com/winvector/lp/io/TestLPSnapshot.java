@@ -0,0 +1,111 @@
+package com.winvector.lp.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+
+import com.winvector.linalg.DenseVec;
+import com.winvector.linalg.PreMatrixI;
+import com.winvector.linalg.colt.NativeMatrix;
+import com.winvector.linalg.sparse.ColumnMatrix;
+import com.winvector.linalg.sparse.SparseVec;
+import com.winvector.lp.LPEQProb;
+import com.winvector.lp.LPSoln;
+import com.winvector.lp.impl.RevisedSimplexSolver;
+
+public class TestLPSnapshot {
+	private static final File corpus = new File("test/resources/lpcorpus");
+
+	private static void assertSameProb(final LPEQProb expect, final LPEQProb got) {
+		assertEquals(expect.rows(),got.rows());
+		assertEquals(expect.cols(),got.cols());
+		assertArrayEquals(expect.b,got.b,0.0);
+		for(int j=0;j<expect.cols();++j) {
+			assertEquals(expect.c(j),got.c(j),0.0);
+			final SparseVec e = expect.extractColumn(j);
+			final SparseVec g = got.extractColumn(j);
+			assertEquals(e.dim,g.dim);
+			assertEquals(e.nIndices(),g.nIndices());
+			for(int ii=0;ii<e.nIndices();++ii) {
+				assertEquals(e.index(ii),g.index(ii));
+				assertEquals(e.value(ii),g.value(ii),0.0);
+			}
+		}
+	}
+
+	@Test
+	public void testCorpusRoundTrip() throws Exception {
+		final RevisedSimplexSolver solver = new RevisedSimplexSolver();
+		final File f = File.createTempFile("snap",".wvlp");
+		try {
+			for(final CorpusSpeed.Instance inst: CorpusSpeed.listCorpus(corpus)) {
+				final LPEQProb prob = MPSReader.read(inst.file).toEQForm().prob;
+				final LPSoln s1 = solver.solve(prob,null,1.0e-9,10000,NativeMatrix.factory);
+				LPSnapshot.write(prob,null,null,s1.basisColumns,f);
+				// tiny mappings, so columns are spread over many of them
+				final LPSnapshot snap = LPSnapshot.read(f,64);
+				assertSameProb(prob,snap.prob);
+				assertArrayEquals(s1.basisColumns,snap.basis);
+				assertNull(snap.rowNames());
+				final LPSoln s2 = solver.solve(snap.prob,snap.basis,1.0e-9,10000,NativeMatrix.factory);
+				final double v1 = s1.primalSolution.dot(prob.c);
+				final double v2 = s2.primalSolution.dot(snap.prob.c);
+				assertTrue(inst.name + ": " + v1 + " vs " + v2,Math.abs(v1-v2)<1.0e-8);
+			}
+		} finally {
+			f.delete();
+		}
+	}
+
+	@Test
+	public void testNamesAndSerialization() throws Exception {
+		final LPEQProb prob = new LPEQProb(new ColumnMatrix(2,new SparseVec[] {
+				new SparseVec(2,new int[] {0},new double[] {1.0}),
+				new SparseVec(2,new int[0],new double[0]),
+				new SparseVec(2,new int[] {0,1},new double[] {-2.5,1.0e300}) }),
+				new double[] {1.0,2.0},new DenseVec(new double[] {0.0,1.0,-1.0}));
+		final String[] rowNames = { "r\u00e9sum\u00e9", "" };
+		final String[] colNames = { "x", "y", "a longer name" };
+		final File f = File.createTempFile("snap",".wvlp");
+		try {
+			LPSnapshot.write(prob,rowNames,colNames,null,f);
+			final LPSnapshot snap = LPSnapshot.read(f);
+			assertSameProb(prob,snap.prob);
+			assertNull(snap.basis);
+			assertArrayEquals(rowNames,snap.rowNames());
+			assertArrayEquals(colNames,snap.colNames());
+			// Java serialization falls back to an ordinary ColumnMatrix
+			final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			final ObjectOutputStream oos = new ObjectOutputStream(bos);
+			oos.writeObject(snap.prob.A);
+			oos.close();
+			final PreMatrixI back = (PreMatrixI)new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray())).readObject();
+			assertTrue(back instanceof ColumnMatrix);
+			assertSameProb(prob,new LPEQProb(back,prob.b,prob.c));
+			// not a snapshot
+			final FileOutputStream fos = new FileOutputStream(f);
+			fos.write(new byte[LPSnapshot.HEADER_BYTES]);
+			fos.close();
+			try {
+				LPSnapshot.read(f);
+				fail("read garbage");
+			} catch (IOException ex) {
+				// expected
+			}
+		} finally {
+			f.delete();
+		}
+	}
+}
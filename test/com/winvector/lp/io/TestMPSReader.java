@@ -0,0 +1,153 @@
+package com.winvector.lp.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+import com.winvector.linalg.colt.NativeMatrix;
+import com.winvector.lp.LPSolver;
+import com.winvector.lp.apachem3.M3Solver;
+import com.winvector.lp.impl.RevisedSimplexSolver;
+
+public class TestMPSReader {
+	private static final File corpus = new File("test/resources/lpcorpus");
+
+	@Test
+	public void testParse() throws IOException {
+		final String mps = "NAME T\n"
+				+ "ROWS\n N obj\n L r1\n E r2\n"
+				+ "COLUMNS\n x obj 1 r1 2\n x r2 1\n y obj -1 r2 1\n"
+				+ "RHS\n rhs obj 5 r1 4\n"
+				+ "RANGES\n rng r2 -2\n"
+				+ "BOUNDS\n UP bnd x -1\n FR bnd y\n"
+				+ "ENDATA\n";
+		final LPModel model = MPSReader.read(new ByteArrayInputStream(mps.getBytes("US-ASCII")));
+		assertEquals("T",model.name);
+		assertEquals(2,model.rows.size());
+		assertEquals(2,model.columns.size());
+		assertEquals(-5.0,model.objConst,0.0);
+		final LPModel.Column x = model.columns.get(model.colIndex("x"));
+		assertEquals(Double.NEGATIVE_INFINITY,x.lo,0.0);
+		assertEquals(-1.0,x.up,0.0);
+		assertEquals(2.0,x.get(model.rowIndex("r1")),0.0);
+		final LPModel.Row r2 = model.rows.get(model.rowIndex("r2"));
+		assertEquals(-2.0,r2.lower(),0.0);
+		assertEquals(0.0,r2.upper(),0.0);
+		assertEquals(Double.NEGATIVE_INFINITY,model.rows.get(model.rowIndex("r1")).lower(),0.0);
+	}
+
+	@Test
+	public void testNumbersAndLongInput() throws IOException {
+		// many rows and columns (forces buffer refills and hash growth), CRLF line ends, odd numbers
+		final StringBuilder b = new StringBuilder();
+		b.append("NAME BIG\r\nROWS\r\n N obj\r\n");
+		final int n = 3000;
+		for(int i=0;i<n;++i) {
+			b.append(" E row").append(i).append("\r\n");
+		}
+		b.append("COLUMNS\r\n");
+		final String[] nums = { "1", "-2.5", "0.001", "1e3", "-1.25E-2", "3.D2", "+7.", "12345678901234567890", ".5" };
+		final double[] vals = { 1, -2.5, 0.001, 1e3, -1.25e-2, 300, 7, 12345678901234567890.0, 0.5 };
+		for(int j=0;j<n;++j) {
+			// rows listed out of order to exercise the per-column sort
+			b.append(" col").append(j).append(" row").append((j+1)%n).append(" ").append(nums[j%nums.length]).append("\r\n");
+			b.append(" col").append(j).append(" row").append(j).append(" 1 obj 1\r\n");
+		}
+		b.append("ENDATA\r\n");
+		final LPModel model = MPSReader.read(new ByteArrayInputStream(b.toString().getBytes("US-ASCII")));
+		assertEquals(n,model.rows.size());
+		assertEquals(n,model.columns.size());
+		for(int j=0;j<n;++j) {
+			final LPModel.Column c = model.columns.get(j);
+			assertEquals("col" + j,c.name);
+			assertEquals(2,c.nEntries());
+			assertTrue(c.rowIndex(0)<c.rowIndex(1));
+			assertEquals(vals[j%nums.length],c.get((j+1)%n),0.0);
+			assertEquals(1.0,c.get(j),0.0);
+			assertEquals(1.0,c.cost,0.0);
+		}
+		assertEquals(17,model.rowIndex("row17"));
+		assertEquals(-1,model.rowIndex("row" + n));
+	}
+
+	@Test
+	public void testGzip() throws Exception {
+		final File src = new File(corpus,"bounds.mps");
+		final File gz = File.createTempFile("bounds",".mps.gz");
+		try {
+			final FileInputStream fis = new FileInputStream(src);
+			final GZIPOutputStream gos = new GZIPOutputStream(new FileOutputStream(gz));
+			final byte[] buf = new byte[4096];
+			int r;
+			while((r=fis.read(buf))>0) {
+				gos.write(buf,0,r);
+			}
+			fis.close();
+			gos.close();
+			final LPModel plain = MPSReader.read(src);
+			final LPModel zipped = MPSReader.read(gz);
+			assertEquals(plain.columns.size(),zipped.columns.size());
+			assertEquals(plain.objConst,zipped.objConst,0.0);
+			for(int j=0;j<plain.columns.size();++j) {
+				final LPModel.Column a = plain.columns.get(j);
+				final LPModel.Column b = zipped.columns.get(j);
+				assertEquals(a.name,b.name);
+				assertEquals(a.nEntries(),b.nEntries());
+				assertEquals(a.lo,b.lo,0.0);
+				assertEquals(a.up,b.up,0.0);
+			}
+		} finally {
+			gz.delete();
+		}
+	}
+
+	@Test
+	public void testCorpus() throws Exception {
+		final ArrayList<CorpusSpeed.Instance> instances = CorpusSpeed.listCorpus(corpus);
+		assertTrue(instances.size()>=5);
+		final RevisedSimplexSolver solver = new RevisedSimplexSolver();
+		for(final CorpusSpeed.Instance inst: instances) {
+			final LPModel.EQForm form = MPSReader.read(inst.file).toEQForm();
+			final CorpusSpeed.RunResult res = CorpusSpeed.runOne(form,inst.optimum,solver,NativeMatrix.factory);
+			assertTrue(inst.name + ": " + res.failure,null==res.failure);
+			assertTrue(inst.name + " objective " + res.objective,res.objErr<1.0e-6);
+			assertTrue(res.pivots>=0);
+		}
+	}
+
+	@Test
+	public void testRunnerTSV() throws Exception {
+		final Map<String,LPSolver> solvers = new TreeMap<String,LPSolver>();
+		solvers.put("ApacheM3Simplex",new M3Solver());
+		solvers.put("WVLPSolver",new RevisedSimplexSolver());
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		final PrintStream p = new PrintStream(bos);
+		final ArrayList<CorpusSpeed.Instance> instances = CorpusSpeed.listCorpus(corpus);
+		CorpusSpeed.runCorpus(instances,solvers,NativeMatrix.factory,p);
+		p.close();
+		final String[] lines = bos.toString().split("\n");
+		final String[] header = lines[0].split("\t");
+		assertEquals("assignmentSize",header[0]);
+		int nData = 0;
+		for(int i=1;i<lines.length;++i) {
+			if(!lines[i].startsWith("#")) {
+				assertEquals(header.length,lines[i].split("\t").length);
+				++nData;
+			}
+		}
+		assertEquals(instances.size(),nData);
+	}
+}
@@ -0,0 +1,34 @@
+* every bound type, plus an objective constant (RHS on the objective row)
+NAME          BOUNDS
+ROWS
+ N  OBJ
+ L  R1
+ G  R2
+ E  R3
+ L  R4
+COLUMNS
+    XUP       OBJ           -1.0   R1             1.0
+    XUP       R2             1.0
+    XLO       OBJ            1.0   R1             1.0
+    XLO       R3             1.0
+    XFX       OBJ            2.0   R2             1.0
+    XFX       R4             1.0
+    XFR       OBJ            1.0   R3             1.0
+    XFR       R4            -1.0
+    XMI       OBJ           -1.0   R2             1.0
+    XMI       R4             1.0
+    XNEG      OBJ            1.0   R1            -1.0
+RHS
+    RHS       OBJ          -10.0
+    RHS       R1             8.0   R2            -2.0
+    RHS       R3             3.0   R4             5.0
+BOUNDS
+ UP BND       XUP            4.0
+ LO BND       XLO            1.0
+ FX BND       XFX            2.0
+ FR BND       XFR
+ MI BND       XMI
+ UP BND       XMI            3.0
+ UP BND       XNEG          -1.0
+ LO BND       XNEG          -5.0
+ENDATA
@@ -0,0 +1,18 @@
+* small diet problem: G rows
+NAME          DIET
+ROWS
+ N  COST
+ G  CALORIE
+ G  PROTEIN
+ G  FAT
+COLUMNS
+    OATS      COST           0.6   CALORIE        5.0
+    OATS      PROTEIN        4.0   FAT            2.0
+    MILK      COST          0.35   CALORIE        7.0
+    MILK      PROTEIN        2.0   FAT            1.0
+    BREAD     COST           0.4   CALORIE        4.0
+    BREAD     PROTEIN        3.0
+RHS
+    RHS       CALORIE        8.0   PROTEIN       15.0
+    RHS       FAT            3.0
+ENDATA
@@ -0,0 +1,21 @@
+* free variables, negative right hand sides, a second (ignored) N row, free format
+NAME FREEVARS
+ROWS
+ N COST
+ N SPARE
+ G C1
+ L C2
+ G C3
+COLUMNS
+ U COST 1.0 C1 1.0
+ U C2 1.0 SPARE 7.0
+ U C3 -1.0
+ V COST 2.0 C1 1.0
+ V C2 -1.0 C3 1.0
+RHS
+ C1 -3.0 C2 4.0
+ C3 -6.0
+BOUNDS
+ FR BND U
+ FR BND V
+ENDATA
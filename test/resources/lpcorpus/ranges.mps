@@ -0,0 +1,26 @@
+* RANGES on L, G and E rows (both signs for E)
+NAME          RANGES
+ROWS
+ N  OBJ
+ L  RL
+ G  RG
+ E  REP
+ E  REN
+COLUMNS
+    X         OBJ           -1.0   RL             1.0
+    X         REP            1.0
+    Y         OBJ           -2.0   RL             1.0
+    Y         RG             1.0
+    Z         OBJ            1.0   RG             1.0
+    Z         REN            1.0
+    W         OBJ           -1.0   REP            1.0
+    W         REN            1.0
+RHS
+    RHS       RL            10.0   RG             2.0
+    RHS       REP            4.0   REN            6.0
+RANGES
+    RNG       RL             4.0   RG             3.0
+    RNG       REP            2.0   REN           -3.0
+BOUNDS
+ UP BND       W              5.0
+ENDATA
@@ -0,0 +1,27 @@
+* 2 by 3 transportation problem: E rows, balanced
+NAME          TRANSP
+ROWS
+ N  COST
+ E  S1
+ E  S2
+ E  D1
+ E  D2
+ E  D3
+COLUMNS
+    X11       COST           4.0   S1             1.0
+    X11       D1             1.0
+    X12       COST           6.0   S1             1.0
+    X12       D2             1.0
+    X13       COST           9.0   S1             1.0
+    X13       D3             1.0
+    X21       COST           5.0   S2             1.0
+    X21       D1             1.0
+    X22       COST           3.0   S2             1.0
+    X22       D2             1.0
+    X23       COST           7.0   S2             1.0
+    X23       D3             1.0
+RHS
+    RHS       S1            20.0   S2            30.0
+    RHS       D1            15.0   D2            25.0
+    RHS       D3            10.0
+ENDATA